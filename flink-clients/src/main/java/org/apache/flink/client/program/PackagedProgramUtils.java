@@ -23,7 +23,7 @@ import org.apache.flink.configuration.Configuration;
 import org.apache.flink.core.fs.Path;
 import org.apache.flink.optimizer.DataStatistics;
 import org.apache.flink.optimizer.Optimizer;
-import org.apache.flink.optimizer.costs.DefaultCostEstimator;
+import org.apache.flink.optimizer.costs.GeoCostEstimator;
 import org.apache.flink.optimizer.plan.FlinkPlan;
 import org.apache.flink.optimizer.plan.OptimizedPlan;
 import org.apache.flink.optimizer.plan.StreamingPlan;
@@ -52,7 +52,7 @@ public class PackagedProgramUtils {
 			Configuration configuration,
 			int defaultParallelism) throws ProgramInvocationException {
 		Thread.currentThread().setContextClassLoader(packagedProgram.getUserCodeClassLoader());
-		final Optimizer optimizer = new Optimizer(new DataStatistics(), new DefaultCostEstimator(), configuration);
+		final Optimizer optimizer = new Optimizer(new DataStatistics(), GeoCostEstimator.fromConfiguration(configuration), configuration);
 		final FlinkPlan flinkPlan;
 
 		if (packagedProgram.isUsingProgramEntryPoint()) {
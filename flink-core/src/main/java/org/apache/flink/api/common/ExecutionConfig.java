@@ -154,6 +154,12 @@ public class ExecutionConfig implements Serializable, Archiveable<ArchivedExecut
 	/** Determines if a task fails or not if there is an error in writing its checkpoint data. Default: true */
 	private boolean failTaskOnCheckpointError = true;
 
+	/**
+	 * Number of partial aggregates a site-local combiner keeps before flushing them, or -1 if keyed window
+	 * aggregations are not pre-aggregated before their shuffle. Default: -1
+	 */
+	private int geoLocalPreAggregationMaxPartials = -1;
+
 	// ------------------------------- User code values --------------------------------------------
 
 	private GlobalJobParameters globalJobParameters;
@@ -884,6 +890,53 @@ public class ExecutionConfig implements Serializable, Archiveable<ArchivedExecut
 		this.failTaskOnCheckpointError = failTaskOnCheckpointError;
 	}
 
+	/**
+	 * Enables the pre-aggregation of keyed window aggregations before their shuffle, keeping up to 10000 partial
+	 * aggregates in each combiner.
+	 *
+	 * @see #enableGeoLocalPreAggregation(int)
+	 */
+	@PublicEvolving
+	public ExecutionConfig enableGeoLocalPreAggregation() {
+		return enableGeoLocalPreAggregation(10000);
+	}
+
+	/**
+	 * Enables the pre-aggregation of keyed window aggregations before their shuffle. A combiner chained to the
+	 * input of each event time window aggregation or reduction merges the records of each key and window on the site
+	 * they are produced at, so that only the partial aggregates are sent to the subtasks owning the keys, which may be
+	 * at other sites. The partial aggregates are combined there with
+	 * {@link org.apache.flink.api.common.functions.AggregateFunction#merge}, or with the
+	 * {@link org.apache.flink.api.common.functions.ReduceFunction} itself.
+	 *
+	 * <p>The combiners flush the partial aggregates of a window when the watermark passes its end, and all of their
+	 * partial aggregates when they have more than the given number.
+	 *
+	 * @param maxPartials The number of partial aggregates each combiner keeps before flushing them.
+	 */
+	@PublicEvolving
+	public ExecutionConfig enableGeoLocalPreAggregation(int maxPartials) {
+		checkArgument(maxPartials > 0, "The number of partial aggregates must be positive.");
+		this.geoLocalPreAggregationMaxPartials = maxPartials;
+		return this;
+	}
+
+	@PublicEvolving
+	public ExecutionConfig disableGeoLocalPreAggregation() {
+		this.geoLocalPreAggregationMaxPartials = -1;
+		return this;
+	}
+
+	@PublicEvolving
+	public boolean isGeoLocalPreAggregationEnabled() {
+		return geoLocalPreAggregationMaxPartials > 0;
+	}
+
+	@PublicEvolving
+	public int getGeoLocalPreAggregationMaxPartials() {
+		return geoLocalPreAggregationMaxPartials;
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (obj instanceof ExecutionConfig) {
@@ -909,7 +962,8 @@ public class ExecutionConfig implements Serializable, Archiveable<ArchivedExecut
 				registeredKryoTypes.equals(other.registeredKryoTypes) &&
 				registeredPojoTypes.equals(other.registeredPojoTypes) &&
 				taskCancellationIntervalMillis == other.taskCancellationIntervalMillis &&
-				useSnapshotCompression == other.useSnapshotCompression;
+				useSnapshotCompression == other.useSnapshotCompression &&
+				geoLocalPreAggregationMaxPartials == other.geoLocalPreAggregationMaxPartials;
 
 		} else {
 			return false;
@@ -937,7 +991,8 @@ public class ExecutionConfig implements Serializable, Archiveable<ArchivedExecut
 			registeredKryoTypes,
 			registeredPojoTypes,
 			taskCancellationIntervalMillis,
-			useSnapshotCompression);
+			useSnapshotCompression,
+			geoLocalPreAggregationMaxPartials);
 	}
 
 	public boolean canEqual(Object obj) {
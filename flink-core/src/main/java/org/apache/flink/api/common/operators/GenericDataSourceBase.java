@@ -50,6 +50,8 @@ public class GenericDataSourceBase<OUT, T extends InputFormat<OUT, ?>> extends O
 
 	protected String statisticsKey;
 
+	private String geoLocationKey;
+
 	private SplitDataProperties splitProperties;
 
 	/**
@@ -165,6 +167,25 @@ public class GenericDataSourceBase<OUT, T extends InputFormat<OUT, ?>> extends O
 		this.statisticsKey = statisticsKey;
 	}
 
+	/**
+	 * Gets the key of the geo location the data of this source is stored at.
+	 *
+	 * @return The key of the geo location, or null, if the data is not at a single geo location.
+	 */
+	public String getGeoLocationKey() {
+		return this.geoLocationKey;
+	}
+
+	/**
+	 * Sets the key of the geo location the data of this source is stored at. The optimizer may then avoid
+	 * shipping the data between geo locations, and the source is placed at that location.
+	 *
+	 * @param geoLocationKey The key of the geo location, or null, if the data is not at a single geo location.
+	 */
+	public void setGeoLocationKey(String geoLocationKey) {
+		this.geoLocationKey = geoLocationKey;
+	}
+
 	/**
 	 * Sets properties of input splits for this data source.
 	 * Split properties can help to generate more efficient execution plans.
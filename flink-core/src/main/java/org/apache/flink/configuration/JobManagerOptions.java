@@ -148,6 +148,13 @@ public class JobManagerOptions {
 			.defaultValue(false)
 			.withDescription("True if deploying in a geo-distributed cluster");
 
+	public static final ConfigOption<Long> GEO_SLOT_REQUEST_TIMEOUT =
+		key("slot.request.geo-location-timeout")
+			.defaultValue(30L * 1000L)
+			.withDescription("The timeout in milliseconds for requesting a slot at the geo locations chosen by the" +
+				" placement of a job, after which the slot is requested at any geo location. It is bounded by" +
+				" \"slot.request.timeout\".");
+
 
 	// ---------------------------------------------------------------------------------------------
 
@@ -38,6 +38,210 @@ public class OptimisationModelOptions {
 			.defaultValue(false)
 			.withDescription("Enable slot sharing when geo scheduling");
 
+	public static final ConfigOption<String> SOLVER =
+		key("optimisation-model.solver")
+			.defaultValue("gurobi")
+			.withDescription("The solver of the placement model. \"gurobi\" solves it exactly, but needs a licensed" +
+				" native Gurobi library. \"gurobi-linearised\" solves the same problem with a linear formulation, that is" +
+				" usually faster. \"heuristic\" is a pure-Java local search solver, that returns good" +
+				" solutions within milliseconds.");
+
+	public static final ConfigOption<Integer> SOLUTION_CACHE_SIZE =
+		key("optimisation-model.solution-cache-size")
+			.defaultValue(64)
+			.withDescription("Number of placement solutions the JobManager keeps, so that resubmitted or restarted" +
+				" jobs don't need to solve the model again. Set to 0 to disable the cache.");
+
+	public static final ConfigOption<Integer> SOLVER_THREADS =
+		key("optimisation-model.solver-threads")
+			.defaultValue(2)
+			.withDescription("Number of threads the JobManager dedicates to solving placement models. Jobs submitted" +
+				" while all the solver threads are busy wait for one of them to become available.");
+
+	public static final ConfigOption<Integer> HIERARCHICAL_MIN_LOCATIONS =
+		key("optimisation-model.hierarchical-min-locations")
+			.defaultValue(-1)
+			.withDescription("Number of geo locations from which the placement is solved hierarchically: the locations" +
+				" are clustered into regions of close locations, the vertices are placed at regions, then at the" +
+				" locations of each region, the regions being solved in parallel. Set to a negative value to always" +
+				" solve the placement at all the locations at once.");
+
+	public static final ConfigOption<Integer> MAX_REGION_SIZE =
+		key("optimisation-model.max-region-size")
+			.defaultValue(8)
+			.withDescription("Maximum number of geo locations in a region, when the placement is solved" +
+				" hierarchically.");
+
+	public static final ConfigOption<Long> SOLVER_TIME_BUDGET =
+		key("optimisation-model.solver-time-budget")
+			.defaultValue(-1L)
+			.withDescription("Time in milliseconds the placement of a job may take. Within it, several solvers and" +
+				" configurations are run in parallel from different starts, and the best placement any of them found is" +
+				" used. Set to a negative value to run the configured solver alone, for up to 10 seconds for each vertex.");
+
+	public static final ConfigOption<Integer> SOLVER_STARTS =
+		key("optimisation-model.solver-starts")
+			.defaultValue(4)
+			.withDescription("Number of solvers run in parallel when the placement has a time budget. The configured" +
+				" solver always runs, the others are the other Gurobi formulation and heuristic solvers with different" +
+				" seeds.");
+
+	public static final ConfigOption<String> BANDWIDTHS_FILE =
+		key("optimisation-model.bandwidths-file")
+			.noDefaultValue()
+			.withDescription("A file with the bandwidths between geo locations, one \"from,to,bandwidth\" line for" +
+				" each link. Bandwidths are in bytes per second, the unit of the measured bandwidths. Links missing" +
+				" from the file have bandwidth 1.");
+
+	public static final ConfigOption<String> ROUND_TRIP_TIMES_FILE =
+		key("optimisation-model.round-trip-times-file")
+			.noDefaultValue()
+			.withDescription("A file with the round trip times between geo locations, one \"from,to,milliseconds\" line" +
+				" for each link. Round trips are symmetric, a line is enough for both directions. The latency of the" +
+				" paths of a job is only modelled for the links with a known round trip time.");
+
+	public static final ConfigOption<Double> MAX_PATH_LATENCY =
+		key("optimisation-model.max-path-latency")
+			.defaultValue(-1d)
+			.withDescription("Latency objective in milliseconds for every path from a source to a sink of a job," +
+				" counting half of the round trip time of each link crossed. Set to a negative value for no objective.");
+
+	public static final ConfigOption<Integer> MAX_PATH_WAN_HOPS =
+		key("optimisation-model.max-path-wan-hops")
+			.defaultValue(-1)
+			.withDescription("Maximum number of times a path from a source to a sink of a job crosses geo locations." +
+				" Set to a negative value for no limit.");
+
+	public static final ConfigOption<String> LATENCY_OBJECTIVE_MODE =
+		key("optimisation-model.latency-objective-mode")
+			.defaultValue("penalty")
+			.withDescription("How placements exceeding the path latency or the WAN hops limit are treated." +
+				" \"penalty\" adds the excess to the cost of the placement, \"constraint\" forbids them.");
+
+	public static final ConfigOption<Double> LATENCY_PENALTY_WEIGHT =
+		key("optimisation-model.latency-penalty-weight")
+			.defaultValue(1d)
+			.withDescription("Weight of the latency penalty. With weight 1, exceeding the limits by 100% costs as much" +
+				" as the highest possible execution speed.");
+
+	public static final ConfigOption<Boolean> MEASURE_BANDWIDTHS =
+		key("optimisation-model.measure-bandwidths")
+			.defaultValue(false)
+			.withDescription("Use the throughput and the round trip times measured by the TaskManagers' network stacks" +
+				" as the bandwidths and latencies between geo locations. The bandwidths file, if any, is only used for the" +
+				" links without a recent measurement.");
+
+	public static final ConfigOption<Long> BANDWIDTH_MEASUREMENT_HALF_LIFE =
+		key("optimisation-model.bandwidth-measurement-half-life")
+			.defaultValue(60000L)
+			.withDescription("Time in milliseconds after which a measured throughput weighs half as much as a new" +
+				" one. Links without measurements for 10 half lives fall back to the bandwidths file.");
+
+	public static final ConfigOption<Boolean> PROFILE_OPERATORS =
+		key("optimisation-model.profile-operators")
+			.defaultValue(false)
+			.withDescription("Measure the selectivity and the cost per record of the job vertices from the records" +
+				" they read and write and the CPU time of their threads, and use the measured values instead of the weight and selectivity hints the next" +
+				" time the placement of a job with the same vertices is solved.");
+
+	public static final ConfigOption<String> OPERATOR_PROFILES_FILE =
+		key("optimisation-model.operator-profiles-file")
+			.noDefaultValue()
+			.withDescription("A file the measured operator profiles are kept in, so that they survive JobManager" +
+				" restarts. Without it, the profiles are kept in memory only.");
+
+	public static final ConfigOption<Boolean> KEY_GROUP_LOCALITY =
+		key("optimisation-model.key-group-locality")
+			.defaultValue(false)
+			.withDescription("Count the records written to each key-group by the subtasks of each geo location, and size" +
+				" the key-group ranges of the keyed vertices placed at several locations so that the subtasks at a location" +
+				" own the key-groups whose records are mostly produced there. The subtasks of such vertices are pinned to" +
+				" their location. The counts of a run are used the next time the job is placed.");
+
+	public static final ConfigOption<Double> KEY_GROUP_MAX_IMBALANCE =
+		key("optimisation-model.key-group-max-imbalance")
+			.defaultValue(0.5d)
+			.withDescription("How much the number of key-groups of the subtasks at a location can deviate from an even" +
+				" split, as a fraction of the even split, when the key-group ranges follow the traffic.");
+
+	public static final ConfigOption<String> BUFFER_TIMEOUT_MODE =
+		key("optimisation-model.buffer-timeout-mode")
+			.defaultValue("operator")
+			.withDescription("How the buffer timeout of each channel between two subtasks is chosen. \"operator\" uses" +
+				" the buffer timeout of the producing operator for all its channels. \"static\" uses the local buffer" +
+				" timeout for the channels within a geo location, and the WAN buffer timeout for the channels between geo" +
+				" locations. \"auto\" derives the timeout of the channels between geo locations from the bandwidth and" +
+				" the round trip time of their link.");
+
+	public static final ConfigOption<Long> LOCAL_BUFFER_TIMEOUT =
+		key("optimisation-model.local-buffer-timeout")
+			.defaultValue(-1L)
+			.withDescription("Buffer timeout in milliseconds of the channels within a geo location, when the buffer" +
+				" timeout mode isn't \"operator\". Set to a negative value to keep the timeout of the operator.");
+
+	public static final ConfigOption<Long> WAN_BUFFER_TIMEOUT =
+		key("optimisation-model.wan-buffer-timeout")
+			.defaultValue(-1L)
+			.withDescription("Buffer timeout in milliseconds of the channels between geo locations in the \"static\"" +
+				" mode, and of the links without bandwidth or round trip time in the \"auto\" mode. Set to a negative" +
+				" value to keep the timeout of the operator.");
+
+	public static final ConfigOption<Double> BUFFER_TIMEOUT_LATENCY_FRACTION =
+		key("optimisation-model.buffer-timeout-latency-fraction")
+			.defaultValue(0.1d)
+			.withDescription("In the \"auto\" buffer timeout mode, the fraction of the latency of a link a buffer may" +
+				" wait for more records. The timeout is never shorter than the time the link takes to send a full" +
+				" buffer.");
+
+	public static final ConfigOption<Long> MAX_BUFFER_TIMEOUT =
+		key("optimisation-model.max-buffer-timeout")
+			.defaultValue(1000L)
+			.withDescription("Highest buffer timeout in milliseconds the \"auto\" buffer timeout mode chooses.");
+
+	public static final ConfigOption<Boolean> ADAPTIVE_REPLACEMENT =
+		key("optimisation-model.adaptive-replacement")
+			.defaultValue(false)
+			.withDescription("Periodically compare the cost of the running placement of a job with a placement solved" +
+				" for the traffic observed between its vertices, and move the job with a savepoint when the new placement" +
+				" is cheaper by the replacement cost margin. The TaskManagers report the traffic of their tasks with their" +
+				" heartbeats only if this is set in their configuration as well.");
+
+	public static final ConfigOption<Long> REPLACEMENT_CHECK_INTERVAL =
+		key("optimisation-model.replacement-check-interval")
+			.defaultValue(60000L)
+			.withDescription("Time in milliseconds between two comparisons of the running placement with a new one.");
+
+	public static final ConfigOption<Double> REPLACEMENT_COST_MARGIN =
+		key("optimisation-model.replacement-cost-margin")
+			.defaultValue(0.2d)
+			.withDescription("Fraction of the cost of the running placement a new placement has to save for the job" +
+				" to be moved.");
+
+	public static final ConfigOption<Integer> REPLACEMENT_STABLE_CHECKS =
+		key("optimisation-model.replacement-stable-checks")
+			.defaultValue(3)
+			.withDescription("Number of consecutive comparisons in which a new placement has to be cheaper by the" +
+				" margin for the job to be moved, so that short traffic peaks don't move it.");
+
+	public static final ConfigOption<Long> REPLACEMENT_MIN_INTERVAL =
+		key("optimisation-model.replacement-min-interval")
+			.defaultValue(600000L)
+			.withDescription("Minimum time in milliseconds between the deployment of a job and its move to a new" +
+				" placement, and between two moves.");
+
+	public static final ConfigOption<Boolean> BATCH_GEO_COST_ESTIMATION =
+		key("optimisation-model.batch-geo-cost-estimation")
+			.defaultValue(false)
+			.withDescription("Let the optimizer of batch jobs price the data shipped between the geo locations of" +
+				" their sources with the bandwidths file, so that it prefers the plans crossing geo locations the least.");
+
+	public static final ConfigOption<Double> LOCAL_BANDWIDTH =
+		key("optimisation-model.local-bandwidth")
+			.defaultValue(125000000d)
+			.withDescription("Bandwidth in bytes per second within a geo location. The optimizer of batch jobs prices a" +
+				" byte shipped between geo locations as this bandwidth divided by the bandwidth of the link, on top of" +
+				" the byte itself.");
+
 	// ---------------------------------------------------------------------------------------------
 
 	private OptimisationModelOptions() {
@@ -0,0 +1,63 @@
+package benchmarks;
+
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.jobmanager.scheduler.GeoScheduler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import writableTypes.InstancesAtLocations;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time of {@link GeoScheduler#calculateAvailableSlotsByGeoLocation()}, read before each placement, as a
+ * function of the number of locations and of instances.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class AvailableSlotsBenchmark {
+
+	private static final int SLOTS_PER_INSTANCE = 16;
+
+	@Param({"4", "64", "512"})
+	public int locations;
+
+	/**
+	 * The instances, spread over the locations, with {@value #SLOTS_PER_INSTANCE} slots each.
+	 */
+	@Param({"512", "4096"})
+	public int instances;
+
+	private GeoScheduler scheduler;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		GeoBenchmarkUtils.disableLogging();
+		scheduler = GeoBenchmarkUtils.createScheduler(new InstancesAtLocations(instances, locations, SLOTS_PER_INSTANCE));
+	}
+
+	@TearDown(Level.Trial)
+	public void teardown() {
+		scheduler.shutdown();
+	}
+
+	@Benchmark
+	public Map<GeoLocation, Integer> calculateAvailableSlotsByGeoLocation() {
+		return scheduler.calculateAvailableSlotsByGeoLocation();
+	}
+}
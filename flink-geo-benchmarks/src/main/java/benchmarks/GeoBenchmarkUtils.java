@@ -0,0 +1,58 @@
+package benchmarks;
+
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.executiongraph.OptimisationModelParameters;
+import org.apache.flink.runtime.instance.Instance;
+import org.apache.flink.runtime.jobmanager.scheduler.BandwidthProvider;
+import org.apache.flink.runtime.jobmanager.scheduler.GeoScheduler;
+import org.apache.flink.runtime.testingUtils.TestingUtils;
+import org.apache.log4j.Level;
+import org.apache.log4j.LogManager;
+import writableTypes.TestInstanceSet;
+import writableTypes.TestJobGraph;
+
+import java.util.Map;
+
+/**
+ * Sets up the schedulers and the solved job graphs the benchmarks measure.
+ */
+final class GeoBenchmarkUtils {
+
+	private GeoBenchmarkUtils() {
+	}
+
+	/**
+	 * Turns the logging off, the scheduler and the solvers log each decision.
+	 */
+	static void disableLogging() {
+		LogManager.getRootLogger().setLevel(Level.OFF);
+	}
+
+	/**
+	 * @return a {@link GeoScheduler} knowing all the instances of the set
+	 */
+	static GeoScheduler createScheduler(TestInstanceSet instanceSet) {
+		GeoScheduler scheduler = new GeoScheduler(TestingUtils.defaultExecutor());
+		for (Instance instance : instanceSet.getInstances()) {
+			scheduler.newInstanceAvailable(instance);
+		}
+		return scheduler;
+	}
+
+	/**
+	 * Solves the placement of a job graph, which also sets the weights of its edges and the parallelism of its vertices.
+	 *
+	 * @throws IllegalStateException if the graph couldn't be placed
+	 */
+	static void solve(TestJobGraph jobGraph,
+					  OptimisationModelParameters parameters,
+					  BandwidthProvider bandwidthProvider,
+					  Map<GeoLocation, Integer> slots) {
+		jobGraph.getJobGraph().setOptimisationModelParameters(parameters);
+		jobGraph.getJobGraph().solveOptimisationModel(bandwidthProvider, slots);
+
+		if (jobGraph.getJobGraph().getSolution() == null) {
+			throw new IllegalStateException("Could not place " + jobGraph.getClassNameString() + " at " + slots);
+		}
+	}
+}
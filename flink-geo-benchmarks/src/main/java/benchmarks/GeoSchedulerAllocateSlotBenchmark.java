@@ -0,0 +1,193 @@
+package benchmarks;
+
+import org.apache.flink.api.common.time.Time;
+import org.apache.flink.runtime.clusterframework.types.SlotProfile;
+import org.apache.flink.runtime.executiongraph.ExecutionGraph;
+import org.apache.flink.runtime.executiongraph.ExecutionJobVertex;
+import org.apache.flink.runtime.executiongraph.ExecutionVertex;
+import org.apache.flink.runtime.executiongraph.OptimisationModelParameters;
+import org.apache.flink.runtime.executiongraph.OptimisationModelSolverType;
+import org.apache.flink.runtime.jobmanager.scheduler.GeoScheduler;
+import org.apache.flink.runtime.jobmanager.scheduler.ScheduledUnit;
+import org.apache.flink.runtime.jobmanager.scheduler.SlotSharingGroup;
+import org.apache.flink.runtime.jobmanager.scheduler.StaticBandwidthProvider;
+import org.apache.flink.runtime.jobmaster.LogicalSlot;
+import org.apache.flink.runtime.jobmaster.SlotRequestId;
+import org.apache.flink.types.TwoKeysMultiMap;
+import org.apache.flink.util.ExecutorUtils;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import writableTypes.InstancesAtLocations;
+import writableTypes.SimpleJobGraph;
+import writableTypes.TestInstanceSet;
+import writableTypes.TestJobGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.flink.runtime.jobmanager.scheduler.SchedulerTestUtils.makeExecutionGraph;
+
+/**
+ * Measures the throughput of {@link GeoScheduler#allocateSlot} when all the subtasks of a placed {@link SimpleJobGraph}
+ * request their slot at once, from several threads, as a function of the number of vertices, of locations and of
+ * instances. Each invocation allocates a slot to every subtask, the slots being released between the invocations.
+ *
+ * <p>The allocations and the failed allocations are reported per second, next to the invocations per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class GeoSchedulerAllocateSlotBenchmark {
+
+	private static final int MAX_PARALLELISM = 4;
+
+	private static final int SLOTS_PER_INSTANCE = 16;
+
+	private static final Time ALLOCATION_TIMEOUT = Time.seconds(10L);
+
+	/**
+	 * The graph has twice as many vertices plus one, with up to {@value #MAX_PARALLELISM} subtasks each.
+	 */
+	@Param({"64", "512"})
+	public int mapTasks;
+
+	@Param({"4", "16", "64"})
+	public int locations;
+
+	/**
+	 * The instances, spread over the locations, with {@value #SLOTS_PER_INSTANCE} slots each.
+	 */
+	@Param({"64", "512"})
+	public int instances;
+
+	@Param({"false", "true"})
+	public boolean slotSharing;
+
+	/**
+	 * The threads requesting the slots at the same time.
+	 */
+	@Param({"1", "8"})
+	public int requestThreads;
+
+	private GeoScheduler scheduler;
+
+	private ExecutorService requestExecutor;
+
+	private final List<ScheduledUnit> units = new ArrayList<>();
+
+	private final Queue<LogicalSlot> allocatedSlots = new ConcurrentLinkedQueue<>();
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		GeoBenchmarkUtils.disableLogging();
+
+		TestInstanceSet instanceSet = new InstancesAtLocations(instances, locations, SLOTS_PER_INSTANCE);
+		scheduler = GeoBenchmarkUtils.createScheduler(instanceSet);
+
+		OptimisationModelParameters parameters = new OptimisationModelParameters(0.5, 0.5, 10, slotSharing);
+		parameters.setSolverType(OptimisationModelSolverType.HEURISTIC);
+
+		TestJobGraph jobGraph = new SimpleJobGraph(mapTasks, MAX_PARALLELISM);
+		GeoBenchmarkUtils.solve(jobGraph, parameters, new StaticBandwidthProvider(new TwoKeysMultiMap<>()), scheduler.calculateAvailableSlotsByGeoLocation());
+
+		// building the execution graph hands the solution to the scheduler
+		ExecutionGraph executionGraph = makeExecutionGraph(jobGraph.getJobGraph(), scheduler, null);
+
+		for (ExecutionJobVertex executionJobVertex : executionGraph.getVerticesTopologically()) {
+			SlotSharingGroup slotSharingGroup = executionJobVertex.getJobVertex().getSlotSharingGroup();
+			for (ExecutionVertex executionVertex : executionJobVertex.getTaskVertices()) {
+				units.add(new ScheduledUnit(
+					executionVertex.getCurrentExecutionAttempt(),
+					slotSharingGroup == null ? null : slotSharingGroup.getSlotSharingGroupId()));
+			}
+		}
+
+		requestExecutor = Executors.newFixedThreadPool(requestThreads);
+	}
+
+	@TearDown(Level.Trial)
+	public void teardown() {
+		ExecutorUtils.gracefulShutdown(10L, TimeUnit.SECONDS, requestExecutor);
+		scheduler.shutdown();
+	}
+
+	@Benchmark
+	public void allocateSlots(Allocations allocations) throws Exception {
+		List<CompletableFuture<Void>> requests = new ArrayList<>(requestThreads);
+
+		for (int thread = 0; thread < requestThreads; thread++) {
+			final int firstUnit = thread;
+			requests.add(CompletableFuture.runAsync(() -> {
+				for (int unit = firstUnit; unit < units.size(); unit += requestThreads) {
+					scheduler.allocateSlot(new SlotRequestId(), units.get(unit), false, SlotProfile.noRequirements(), ALLOCATION_TIMEOUT)
+						.whenComplete((slot, failure) -> {
+							if (slot != null) {
+								allocatedSlots.add(slot);
+							}
+						});
+				}
+			}, requestExecutor));
+		}
+
+		CompletableFuture.allOf(requests.toArray(new CompletableFuture<?>[0])).get();
+
+		int allocated = allocatedSlots.size();
+		allocations.allocations += allocated;
+		allocations.failedAllocations += units.size() - allocated;
+	}
+
+	/**
+	 * Releases the slots of the last invocation, and waits for the scheduler to see them available again.
+	 */
+	@TearDown(Level.Invocation)
+	public void releaseSlots() {
+		LogicalSlot slot;
+		while ((slot = allocatedSlots.poll()) != null) {
+			slot.releaseSlot(null);
+		}
+
+		// counting the available slots processes the returned ones
+		while (scheduler.getNumberOfAvailableSlots() < scheduler.getTotalNumberOfSlots()) {
+			Thread.yield();
+		}
+	}
+
+	/**
+	 * The allocations of the subtasks, reported per second.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Allocations {
+
+		public long allocations;
+
+		public long failedAllocations;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			allocations = 0;
+			failedAllocations = 0;
+		}
+	}
+}
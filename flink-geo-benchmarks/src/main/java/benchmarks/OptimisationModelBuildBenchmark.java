@@ -0,0 +1,107 @@
+package benchmarks;
+
+import gurobi.GRBException;
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.executiongraph.LinearisedMultiLocationOptimisationModel;
+import org.apache.flink.runtime.executiongraph.MultiLocationOptimisationModel;
+import org.apache.flink.runtime.executiongraph.OptimisationModel;
+import org.apache.flink.runtime.executiongraph.OptimisationModelParameters;
+import org.apache.flink.runtime.executiongraph.OptimisationModelSolverType;
+import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.apache.flink.runtime.jobmanager.scheduler.BandwidthProvider;
+import org.apache.flink.runtime.jobmanager.scheduler.StaticBandwidthProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import writableTypes.CentralAndEdgeGeoLocationAndBandwidths;
+import writableTypes.SimpleJobGraph;
+import writableTypes.TestGeoLocationAndBandwidths;
+import writableTypes.TestJobGraph;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time to build the Gurobi formulations of the placement of a {@link SimpleJobGraph} over a central
+ * cloud and edge clouds, as a function of the number of vertices and of locations. The model is disposed right after
+ * being built, which is part of the measure.
+ *
+ * <p>Needs a licensed native Gurobi library.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class OptimisationModelBuildBenchmark {
+
+	private static final int MAX_PARALLELISM = 4;
+
+	private static final int EDGE_SLOTS = 8;
+
+	private static final int CENTRAL_SLOTS = 64;
+
+	/**
+	 * The graph has twice as many vertices plus one.
+	 */
+	@Param({"4", "16", "64"})
+	public int mapTasks;
+
+	/**
+	 * The central cloud and the edge clouds.
+	 */
+	@Param({"4", "16", "64"})
+	public int locations;
+
+	/**
+	 * True to build the {@link LinearisedMultiLocationOptimisationModel}, false for the
+	 * {@link MultiLocationOptimisationModel}.
+	 */
+	@Param({"false", "true"})
+	public boolean linearised;
+
+	private List<JobVertex> vertices;
+
+	private Map<GeoLocation, Integer> slots;
+
+	private BandwidthProvider bandwidthProvider;
+
+	private OptimisationModelParameters parameters;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		GeoBenchmarkUtils.disableLogging();
+
+		TestGeoLocationAndBandwidths cluster = new CentralAndEdgeGeoLocationAndBandwidths(locations - 1, EDGE_SLOTS, CENTRAL_SLOTS, 100, 10);
+		slots = cluster.getGeoLocationSlotMap();
+		bandwidthProvider = new StaticBandwidthProvider(cluster.getBandwidths());
+
+		parameters = new OptimisationModelParameters(0.5, 0.5, 10, false);
+		parameters.setSolverType(OptimisationModelSolverType.HEURISTIC);
+
+		// solving once sets the weights of the edges the models are built from
+		TestJobGraph jobGraph = new SimpleJobGraph(mapTasks, MAX_PARALLELISM);
+		GeoBenchmarkUtils.solve(jobGraph, parameters, bandwidthProvider, slots);
+		vertices = jobGraph.getJobGraph().getVerticesSortedTopologicallyFromSources();
+	}
+
+	@Benchmark
+	public OptimisationModel build() throws GRBException {
+		OptimisationModel model = linearised ?
+			new LinearisedMultiLocationOptimisationModel(vertices, slots.keySet(), bandwidthProvider, slots, parameters) :
+			new MultiLocationOptimisationModel(vertices, slots.keySet(), bandwidthProvider, slots, parameters);
+		model.dispose();
+		return model;
+	}
+}
@@ -0,0 +1,103 @@
+package benchmarks;
+
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.executiongraph.OptimisationModelParameters;
+import org.apache.flink.runtime.executiongraph.OptimisationModelSolution;
+import org.apache.flink.runtime.executiongraph.OptimisationModelSolver;
+import org.apache.flink.runtime.executiongraph.OptimisationModelSolverType;
+import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.apache.flink.runtime.jobmanager.scheduler.BandwidthProvider;
+import org.apache.flink.runtime.jobmanager.scheduler.StaticBandwidthProvider;
+import org.apache.flink.util.FlinkException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import writableTypes.CentralAndEdgeGeoLocationAndBandwidths;
+import writableTypes.SimpleJobGraph;
+import writableTypes.TestGeoLocationAndBandwidths;
+import writableTypes.TestJobGraph;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time to solve the placement of a {@link SimpleJobGraph} over a central cloud and edge clouds, as a
+ * function of the number of vertices, of locations, and of the solver.
+ *
+ * <p>Only the heuristic solver runs by default, the Gurobi ones need a licensed native Gurobi library:
+ * <pre>java -jar target/benchmarks.jar OptimisationModelSolveBenchmark -p solverType=GUROBI,GUROBI_LINEARISED</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class OptimisationModelSolveBenchmark {
+
+	private static final int MAX_PARALLELISM = 4;
+
+	private static final int EDGE_SLOTS = 8;
+
+	private static final int CENTRAL_SLOTS = 64;
+
+	/**
+	 * The graph has twice as many vertices plus one.
+	 */
+	@Param({"4", "16", "64"})
+	public int mapTasks;
+
+	/**
+	 * The central cloud and the edge clouds.
+	 */
+	@Param({"4", "16", "64"})
+	public int locations;
+
+	@Param({"HEURISTIC"})
+	public OptimisationModelSolverType solverType;
+
+	private List<JobVertex> vertices;
+
+	private Map<GeoLocation, Integer> slots;
+
+	private BandwidthProvider bandwidthProvider;
+
+	private OptimisationModelParameters parameters;
+
+	private OptimisationModelSolver solver;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		GeoBenchmarkUtils.disableLogging();
+
+		TestGeoLocationAndBandwidths cluster = new CentralAndEdgeGeoLocationAndBandwidths(locations - 1, EDGE_SLOTS, CENTRAL_SLOTS, 100, 10);
+		slots = cluster.getGeoLocationSlotMap();
+		bandwidthProvider = new StaticBandwidthProvider(cluster.getBandwidths());
+
+		parameters = new OptimisationModelParameters(0.5, 0.5, 10, false);
+		parameters.setSolverType(OptimisationModelSolverType.HEURISTIC);
+
+		// solving once sets the weights of the edges the models are built from
+		TestJobGraph jobGraph = new SimpleJobGraph(mapTasks, MAX_PARALLELISM);
+		GeoBenchmarkUtils.solve(jobGraph, parameters, bandwidthProvider, slots);
+		vertices = jobGraph.getJobGraph().getVerticesSortedTopologicallyFromSources();
+
+		parameters.setSolverType(solverType);
+		solver = solverType.createSolver();
+	}
+
+	@Benchmark
+	public OptimisationModelSolution solve() throws FlinkException {
+		return solver.solve(vertices, slots.keySet(), bandwidthProvider, slots, parameters);
+	}
+}
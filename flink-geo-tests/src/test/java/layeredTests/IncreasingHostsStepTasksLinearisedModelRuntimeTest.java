@@ -0,0 +1,14 @@
+package layeredTests;
+
+import org.apache.flink.runtime.executiongraph.OptimisationModelSolverType;
+
+/**
+ * Same graphs as {@link IncreasingHostsStepTasksModelRuntimeTest}, solved with the linearised network cost formulation.
+ */
+public class IncreasingHostsStepTasksLinearisedModelRuntimeTest extends IncreasingHostsStepTasksModelRuntimeTest {
+
+	@Override
+	protected OptimisationModelSolverType solverType() {
+		return OptimisationModelSolverType.GUROBI_LINEARISED;
+	}
+}
@@ -0,0 +1,14 @@
+package layeredTests;
+
+import org.apache.flink.runtime.executiongraph.OptimisationModelSolverType;
+
+/**
+ * Same graphs as {@link IncreasingTasksStepHostsModelRuntimeTest}, solved with the linearised network cost formulation.
+ */
+public class IncreasingTasksStepHostsLinearisedModelRuntimeTest extends IncreasingTasksStepHostsModelRuntimeTest {
+
+	@Override
+	protected OptimisationModelSolverType solverType() {
+		return OptimisationModelSolverType.GUROBI_LINEARISED;
+	}
+}
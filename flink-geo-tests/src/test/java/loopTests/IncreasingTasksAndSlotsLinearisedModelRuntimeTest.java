@@ -0,0 +1,14 @@
+package loopTests;
+
+import org.apache.flink.runtime.executiongraph.OptimisationModelSolverType;
+
+/**
+ * Same graphs as {@link IncreasingTasksAndSlotsModelRuntimeTest}, solved with the linearised network cost formulation.
+ */
+public class IncreasingTasksAndSlotsLinearisedModelRuntimeTest extends IncreasingTasksAndSlotsModelRuntimeTest {
+
+	@Override
+	protected OptimisationModelSolverType solverType() {
+		return OptimisationModelSolverType.GUROBI_LINEARISED;
+	}
+}
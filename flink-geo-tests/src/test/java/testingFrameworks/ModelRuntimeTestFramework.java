@@ -3,6 +3,7 @@ package testingFrameworks;
 import org.apache.flink.runtime.clusterframework.types.GeoLocation;
 import org.apache.flink.runtime.executiongraph.ExecutionGraph;
 import org.apache.flink.runtime.executiongraph.OptimisationModelParameters;
+import org.apache.flink.runtime.executiongraph.OptimisationModelSolverType;
 import org.apache.flink.runtime.instance.Instance;
 import org.apache.flink.runtime.jobgraph.JobVertex;
 import org.apache.flink.runtime.jobmanager.scheduler.GeoScheduler;
@@ -51,6 +52,13 @@ public abstract class ModelRuntimeTestFramework {
 	 */
 	protected abstract Map<JobVertex, GeoLocation> placedVertices();
 
+	/**
+	 * @return the solver of the model, overridden to compare the runtime of different formulations on the same graphs
+	 */
+	protected OptimisationModelSolverType solverType() {
+		return OptimisationModelSolverType.GUROBI;
+	}
+
 	private ExecutionGraph executionGraph;
 
 	private Scheduler scheduler;
@@ -66,7 +74,9 @@ public abstract class ModelRuntimeTestFramework {
 			scheduler.newInstanceAvailable(i);
 		}
 
-		jobGraph().getJobGraph().setOptimisationModelParameters(new OptimisationModelParameters(0.5, 0.5, 10, true));
+		OptimisationModelParameters parameters = new OptimisationModelParameters(0.5, 0.5, 10, true);
+		parameters.setSolverType(solverType());
+		jobGraph().getJobGraph().setOptimisationModelParameters(parameters);
 
 
 		spy = new SchedulingDecisionSpy();
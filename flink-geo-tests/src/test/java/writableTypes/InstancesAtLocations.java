@@ -0,0 +1,34 @@
+package writableTypes;
+
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.instance.AckingDummyActorGateway;
+import org.apache.flink.runtime.instance.Instance;
+import org.apache.flink.runtime.jobmanager.scheduler.SchedulerTestUtils;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A set of instances spread round-robin over a number of geo locations, so that the number of instances and the number
+ * of locations can grow independently.
+ */
+public class InstancesAtLocations extends TestInstanceSet {
+	private final Set<Instance> instanceSet = new HashSet<>();
+
+	public InstancesAtLocations(int howMany, int numLocations, int numSlots) {
+		params = new Object[3];
+		params[0] = howMany;
+		params[1] = numLocations;
+		params[2] = numSlots;
+
+		for (int i = 0; i < howMany; i++) {
+			GeoLocation location = new GeoLocation("location_" + (i % numLocations));
+			instanceSet.add(SchedulerTestUtils.getRandomInstance(numSlots, AckingDummyActorGateway.INSTANCE, location));
+		}
+	}
+
+	@Override
+	public Set<Instance> getInstances() {
+		return instanceSet;
+	}
+}
@@ -48,6 +48,8 @@ public class DataSource<OUT> extends Operator<OUT, DataSource<OUT>> {
 
 	private SplitDataProperties<OUT> splitDataProperties;
 
+	private String geoLocationKey;
+
 	// --------------------------------------------------------------------------------------------
 
 	/**
@@ -99,6 +101,27 @@ public class DataSource<OUT> extends Operator<OUT, DataSource<OUT>> {
 		return this.parameters;
 	}
 
+	/**
+	 * Sets the key of the geo location the data of this DataSource is stored at, so that the data is not
+	 * shipped between geo locations unless needed, and the source is read at its location.
+	 *
+	 * @param geoLocationKey The key of the geo location, or null, if the data is not at a single geo location.
+	 * @return This DataSource with the geo location key set.
+	 */
+	@PublicEvolving
+	public DataSource<OUT> setGeoLocationKey(String geoLocationKey) {
+		this.geoLocationKey = geoLocationKey;
+		return this;
+	}
+
+	/**
+	 * @return The key of the geo location the data of this DataSource is stored at, or null, if not set.
+	 */
+	@PublicEvolving
+	public String getGeoLocationKey() {
+		return this.geoLocationKey;
+	}
+
 	/**
 	 * Returns the {@link org.apache.flink.api.java.io.SplitDataProperties} for the
 	 * {@link org.apache.flink.core.io.InputSplit}s of this DataSource
@@ -139,6 +162,7 @@ public class DataSource<OUT> extends Operator<OUT, DataSource<OUT>> {
 		if (this.splitDataProperties != null) {
 			source.setSplitDataProperties(this.splitDataProperties);
 		}
+		source.setGeoLocationKey(this.geoLocationKey);
 		return source;
 	}
 
@@ -61,6 +61,19 @@ public abstract class CostEstimator {
 	// ------------------------------------------------------------------------
 	
 	public abstract void addArtificialDamCost(EstimateProvider estimates, long bufferSize, Costs costs);
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Adds the costs of shipping the data of a channel between geo locations, on top of the costs of its
+	 * ship strategy. The network is uniform by default, so that the location of the data costs nothing.
+	 *
+	 * @param channel The channel, with its source and ship strategy set.
+	 * @param target The node the channel is an input of, with all its inputs set.
+	 * @param costs The costs to add to.
+	 */
+	public void addCrossLocationCost(Channel channel, PlanNode target, Costs costs) {
+	}
 	
 	// ------------------------------------------------------------------------	
 
@@ -120,6 +133,8 @@ public abstract class CostEstimator {
 			default:
 				throw new CompilerException("Unknown shipping strategy for input: " + channel.getShipStrategy());
 			}
+
+			addCrossLocationCost(channel, n, costs);
 			
 			switch (channel.getLocalStrategy()) {
 			case NONE:
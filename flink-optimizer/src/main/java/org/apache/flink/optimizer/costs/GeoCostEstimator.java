@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.optimizer.costs;
+
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.OptimisationModelOptions;
+import org.apache.flink.optimizer.plan.Channel;
+import org.apache.flink.optimizer.plan.PlanNode;
+import org.apache.flink.optimizer.plan.SourcePlanNode;
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.jobmanager.scheduler.BandwidthProvider;
+import org.apache.flink.runtime.jobmanager.scheduler.StaticBandwidthProvider;
+import org.apache.flink.runtime.operators.shipping.ShipStrategyType;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A cost estimator for batch jobs reading data stored at different geo locations, set with
+ * {@link org.apache.flink.api.common.operators.GenericDataSourceBase#setGeoLocationKey(String)}.
+ *
+ * <p>On top of the costs of the {@link DefaultCostEstimator}, each byte a channel ships between two geo locations
+ * costs as many bytes as the link between them is slower than the network within a location. Plans that ship less
+ * data over the slow links, for example by repartitioning a large input rather than broadcasting the other one to
+ * every location, are hence preferred.
+ *
+ * <p>The data of a source is at the geo location of the source. The data of the other operators is at the locations
+ * of the data they read, in proportion to the bytes read from each location, as the geo placement puts operators
+ * next to their data. The data of broadcast inputs is read wherever the other inputs are, and is hence not counted.
+ * A channel that partitions or broadcasts its data sends each record to the locations of its target in proportion to
+ * their share of the data of the target, a forward channel keeps it at its location.
+ */
+public class GeoCostEstimator extends DefaultCostEstimator {
+
+	private static final Logger LOG = LoggerFactory.getLogger(GeoCostEstimator.class);
+
+	/**
+	 * Creates a {@link GeoCostEstimator} with the bandwidths file, if
+	 * {@link OptimisationModelOptions#BATCH_GEO_COST_ESTIMATION} is enabled, or a {@link DefaultCostEstimator}.
+	 */
+	public static CostEstimator fromConfiguration(Configuration configuration) {
+		if (!configuration.getBoolean(OptimisationModelOptions.BATCH_GEO_COST_ESTIMATION)) {
+			return new DefaultCostEstimator();
+		}
+
+		try {
+			return new GeoCostEstimator(
+				StaticBandwidthProvider.fromConfiguration(configuration),
+				configuration.getDouble(OptimisationModelOptions.LOCAL_BANDWIDTH));
+		} catch (IOException e) {
+			LOG.warn("Could not read the bandwidths between geo locations, the plans of batch jobs will not take " +
+				"the geo locations of their data into account.", e);
+			return new DefaultCostEstimator();
+		}
+	}
+
+	private final BandwidthProvider bandwidths;
+
+	private final double localBandwidth;
+
+	/**
+	 * @param bandwidths the bandwidths between geo locations, in bytes per second
+	 * @param localBandwidth the bandwidth within a geo location, in bytes per second
+	 */
+	public GeoCostEstimator(BandwidthProvider bandwidths, double localBandwidth) {
+		checkArgument(localBandwidth > 0, "The local bandwidth must be positive");
+		this.bandwidths = checkNotNull(bandwidths);
+		this.localBandwidth = localBandwidth;
+	}
+
+	@Override
+	public void addCrossLocationCost(Channel channel, PlanNode target, Costs costs) {
+		final ShipStrategyType shipStrategy = channel.getShipStrategy();
+		if (!shipStrategy.isNetworkStrategy()) {
+			return;
+		}
+
+		final Map<PlanNode, Map<GeoLocation, Double>> shares = new IdentityHashMap<>();
+		final double crossLocationFactor = estimateCrossLocationFactor(
+			getLocationShares(channel.getSource(), shares),
+			getLocationShares(target, shares));
+		if (crossLocationFactor <= 0) {
+			return;
+		}
+
+		// the estimate of a broadcast channel counts every copy, each of them crossing locations
+		final long estOutShipSize = channel.getEstimatedOutputSize();
+		if (estOutShipSize > 0) {
+			costs.addNetworkCost(estOutShipSize * crossLocationFactor);
+		}
+		// relative to the heuristic costs of the ship strategies
+		final long heuristicCopies = shipStrategy == ShipStrategyType.BROADCAST ? 10L * channel.getReplicationFactor() : 1L;
+		costs.addHeuristicNetworkCost(HEURISTIC_COST_BASE * heuristicCopies * crossLocationFactor);
+	}
+
+	/**
+	 * Returns the cost of a byte sent from the given locations to the given locations, on top of the cost of the byte
+	 * itself: the share of the bytes sent over each link times the ratio of the local bandwidth to the bandwidth of the
+	 * link. The links with an unknown bandwidth are as fast as the local network.
+	 *
+	 * @param from the share of the data sent from each location
+	 * @param to the share of the data received at each location
+	 */
+	double estimateCrossLocationFactor(Map<GeoLocation, Double> from, Map<GeoLocation, Double> to) {
+		double factor = 0;
+		for (Map.Entry<GeoLocation, Double> source : from.entrySet()) {
+			for (Map.Entry<GeoLocation, Double> target : to.entrySet()) {
+				if (source.getKey().equals(target.getKey())) {
+					continue;
+				}
+
+				double bandwidth = bandwidths.hasBandwidth(source.getKey(), target.getKey()) ?
+					bandwidths.getBandwidth(source.getKey(), target.getKey()) : localBandwidth;
+				double linkFactor = bandwidth > 0 ? localBandwidth / bandwidth : localBandwidth;
+
+				factor += source.getValue() * target.getValue() * linkFactor;
+			}
+		}
+		return factor;
+	}
+
+	/**
+	 * Returns the share of the data of a node at each geo location, empty if the locations of its data are unknown.
+	 *
+	 * @param shares the shares of the nodes visited so far
+	 */
+	static Map<GeoLocation, Double> getLocationShares(PlanNode node, Map<PlanNode, Map<GeoLocation, Double>> shares) {
+		Map<GeoLocation, Double> nodeShares = shares.get(node);
+		if (nodeShares != null) {
+			return nodeShares;
+		}
+
+		if (node instanceof SourcePlanNode) {
+			String geoLocationKey = ((SourcePlanNode) node).getDataSourceNode().getOperator().getGeoLocationKey();
+			nodeShares = geoLocationKey == null ?
+				Collections.emptyMap() : Collections.singletonMap(new GeoLocation(geoLocationKey), 1d);
+		} else {
+			nodeShares = new HashMap<>();
+
+			// the broadcast inputs follow the other inputs, unless all of them are broadcast
+			boolean allBroadcast = true;
+			boolean allSizesKnown = true;
+			for (Channel input : node.getInputs()) {
+				allBroadcast &= input.getShipStrategy() == ShipStrategyType.BROADCAST;
+				allSizesKnown &= input.getEstimatedOutputSize() > 0;
+			}
+
+			double total = 0;
+			for (Channel input : node.getInputs()) {
+				if (input.getShipStrategy() == ShipStrategyType.BROADCAST && !allBroadcast) {
+					continue;
+				}
+
+				// the inputs weigh the same if the size of any of them is unknown
+				double weight = allSizesKnown ? input.getEstimatedOutputSize() : 1;
+				for (Map.Entry<GeoLocation, Double> inputShare : getLocationShares(input.getSource(), shares).entrySet()) {
+					nodeShares.merge(inputShare.getKey(), weight * inputShare.getValue(), Double::sum);
+					total += weight * inputShare.getValue();
+				}
+			}
+
+			for (Map.Entry<GeoLocation, Double> share : nodeShares.entrySet()) {
+				share.setValue(share.getValue() / total);
+			}
+		}
+
+		shares.put(node, nodeShares);
+		return nodeShares;
+	}
+}
@@ -218,6 +218,10 @@ public class JobGraphGenerator implements Visitor<PlanNode> {
 		
 		attachOperatorNamesAndDescriptions();
 
+		// ----- pass the estimates of the optimizer to the geo placement
+
+		setSelectivitiesFromEstimates();
+
 		// ----------- finalize the job graph -----------
 
 		// create the job graph object
@@ -908,6 +912,8 @@ public class JobGraphGenerator implements Visitor<PlanNode> {
 		config.setStubParameters(node.getProgramOperator().getParameters());
 
 		config.setOutputSerializer(node.getSerializer());
+
+		vertex.setGeoLocationKey(node.getDataSourceNode().getOperator().getGeoLocationKey());
 		return vertex;
 	}
 
@@ -1575,6 +1581,64 @@ public class JobGraphGenerator implements Visitor<PlanNode> {
 		}
 	}
 	
+	/**
+	 * Sets the selectivity of the job vertices to the ratio of the sizes the optimizer estimated for their output and
+	 * their inputs, so that the edge weights of the geo placement model follow the estimates of the plan. The
+	 * selectivity of a source is the size of its output relative to the largest source. The vertices containing an
+	 * operator without size estimates keep their selectivity.
+	 */
+	private void setSelectivitiesFromEstimates() {
+		long largestSourceSize = 0;
+		for (PlanNode node : this.vertices.keySet()) {
+			if (node instanceof SourcePlanNode) {
+				largestSourceSize = Math.max(largestSourceSize, node.getOptimizerNode().getEstimatedOutputSize());
+			}
+		}
+
+		// the selectivities of the operators chained in a vertex multiply
+		Map<JobVertex, Double> selectivities = new HashMap<>();
+		for (Entry<PlanNode, JobVertex> nodeAndVertex : this.vertices.entrySet()) {
+			selectivities.merge(nodeAndVertex.getValue(),
+				estimateSelectivity(nodeAndVertex.getKey(), largestSourceSize), (s1, s2) -> s1 * s2);
+		}
+		for (TaskInChain tic : this.chainedTasksInSequence) {
+			selectivities.merge(tic.getContainingVertex(),
+				estimateSelectivity(tic.getPlanNode(), largestSourceSize), (s1, s2) -> s1 * s2);
+		}
+
+		for (Entry<JobVertex, Double> vertexAndSelectivity : selectivities.entrySet()) {
+			// NaN if any of the estimates is unknown
+			if (vertexAndSelectivity.getValue() > 0 && !vertexAndSelectivity.getValue().isInfinite()) {
+				vertexAndSelectivity.getKey().setSelectivity(vertexAndSelectivity.getValue());
+			}
+		}
+	}
+
+	private static double estimateSelectivity(PlanNode node, long largestSourceSize) {
+		final long outputSize = node.getOptimizerNode().getEstimatedOutputSize();
+		if (outputSize <= 0) {
+			return Double.NaN;
+		}
+
+		if (node instanceof SourcePlanNode) {
+			return largestSourceSize > 0 ? (double) outputSize / largestSourceSize : Double.NaN;
+		}
+		if (!(node instanceof SingleInputPlanNode || node instanceof DualInputPlanNode)) {
+			return Double.NaN;
+		}
+
+		// the edges of the job graph weigh the output of their producer, once for a broadcast too
+		long inputSize = 0;
+		for (Channel input : node.getInputs()) {
+			final long producerOutputSize = input.getSource().getOptimizerNode().getEstimatedOutputSize();
+			if (producerOutputSize <= 0) {
+				return Double.NaN;
+			}
+			inputSize += producerOutputSize;
+		}
+		return inputSize > 0 ? (double) outputSize / inputSize : Double.NaN;
+	}
+
 	private void attachOperatorNamesAndDescriptions() {
 		JsonFactory jsonFactory = new JsonFactory();
 
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.optimizer.costs;
+
+import org.apache.flink.api.common.Plan;
+import org.apache.flink.api.common.operators.GenericDataSourceBase;
+import org.apache.flink.api.common.operators.Operator;
+import org.apache.flink.api.java.DataSet;
+import org.apache.flink.api.java.ExecutionEnvironment;
+import org.apache.flink.api.java.io.DiscardingOutputFormat;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.optimizer.Optimizer;
+import org.apache.flink.optimizer.plan.DualInputPlanNode;
+import org.apache.flink.optimizer.plan.OptimizedPlan;
+import org.apache.flink.optimizer.plan.SinkPlanNode;
+import org.apache.flink.optimizer.util.CompilerTestBase;
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.jobmanager.scheduler.StaticBandwidthProvider;
+import org.apache.flink.runtime.operators.shipping.ShipStrategyType;
+import org.apache.flink.types.TwoKeysMap;
+import org.apache.flink.types.TwoKeysMultiMap;
+import org.apache.flink.util.Visitor;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for the {@link GeoCostEstimator}, pricing the data shipped between geo locations.
+ */
+@SuppressWarnings("serial")
+public class GeoCostEstimatorTest extends CompilerTestBase {
+
+	private static final long BIG_DATA_SIZE = 100000000000L;
+
+	private static final long MEDIUM_DATA_SIZE = 1000000000L;
+
+	private static final double LOCAL_BANDWIDTH = 1000;
+
+	private final GeoLocation a = new GeoLocation("a");
+
+	private final GeoLocation b = new GeoLocation("b");
+
+	@Test
+	public void testCrossLocationFactorFollowsTheBandwidthOfTheLinks() {
+		GeoCostEstimator estimator = createEstimator(LOCAL_BANDWIDTH / 10);
+
+		Map<GeoLocation, Double> fromA = new HashMap<>();
+		fromA.put(a, 1d);
+
+		Map<GeoLocation, Double> toBoth = new HashMap<>();
+		toBoth.put(a, 0.5);
+		toBoth.put(b, 0.5);
+
+		// half of the data crosses a link ten times slower than the local network
+		assertEquals(5, estimator.estimateCrossLocationFactor(fromA, toBoth), 1e-9);
+		assertEquals(0, estimator.estimateCrossLocationFactor(fromA, fromA), 0);
+		// the links without a bandwidth are as fast as the local network
+		assertEquals(0.5, createEstimator(-1).estimateCrossLocationFactor(toBoth, fromA), 1e-9);
+	}
+
+	@Test
+	public void testRepartitionRatherThanBroadcastOverSlowLinks() {
+		// broadcasting the medium input to the 8 subtasks ships less data than repartitioning both inputs
+		DualInputPlanNode join = compileJoin("a", "b", this.withStatsCompiler);
+		assertEquals(ShipStrategyType.FORWARD, join.getInput1().getShipStrategy());
+		assertEquals(ShipStrategyType.BROADCAST, join.getInput2().getShipStrategy());
+
+		// but every broadcast copy crosses the slow link, while most of the big input stays at its location
+		join = compileJoin("a", "b", createOptimizer(createEstimator(LOCAL_BANDWIDTH / 10)));
+		assertEquals(ShipStrategyType.PARTITION_HASH, join.getInput1().getShipStrategy());
+		assertEquals(ShipStrategyType.PARTITION_HASH, join.getInput2().getShipStrategy());
+	}
+
+	@Test
+	public void testSameLocationCostsAsUniformNetwork() {
+		DualInputPlanNode join = compileJoin("a", "a", createOptimizer(createEstimator(LOCAL_BANDWIDTH / 10)));
+		assertEquals(ShipStrategyType.FORWARD, join.getInput1().getShipStrategy());
+		assertEquals(ShipStrategyType.BROADCAST, join.getInput2().getShipStrategy());
+	}
+
+	private DualInputPlanNode compileJoin(String bigLocation, String mediumLocation, Optimizer optimizer) {
+		ExecutionEnvironment env = ExecutionEnvironment.getExecutionEnvironment();
+		env.setParallelism(DEFAULT_PARALLELISM);
+
+		DataSet<Long> big = env.generateSequence(1, 1000).name("big").setGeoLocationKey(bigLocation);
+		DataSet<Long> medium = env.generateSequence(1, 1000).name("medium").setGeoLocationKey(mediumLocation);
+
+		big.join(medium).where("*").equalTo("*")
+			.output(new DiscardingOutputFormat<Tuple2<Long, Long>>());
+
+		Plan plan = env.createProgramPlan();
+
+		plan.accept(new Visitor<Operator<?>>() {
+			@Override
+			public boolean preVisit(Operator<?> visitable) {
+				if (visitable instanceof GenericDataSourceBase) {
+					GenericDataSourceBase<?, ?> source = (GenericDataSourceBase<?, ?>) visitable;
+					setSourceStatistics(source, source.getName().equals("big") ? BIG_DATA_SIZE : MEDIUM_DATA_SIZE, 100);
+				}
+				return true;
+			}
+
+			@Override
+			public void postVisit(Operator<?> visitable) {}
+		});
+
+		OptimizedPlan op = optimizer.compile(plan);
+
+		return (DualInputPlanNode) ((SinkPlanNode) op.getDataSinks().iterator().next()).getInput().getSource();
+	}
+
+	private Optimizer createOptimizer(CostEstimator estimator) {
+		Optimizer optimizer = new Optimizer(this.dataStats, estimator, new Configuration());
+		optimizer.setDefaultParallelism(DEFAULT_PARALLELISM);
+		return optimizer;
+	}
+
+	/**
+	 * @param wanBandwidth the bandwidth between a and b, no bandwidth if negative
+	 */
+	private GeoCostEstimator createEstimator(double wanBandwidth) {
+		TwoKeysMap<GeoLocation, GeoLocation, Double> bandwidths = new TwoKeysMultiMap<>();
+		if (wanBandwidth >= 0) {
+			bandwidths.put(a, b, wanBandwidth);
+			bandwidths.put(b, a, wanBandwidth);
+		}
+		return new GeoCostEstimator(new StaticBandwidthProvider(bandwidths), LOCAL_BANDWIDTH);
+	}
+}
@@ -22,6 +22,9 @@ import org.apache.flink.api.common.Plan;
 import org.apache.flink.api.common.aggregators.LongSumAggregator;
 import org.apache.flink.api.common.functions.FilterFunction;
 import org.apache.flink.api.common.functions.MapFunction;
+import org.apache.flink.api.common.io.FileInputFormat.FileBaseStatistics;
+import org.apache.flink.api.common.operators.GenericDataSinkBase;
+import org.apache.flink.api.common.operators.GenericDataSourceBase;
 import org.apache.flink.api.common.operators.ResourceSpec;
 import org.apache.flink.api.java.DataSet;
 import org.apache.flink.api.java.ExecutionEnvironment;
@@ -32,7 +35,9 @@ import org.apache.flink.api.java.operators.IterativeDataSet;
 import org.apache.flink.api.java.operators.Operator;
 import org.apache.flink.api.java.tuple.Tuple2;
 import org.apache.flink.configuration.Configuration;
+import org.apache.flink.optimizer.DataStatistics;
 import org.apache.flink.optimizer.Optimizer;
+import org.apache.flink.optimizer.costs.DefaultCostEstimator;
 import org.apache.flink.optimizer.plan.OptimizedPlan;
 import org.apache.flink.runtime.jobgraph.JobGraph;
 import org.apache.flink.runtime.jobgraph.JobVertex;
@@ -40,6 +45,8 @@ import org.junit.Test;
 
 import java.lang.reflect.Method;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class JobGraphGeneratorTest {
@@ -206,4 +213,46 @@ public class JobGraphGeneratorTest {
 		assertTrue(sinkVertex.getPreferredResources().equals(resource6));
 		assertTrue(iterationSyncVertex.getMinResources().equals(resource3));
 	}
+
+	/**
+	 * Verifies that the geo locations of the sources and the selectivities estimated by the optimizer are set
+	 * onto the job vertices, for the geo placement of the job.
+	 */
+	@Test
+	public void testGeoLocationsAndSelectivitiesOfSources() throws Exception {
+		ExecutionEnvironment env = ExecutionEnvironment.getExecutionEnvironment();
+
+		env.generateSequence(1, 1000).name("big").setGeoLocationKey("a")
+			.output(new DiscardingOutputFormat<Long>());
+		env.generateSequence(1, 1000).name("small").setGeoLocationKey("b")
+			.output(new DiscardingOutputFormat<Long>());
+
+		Plan plan = env.createProgramPlan();
+
+		DataStatistics statistics = new DataStatistics();
+		for (GenericDataSinkBase<?> sink : plan.getDataSinks()) {
+			GenericDataSourceBase<?, ?> source = (GenericDataSourceBase<?, ?>) sink.getInput();
+			long size = source.getName().equals("big") ? 1000000 : 100000;
+			statistics.cacheBaseStatistics(new FileBaseStatistics(Long.MAX_VALUE, size, 10), source.getName());
+			source.setStatisticsKey(source.getName());
+		}
+
+		Optimizer pc = new Optimizer(statistics, new DefaultCostEstimator(), new Configuration());
+		OptimizedPlan op = pc.compile(plan);
+
+		JobGraphGenerator jgg = new JobGraphGenerator();
+		JobGraph jobGraph = jgg.compileJobGraph(op);
+
+		for (JobVertex vertex : jobGraph.getVertices()) {
+			if (vertex.getName().equals("DataSource (big)")) {
+				assertEquals("a", vertex.getGeoLocationKey());
+				assertEquals(1, vertex.getSelectivity(), 1e-9);
+			} else if (vertex.getName().equals("DataSource (small)")) {
+				assertEquals("b", vertex.getGeoLocationKey());
+				assertEquals(0.1, vertex.getSelectivity(), 1e-9);
+			} else {
+				assertNull(vertex.getGeoLocationKey());
+			}
+		}
+	}
 }
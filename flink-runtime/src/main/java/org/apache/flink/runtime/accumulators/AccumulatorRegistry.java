@@ -21,10 +21,13 @@ package org.apache.flink.runtime.accumulators;
 import org.apache.flink.api.common.JobID;
 import org.apache.flink.api.common.accumulators.Accumulator;
 import org.apache.flink.runtime.executiongraph.ExecutionAttemptID;
+import org.apache.flink.runtime.executiongraph.IOMetrics;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -53,8 +56,17 @@ public class AccumulatorRegistry {
 	 * @return a serialized accumulator map
 	 */
 	public AccumulatorSnapshot getSnapshot() {
+		return getSnapshot(null);
+	}
+
+	/**
+	 * Creates a snapshot of this accumulator registry, together with the I/O counters of the task.
+	 * @param ioMetrics the I/O counters of the task, or null if not reported
+	 * @return a serialized accumulator map
+	 */
+	public AccumulatorSnapshot getSnapshot(@Nullable IOMetrics ioMetrics) {
 		try {
-			return new AccumulatorSnapshot(jobID, taskID, userAccumulators);
+			return new AccumulatorSnapshot(jobID, taskID, userAccumulators, ioMetrics);
 		} catch (Throwable e) {
 			LOG.warn("Failed to serialize accumulators for task.", e);
 			return null;
@@ -21,8 +21,11 @@ package org.apache.flink.runtime.accumulators;
 import org.apache.flink.api.common.JobID;
 import org.apache.flink.api.common.accumulators.Accumulator;
 import org.apache.flink.runtime.executiongraph.ExecutionAttemptID;
+import org.apache.flink.runtime.executiongraph.IOMetrics;
 import org.apache.flink.util.SerializedValue;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.Map;
@@ -44,11 +47,24 @@ public class AccumulatorSnapshot implements Serializable {
 	 */
 	private final SerializedValue<Map<String, Accumulator<?, ?>>> userAccumulators;
 
+	/**
+	 * The I/O counters of the task when the snapshot was taken, if the task reported them.
+	 */
+	@Nullable
+	private final IOMetrics ioMetrics;
+
 	public AccumulatorSnapshot(JobID jobID, ExecutionAttemptID executionAttemptID,
 							Map<String, Accumulator<?, ?>> userAccumulators) throws IOException {
+		this(jobID, executionAttemptID, userAccumulators, null);
+	}
+
+	public AccumulatorSnapshot(JobID jobID, ExecutionAttemptID executionAttemptID,
+							Map<String, Accumulator<?, ?>> userAccumulators,
+							@Nullable IOMetrics ioMetrics) throws IOException {
 		this.jobID = jobID;
 		this.executionAttemptID = executionAttemptID;
 		this.userAccumulators = new SerializedValue<>(userAccumulators);
+		this.ioMetrics = ioMetrics;
 	}
 
 	public JobID getJobID() {
@@ -66,4 +82,13 @@ public class AccumulatorSnapshot implements Serializable {
 	public Map<String, Accumulator<?, ?>> deserializeUserAccumulators(ClassLoader classLoader) throws IOException, ClassNotFoundException {
 		return userAccumulators.deserializeValue(classLoader);
 	}
+
+	/**
+	 * Gets the I/O counters of the task when the snapshot was taken.
+	 * @return the counters, or null if the task didn't report them
+	 */
+	@Nullable
+	public IOMetrics getIOMetrics() {
+		return ioMetrics;
+	}
 }
@@ -25,6 +25,7 @@ import org.apache.flink.runtime.jobgraph.JobVertexID;
 import org.apache.flink.runtime.jobgraph.OperatorID;
 import org.apache.flink.runtime.jobgraph.OperatorInstanceID;
 import org.apache.flink.runtime.state.OperatorStateHandle;
+import org.apache.flink.runtime.state.KeyGroupAssignment;
 import org.apache.flink.runtime.state.KeyGroupRange;
 import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
 import org.apache.flink.runtime.state.KeyGroupsStateHandle;
@@ -34,6 +35,8 @@ import org.apache.flink.util.Preconditions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -120,7 +123,12 @@ public class StateAssignmentOperation {
 
 		int newParallelism = executionJobVertex.getParallelism();
 
+		// the key-group ranges may have been sized by the geo placement of the job
+		KeyGroupAssignment keyGroupAssignment = executionJobVertex.getJobVertex() == null ? null :
+			KeyGroupAssignment.readFrom(executionJobVertex.getJobVertex().getConfiguration());
+
 		List<KeyGroupRange> keyGroupPartitions = createKeyGroupPartitions(
+			keyGroupAssignment,
 			executionJobVertex.getMaxParallelism(),
 			newParallelism);
 
@@ -304,7 +312,7 @@ public class StateAssignmentOperation {
 		Collection<KeyedStateHandle> subManagedKeyedState;
 		Collection<KeyedStateHandle> subRawKeyedState;
 
-		if (newParallelism == oldParallelism) {
+		if (newParallelism == oldParallelism && isKeyGroupPartitioningUnchanged(operatorState, keyGroupPartitions)) {
 			if (operatorState.getState(subTaskIndex) != null) {
 				subManagedKeyedState = operatorState.getState(subTaskIndex).getManagedKeyedState();
 				subRawKeyedState = operatorState.getState(subTaskIndex).getRawKeyedState();
@@ -324,6 +332,28 @@ public class StateAssignmentOperation {
 		}
 	}
 
+	/**
+	 * Checks whether the keyed state of every subtask is within the key-group partition of the subtask with the same
+	 * index, which is not the case if the key-group ranges were resized without changing the parallelism.
+	 */
+	private static boolean isKeyGroupPartitioningUnchanged(OperatorState operatorState, List<KeyGroupRange> keyGroupPartitions) {
+		for (Map.Entry<Integer, OperatorSubtaskState> subtaskState : operatorState.getSubtaskStates().entrySet()) {
+			KeyGroupRange partition = keyGroupPartitions.get(subtaskState.getKey());
+
+			for (KeyedStateHandle handle : subtaskState.getValue().getManagedKeyedState()) {
+				if (handle != null && !partition.getIntersection(handle.getKeyGroupRange()).equals(handle.getKeyGroupRange())) {
+					return false;
+				}
+			}
+			for (KeyedStateHandle handle : subtaskState.getValue().getRawKeyedState()) {
+				if (handle != null && !partition.getIntersection(handle.getKeyGroupRange()).equals(handle.getKeyGroupRange())) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
 	private void reDistributePartitionableStates(
 			List<OperatorState> oldOperatorStates,
 			int newParallelism,
@@ -468,6 +498,28 @@ public class StateAssignmentOperation {
 		}
 	}
 
+	/**
+	 * Groups the available set of key groups into the ranges of the given {@link KeyGroupAssignment}, if it matches
+	 * the number of key groups and the parallelism, or else as {@link #createKeyGroupPartitions(int, int)} does.
+	 *
+	 * @param keyGroupAssignment The key group assignment of the task, or null
+	 * @param numberKeyGroups Number of available key groups (indexed from 0 to numberKeyGroups - 1)
+	 * @param parallelism     Parallelism to generate the key group partitioning for
+	 * @return List of key group partitions
+	 */
+	public static List<KeyGroupRange> createKeyGroupPartitions(
+			@Nullable KeyGroupAssignment keyGroupAssignment,
+			int numberKeyGroups,
+			int parallelism) {
+
+		if (keyGroupAssignment != null &&
+				keyGroupAssignment.getMaxParallelism() == numberKeyGroups &&
+				keyGroupAssignment.getParallelism() == parallelism) {
+			return keyGroupAssignment.getKeyGroupRanges();
+		}
+		return createKeyGroupPartitions(numberKeyGroups, parallelism);
+	}
+
 	/**
 	 * Groups the available set of key groups into key group partitions. A key group partition is
 	 * the set of key groups which is assigned to the same task. Each set of the returned list
@@ -60,14 +60,28 @@ public class SlotProfile {
 	@Nonnull
 	private final Collection<AllocationID> priorAllocations;
 
+	/** This specifies the geo locations the slot must be at, empty if it can be anywhere. */
+	@Nonnull
+	private final Collection<GeoLocation> geoLocations;
+
 	public SlotProfile(
 		@Nonnull ResourceProfile resourceProfile,
 		@Nonnull Collection<TaskManagerLocation> preferredLocations,
 		@Nonnull Collection<AllocationID> priorAllocations) {
 
+		this(resourceProfile, preferredLocations, priorAllocations, Collections.emptyList());
+	}
+
+	public SlotProfile(
+		@Nonnull ResourceProfile resourceProfile,
+		@Nonnull Collection<TaskManagerLocation> preferredLocations,
+		@Nonnull Collection<AllocationID> priorAllocations,
+		@Nonnull Collection<GeoLocation> geoLocations) {
+
 		this.resourceProfile = resourceProfile;
 		this.preferredLocations = preferredLocations;
 		this.priorAllocations = priorAllocations;
+		this.geoLocations = geoLocations;
 	}
 
 	/**
@@ -94,14 +108,36 @@ public class SlotProfile {
 		return priorAllocations;
 	}
 
+	/**
+	 * Returns the geo locations the slot must be at, empty if it can be anywhere.
+	 */
+	@Nonnull
+	public Collection<GeoLocation> getGeoLocations() {
+		return geoLocations;
+	}
+
+	/**
+	 * Returns a copy of this profile, whose slot must be at one of the given geo locations.
+	 */
+	public SlotProfile withGeoLocations(@Nonnull Collection<GeoLocation> geoLocations) {
+		return new SlotProfile(resourceProfile, preferredLocations, priorAllocations, geoLocations);
+	}
+
 	/**
 	 * Returns the matcher for this profile that helps to find slots that fit the profile.
 	 */
 	public ProfileToSlotContextMatcher matcher() {
+		ProfileToSlotContextMatcher matcher;
 		if (priorAllocations.isEmpty()) {
-			return new LocalityAwareRequirementsToSlotMatcher(preferredLocations);
+			matcher = new LocalityAwareRequirementsToSlotMatcher(preferredLocations);
 		} else {
-			return new PreviousAllocationProfileToSlotContextMatcher(priorAllocations);
+			matcher = new PreviousAllocationProfileToSlotContextMatcher(priorAllocations);
+		}
+
+		if (geoLocations.isEmpty()) {
+			return matcher;
+		} else {
+			return new GeoLocationFilteringSlotMatcher(matcher, geoLocations);
 		}
 	}
 
@@ -267,6 +303,44 @@ public class SlotProfile {
 		}
 	}
 
+	/**
+	 * This matcher restricts the candidates of another matcher to the slots at the given geo locations. It is used
+	 * when the geo scheduling decided where the task must run, which is a hard requirement.
+	 */
+	@VisibleForTesting
+	public static class GeoLocationFilteringSlotMatcher implements ProfileToSlotContextMatcher {
+
+		private final ProfileToSlotContextMatcher matcher;
+
+		private final HashSet<GeoLocation> geoLocations;
+
+		@VisibleForTesting
+		public GeoLocationFilteringSlotMatcher(
+			@Nonnull ProfileToSlotContextMatcher matcher,
+			@Nonnull Collection<GeoLocation> geoLocations) {
+
+			this.matcher = matcher;
+			this.geoLocations = new HashSet<>(geoLocations);
+		}
+
+		@Override
+		public <IN, OUT> OUT findMatchWithLocality(
+			@Nonnull Stream<IN> candidates,
+			@Nonnull Function<IN, SlotContext> contextExtractor,
+			@Nonnull Predicate<IN> additionalRequirementsFilter,
+			@Nonnull BiFunction<IN, Locality, OUT> resultProducer) {
+
+			Predicate<IN> filterByGeoLocation = (candidate) ->
+				geoLocations.contains(contextExtractor.apply(candidate).getTaskManagerLocation().getGeoLocation());
+
+			return matcher.findMatchWithLocality(
+				candidates,
+				contextExtractor,
+				filterByGeoLocation.and(additionalRequirementsFilter),
+				resultProducer);
+		}
+	}
+
 	/**
 	 * Returns a slot profile that has no requirements.
 	 */
@@ -25,6 +25,8 @@ import org.apache.flink.runtime.jobgraph.IntermediateDataSetID;
 import org.apache.flink.runtime.jobgraph.IntermediateResultPartitionID;
 import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
 
+import javax.annotation.Nullable;
+
 import java.io.Serializable;
 
 import static org.apache.flink.util.Preconditions.checkArgument;
@@ -57,6 +59,10 @@ public class ResultPartitionDeploymentDescriptor implements Serializable {
 	/** Flag whether the result partition should send scheduleOrUpdateConsumer messages. */
 	private final boolean sendScheduleOrUpdateConsumersMessage;
 
+	/** The buffer timeout of each subpartition, negative to keep the operator's, or null for all. */
+	@Nullable
+	private final long[] subpartitionBufferTimeouts;
+
 	public ResultPartitionDeploymentDescriptor(
 			IntermediateDataSetID resultId,
 			IntermediateResultPartitionID partitionId,
@@ -64,6 +70,17 @@ public class ResultPartitionDeploymentDescriptor implements Serializable {
 			int numberOfSubpartitions,
 			int maxParallelism,
 			boolean lazyScheduling) {
+		this(resultId, partitionId, partitionType, numberOfSubpartitions, maxParallelism, lazyScheduling, null);
+	}
+
+	public ResultPartitionDeploymentDescriptor(
+			IntermediateDataSetID resultId,
+			IntermediateResultPartitionID partitionId,
+			ResultPartitionType partitionType,
+			int numberOfSubpartitions,
+			int maxParallelism,
+			boolean lazyScheduling,
+			@Nullable long[] subpartitionBufferTimeouts) {
 
 		this.resultId = checkNotNull(resultId);
 		this.partitionId = checkNotNull(partitionId);
@@ -74,6 +91,10 @@ public class ResultPartitionDeploymentDescriptor implements Serializable {
 		this.numberOfSubpartitions = numberOfSubpartitions;
 		this.maxParallelism = maxParallelism;
 		this.sendScheduleOrUpdateConsumersMessage = lazyScheduling;
+
+		checkArgument(subpartitionBufferTimeouts == null || subpartitionBufferTimeouts.length == numberOfSubpartitions,
+			"There must be a buffer timeout for each subpartition");
+		this.subpartitionBufferTimeouts = subpartitionBufferTimeouts;
 	}
 
 	public IntermediateDataSetID getResultId() {
@@ -100,6 +121,15 @@ public class ResultPartitionDeploymentDescriptor implements Serializable {
 		return sendScheduleOrUpdateConsumersMessage;
 	}
 
+	/**
+	 * @return the buffer timeout in milliseconds of each subpartition, negative to keep the timeout of the
+	 * producing operator, or null if all the subpartitions keep it
+	 */
+	@Nullable
+	public long[] getSubpartitionBufferTimeouts() {
+		return subpartitionBufferTimeouts;
+	}
+
 	@Override
 	public String toString() {
 		return String.format("ResultPartitionDeploymentDescriptor [result id: %s, "
@@ -111,6 +141,14 @@ public class ResultPartitionDeploymentDescriptor implements Serializable {
 
 	public static ResultPartitionDeploymentDescriptor from(
 			IntermediateResultPartition partition, int maxParallelism, boolean lazyScheduling) {
+		return from(partition, maxParallelism, lazyScheduling, null);
+	}
+
+	public static ResultPartitionDeploymentDescriptor from(
+			IntermediateResultPartition partition,
+			int maxParallelism,
+			boolean lazyScheduling,
+			@Nullable long[] subpartitionBufferTimeouts) {
 
 		final IntermediateDataSetID resultId = partition.getIntermediateResult().getId();
 		final IntermediateResultPartitionID partitionId = partition.getPartitionId();
@@ -132,6 +170,14 @@ public class ResultPartitionDeploymentDescriptor implements Serializable {
 		}
 
 		return new ResultPartitionDeploymentDescriptor(
-				resultId, partitionId, partitionType, numberOfSubpartitions, maxParallelism, lazyScheduling);
+				resultId,
+				partitionId,
+				partitionType,
+				numberOfSubpartitions,
+				maxParallelism,
+				lazyScheduling,
+				subpartitionBufferTimeouts != null && subpartitionBufferTimeouts.length == numberOfSubpartitions ?
+					subpartitionBufferTimeouts :
+					null);
 	}
 }
@@ -158,6 +158,14 @@ public interface AccessExecutionGraph {
 	 */
 	Map<String, SerializedValue<OptionalFailure<Object>>> getAccumulatorsSerialized();
 
+	/**
+	 * Returns the placement of the job over the geo locations and how it is followed, if it is geo scheduled.
+	 *
+	 * @return geo placement statistics, or null if the job is not geo scheduled or its placement was not solved
+	 */
+	@Nullable
+	GeoPlacementStatistics getGeoPlacementStatistics();
+
 	/**
 	 * Returns whether this execution graph was archived.
 	 *
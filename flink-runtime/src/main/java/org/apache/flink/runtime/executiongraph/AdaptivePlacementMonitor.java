@@ -0,0 +1,398 @@
+package org.apache.flink.runtime.executiongraph;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.OptimisationModelOptions;
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.jobgraph.IntermediateDataSet;
+import org.apache.flink.runtime.jobgraph.JobEdge;
+import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.apache.flink.runtime.jobgraph.JobVertexID;
+import org.apache.flink.runtime.jobmanager.scheduler.BandwidthProvider;
+import org.apache.flink.runtime.util.clock.Clock;
+import org.apache.flink.runtime.util.clock.SystemClock;
+import org.apache.flink.util.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides when a running job should be moved to a new placement, given the traffic observed between its vertices.
+ *
+ * <p>The bytes written by each execution attempt are reported with the TaskManager heartbeats. At each check, the
+ * bytes written since the previous check give the output rate of each vertex, smoothed over the checks. A back
+ * pressured vertex would write more if it could, so its rate is scaled up by its back pressure ratio. The rates become
+ * the weights of the edges of the model, the output of a vertex being split among the data sets it produces as
+ * {@link org.apache.flink.runtime.jobgraph.JobGraph} does with the selectivities.
+ *
+ * <p>The running placement and a placement solved for the observed weights are both scored with
+ * {@link HeuristicOptimisationModelSolver#evaluate}, so that they are compared on the whole objective, path latency
+ * penalty included. The job should be moved when the new placement is cheaper by the cost margin in a number of
+ * consecutive checks, so that short traffic peaks don't move it, and not before a minimum interval since it was last
+ * deployed, so that it doesn't flap between placements.
+ *
+ * <p>The traffic is reported and sampled by a single thread, while the placements can be compared on another one.
+ * The placements are compared on copies of the vertices made by the reporting thread, so that the graph of the job
+ * is only read and modified by that thread.
+ */
+public class AdaptivePlacementMonitor {
+
+	private static final Logger LOG = LoggerFactory.getLogger(AdaptivePlacementMonitor.class);
+
+	/** Weight of the newest rate in the smoothed rate of a vertex. */
+	static final double RATE_SMOOTHING = 0.5;
+
+	/** Back pressure ratios are capped, so that a fully back pressured vertex doesn't get an infinite rate. */
+	static final double MAX_BACK_PRESSURE_RATIO = 0.9;
+
+	/**
+	 * Creates the monitor if {@link OptimisationModelOptions#ADAPTIVE_REPLACEMENT} is set.
+	 *
+	 * @return the monitor, or null if the placement of running jobs is not revisited
+	 */
+	@Nullable
+	public static AdaptivePlacementMonitor fromConfiguration(Configuration configuration) {
+		if (!configuration.getBoolean(OptimisationModelOptions.ADAPTIVE_REPLACEMENT)) {
+			return null;
+		}
+
+		return new AdaptivePlacementMonitor(
+			configuration.getLong(OptimisationModelOptions.REPLACEMENT_CHECK_INTERVAL),
+			configuration.getDouble(OptimisationModelOptions.REPLACEMENT_COST_MARGIN),
+			configuration.getInteger(OptimisationModelOptions.REPLACEMENT_STABLE_CHECKS),
+			configuration.getLong(OptimisationModelOptions.REPLACEMENT_MIN_INTERVAL),
+			SystemClock.getInstance());
+	}
+
+	private final long checkIntervalMillis;
+
+	private final double costMargin;
+
+	private final int stableChecks;
+
+	private final long minIntervalMillis;
+
+	private final Clock clock;
+
+	private final OptimisationModelSolver solver = new HeuristicOptimisationModelSolver();
+
+	// ------------------------------------------------------------------------
+	//  Traffic, accessed by the reporting thread only
+	// ------------------------------------------------------------------------
+
+	private final Map<ExecutionAttemptID, AttemptCounter> attempts = new HashMap<>();
+
+	private final Map<JobVertexID, Double> backPressureRatios = new HashMap<>();
+
+	private final Map<JobVertexID, Double> rates = new HashMap<>();
+
+	/** Whether a sample was taken since the last deployment, starting the measurement. */
+	private boolean measuring;
+
+	private long lastSampleMillis;
+
+	// ------------------------------------------------------------------------
+	//  Hysteresis, guarded by this
+	// ------------------------------------------------------------------------
+
+	private int checksAboveMargin;
+
+	private long lastPlacementChangeMillis;
+
+	public AdaptivePlacementMonitor(long checkIntervalMillis, double costMargin, int stableChecks, long minIntervalMillis, Clock clock) {
+		Preconditions.checkArgument(checkIntervalMillis > 0, "The check interval must be positive");
+		Preconditions.checkArgument(costMargin >= 0, "The cost margin must not be negative");
+		Preconditions.checkArgument(stableChecks > 0, "The number of stable checks must be positive");
+		this.checkIntervalMillis = checkIntervalMillis;
+		this.costMargin = costMargin;
+		this.stableChecks = stableChecks;
+		this.minIntervalMillis = minIntervalMillis;
+		this.clock = Preconditions.checkNotNull(clock);
+		this.lastPlacementChangeMillis = nowMillis();
+	}
+
+	public long getCheckIntervalMillis() {
+		return checkIntervalMillis;
+	}
+
+	// ------------------------------------------------------------------------
+	//  Traffic
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Reports the bytes an execution attempt wrote since it started.
+	 */
+	public void reportBytesOut(ExecutionAttemptID attempt, JobVertexID vertex, long numBytesOut) {
+		AttemptCounter counter = attempts.computeIfAbsent(attempt, ignored -> new AttemptCounter(vertex));
+		counter.bytesOut = Math.max(counter.bytesOut, numBytesOut);
+		counter.reported = true;
+	}
+
+	/**
+	 * Reports the highest back pressure ratio of the subtasks of a vertex.
+	 */
+	public void reportBackPressure(JobVertexID vertex, double ratio) {
+		backPressureRatios.put(vertex, ratio);
+	}
+
+	/**
+	 * Updates the rates of the vertices with the bytes written since the previous call. The first call after a
+	 * deployment only starts the measurement.
+	 *
+	 * @return the smoothed rates of the vertices in bytes per second, including their back pressure
+	 */
+	public Map<JobVertexID, Double> sampleRates() {
+		long now = nowMillis();
+		long elapsed = now - lastSampleMillis;
+
+		Map<JobVertexID, Long> bytesByVertex = new HashMap<>();
+		Iterator<AttemptCounter> counters = attempts.values().iterator();
+		while (counters.hasNext()) {
+			AttemptCounter counter = counters.next();
+			bytesByVertex.merge(counter.vertex, counter.bytesOut - counter.bytesOutAtLastSample, Long::sum);
+			counter.bytesOutAtLastSample = counter.bytesOut;
+
+			// attempts that stopped reporting are over, their bytes have been counted
+			if (!counter.reported) {
+				counters.remove();
+			}
+			counter.reported = false;
+		}
+
+		if (measuring && elapsed > 0) {
+			for (Map.Entry<JobVertexID, Long> vertexBytes : bytesByVertex.entrySet()) {
+				double backPressure = Math.min(backPressureRatios.getOrDefault(vertexBytes.getKey(), 0d), MAX_BACK_PRESSURE_RATIO);
+				double rate = vertexBytes.getValue() * 1000d / elapsed / (1 - backPressure);
+
+				rates.merge(vertexBytes.getKey(), rate,
+					(previous, latest) -> RATE_SMOOTHING * latest + (1 - RATE_SMOOTHING) * previous);
+			}
+		}
+
+		measuring = true;
+		lastSampleMillis = now;
+		return Collections.unmodifiableMap(new HashMap<>(rates));
+	}
+
+	/**
+	 * Forgets the traffic of the previous deployment and restarts the minimum interval. To be called whenever the
+	 * job is (re)deployed.
+	 */
+	public void notifyPlacementChanged() {
+		attempts.clear();
+		backPressureRatios.clear();
+		rates.clear();
+		measuring = false;
+
+		synchronized (this) {
+			checksAboveMargin = 0;
+			lastPlacementChangeMillis = nowMillis();
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	//  Placement
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Compares the running placement with one solved for the observed rates. This sets the weights of the edges of
+	 * the given vertices, which should hence be copies of the vertices of the job, see {@link #copyVertices(List)}.
+	 *
+	 * @param vertices the vertices to solve the placements of, sorted topologically
+	 * @param slots the slots the job can be placed on
+	 * @param currentPlacement the running placement, by vertex or by a vertex with the same ID
+	 * @param vertexRates the rates of the vertices, as returned by {@link #sampleRates()}
+	 * @return the placement of the given vertices to move the job to, or null if the job should stay where it is
+	 */
+	@Nullable
+	public OptimisationModelSolution check(List<JobVertex> vertices,
+										   BandwidthProvider bandwidthProvider,
+										   Map<GeoLocation, Integer> slots,
+										   OptimisationModelParameters parameters,
+										   Map<JobVertex, List<GeoLocation>> currentPlacement,
+										   Map<JobVertexID, Double> vertexRates) {
+		if (vertexRates.isEmpty() || slots.isEmpty()) {
+			return null;
+		}
+
+		setObservedEdgeWeights(vertices, vertexRates);
+
+		Map<JobVertexID, List<GeoLocation>> placementById = new HashMap<>();
+		for (Map.Entry<JobVertex, List<GeoLocation>> vertexPlacement : currentPlacement.entrySet()) {
+			placementById.put(vertexPlacement.getKey().getID(), vertexPlacement.getValue());
+		}
+		Map<JobVertex, List<GeoLocation>> placement = new HashMap<>();
+		for (JobVertex vertex : vertices) {
+			List<GeoLocation> locations = placementById.get(vertex.getID());
+			if (locations != null) {
+				placement.put(vertex, locations);
+			}
+		}
+
+		OptimisationModelSolution current;
+		OptimisationModelSolution candidate;
+		try {
+			current = solver.solve(vertices, slots.keySet(), bandwidthProvider, slots, parameters, null, placement);
+			candidate = solver.solve(vertices, slots.keySet(), bandwidthProvider, slots, parameters, placement, null);
+		} catch (Exception e) {
+			LOG.warn("Could not compare the running placement with a new one", e);
+			return null;
+		}
+
+		if (current == null || candidate == null) {
+			return null;
+		}
+
+		current = HeuristicOptimisationModelSolver.evaluate(current, vertices, slots.keySet(), bandwidthProvider, slots, parameters);
+		candidate = HeuristicOptimisationModelSolver.evaluate(candidate, vertices, slots.keySet(), bandwidthProvider, slots, parameters);
+
+		double currentCost = current.getObjective();
+		double candidateCost = candidate.getObjective();
+		LOG.debug("Cost of the running placement {}, of the new placement {}", currentCost, candidateCost);
+
+		return decide(currentCost, candidateCost) ? candidate : null;
+	}
+
+	/**
+	 * Applies the hysteresis and the minimum interval to the costs of a check. A positive decision restarts both, so
+	 * that a failed move is not retried immediately.
+	 *
+	 * @return true if the job should be moved to the new placement
+	 */
+	@VisibleForTesting
+	synchronized boolean decide(double currentCost, double candidateCost) {
+		if (currentCost - candidateCost > costMargin * Math.abs(currentCost)) {
+			checksAboveMargin++;
+		} else {
+			checksAboveMargin = 0;
+		}
+
+		long now = nowMillis();
+		if (checksAboveMargin >= stableChecks && now - lastPlacementChangeMillis >= minIntervalMillis) {
+			LOG.info("A new placement is cheaper than the running one ({} instead of {}) for {} checks",
+				candidateCost, currentCost, checksAboveMargin);
+			checksAboveMargin = 0;
+			lastPlacementChangeMillis = now;
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Sets the weight of each edge to the rate of its producer, split among the data sets it produces. The edges of
+	 * producers without an observed rate get the mean of the observed rates.
+	 */
+	public static void setObservedEdgeWeights(List<JobVertex> vertices, Map<JobVertexID, Double> vertexRates) {
+		double meanRate = vertexRates.values().stream().mapToDouble(Double::doubleValue).average().orElse(1);
+
+		for (JobVertex vertex : vertices) {
+			double rate = vertexRates.getOrDefault(vertex.getID(), meanRate);
+			int numberOfDataSets = vertex.getProducedDataSets().size();
+
+			for (IntermediateDataSet dataSet : vertex.getProducedDataSets()) {
+				for (JobEdge edge : dataSet.getConsumers()) {
+					edge.setWeight(rate / numberOfDataSets);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Copies what the placement solvers read of the given vertices, their IDs, parallelisms, weights and geo location
+	 * keys, and the edges between them.
+	 *
+	 * @param vertices the vertices of the job, sorted topologically
+	 * @return the copies, in the same order
+	 */
+	public static List<JobVertex> copyVertices(List<JobVertex> vertices) {
+		Map<JobVertexID, JobVertex> copies = new LinkedHashMap<>();
+
+		for (JobVertex vertex : vertices) {
+			JobVertex copy = new JobVertex(vertex.getName(), vertex.getID());
+			if (vertex.getParallelism() > 0) {
+				copy.setParallelism(vertex.getParallelism());
+			}
+			copy.setMaxParallelism(vertex.getMaxParallelism());
+			copy.setWeight(vertex.getWeight());
+			copy.setGeoLocationKey(vertex.getGeoLocationKey());
+
+			for (JobEdge edge : vertex.getInputs()) {
+				JobVertex producer = copies.get(edge.getSource().getProducer().getID());
+				if (producer != null) {
+					JobEdge edgeCopy = copy.connectNewDataSetAsInput(producer, edge.getDistributionPattern(), edge.getSource().getResultType());
+					edgeCopy.setWeight(edge.getWeight());
+				}
+			}
+
+			copies.put(copy.getID(), copy);
+		}
+
+		return new ArrayList<>(copies.values());
+	}
+
+	/**
+	 * Returns the given solution for the vertices with the same IDs as the vertices it places.
+	 */
+	public static OptimisationModelSolution toVertices(OptimisationModelSolution solution, Collection<JobVertex> vertices) {
+		Map<JobVertexID, JobVertex> verticesById = new HashMap<>();
+		for (JobVertex vertex : vertices) {
+			verticesById.put(vertex.getID(), vertex);
+		}
+
+		Map<JobVertex, List<GeoLocation>> placement = new HashMap<>();
+		Map<JobVertex, Integer> parallelism = new HashMap<>();
+		Map<JobVertex, Map<GeoLocation, Integer>> subtasksPerLocation = new HashMap<>();
+		for (Map.Entry<JobVertex, List<GeoLocation>> vertexPlacement : solution.getPlacementMap().entrySet()) {
+			JobVertex vertex = Preconditions.checkNotNull(verticesById.get(vertexPlacement.getKey().getID()),
+				"The solution places an unknown vertex");
+			placement.put(vertex, vertexPlacement.getValue());
+			Integer vertexParallelism = solution.getParallelism(vertexPlacement.getKey());
+			if (vertexParallelism != null) {
+				parallelism.put(vertex, vertexParallelism);
+			}
+			Map<GeoLocation, Integer> subtasks = solution.getSubtasksPerLocationMap().get(vertexPlacement.getKey());
+			if (subtasks != null) {
+				subtasksPerLocation.put(vertex, subtasks);
+			}
+		}
+
+		OptimisationModelSolution result = new OptimisationModelSolution(placement, parallelism,
+			solution.getNetworkCost(), solution.getExecutionSpeed(), solution.getModelExecutionTime());
+		result.setSubtasksPerLocation(subtasksPerLocation);
+		result.setObjective(solution.getObjective());
+		result.setObjectiveBound(solution.getObjectiveBound());
+		result.setIncumbents(solution.getIncumbents());
+		return result;
+	}
+
+	private long nowMillis() {
+		return clock.relativeTimeNanos() / 1_000_000L;
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * The bytes written by an execution attempt, when last reported and at the last sample.
+	 */
+	private static final class AttemptCounter {
+		private final JobVertexID vertex;
+		private long bytesOut;
+		private long bytesOutAtLastSample;
+		private boolean reported;
+
+		AttemptCounter(JobVertexID vertex) {
+			this.vertex = vertex;
+		}
+	}
+}
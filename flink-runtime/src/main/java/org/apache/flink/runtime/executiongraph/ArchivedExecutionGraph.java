@@ -95,6 +95,9 @@ public class ArchivedExecutionGraph implements AccessExecutionGraph, Serializabl
 	@Nullable
 	private final CheckpointStatsSnapshot checkpointStatsSnapshot;
 
+	@Nullable
+	private final GeoPlacementStatistics geoPlacementStatistics;
+
 	public ArchivedExecutionGraph(
 			JobID jobID,
 			String jobName,
@@ -109,7 +112,8 @@ public class ArchivedExecutionGraph implements AccessExecutionGraph, Serializabl
 			ArchivedExecutionConfig executionConfig,
 			boolean isStoppable,
 			@Nullable CheckpointCoordinatorConfiguration jobCheckpointingConfiguration,
-			@Nullable CheckpointStatsSnapshot checkpointStatsSnapshot) {
+			@Nullable CheckpointStatsSnapshot checkpointStatsSnapshot,
+			@Nullable GeoPlacementStatistics geoPlacementStatistics) {
 
 		this.jobID = Preconditions.checkNotNull(jobID);
 		this.jobName = Preconditions.checkNotNull(jobName);
@@ -125,6 +129,7 @@ public class ArchivedExecutionGraph implements AccessExecutionGraph, Serializabl
 		this.isStoppable = isStoppable;
 		this.jobCheckpointingConfiguration = jobCheckpointingConfiguration;
 		this.checkpointStatsSnapshot = checkpointStatsSnapshot;
+		this.geoPlacementStatistics = geoPlacementStatistics;
 	}
 
 	// --------------------------------------------------------------------------------------------
@@ -250,6 +255,12 @@ public class ArchivedExecutionGraph implements AccessExecutionGraph, Serializabl
 		return serializedUserAccumulators;
 	}
 
+	@Nullable
+	@Override
+	public GeoPlacementStatistics getGeoPlacementStatistics() {
+		return geoPlacementStatistics;
+	}
+
 	class AllVerticesIterator implements Iterator<ArchivedExecutionVertex> {
 
 		private final Iterator<ArchivedExecutionJobVertex> jobVertices;
@@ -318,6 +329,8 @@ public class ArchivedExecutionGraph implements AccessExecutionGraph, Serializabl
 
 		final long[] timestamps = new long[JobStatus.values().length];
 
+		final GeoPlacementStatistics geoPlacementStatistics = executionGraph.getGeoPlacementStatistics();
+
 		for (JobStatus jobStatus : JobStatus.values()) {
 			final int ordinal = jobStatus.ordinal();
 			timestamps[ordinal] = executionGraph.getStatusTimestamp(jobStatus);
@@ -337,6 +350,7 @@ public class ArchivedExecutionGraph implements AccessExecutionGraph, Serializabl
 			executionGraph.getArchivedExecutionConfig(),
 			executionGraph.isStoppable(),
 			executionGraph.getCheckpointCoordinatorConfiguration(),
-			executionGraph.getCheckpointStatsSnapshot());
+			executionGraph.getCheckpointStatsSnapshot(),
+			geoPlacementStatistics == null ? null : geoPlacementStatistics.archive());
 	}
 }
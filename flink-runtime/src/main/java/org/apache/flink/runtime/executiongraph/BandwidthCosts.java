@@ -0,0 +1,122 @@
+package org.apache.flink.runtime.executiongraph;
+
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.jobmanager.scheduler.BandwidthProvider;
+import org.apache.flink.util.Preconditions;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The cost of sending a unit of data between two locations, inversely proportional to the bandwidth between them.
+ *
+ * <p>Costs are normalised so that the fastest known link costs 1. Links without a known, positive bandwidth cost 1 as
+ * well, so that without bandwidths every cross-location flow costs the same.
+ *
+ * <p>The latency of each link, half its round trip time, is indexed along, 0 if the round trip time is unknown.
+ */
+public final class BandwidthCosts {
+
+	private final GeoLocation[] locations;
+
+	private final Map<GeoLocation, Integer> locationIndexes = new HashMap<>();
+
+	/**
+	 * costs[x][y] is the cost of sending a unit of data from x to y.
+	 */
+	private final double[][] costs;
+
+	private final double maxCost;
+
+	/**
+	 * latencies[x][y] is the one-way latency from x to y, in milliseconds.
+	 */
+	private final double[][] latencies;
+
+	public BandwidthCosts(Collection<GeoLocation> locationCollection, BandwidthProvider bandwidthProvider) {
+		Preconditions.checkNotNull(locationCollection);
+
+		this.locations = locationCollection.toArray(new GeoLocation[0]);
+		int m = locations.length;
+
+		for (int l = 0; l < m; l++) {
+			locationIndexes.put(locations[l], l);
+		}
+
+		double[][] bandwidths = new double[m][m];
+		double maxBandwidth = 0;
+		for (int from = 0; from < m; from++) {
+			for (int to = 0; to < m; to++) {
+				if (from != to && bandwidthProvider != null && bandwidthProvider.hasBandwidth(locations[from], locations[to])) {
+					bandwidths[from][to] = bandwidthProvider.getBandwidth(locations[from], locations[to]);
+					maxBandwidth = Math.max(maxBandwidth, bandwidths[from][to]);
+				}
+			}
+		}
+
+		this.costs = new double[m][m];
+		double max = 1d;
+		for (int from = 0; from < m; from++) {
+			for (int to = 0; to < m; to++) {
+				if (from == to) {
+					costs[from][to] = 0d;
+				} else if (bandwidths[from][to] > 0) {
+					costs[from][to] = maxBandwidth / bandwidths[from][to];
+				} else {
+					costs[from][to] = 1d;
+				}
+				max = Math.max(max, costs[from][to]);
+			}
+		}
+		this.maxCost = max;
+
+		this.latencies = new double[m][m];
+		for (int from = 0; from < m; from++) {
+			for (int to = 0; to < m; to++) {
+				if (from != to && bandwidthProvider != null) {
+					latencies[from][to] = Math.max(bandwidthProvider.getRoundTripTime(locations[from], locations[to]), 0) / 2;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the cost of sending a unit of data from a location to another one
+	 */
+	public double get(GeoLocation from, GeoLocation to) {
+		return get(locationIndexes.get(from), locationIndexes.get(to));
+	}
+
+	/**
+	 * @return the cost of sending a unit of data between two locations, by their index in {@link #getLocations()}
+	 */
+	public double get(int from, int to) {
+		return costs[from][to];
+	}
+
+	/**
+	 * @return the one-way latency between two locations in milliseconds, by their index in {@link #getLocations()}
+	 */
+	public double getLatency(int from, int to) {
+		return latencies[from][to];
+	}
+
+	/**
+	 * @return the highest cost between two different locations, at least 1
+	 */
+	public double getMaxCost() {
+		return maxCost;
+	}
+
+	/**
+	 * @return true if every link costs the same, i.e. the bandwidth doesn't change the network cost
+	 */
+	public boolean isUniform() {
+		return maxCost == 1d;
+	}
+
+	public GeoLocation[] getLocations() {
+		return locations;
+	}
+}
@@ -0,0 +1,176 @@
+package org.apache.flink.runtime.executiongraph;
+
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.OptimisationModelOptions;
+import org.apache.flink.configuration.TaskManagerOptions;
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.jobmanager.scheduler.BandwidthProvider;
+import org.apache.flink.runtime.taskmanager.TaskManagerLocation;
+import org.apache.flink.util.Preconditions;
+
+import javax.annotation.Nullable;
+
+import java.util.List;
+
+/**
+ * Chooses the buffer timeout of each channel between two subtasks from the geo locations of the subtasks, so that
+ * the channels within a geo location flush early and the channels between geo locations send fuller buffers.
+ *
+ * <p>The timeouts are computed when a producer is deployed, for the consumers whose slots are known by then, and
+ * shipped with its result partitions. A negative timeout keeps the buffer timeout of the producing operator.
+ */
+public class ChannelBufferTimeouts {
+
+	/**
+	 * How the timeouts of the channels between geo locations are chosen.
+	 */
+	public enum Mode {
+		OPERATOR,
+		STATIC,
+		AUTO;
+
+		public static Mode fromString(String name) {
+			for (Mode mode : values()) {
+				if (mode.name().equalsIgnoreCase(name.trim())) {
+					return mode;
+				}
+			}
+			throw new IllegalArgumentException("Unknown buffer timeout mode: " + name);
+		}
+	}
+
+	/**
+	 * Creates the timeouts from {@link OptimisationModelOptions#BUFFER_TIMEOUT_MODE} and the related options.
+	 *
+	 * @return the timeouts, or null if the channels keep the timeouts of their operators
+	 */
+	@Nullable
+	public static ChannelBufferTimeouts fromConfiguration(Configuration configuration, BandwidthProvider bandwidthProvider) {
+		Mode mode = Mode.fromString(configuration.getString(OptimisationModelOptions.BUFFER_TIMEOUT_MODE));
+
+		if (mode == Mode.OPERATOR) {
+			return null;
+		}
+
+		return new ChannelBufferTimeouts(
+			mode,
+			bandwidthProvider,
+			configuration.getLong(OptimisationModelOptions.LOCAL_BUFFER_TIMEOUT),
+			configuration.getLong(OptimisationModelOptions.WAN_BUFFER_TIMEOUT),
+			configuration.getDouble(OptimisationModelOptions.BUFFER_TIMEOUT_LATENCY_FRACTION),
+			configuration.getLong(OptimisationModelOptions.MAX_BUFFER_TIMEOUT),
+			configuration.getInteger(TaskManagerOptions.MEMORY_SEGMENT_SIZE));
+	}
+
+	private final Mode mode;
+
+	private final BandwidthProvider bandwidthProvider;
+
+	private final long localTimeout;
+
+	private final long wanTimeout;
+
+	private final double latencyFraction;
+
+	private final long maxTimeout;
+
+	private final int bufferSize;
+
+	/**
+	 * @param mode how the timeouts of the channels between geo locations are chosen
+	 * @param bandwidthProvider the bandwidths and round trip times of the links, for the automatic mode
+	 * @param localTimeout the timeout of the channels within a geo location, negative to keep the operator's
+	 * @param wanTimeout the timeout of the channels between geo locations, negative to keep the operator's
+	 * @param latencyFraction the fraction of the latency of a link a buffer may wait, in the automatic mode
+	 * @param maxTimeout the highest timeout chosen in the automatic mode
+	 * @param bufferSize the size in bytes of the network buffers
+	 */
+	public ChannelBufferTimeouts(
+			Mode mode,
+			BandwidthProvider bandwidthProvider,
+			long localTimeout,
+			long wanTimeout,
+			double latencyFraction,
+			long maxTimeout,
+			int bufferSize) {
+		Preconditions.checkArgument(latencyFraction >= 0, "The latency fraction must not be negative");
+		Preconditions.checkArgument(maxTimeout > 0, "The maximum buffer timeout must be positive");
+		Preconditions.checkArgument(bufferSize > 0, "The buffer size must be positive");
+		this.mode = Preconditions.checkNotNull(mode);
+		this.bandwidthProvider = Preconditions.checkNotNull(bandwidthProvider);
+		this.localTimeout = localTimeout;
+		this.wanTimeout = wanTimeout;
+		this.latencyFraction = latencyFraction;
+		this.maxTimeout = maxTimeout;
+		this.bufferSize = bufferSize;
+	}
+
+	/**
+	 * @param from the geo location of the producer
+	 * @param to the geo location of the consumer, null if unknown
+	 * @return the buffer timeout in milliseconds of the channel, negative to keep the operator's
+	 */
+	public long getBufferTimeout(GeoLocation from, @Nullable GeoLocation to) {
+		if (to == null) {
+			return -1;
+		}
+
+		if (from.equals(to)) {
+			return localTimeout;
+		}
+
+		if (mode == Mode.STATIC) {
+			return wanTimeout;
+		}
+
+		// waiting for less than the time a full buffer takes to be sent doesn't make the link any faster
+		double sendTimeMillis = bandwidthProvider.hasBandwidth(from, to) ?
+			bufferSize * 1000d / bandwidthProvider.getBandwidth(from, to) :
+			-1;
+		double roundTripTime = bandwidthProvider.getRoundTripTime(from, to);
+		double waitTimeMillis = roundTripTime >= 0 ? latencyFraction * roundTripTime / 2 : -1;
+
+		if (sendTimeMillis < 0 && waitTimeMillis < 0) {
+			return wanTimeout;
+		}
+
+		return Math.min(maxTimeout, Math.max(1, (long) Math.ceil(Math.max(sendTimeMillis, waitTimeMillis))));
+	}
+
+	/**
+	 * Computes the timeouts of the subpartitions of a result partition, the subpartition i being consumed by the
+	 * target of the consumer edge i.
+	 *
+	 * @param producerLocation the location of the producer
+	 * @param consumers the consumer edges of the partition
+	 * @return the timeout of each subpartition, or null if they all keep the timeout of the operator
+	 */
+	@Nullable
+	public long[] getSubpartitionTimeouts(TaskManagerLocation producerLocation, List<ExecutionEdge> consumers) {
+		long[] timeouts = new long[consumers.size()];
+		boolean anyTimeout = false;
+
+		for (int i = 0; i < timeouts.length; i++) {
+			TaskManagerLocation consumerLocation = consumers.get(i).getTarget().getCurrentAssignedResourceLocation();
+
+			timeouts[i] = getBufferTimeout(
+				producerLocation.getGeoLocation(),
+				consumerLocation == null ? null : consumerLocation.getGeoLocation());
+			anyTimeout |= timeouts[i] >= 0;
+		}
+
+		return anyTimeout ? timeouts : null;
+	}
+
+	@Override
+	public String toString() {
+		return "ChannelBufferTimeouts{" +
+			"mode=" + mode +
+			", localTimeout=" + localTimeout +
+			", wanTimeout=" + wanTimeout +
+			", latencyFraction=" + latencyFraction +
+			", maxTimeout=" + maxTimeout +
+			", bufferSize=" + bufferSize +
+			'}';
+	}
+}
@@ -252,6 +252,14 @@ public class ExecutionGraph implements AccessExecutionGraph {
 	 * from results than need to be materialized. */
 	private ScheduleMode scheduleMode = ScheduleMode.LAZY_FROM_SOURCES;
 
+	/** The buffer timeouts of the channels between the subtasks, null to keep the ones of the operators. */
+	@Nullable
+	private volatile ChannelBufferTimeouts channelBufferTimeouts;
+
+	/** The placement of the job over the geo locations, null if it is not geo scheduled. */
+	@Nullable
+	private volatile GeoPlacementStatistics geoPlacementStatistics;
+
 	// ------ Execution status and progress. These values are volatile, and accessed under the lock -------
 
 	private final AtomicInteger verticesFinished;
@@ -453,6 +461,25 @@ public class ExecutionGraph implements AccessExecutionGraph {
 		return scheduleMode;
 	}
 
+	@Nullable
+	public ChannelBufferTimeouts getChannelBufferTimeouts() {
+		return channelBufferTimeouts;
+	}
+
+	public void setChannelBufferTimeouts(@Nullable ChannelBufferTimeouts channelBufferTimeouts) {
+		this.channelBufferTimeouts = channelBufferTimeouts;
+	}
+
+	@Nullable
+	@Override
+	public GeoPlacementStatistics getGeoPlacementStatistics() {
+		return geoPlacementStatistics;
+	}
+
+	public void setGeoPlacementStatistics(@Nullable GeoPlacementStatistics geoPlacementStatistics) {
+		this.geoPlacementStatistics = geoPlacementStatistics;
+	}
+
 	public Time getAllocationTimeout() {
 		return allocationTimeout;
 	}
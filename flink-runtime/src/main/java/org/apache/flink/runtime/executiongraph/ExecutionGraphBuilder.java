@@ -40,6 +40,8 @@ import org.apache.flink.runtime.executiongraph.failover.FailoverStrategy;
 import org.apache.flink.runtime.executiongraph.failover.FailoverStrategyLoader;
 import org.apache.flink.runtime.executiongraph.metrics.DownTimeGauge;
 import org.apache.flink.runtime.executiongraph.metrics.NumberOfFullRestartsGauge;
+import org.apache.flink.runtime.executiongraph.metrics.PlacementIncumbentsGauge;
+import org.apache.flink.runtime.executiongraph.metrics.PlacementOptimalityGapGauge;
 import org.apache.flink.runtime.executiongraph.metrics.RestartTimeGauge;
 import org.apache.flink.runtime.executiongraph.metrics.UpTimeGauge;
 import org.apache.flink.runtime.executiongraph.restart.RestartStrategy;
@@ -187,6 +189,10 @@ public class ExecutionGraphBuilder {
 		}
 
 		if (solution != null) {
+			OptimisationModelParameters parameters = jobGraph.getOptimisationModelParameters();
+			executionGraph.setGeoPlacementStatistics(
+				new GeoPlacementStatistics(solution, parameters == null ? null : parameters.getSolverType()));
+
 			if (slotProvider instanceof GeoScheduler) {
 				//giving the solution to the scheduler
 				((GeoScheduler) slotProvider).addGraphSolution(executionGraph, solution);
@@ -227,7 +233,7 @@ public class ExecutionGraphBuilder {
 
 
 		// create all the metrics for the Execution Graph
-		createMetrics(metrics, executionGraph);
+		createMetrics(metrics, executionGraph, jobGraph);
 
 
 		return executionGraph;
@@ -403,12 +409,23 @@ public class ExecutionGraphBuilder {
 		}
 	}
 
-	private static void createMetrics(MetricGroup metrics, ExecutionGraph executionGraph) {
+	private static void createMetrics(MetricGroup metrics, ExecutionGraph executionGraph, JobGraph jobGraph) {
 		metrics.gauge(RestartTimeGauge.METRIC_NAME, new RestartTimeGauge(executionGraph));
 		metrics.gauge(DownTimeGauge.METRIC_NAME, new DownTimeGauge(executionGraph));
 		metrics.gauge(UpTimeGauge.METRIC_NAME, new UpTimeGauge(executionGraph));
 		metrics.gauge(NumberOfFullRestartsGauge.METRIC_NAME, new NumberOfFullRestartsGauge(executionGraph));
 
+		// geo scheduled jobs only, their placement may be solved after the graph is built
+		if (jobGraph.getOptimisationModelParameters() != null) {
+			metrics.gauge(PlacementOptimalityGapGauge.METRIC_NAME, new PlacementOptimalityGapGauge(jobGraph));
+			metrics.gauge(PlacementIncumbentsGauge.METRIC_NAME, new PlacementIncumbentsGauge(jobGraph));
+		}
+
+		GeoPlacementStatistics geoPlacementStatistics = executionGraph.getGeoPlacementStatistics();
+		if (geoPlacementStatistics != null) {
+			geoPlacementStatistics.registerMetrics(metrics);
+		}
+
 		executionGraph.getFailoverStrategy().registerMetrics(metrics);
 	}
 
@@ -771,6 +771,8 @@ public class ExecutionVertex implements AccessExecutionVertex, Archiveable<Archi
 		
 		boolean lazyScheduling = getExecutionGraph().getScheduleMode().allowLazyDeployment();
 
+		ChannelBufferTimeouts channelBufferTimeouts = getExecutionGraph().getChannelBufferTimeouts();
+
 		for (IntermediateResultPartition partition : resultPartitions.values()) {
 
 			List<List<ExecutionEdge>> consumers = partition.getConsumers();
@@ -788,7 +790,11 @@ public class ExecutionVertex implements AccessExecutionVertex, Archiveable<Archi
 				List<ExecutionEdge> consumer = consumers.get(0);
 				ExecutionJobVertex vertex = consumer.get(0).getTarget().getJobVertex();
 				int maxParallelism = vertex.getMaxParallelism();
-				producedPartitions.add(ResultPartitionDeploymentDescriptor.from(partition, maxParallelism, lazyScheduling));
+				long[] subpartitionBufferTimeouts = channelBufferTimeouts == null ?
+					null :
+					channelBufferTimeouts.getSubpartitionTimeouts(targetSlot.getTaskManagerLocation(), consumer);
+				producedPartitions.add(ResultPartitionDeploymentDescriptor.from(
+					partition, maxParallelism, lazyScheduling, subpartitionBufferTimeouts));
 			}
 		}
 		
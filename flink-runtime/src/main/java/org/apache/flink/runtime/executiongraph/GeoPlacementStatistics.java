@@ -0,0 +1,342 @@
+package org.apache.flink.runtime.executiongraph;
+
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.jobgraph.DistributionPattern;
+import org.apache.flink.runtime.jobgraph.IntermediateDataSet;
+import org.apache.flink.runtime.jobgraph.JobEdge;
+import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.apache.flink.runtime.jobgraph.JobVertexID;
+
+import javax.annotation.Nullable;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * The placement of a geo scheduled job, and how well the scheduler follows it: the solution of its placement model
+ * with the time it took to solve, how often a subtask could not get a slot at its locations and was placed anywhere,
+ * and how often the placement was repaired after the loss of slots.
+ *
+ * <p>The statistics are held by the {@link ExecutionGraph} and archived with it, so that the placement of finished
+ * jobs can be looked at too. The solution is kept by the ids of the vertices, the graph it was solved for is not.
+ */
+public class GeoPlacementStatistics implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final String SOLVE_TIME_METRIC_NAME = "placementSolveTime";
+
+	public static final String NETWORK_COST_METRIC_NAME = "placementNetworkCost";
+
+	public static final String EXECUTION_SPEED_METRIC_NAME = "placementExecutionSpeed";
+
+	public static final String FALLBACKS_METRIC_NAME = "placementFallbacks";
+
+	public static final String REPAIRS_METRIC_NAME = "placementRepairs";
+
+	// ------------------------------------------------------------------------
+
+	@Nullable
+	private final OptimisationModelSolverType solverType;
+
+	/** The current placement, replaced as a whole when the placement is repaired. */
+	private volatile Placement placement;
+
+	private final AtomicLong numberOfFallbacks;
+
+	private final AtomicLong numberOfRepairs;
+
+	/**
+	 * @param solution the solution of the placement model of the job
+	 * @param solverType the solver the solution comes from, null if unknown
+	 */
+	public GeoPlacementStatistics(OptimisationModelSolution solution, @Nullable OptimisationModelSolverType solverType) {
+		this(new Placement(solution), solverType, 0, 0);
+	}
+
+	private GeoPlacementStatistics(Placement placement, @Nullable OptimisationModelSolverType solverType, long numberOfFallbacks, long numberOfRepairs) {
+		this.placement = checkNotNull(placement);
+		this.solverType = solverType;
+		this.numberOfFallbacks = new AtomicLong(numberOfFallbacks);
+		this.numberOfRepairs = new AtomicLong(numberOfRepairs);
+	}
+
+	/**
+	 * Records that a subtask was given a slot outside of the locations of its vertex.
+	 */
+	public void recordFallback() {
+		numberOfFallbacks.incrementAndGet();
+	}
+
+	/**
+	 * Records that the placement was repaired, the repaired solution replacing the current one.
+	 */
+	public void recordRepair(OptimisationModelSolution repairedSolution) {
+		placement = new Placement(repairedSolution);
+		numberOfRepairs.incrementAndGet();
+	}
+
+	/**
+	 * Registers the gauges of the current placement, and of the fallbacks and repairs, in the given group.
+	 */
+	public void registerMetrics(MetricGroup metrics) {
+		metrics.gauge(SOLVE_TIME_METRIC_NAME, (Gauge<Long>) () -> placement.solveTimeMillis);
+		metrics.gauge(NETWORK_COST_METRIC_NAME, (Gauge<Double>) () -> placement.networkCost);
+		metrics.gauge(EXECUTION_SPEED_METRIC_NAME, (Gauge<Double>) () -> placement.executionSpeed);
+		metrics.gauge(FALLBACKS_METRIC_NAME, (Gauge<Long>) numberOfFallbacks::get);
+		metrics.gauge(REPAIRS_METRIC_NAME, (Gauge<Long>) numberOfRepairs::get);
+	}
+
+	/**
+	 * Returns a copy of these statistics which is no longer updated.
+	 */
+	public GeoPlacementStatistics archive() {
+		return new GeoPlacementStatistics(placement, solverType, numberOfFallbacks.get(), numberOfRepairs.get());
+	}
+
+	// ------------------------------------------------------------------------
+
+	@Nullable
+	public OptimisationModelSolverType getSolverType() {
+		return solverType;
+	}
+
+	/**
+	 * Returns the time it took to solve the current placement, in milliseconds.
+	 */
+	public long getSolveTimeMillis() {
+		return placement.solveTimeMillis;
+	}
+
+	/**
+	 * Returns the objective of the current placement, NaN if unknown.
+	 */
+	public double getObjective() {
+		return placement.objective;
+	}
+
+	/**
+	 * Returns the bound of the objective proven by the solver, NaN if unknown.
+	 */
+	public double getObjectiveBound() {
+		return placement.objectiveBound;
+	}
+
+	/**
+	 * Returns the optimality gap of the current placement, as {@link OptimisationModelSolution#getOptimalityGap()}.
+	 */
+	public double getOptimalityGap() {
+		return placement.optimalityGap;
+	}
+
+	public double getNetworkCost() {
+		return placement.networkCost;
+	}
+
+	public double getExecutionSpeed() {
+		return placement.executionSpeed;
+	}
+
+	public long getNumberOfFallbacks() {
+		return numberOfFallbacks.get();
+	}
+
+	public long getNumberOfRepairs() {
+		return numberOfRepairs.get();
+	}
+
+	/**
+	 * Returns the locations of each vertex in the current placement.
+	 */
+	public Map<JobVertexID, List<GeoLocation>> getLocations() {
+		return placement.locations;
+	}
+
+	/**
+	 * Returns the parallelism of each vertex decided with the current placement.
+	 */
+	public Map<JobVertexID, Integer> getParallelism() {
+		return placement.parallelism;
+	}
+
+	/**
+	 * Returns the subtasks the current placement puts at each location, as
+	 * {@link OptimisationModelSolution#getSubtasksPerLocation(JobVertex)}.
+	 */
+	public Map<GeoLocation, Integer> getPlannedSubtasks() {
+		return placement.plannedSubtasks;
+	}
+
+	/**
+	 * Returns the edges between the placed vertices.
+	 */
+	public List<Edge> getEdges() {
+		return placement.edges;
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Returns the share of the data of an edge crossing locations if the subtasks of both vertices are spread evenly
+	 * over their locations, as the placement model assumes: an all-to-all edge sends each record to a subtask at
+	 * any location of the consumer, a pointwise one keeps the records of the producer at its locations shared with
+	 * the consumer.
+	 */
+	static double estimateCrossLocationShare(List<GeoLocation> producerLocations, List<GeoLocation> consumerLocations, DistributionPattern distributionPattern) {
+		if (producerLocations.isEmpty() || consumerLocations.isEmpty()) {
+			return 0;
+		}
+
+		int shared = 0;
+		for (GeoLocation location : producerLocations) {
+			if (consumerLocations.contains(location)) {
+				shared++;
+			}
+		}
+
+		if (distributionPattern == DistributionPattern.ALL_TO_ALL) {
+			return 1 - (double) shared / ((double) producerLocations.size() * consumerLocations.size());
+		} else {
+			return 1 - (double) shared / producerLocations.size();
+		}
+	}
+
+	/**
+	 * A solution of the placement model, by the ids of the vertices.
+	 */
+	private static final class Placement implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final long solveTimeMillis;
+		private final double objective;
+		private final double objectiveBound;
+		private final double optimalityGap;
+		private final double networkCost;
+		private final double executionSpeed;
+
+		private final Map<JobVertexID, List<GeoLocation>> locations = new LinkedHashMap<>();
+		private final Map<JobVertexID, Integer> parallelism = new HashMap<>();
+		private final Map<GeoLocation, Integer> plannedSubtasks = new HashMap<>();
+		private final List<Edge> edges = new ArrayList<>();
+
+		Placement(OptimisationModelSolution solution) {
+			this.solveTimeMillis = (long) (solution.getModelExecutionTime() * 1000);
+			this.objective = solution.getObjective();
+			this.objectiveBound = solution.getObjectiveBound();
+			this.optimalityGap = solution.getOptimalityGap();
+			this.networkCost = solution.getNetworkCost();
+			this.executionSpeed = solution.getExecutionSpeed();
+
+			for (Map.Entry<JobVertex, List<GeoLocation>> vertexLocations : solution.getPlacementMap().entrySet()) {
+				JobVertex vertex = vertexLocations.getKey();
+				List<GeoLocation> vertexLocationList = vertexLocations.getValue() == null ?
+					Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(vertexLocations.getValue()));
+
+				Integer vertexParallelism = solution.getParallelism(vertex);
+				int subtasks = vertexParallelism == null ? vertex.getParallelism() : vertexParallelism;
+
+				locations.put(vertex.getID(), vertexLocationList);
+				parallelism.put(vertex.getID(), subtasks);
+
+				Map<GeoLocation, Integer> subtasksPerLocation = solution.getSubtasksPerLocation(vertex);
+				if (subtasksPerLocation != null) {
+					subtasksPerLocation.forEach((location, subtasksAtLocation) -> plannedSubtasks.merge(location, subtasksAtLocation, Integer::sum));
+				}
+			}
+
+			for (JobVertex consumer : solution.getPlacementMap().keySet()) {
+				for (JobEdge input : consumer.getInputs()) {
+					JobVertex producer = input.getSource().getProducer();
+					List<GeoLocation> producerLocations = locations.get(producer.getID());
+					List<GeoLocation> consumerLocations = locations.get(consumer.getID());
+
+					if (producerLocations != null) {
+						edges.add(new Edge(
+							producer.getID(),
+							consumer.getID(),
+							input.getDistributionPattern(),
+							input.getWeight(),
+							numberOfOutputs(producer),
+							estimateCrossLocationShare(producerLocations, consumerLocations, input.getDistributionPattern())));
+					}
+				}
+			}
+		}
+
+		private static int numberOfOutputs(JobVertex producer) {
+			int outputs = 0;
+			for (IntermediateDataSet dataSet : producer.getProducedDataSets()) {
+				outputs += dataSet.getConsumers().size();
+			}
+			return outputs;
+		}
+	}
+
+	/**
+	 * An edge between two placed vertices, with the share of its data the placement expects to cross locations.
+	 */
+	public static final class Edge implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final JobVertexID producer;
+		private final JobVertexID consumer;
+		private final DistributionPattern distributionPattern;
+		private final double weight;
+		private final int producerOutputs;
+		private final double estimatedCrossLocationShare;
+
+		Edge(JobVertexID producer, JobVertexID consumer, DistributionPattern distributionPattern, double weight, int producerOutputs, double estimatedCrossLocationShare) {
+			this.producer = producer;
+			this.consumer = consumer;
+			this.distributionPattern = distributionPattern;
+			this.weight = weight;
+			this.producerOutputs = producerOutputs;
+			this.estimatedCrossLocationShare = estimatedCrossLocationShare;
+		}
+
+		public JobVertexID getProducer() {
+			return producer;
+		}
+
+		public JobVertexID getConsumer() {
+			return consumer;
+		}
+
+		public DistributionPattern getDistributionPattern() {
+			return distributionPattern;
+		}
+
+		/**
+		 * Returns the weight of the edge in the placement model.
+		 */
+		public double getWeight() {
+			return weight;
+		}
+
+		/**
+		 * Returns the number of edges the producer writes to, which share its output.
+		 */
+		public int getProducerOutputs() {
+			return producerOutputs;
+		}
+
+		/**
+		 * Returns the share of the data of the edge crossing locations with the placement, between 0 and 1.
+		 */
+		public double getEstimatedCrossLocationShare() {
+			return estimatedCrossLocationShare;
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package org.apache.flink.runtime.executiongraph;
+
+import gurobi.GRBException;
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.apache.flink.runtime.jobmanager.scheduler.BandwidthProvider;
+import org.apache.flink.util.FlinkException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Solves the placement problem building a {@link MultiLocationOptimisationModel}, or its
+ * {@link LinearisedMultiLocationOptimisationModel} formulation, and optimising it with Gurobi.
+ */
+public class GurobiOptimisationModelSolver implements OptimisationModelSolver {
+
+	private static final Logger LOG = LoggerFactory.getLogger(GurobiOptimisationModelSolver.class);
+
+	private final boolean linearised;
+
+	private final int seed;
+
+	public GurobiOptimisationModelSolver() {
+		this(false);
+	}
+
+	/**
+	 * @param linearised true to solve the {@link LinearisedMultiLocationOptimisationModel} formulation
+	 */
+	public GurobiOptimisationModelSolver(boolean linearised) {
+		this(linearised, 0);
+	}
+
+	/**
+	 * @param linearised true to solve the {@link LinearisedMultiLocationOptimisationModel} formulation
+	 * @param seed the seed of Gurobi's random choices, 0 being Gurobi's default
+	 */
+	public GurobiOptimisationModelSolver(boolean linearised, int seed) {
+		this.linearised = linearised;
+		this.seed = seed;
+	}
+
+	@Override
+	public OptimisationModelSolution solve(Collection<JobVertex> vertices,
+										   Set<GeoLocation> locations,
+										   BandwidthProvider bandwidthProvider,
+										   Map<GeoLocation, Integer> slots,
+										   OptimisationModelParameters parameters,
+										   @Nullable Map<JobVertex, List<GeoLocation>> startPlacement,
+										   @Nullable Map<JobVertex, List<GeoLocation>> fixedPlacement) throws FlinkException {
+		OptimisationModel model = null;
+		try {
+			if (linearised) {
+				model = new LinearisedMultiLocationOptimisationModel(vertices, locations, bandwidthProvider, slots, parameters);
+			} else {
+				model = new MultiLocationOptimisationModel(vertices, locations, bandwidthProvider, slots, parameters);
+			}
+			if (seed != 0) {
+				model.setSeed(seed);
+			}
+			if (fixedPlacement != null) {
+				model.fixPlacement(fixedPlacement);
+			}
+			if (startPlacement != null) {
+				model.setStartPlacement(startPlacement);
+			}
+			return model.optimize();
+		} catch (GRBException e) {
+			throw new FlinkException("Gurobi failed to solve the optimisation model", e);
+		} finally {
+			if (model != null) {
+				try {
+					model.dispose();
+				} catch (GRBException e) {
+					LOG.warn("Could not dispose the optimisation model", e);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,1046 @@
+package org.apache.flink.runtime.executiongraph;
+
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.jobgraph.DistributionPattern;
+import org.apache.flink.runtime.jobgraph.JobEdge;
+import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.apache.flink.runtime.jobmanager.scheduler.BandwidthProvider;
+import org.apache.flink.util.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * A pure-Java solver for the placement problem of the {@link MultiLocationOptimisationModel}, not needing Gurobi.
+ *
+ * <p>Once the locations of a vertex are chosen, the best parallelism is the highest one the slots at those locations
+ * allow, so the search only explores placements. The objective is the same as the model's:
+ * <ul>
+ *     <li>execution speed: <code>- sum(weight(o) * parallelism(o))</code></li>
+ *     <li>network cost: for each edge, its weight times the number of locations hosting only one of its ends,
+ *     each weighted by the {@link BandwidthCosts} of the slowest link towards the other end, normalised by
+ *     <code>maxExecutionTime / maxNetworkCost</code>. All-to-all edges cost instead the share of their records crossing
+ *     each link, assuming each vertex has as many subtasks at each of its locations as the slots there allow</li>
+ *     <li>path latency: if the parameters have a {@link PathLatencyObjective}, its penalty for the worst path of
+ *     the placement, or a prohibitive one if the limits are constraints</li>
+ * </ul>
+ * A greedy construction places the vertices in topological order (or the search starts from a given placement), then a local search adds, removes and moves
+ * locations until no move improves the objective. Finally, simulated annealing looks for better placements for a
+ * bounded number of moves, and the best placement found is returned.
+ *
+ * <p>Vertices with a fixed placement are never moved, so repairing a solution after the loss of some locations only
+ * searches the placement of the affected vertices.
+ */
+public class HeuristicOptimisationModelSolver implements OptimisationModelSolver {
+
+	private static final Logger LOG = LoggerFactory.getLogger(HeuristicOptimisationModelSolver.class);
+
+	/** Simulated annealing moves tried for each free (vertex, location) pair. */
+	private static final int ANNEALING_MOVES_PER_VARIABLE = 50;
+
+	/** Improvements smaller than this are not considered improvements. */
+	private static final double EPSILON = 1e-9;
+
+	/** Factor of the latency penalty when the latency limits are constraints, so that no saving makes up for it. */
+	private static final double LATENCY_CONSTRAINT_PENALTY_FACTOR = 1e6;
+
+	private final long seed;
+
+	public HeuristicOptimisationModelSolver() {
+		this(42L);
+	}
+
+	/**
+	 * @param seed the seed of the simulated annealing moves, the same seed always gives the same solution
+	 */
+	public HeuristicOptimisationModelSolver(long seed) {
+		this.seed = seed;
+	}
+
+	@Override
+	public OptimisationModelSolution solve(Collection<JobVertex> vertices,
+										   Set<GeoLocation> locations,
+										   BandwidthProvider bandwidthProvider,
+										   Map<GeoLocation, Integer> slots,
+										   OptimisationModelParameters parameters,
+										   @Nullable Map<JobVertex, List<GeoLocation>> startPlacement,
+										   @Nullable Map<JobVertex, List<GeoLocation>> fixedPlacement) {
+		Preconditions.checkNotNull(vertices);
+		Preconditions.checkNotNull(locations);
+		Preconditions.checkNotNull(slots);
+		Preconditions.checkNotNull(parameters);
+
+		long start = System.nanoTime();
+		long deadline = start + (long) (parameters.getTimeForEachTaskBeforeHeuristicSolution() * vertices.size() * 1e9);
+
+		PlacementSearch search = new PlacementSearch(vertices, locations, bandwidthProvider, slots, parameters,
+			fixedPlacement == null ? Collections.emptyMap() : fixedPlacement);
+
+		if (!search.isFeasible()) {
+			LOG.warn("The placement problem has no feasible solution");
+			return null;
+		}
+
+		if (startPlacement != null) {
+			search.start(startPlacement);
+		} else {
+			search.construct();
+		}
+		search.recordIncumbent();
+		search.localSearch(deadline);
+		search.recordIncumbent();
+		search.anneal(new Random(seed), deadline);
+		search.recordIncumbent();
+
+		if (!search.satisfiesLatencyConstraints()) {
+			LOG.warn("No placement found within the path latency limits of {}", parameters.getPathLatencyObjective());
+			return null;
+		}
+
+		return search.toSolution((System.nanoTime() - start) / 1e9);
+	}
+
+	@Override
+	public OptimisationModelSolution solve(Collection<JobVertex> vertices,
+										   Set<GeoLocation> locations,
+										   BandwidthProvider bandwidthProvider,
+										   Map<GeoLocation, Integer> slots,
+										   OptimisationModelParameters parameters,
+										   @Nullable Map<JobVertex, List<GeoLocation>> startPlacement) {
+		return solve(vertices, locations, bandwidthProvider, slots, parameters, startPlacement, null);
+	}
+
+	/**
+	 * Scores the given solution with the objective of this solver, so that the solutions of different solvers, or of
+	 * the same problem solved by parts, can be compared: the execution speed, the network cost and the path latency
+	 * penalty of its placement, with its own parallelism and subtasks at each location. Locations that are not among
+	 * the given ones are ignored.
+	 *
+	 * @return a copy of the solution with the execution speed, network cost and objective of this solver
+	 */
+	public static OptimisationModelSolution evaluate(OptimisationModelSolution solution,
+													  Collection<JobVertex> vertices,
+													  Set<GeoLocation> locations,
+													  BandwidthProvider bandwidthProvider,
+													  Map<GeoLocation, Integer> slots,
+													  OptimisationModelParameters parameters) {
+		PlacementSearch search = new PlacementSearch(vertices, locations, bandwidthProvider, slots, parameters, Collections.emptyMap());
+		search.load(solution);
+
+		OptimisationModelSolution evaluated = new OptimisationModelSolution(solution.getPlacementMap(),
+			solution.getParallelismMap(), search.networkCost(), search.executionSpeed(), solution.getModelExecutionTime());
+		evaluated.setSubtasksPerLocation(solution.getSubtasksPerLocationMap());
+		evaluated.setObjective(search.totalCost());
+		evaluated.setObjectiveBound(solution.getObjectiveBound());
+		evaluated.setIncumbents(solution.getIncumbents());
+		return evaluated;
+	}
+
+	/**
+	 * Returns the upper bound of the parallelism of a vertex, as {@link OptimisationModel} does.
+	 */
+	static int getMaxParallelism(JobVertex vertex) {
+		int maxParallelism = vertex.getMaxParallelism();
+		if (maxParallelism <= 0) {
+			maxParallelism = vertex.getParallelism();
+		}
+		return Math.max(maxParallelism, 1);
+	}
+
+	/**
+	 * The state of the search, indexing vertices and locations to keep moves cheap.
+	 */
+	private static final class PlacementSearch {
+
+		private final JobVertex[] vertices;
+		private final GeoLocation[] locations;
+		private final Map<GeoLocation, Integer> locationIndexes = new HashMap<>();
+
+		/** capacity[v][l] is the number of subtasks of v that can be placed at l. */
+		private final int[][] capacity;
+		private final int[] maxParallelism;
+		private final double[] weight;
+
+		/** The location a vertex is pinned to, or -1 if free. */
+		private final int[] fixedLocation;
+
+		/** The locations a vertex is kept at, from a previous solution, or null if free. */
+		private final int[][] fixedLocations;
+
+		/** The vertices adjacent to each vertex, one entry for each edge. */
+		private final int[][] neighbours;
+		private final double[][] edgeWeights;
+		/** Whether each neighbour is the producer of the edge. */
+		private final boolean[][] neighbourIsProducer;
+		/** Whether the records of each edge reach every consumer subtask. */
+		private final boolean[][] allToAll;
+
+		private final BandwidthCosts bandwidthCosts;
+
+		/** The vertices in topological order, for the longest paths. */
+		private final int[] topologicalOrder;
+		/** The position of each vertex in the topological order. */
+		private final int[] topologicalIndex;
+
+		/**
+		 * The latency and the WAN hops of the worst path reaching each vertex, ignoring the vertices not placed yet.
+		 * They are kept up to date as vertices are placed, only if there is a latency objective.
+		 */
+		private final double[] pathLatency;
+		private final int[] pathHops;
+		/** The vertices whose paths are to be updated, while updating them. */
+		private final boolean[] pathPending;
+
+		@Nullable
+		private final PathLatencyObjective latencyObjective;
+		private final double maxExecutionTime;
+
+		private final double executionSpeedWeight;
+		private final double networkCostWeight;
+		private final double automaticNetworkCostWeight;
+
+		private final boolean[][] placement;
+		private final int[] placementSize;
+		private final boolean[] assigned;
+
+		/**
+		 * The subtasks of each vertex at each location of an evaluated solution, or null while searching, the subtasks
+		 * being then spread over the locations of each vertex in proportion to their slots.
+		 */
+		@Nullable
+		private int[][] subtasks;
+
+		private boolean feasible = true;
+
+		private final long startNanos = System.nanoTime();
+
+		/** The objectives of the best placements found so far, in the order they were found. */
+		private final List<OptimisationModelSolution.Incumbent> incumbents = new ArrayList<>();
+
+		PlacementSearch(Collection<JobVertex> vertexCollection,
+						Set<GeoLocation> locationSet,
+						BandwidthProvider bandwidthProvider,
+						Map<GeoLocation, Integer> slots,
+						OptimisationModelParameters parameters,
+						Map<JobVertex, List<GeoLocation>> fixedPlacement) {
+			this.vertices = vertexCollection.toArray(new JobVertex[0]);
+			this.bandwidthCosts = new BandwidthCosts(locationSet, bandwidthProvider);
+			this.locations = bandwidthCosts.getLocations();
+
+			int n = vertices.length;
+			int m = locations.length;
+
+			Map<JobVertex, Integer> vertexIndexes = new HashMap<>();
+			for (int v = 0; v < n; v++) {
+				vertexIndexes.put(vertices[v], v);
+			}
+			for (int l = 0; l < m; l++) {
+				locationIndexes.put(locations[l], l);
+			}
+
+			this.capacity = new int[n][m];
+			this.maxParallelism = new int[n];
+			this.weight = new double[n];
+			this.fixedLocation = new int[n];
+			this.fixedLocations = new int[n][];
+			this.placement = new boolean[n][m];
+			this.placementSize = new int[n];
+			this.assigned = new boolean[n];
+
+			double maxExecutionTime = 0;
+			for (int v = 0; v < n; v++) {
+				maxParallelism[v] = getMaxParallelism(vertices[v]);
+				weight[v] = vertices[v].getWeight();
+				maxExecutionTime += weight[v] * maxParallelism[v];
+
+				boolean placeable = false;
+				for (int l = 0; l < m; l++) {
+					Integer locationSlots = slots.get(locations[l]);
+					capacity[v][l] = locationSlots == null ? 0 : Math.max(0, Math.min(locationSlots, maxParallelism[v]));
+					placeable |= capacity[v][l] > 0;
+				}
+
+				String geoLocationKey = vertices[v].getGeoLocationKey();
+				if (geoLocationKey != null) {
+					Integer l = locationIndexes.get(new GeoLocation(geoLocationKey));
+					fixedLocation[v] = l == null ? -1 : l;
+					feasible &= l != null && capacity[v][l] > 0;
+				} else {
+					fixedLocation[v] = -1;
+					fixedLocations[v] = indexesOf(fixedPlacement.get(vertices[v]));
+					feasible &= placeable || fixedLocations[v] != null;
+				}
+			}
+
+			List<List<Integer>> neighbourLists = new ArrayList<>();
+			List<List<Double>> weightLists = new ArrayList<>();
+			List<List<Boolean>> producerLists = new ArrayList<>();
+			List<List<Boolean>> allToAllLists = new ArrayList<>();
+			for (int v = 0; v < n; v++) {
+				neighbourLists.add(new ArrayList<>());
+				weightLists.add(new ArrayList<>());
+				producerLists.add(new ArrayList<>());
+				allToAllLists.add(new ArrayList<>());
+			}
+
+			double maxNetworkCost = 0;
+			for (int to = 0; to < n; to++) {
+				for (JobEdge edge : vertices[to].getInputs()) {
+					Integer from = vertexIndexes.get(edge.getSource().getProducer());
+					if (from == null) {
+						continue;
+					}
+					boolean isAllToAll = edge.getDistributionPattern() == DistributionPattern.ALL_TO_ALL;
+					neighbourLists.get(to).add(from);
+					weightLists.get(to).add(edge.getWeight());
+					producerLists.get(to).add(true);
+					allToAllLists.get(to).add(isAllToAll);
+					neighbourLists.get(from).add(to);
+					weightLists.get(from).add(edge.getWeight());
+					producerLists.get(from).add(false);
+					allToAllLists.get(from).add(isAllToAll);
+					maxNetworkCost += edge.getWeight() * m * bandwidthCosts.getMaxCost();
+				}
+			}
+
+			this.neighbours = new int[n][];
+			this.edgeWeights = new double[n][];
+			this.neighbourIsProducer = new boolean[n][];
+			this.allToAll = new boolean[n][];
+			for (int v = 0; v < n; v++) {
+				neighbours[v] = new int[neighbourLists.get(v).size()];
+				edgeWeights[v] = new double[neighbours[v].length];
+				neighbourIsProducer[v] = new boolean[neighbours[v].length];
+				allToAll[v] = new boolean[neighbours[v].length];
+				for (int k = 0; k < neighbours[v].length; k++) {
+					neighbours[v][k] = neighbourLists.get(v).get(k);
+					edgeWeights[v][k] = weightLists.get(v).get(k);
+					neighbourIsProducer[v][k] = producerLists.get(v).get(k);
+					allToAll[v][k] = allToAllLists.get(v).get(k);
+				}
+			}
+
+			this.topologicalOrder = sortTopologically();
+			this.topologicalIndex = new int[n];
+			for (int i = 0; i < n; i++) {
+				topologicalIndex[topologicalOrder[i]] = i;
+			}
+			this.pathLatency = new double[n];
+			this.pathHops = new int[n];
+			this.pathPending = new boolean[n];
+			this.latencyObjective = parameters.getPathLatencyObjective();
+			this.maxExecutionTime = maxExecutionTime;
+			this.executionSpeedWeight = parameters.getExecutionSpeedWeight();
+			this.networkCostWeight = parameters.getNetworkCostWeight();
+			this.automaticNetworkCostWeight = maxNetworkCost > 0 ? maxExecutionTime / maxNetworkCost : 0;
+		}
+
+		/**
+		 * @return the indexes of the vertices, each after all its producers
+		 */
+		private int[] sortTopologically() {
+			int n = vertices.length;
+			int[] inDegree = new int[n];
+			for (int v = 0; v < n; v++) {
+				for (int k = 0; k < neighbours[v].length; k++) {
+					if (neighbourIsProducer[v][k]) {
+						inDegree[v]++;
+					}
+				}
+			}
+
+			int[] order = new int[n];
+			int size = 0;
+			for (int v = 0; v < n; v++) {
+				if (inDegree[v] == 0) {
+					order[size++] = v;
+				}
+			}
+			for (int next = 0; next < size; next++) {
+				int v = order[next];
+				for (int k = 0; k < neighbours[v].length; k++) {
+					if (!neighbourIsProducer[v][k] && --inDegree[neighbours[v][k]] == 0) {
+						order[size++] = neighbours[v][k];
+					}
+				}
+			}
+			Preconditions.checkState(size == n, "The job graph has a cycle");
+			return order;
+		}
+
+		/**
+		 * @return the indexes of the given locations, skipping the unknown ones, or null if none is known
+		 */
+		private int[] indexesOf(@Nullable List<GeoLocation> locationList) {
+			if (locationList == null) {
+				return null;
+			}
+			int[] out = locationList.stream()
+				.map(locationIndexes::get)
+				.filter(l -> l != null)
+				.distinct()
+				.mapToInt(Integer::intValue)
+				.toArray();
+			return out.length == 0 ? null : out;
+		}
+
+		boolean isFeasible() {
+			return feasible;
+		}
+
+		private boolean isFixed(int v) {
+			return fixedLocation[v] >= 0 || fixedLocations[v] != null;
+		}
+
+		/**
+		 * Places the vertices in topological order, each at the locations that are best with respect to the
+		 * vertices already placed.
+		 */
+		void construct() {
+			for (int v = 0; v < vertices.length; v++) {
+				constructVertex(v);
+				assigned[v] = true;
+			}
+		}
+
+		/**
+		 * Places the vertices at the locations of the given placement that are still available, constructing the
+		 * placement of the other vertices greedily.
+		 */
+		void start(Map<JobVertex, List<GeoLocation>> startPlacement) {
+			for (int v = 0; v < vertices.length; v++) {
+				List<GeoLocation> startLocations = startPlacement.get(vertices[v]);
+				if (!isFixed(v) && startLocations != null) {
+					for (GeoLocation location : startLocations) {
+						Integer l = locationIndexes.get(location);
+						if (l != null && !placement[v][l] && capacity[v][l] > 0 && placementSize[v] < maxParallelism[v]) {
+							place(v, l);
+						}
+					}
+				}
+				if (placementSize[v] == 0) {
+					constructVertex(v);
+				}
+				assigned[v] = true;
+			}
+		}
+
+		/**
+		 * Loads the placement, the parallelism and the subtasks at each location of a solution, to evaluate it.
+		 */
+		void load(OptimisationModelSolution solution) {
+			subtasks = new int[vertices.length][locations.length];
+			for (int v = 0; v < vertices.length; v++) {
+				Map<GeoLocation, Integer> vertexSubtasks = solution.getSubtasksPerLocation(vertices[v]);
+				if (vertexSubtasks != null) {
+					for (Map.Entry<GeoLocation, Integer> locationSubtasks : vertexSubtasks.entrySet()) {
+						Integer l = locationIndexes.get(locationSubtasks.getKey());
+						if (l != null) {
+							placement[v][l] = true;
+							placementSize[v]++;
+							subtasks[v][l] = locationSubtasks.getValue();
+						}
+					}
+				}
+				assigned[v] = true;
+			}
+			updateAllPaths();
+		}
+
+		private void constructVertex(int v) {
+			if (fixedLocation[v] >= 0) {
+				place(v, fixedLocation[v]);
+			} else if (fixedLocations[v] != null) {
+				for (int l : fixedLocations[v]) {
+					place(v, l);
+				}
+			} else {
+				// the least loaded location, if no location has a finite cost
+				int best = leastLoadedLocation(v);
+				Preconditions.checkState(best >= 0, "Vertex %s has no location with available slots", vertices[v]);
+				double bestCost = Double.POSITIVE_INFINITY;
+				for (int l = 0; l < locations.length; l++) {
+					if (capacity[v][l] > 0) {
+						place(v, l);
+						double cost = localCost(v);
+						if (cost < bestCost - EPSILON) {
+							best = l;
+							bestCost = cost;
+						}
+						unplace(v, l);
+					}
+				}
+				place(v, best);
+
+				boolean improved = true;
+				while (improved && placementSize[v] < maxParallelism[v]) {
+					improved = false;
+					for (int l = 0; l < locations.length; l++) {
+						if (!placement[v][l] && capacity[v][l] > 0 && placementSize[v] < maxParallelism[v]) {
+							place(v, l);
+							double cost = localCost(v);
+							if (cost < bestCost - EPSILON) {
+								bestCost = cost;
+								improved = true;
+							} else {
+								unplace(v, l);
+							}
+						}
+					}
+				}
+			}
+		}
+
+		/**
+		 * Applies improving moves until there are none left, or the deadline expires.
+		 */
+		void localSearch(long deadline) {
+			boolean improved = true;
+			while (improved && System.nanoTime() < deadline) {
+				improved = false;
+				for (int v = 0; v < vertices.length; v++) {
+					if (!isFixed(v)) {
+						improved |= improveVertex(v);
+					}
+				}
+			}
+		}
+
+		private boolean improveVertex(int v) {
+			boolean improved = false;
+			double currentCost = localCost(v);
+
+			for (int l = 0; l < locations.length; l++) {
+				if (placement[v][l]) {
+					if (placementSize[v] > 1) {
+						unplace(v, l);
+						double cost = localCost(v);
+						if (cost < currentCost - EPSILON) {
+							currentCost = cost;
+							improved = true;
+							continue;
+						}
+						place(v, l);
+					}
+
+					// moving the subtasks at l to another location
+					for (int other = 0; other < locations.length && placement[v][l]; other++) {
+						if (!placement[v][other] && capacity[v][other] > 0) {
+							unplace(v, l);
+							place(v, other);
+							double cost = localCost(v);
+							if (cost < currentCost - EPSILON) {
+								currentCost = cost;
+								improved = true;
+							} else {
+								unplace(v, other);
+								place(v, l);
+							}
+						}
+					}
+				} else if (capacity[v][l] > 0 && placementSize[v] < maxParallelism[v]) {
+					place(v, l);
+					double cost = localCost(v);
+					if (cost < currentCost - EPSILON) {
+						currentCost = cost;
+						improved = true;
+					} else {
+						unplace(v, l);
+					}
+				}
+			}
+
+			return improved;
+		}
+
+		/**
+		 * Simulated annealing over single-location moves, restoring the best placement found at the end.
+		 */
+		void anneal(Random random, long deadline) {
+			List<Integer> freeVertices = new ArrayList<>();
+			for (int v = 0; v < vertices.length; v++) {
+				if (!isFixed(v)) {
+					freeVertices.add(v);
+				}
+			}
+
+			if (freeVertices.isEmpty() || locations.length < 2) {
+				return;
+			}
+
+			long moves = (long) ANNEALING_MOVES_PER_VARIABLE * freeVertices.size() * locations.length;
+
+			double currentCost = totalCost();
+			double bestCost = currentCost;
+			boolean[][] bestPlacement = copyPlacement();
+
+			// starting hot enough to accept an average worsening move half of the times
+			double temperature = Math.max(averageMoveCost(random, freeVertices) / Math.log(2), EPSILON);
+			double cooling = Math.pow(1e-3, 1d / moves);
+
+			for (long move = 0; move < moves; move++) {
+				if ((move & 1023) == 0 && System.nanoTime() >= deadline) {
+					break;
+				}
+
+				int v = freeVertices.get(random.nextInt(freeVertices.size()));
+				int l = random.nextInt(locations.length);
+				int removed = -1;
+				int added = -1;
+
+				if (placement[v][l]) {
+					if (placementSize[v] == 1) {
+						continue;
+					}
+					removed = l;
+				} else if (capacity[v][l] > 0) {
+					added = l;
+					if (placementSize[v] >= maxParallelism[v] || random.nextBoolean()) {
+						removed = randomPlacedLocation(random, v);
+					}
+				} else {
+					continue;
+				}
+
+				double before = localCost(v);
+				apply(v, removed, added);
+				double delta = localCost(v) - before;
+
+				if (delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature)) {
+					currentCost += delta;
+					if (currentCost < bestCost - EPSILON) {
+						bestCost = currentCost;
+						bestPlacement = copyPlacement();
+						recordIncumbent(bestCost);
+					}
+				} else {
+					apply(v, added, removed);
+				}
+
+				temperature *= cooling;
+			}
+
+			restorePlacement(bestPlacement);
+			localSearch(deadline);
+		}
+
+		private double averageMoveCost(Random random, List<Integer> freeVertices) {
+			double sum = 0;
+			int samples = 0;
+			for (int sample = 0; sample < 100; sample++) {
+				int v = freeVertices.get(random.nextInt(freeVertices.size()));
+				int l = random.nextInt(locations.length);
+				if (!placement[v][l] && capacity[v][l] > 0) {
+					int removed = randomPlacedLocation(random, v);
+					double before = localCost(v);
+					apply(v, removed, l);
+					sum += Math.abs(localCost(v) - before);
+					apply(v, l, removed);
+					samples++;
+				}
+			}
+			return samples == 0 ? 1 : sum / samples;
+		}
+
+		private int randomPlacedLocation(Random random, int v) {
+			int skip = random.nextInt(placementSize[v]);
+			for (int l = 0; l < locations.length; l++) {
+				if (placement[v][l] && skip-- == 0) {
+					return l;
+				}
+			}
+			throw new IllegalStateException("Vertex " + vertices[v] + " is not placed");
+		}
+
+		private void apply(int v, int removed, int added) {
+			if (removed >= 0) {
+				unplace(v, removed);
+			}
+			if (added >= 0) {
+				place(v, added);
+			}
+		}
+
+		/**
+		 * The location with available slots for the given vertex hosting the fewest vertices, -1 if there is none.
+		 */
+		private int leastLoadedLocation(int v) {
+			int leastLoaded = -1;
+			int leastLoad = Integer.MAX_VALUE;
+			for (int l = 0; l < locations.length; l++) {
+				if (capacity[v][l] > 0) {
+					int load = 0;
+					for (int u = 0; u < vertices.length; u++) {
+						if (placement[u][l]) {
+							load++;
+						}
+					}
+					if (load < leastLoad) {
+						leastLoaded = l;
+						leastLoad = load;
+					}
+				}
+			}
+			return leastLoaded;
+		}
+
+		private void place(int v, int l) {
+			placement[v][l] = true;
+			placementSize[v]++;
+			updatePaths(v);
+		}
+
+		private void unplace(int v, int l) {
+			placement[v][l] = false;
+			placementSize[v]--;
+			updatePaths(v);
+		}
+
+		private int parallelism(int v) {
+			if (subtasks != null) {
+				return placedSubtasks(v);
+			}
+			return Math.min(placedSubtasks(v), maxParallelism[v]);
+		}
+
+		/**
+		 * The number of locations hosting only one of the two vertices.
+		 */
+		private int locationsNotShared(int v1, int v2) {
+			int count = 0;
+			for (int l = 0; l < locations.length; l++) {
+				if (placement[v1][l] != placement[v2][l]) {
+					count++;
+				}
+			}
+			return count;
+		}
+
+		/**
+		 * The network cost of the k-th edge of v, without its weight.
+		 */
+		private double edgeCost(int v, int k) {
+			int neighbour = neighbours[v][k];
+			if (allToAll[v][k]) {
+				return neighbourIsProducer[v][k] ? allToAllCost(neighbour, v) : allToAllCost(v, neighbour);
+			}
+			if (bandwidthCosts.isUniform()) {
+				return locationsNotShared(v, neighbour);
+			}
+			return neighbourIsProducer[v][k] ? sendingCost(neighbour, v) : sendingCost(v, neighbour);
+		}
+
+		/**
+		 * The locations hosting only one of the two vertices, each weighted by the cost of the slowest link towards
+		 * the locations of the other vertex, in the direction of the data.
+		 */
+		private double sendingCost(int producer, int consumer) {
+			double cost = 0;
+			for (int l = 0; l < locations.length; l++) {
+				if (placement[producer][l] && !placement[consumer][l]) {
+					cost += slowestLink(l, consumer, true);
+				} else if (placement[consumer][l] && !placement[producer][l]) {
+					cost += slowestLink(l, producer, false);
+				}
+			}
+			return cost;
+		}
+
+		/**
+		 * The share of the records of an all-to-all edge crossing each link, weighted by the cost of the link and
+		 * counted at both ends, as {@link #locationsNotShared} does.
+		 */
+		private double allToAllCost(int producer, int consumer) {
+			double producerSubtasks = placedSubtasks(producer);
+			double consumerSubtasks = placedSubtasks(consumer);
+			if (producerSubtasks == 0 || consumerSubtasks == 0) {
+				return 0;
+			}
+
+			double cost = 0;
+			for (int from = 0; from < locations.length; from++) {
+				if (placement[producer][from]) {
+					for (int to = 0; to < locations.length; to++) {
+						if (to != from && placement[consumer][to]) {
+							cost += subtasks(producer, from) / producerSubtasks * subtasks(consumer, to) / consumerSubtasks * bandwidthCosts.get(from, to);
+						}
+					}
+				}
+			}
+			return 2 * cost;
+		}
+
+		/**
+		 * The subtasks of v at l: the ones of the evaluated solution, or the slots of l, which the subtasks are spread
+		 * over in proportion to.
+		 */
+		private int subtasks(int v, int l) {
+			return subtasks != null ? subtasks[v][l] : capacity[v][l];
+		}
+
+		/**
+		 * The subtasks of v at all its locations, before bounding them by its maximum parallelism.
+		 */
+		private int placedSubtasks(int v) {
+			int placedSubtasks = 0;
+			for (int l = 0; l < locations.length; l++) {
+				if (placement[v][l]) {
+					placedSubtasks += subtasks(v, l);
+				}
+			}
+			return placedSubtasks;
+		}
+
+		/**
+		 * The cost of the slowest link between l and the locations of v, or 1 if v is not placed yet.
+		 *
+		 * @param outgoing true if the data flows from l to v
+		 */
+		private double slowestLink(int l, int v, boolean outgoing) {
+			double max = 0;
+			boolean placed = false;
+			for (int other = 0; other < locations.length; other++) {
+				if (placement[v][other]) {
+					placed = true;
+					max = Math.max(max, outgoing ? bandwidthCosts.get(l, other) : bandwidthCosts.get(other, l));
+				}
+			}
+			return placed ? max : 1d;
+		}
+
+		/**
+		 * The highest latency of the links between the locations of the producer and the ones of the consumer.
+		 */
+		private double edgeLatency(int producer, int consumer) {
+			double max = 0;
+			for (int from = 0; from < locations.length; from++) {
+				if (placement[producer][from]) {
+					for (int to = 0; to < locations.length; to++) {
+						if (placement[consumer][to]) {
+							max = Math.max(max, bandwidthCosts.getLatency(from, to));
+						}
+					}
+				}
+			}
+			return max;
+		}
+
+		/**
+		 * Whether the producer and the consumer are not all at the same location.
+		 */
+		private boolean isWanHop(int producer, int consumer) {
+			return placementSize[producer] > 1 || placementSize[consumer] > 1 || locationsNotShared(producer, consumer) > 0;
+		}
+
+		/**
+		 * Updates the worst paths reaching the given vertex, whose placement changed, and the vertices downstream of
+		 * it, in topological order. The update stops at the vertices whose worst paths don't change.
+		 */
+		private void updatePaths(int changed) {
+			if (latencyObjective == null) {
+				return;
+			}
+
+			pathPending[changed] = true;
+			int remaining = 1;
+			for (int i = topologicalIndex[changed]; remaining > 0; i++) {
+				int v = topologicalOrder[i];
+				if (!pathPending[v]) {
+					continue;
+				}
+				pathPending[v] = false;
+				remaining--;
+
+				// the edges leaving the changed vertex change even if its worst path doesn't
+				if (recomputePath(v) || v == changed) {
+					for (int k = 0; k < neighbours[v].length; k++) {
+						int consumer = neighbours[v][k];
+						if (!neighbourIsProducer[v][k] && !pathPending[consumer]) {
+							pathPending[consumer] = true;
+							remaining++;
+						}
+					}
+				}
+			}
+		}
+
+		/**
+		 * Recomputes the worst paths reaching every vertex, after the whole placement changed.
+		 */
+		private void updateAllPaths() {
+			if (latencyObjective == null) {
+				return;
+			}
+			for (int v : topologicalOrder) {
+				recomputePath(v);
+			}
+		}
+
+		/**
+		 * Recomputes the worst path reaching v from the worst paths reaching its producers.
+		 *
+		 * @return true if the worst path changed
+		 */
+		private boolean recomputePath(int v) {
+			double latency = 0;
+			int hops = 0;
+			if (placementSize[v] > 0) {
+				for (int k = 0; k < neighbours[v].length; k++) {
+					int producer = neighbours[v][k];
+					if (neighbourIsProducer[v][k] && placementSize[producer] > 0) {
+						latency = Math.max(latency, pathLatency[producer] + edgeLatency(producer, v));
+						hops = Math.max(hops, pathHops[producer] + (isWanHop(producer, v) ? 1 : 0));
+					}
+				}
+			}
+
+			boolean changed = latency != pathLatency[v] || hops != pathHops[v];
+			pathLatency[v] = latency;
+			pathHops[v] = hops;
+			return changed;
+		}
+
+		/**
+		 * @return the highest latency and the most WAN hops of all the paths
+		 */
+		private double[] worstPath() {
+			double worstLatency = 0;
+			int worstHops = 0;
+			for (int v = 0; v < vertices.length; v++) {
+				worstLatency = Math.max(worstLatency, pathLatency[v]);
+				worstHops = Math.max(worstHops, pathHops[v]);
+			}
+			return new double[] {worstLatency, worstHops};
+		}
+
+		/**
+		 * The penalty of the worst path of the placement, 0 without a latency objective.
+		 */
+		private double latencyCost() {
+			if (latencyObjective == null) {
+				return 0;
+			}
+			double[] worst = worstPath();
+			double penalty = latencyObjective.penalty(worst[0], (int) worst[1], maxExecutionTime);
+			return latencyObjective.isConstraint() ? LATENCY_CONSTRAINT_PENALTY_FACTOR * penalty : penalty;
+		}
+
+		boolean satisfiesLatencyConstraints() {
+			if (latencyObjective == null || !latencyObjective.isConstraint()) {
+				return true;
+			}
+			double[] worst = worstPath();
+			return latencyObjective.isSatisfied(worst[0], (int) worst[1]);
+		}
+
+		/**
+		 * The part of the objective depending on the placement of v, ignoring the vertices not placed yet. The
+		 * latency penalty depends on the whole placement, so it is always part of it.
+		 */
+		private double localCost(int v) {
+			double cost = -executionSpeedWeight * weight[v] * parallelism(v);
+			for (int k = 0; k < neighbours[v].length; k++) {
+				int neighbour = neighbours[v][k];
+				if (assigned[neighbour] || neighbour == v) {
+					cost += networkCostWeight * automaticNetworkCostWeight * edgeWeights[v][k] * edgeCost(v, k);
+				}
+			}
+			return cost + latencyCost();
+		}
+
+		private double executionSpeed() {
+			double executionSpeed = 0;
+			for (int v = 0; v < vertices.length; v++) {
+				executionSpeed -= weight[v] * parallelism(v);
+			}
+			return executionSpeed;
+		}
+
+		private double networkCost() {
+			double networkCost = 0;
+			for (int v = 0; v < vertices.length; v++) {
+				for (int k = 0; k < neighbours[v].length; k++) {
+					networkCost += edgeWeights[v][k] * edgeCost(v, k);
+				}
+			}
+			// each edge is in the adjacency of both its ends
+			return automaticNetworkCostWeight * networkCost / 2;
+		}
+
+		private double totalCost() {
+			return executionSpeedWeight * executionSpeed() + networkCostWeight * networkCost() + latencyCost();
+		}
+
+		private boolean[][] copyPlacement() {
+			boolean[][] copy = new boolean[placement.length][];
+			for (int v = 0; v < placement.length; v++) {
+				copy[v] = placement[v].clone();
+			}
+			return copy;
+		}
+
+		private void restorePlacement(boolean[][] saved) {
+			for (int v = 0; v < placement.length; v++) {
+				placementSize[v] = 0;
+				for (int l = 0; l < locations.length; l++) {
+					placement[v][l] = saved[v][l];
+					if (saved[v][l]) {
+						placementSize[v]++;
+					}
+				}
+			}
+			updateAllPaths();
+		}
+
+		OptimisationModelSolution toSolution(double modelExecutionTime) {
+			Map<JobVertex, List<GeoLocation>> placementMap = new HashMap<>();
+			Map<JobVertex, Integer> parallelismMap = new HashMap<>();
+			Map<JobVertex, Map<GeoLocation, Integer>> subtasksMap = new HashMap<>();
+
+			for (int v = 0; v < vertices.length; v++) {
+				List<GeoLocation> vertexLocations = new ArrayList<>();
+				// the subtasks are spread over the locations in proportion to their slots, as the cost assumes
+				Map<GeoLocation, Integer> capacities = new LinkedHashMap<>();
+				for (int l = 0; l < locations.length; l++) {
+					if (placement[v][l]) {
+						vertexLocations.add(locations[l]);
+						capacities.put(locations[l], capacity[v][l]);
+					}
+				}
+				placementMap.put(vertices[v], vertexLocations);
+				parallelismMap.put(vertices[v], parallelism(v));
+				subtasksMap.put(vertices[v], OptimisationModelSolution.spreadSubtasks(capacities, parallelism(v)));
+			}
+
+			OptimisationModelSolution solution = new OptimisationModelSolution(placementMap, parallelismMap, networkCost(), executionSpeed(), modelExecutionTime);
+			solution.setSubtasksPerLocation(subtasksMap);
+			solution.setObjective(totalCost());
+			solution.setIncumbents(incumbents);
+			return solution;
+		}
+
+		void recordIncumbent() {
+			recordIncumbent(totalCost());
+		}
+
+		/**
+		 * Records the objective of a new placement, if it is better than the ones recorded so far.
+		 */
+		private void recordIncumbent(double cost) {
+			if (incumbents.isEmpty() || cost < incumbents.get(incumbents.size() - 1).getObjective() - EPSILON) {
+				incumbents.add(new OptimisationModelSolution.Incumbent((System.nanoTime() - startNanos) / 1e9, cost));
+			}
+		}
+	}
+}
@@ -0,0 +1,244 @@
+package org.apache.flink.runtime.executiongraph;
+
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.apache.flink.runtime.jobmanager.scheduler.BandwidthProvider;
+import org.apache.flink.runtime.util.ExecutorThreadFactory;
+import org.apache.flink.util.ExceptionUtils;
+import org.apache.flink.util.FlinkException;
+import org.apache.flink.util.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Solves the placement problem of large clusters in two steps, with another {@link OptimisationModelSolver}:
+ * <ol>
+ *     <li>the locations are clustered into {@link LocationRegions}, and the vertices are placed at regions, as if each
+ *     region were a location with the slots of all its locations</li>
+ *     <li>for each region, the vertices placed there are placed at its locations, the regions being refined in
+ *     parallel</li>
+ * </ol>
+ * Each problem has at most as many locations as the larger of the number of regions and the maximum region size, so
+ * the solve time grows with the number of regions instead of exploding with the number of locations.
+ *
+ * <p>A refinement only sees the edges between the vertices of its region: the vertices are placed close to their
+ * neighbours in the region, not close to the locations of the other regions they exchange records with. The
+ * parallelism of a vertex placed at several regions is the sum of its parallelism in each region, up to its maximum
+ * parallelism. If a region can't be refined, its vertices are placed at all its locations. The network cost and the
+ * objective of the combined placement are evaluated on the links between the locations, as
+ * {@link HeuristicOptimisationModelSolver#evaluate} does, so that they compare with the ones of a direct solve.
+ *
+ * <p>Problems with fewer locations than {@link OptimisationModelParameters#getHierarchicalMinLocations()} are solved
+ * directly.
+ */
+public class HierarchicalOptimisationModelSolver implements OptimisationModelSolver {
+
+	private static final Logger LOG = LoggerFactory.getLogger(HierarchicalOptimisationModelSolver.class);
+
+	private final OptimisationModelSolver solver;
+
+	private final int refinementThreads;
+
+	/**
+	 * @param solver the solver of the region problem and of the refinements
+	 */
+	public HierarchicalOptimisationModelSolver(OptimisationModelSolver solver) {
+		this(solver, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param solver the solver of the region problem and of the refinements
+	 * @param refinementThreads the highest number of regions refined at the same time
+	 */
+	public HierarchicalOptimisationModelSolver(OptimisationModelSolver solver, int refinementThreads) {
+		Preconditions.checkArgument(refinementThreads > 0, "The number of refinement threads must be positive");
+		this.solver = Preconditions.checkNotNull(solver);
+		this.refinementThreads = refinementThreads;
+	}
+
+	@Override
+	public OptimisationModelSolution solve(Collection<JobVertex> vertices,
+										   Set<GeoLocation> locations,
+										   BandwidthProvider bandwidthProvider,
+										   Map<GeoLocation, Integer> slots,
+										   OptimisationModelParameters parameters,
+										   @Nullable Map<JobVertex, List<GeoLocation>> startPlacement,
+										   @Nullable Map<JobVertex, List<GeoLocation>> fixedPlacement) throws FlinkException {
+		int minLocations = parameters.getHierarchicalMinLocations();
+		if (minLocations <= 0 || locations.size() < minLocations) {
+			return solver.solve(vertices, locations, bandwidthProvider, slots, parameters, startPlacement, fixedPlacement);
+		}
+
+		long start = System.nanoTime();
+
+		Set<GeoLocation> keyLocations = new LinkedHashSet<>();
+		for (JobVertex vertex : vertices) {
+			if (vertex.getGeoLocationKey() != null) {
+				keyLocations.add(new GeoLocation(vertex.getGeoLocationKey()));
+			}
+		}
+
+		LocationRegions regions = LocationRegions.cluster(locations, bandwidthProvider, parameters.getMaxRegionSize(), keyLocations);
+		if (regions.getRegions().size() == 1 || regions.getRegions().size() == locations.size()) {
+			return solver.solve(vertices, locations, bandwidthProvider, slots, parameters, startPlacement, fixedPlacement);
+		}
+
+		LOG.debug("Placing {} vertices at {} locations in {}", vertices.size(), locations.size(), regions);
+
+		OptimisationModelSolution regionSolution = solver.solve(
+			vertices,
+			regions.getRegions(),
+			regions.getRegionBandwidthProvider(bandwidthProvider),
+			regions.getRegionSlots(slots),
+			parameters,
+			regions.toRegionPlacement(startPlacement),
+			regions.toRegionPlacement(fixedPlacement));
+
+		if (regionSolution == null) {
+			return null;
+		}
+
+		Map<GeoLocation, OptimisationModelSolution> refinements = refine(
+			vertices, regions, regionSolution, bandwidthProvider, slots, parameters, startPlacement, fixedPlacement);
+
+		OptimisationModelSolution combined = combine(vertices, regions, regionSolution, refinements, (System.nanoTime() - start) / 1e9);
+		return HeuristicOptimisationModelSolver.evaluate(combined, vertices, locations, bandwidthProvider, slots, parameters);
+	}
+
+	/**
+	 * Places the vertices of each region at its locations, in parallel.
+	 *
+	 * @return the solution of each region, null for the regions that couldn't be refined
+	 */
+	private Map<GeoLocation, OptimisationModelSolution> refine(Collection<JobVertex> vertices,
+															   LocationRegions regions,
+															   OptimisationModelSolution regionSolution,
+															   BandwidthProvider bandwidthProvider,
+															   Map<GeoLocation, Integer> slots,
+															   OptimisationModelParameters parameters,
+															   @Nullable Map<JobVertex, List<GeoLocation>> startPlacement,
+															   @Nullable Map<JobVertex, List<GeoLocation>> fixedPlacement) throws FlinkException {
+		ExecutorService executor = Executors.newFixedThreadPool(
+			Math.min(refinementThreads, regions.getRegions().size()),
+			new ExecutorThreadFactory("flink-placement-refinement"));
+
+		try {
+			Map<GeoLocation, Future<OptimisationModelSolution>> futures = new LinkedHashMap<>();
+			for (GeoLocation region : regions.getRegions()) {
+				// keeping the topological order
+				List<JobVertex> regionVertices = new ArrayList<>();
+				for (JobVertex vertex : vertices) {
+					List<GeoLocation> vertexRegions = regionSolution.getPlacement(vertex);
+					if (vertexRegions != null && vertexRegions.contains(region)) {
+						regionVertices.add(vertex);
+					}
+				}
+
+				if (regionVertices.isEmpty()) {
+					continue;
+				}
+
+				Set<GeoLocation> regionLocations = new LinkedHashSet<>(regions.getLocations(region));
+				Map<GeoLocation, Integer> regionSlots = new HashMap<>();
+				for (GeoLocation location : regionLocations) {
+					regionSlots.put(location, slots.getOrDefault(location, 0));
+				}
+
+				futures.put(region, executor.submit(() -> solver.solve(
+					regionVertices,
+					regionLocations,
+					bandwidthProvider,
+					regionSlots,
+					parameters,
+					regions.restrictTo(region, startPlacement),
+					regions.restrictTo(region, fixedPlacement))));
+			}
+
+			Map<GeoLocation, OptimisationModelSolution> refinements = new HashMap<>();
+			for (Map.Entry<GeoLocation, Future<OptimisationModelSolution>> future : futures.entrySet()) {
+				try {
+					refinements.put(future.getKey(), future.getValue().get());
+				} catch (ExecutionException e) {
+					Throwable cause = ExceptionUtils.stripExecutionException(e);
+					if (cause instanceof FlinkException) {
+						throw (FlinkException) cause;
+					}
+					throw new FlinkException("Could not refine the placement at region " + future.getKey(), cause);
+				}
+			}
+			return refinements;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new FlinkException("Interrupted while refining the placement", e);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Combines the refinements into a placement at the locations, whose network cost is left to evaluate.
+	 */
+	private static OptimisationModelSolution combine(Collection<JobVertex> vertices,
+													 LocationRegions regions,
+													 OptimisationModelSolution regionSolution,
+													 Map<GeoLocation, OptimisationModelSolution> refinements,
+													 double modelExecutionTime) {
+		Map<JobVertex, List<GeoLocation>> placement = new HashMap<>();
+		Map<JobVertex, Integer> parallelism = new HashMap<>();
+		Map<JobVertex, Map<GeoLocation, Integer>> subtasks = new HashMap<>();
+		double executionSpeed = 0;
+
+		for (JobVertex vertex : vertices) {
+			List<GeoLocation> vertexLocations = new ArrayList<>();
+			Map<GeoLocation, Integer> vertexSubtasks = new LinkedHashMap<>();
+			int vertexParallelism = 0;
+
+			for (GeoLocation region : regionSolution.getPlacement(vertex)) {
+				OptimisationModelSolution refinement = refinements.get(region);
+				List<GeoLocation> refinedLocations = refinement == null ? null : refinement.getPlacement(vertex);
+
+				if (refinedLocations != null) {
+					vertexLocations.addAll(refinedLocations);
+					Map<GeoLocation, Integer> refinedSubtasks = refinement.getSubtasksPerLocation(vertex);
+					if (refinedSubtasks != null) {
+						vertexSubtasks.putAll(refinedSubtasks);
+					}
+					vertexParallelism += refinement.getParallelism(vertex);
+				} else {
+					LOG.warn("Could not place {} within region {}, placing it at all the locations of the region", vertex, region);
+					vertexLocations.addAll(regions.getLocations(region));
+					for (GeoLocation location : regions.getLocations(region)) {
+						vertexSubtasks.put(location, 1);
+					}
+					vertexParallelism += regions.getLocations(region).size();
+				}
+			}
+
+			vertexParallelism = Math.max(1, Math.min(vertexParallelism, HeuristicOptimisationModelSolver.getMaxParallelism(vertex)));
+			placement.put(vertex, vertexLocations);
+			parallelism.put(vertex, vertexParallelism);
+			// the refined subtasks, scaled down if the parallelism was capped
+			subtasks.put(vertex, OptimisationModelSolution.spreadSubtasks(vertexSubtasks, vertexParallelism));
+			executionSpeed -= vertex.getWeight() * vertexParallelism;
+		}
+
+		OptimisationModelSolution solution = new OptimisationModelSolution(placement, parallelism, 0, executionSpeed, modelExecutionTime);
+		solution.setSubtasksPerLocation(subtasks);
+		return solution;
+	}
+}
@@ -43,7 +43,14 @@ public class IOMetrics implements Serializable {
 	protected double numBytesInRemotePerSecond;
 	protected double numBytesOutPerSecond;
 
+	/** The CPU time of the task thread, 0 if unknown. */
+	protected long cpuTimeNanos;
+
 	public IOMetrics(Meter recordsIn, Meter recordsOut, Meter bytesLocalIn, Meter bytesRemoteIn, Meter bytesOut) {
+		this(recordsIn, recordsOut, bytesLocalIn, bytesRemoteIn, bytesOut, 0L);
+	}
+
+	public IOMetrics(Meter recordsIn, Meter recordsOut, Meter bytesLocalIn, Meter bytesRemoteIn, Meter bytesOut, long cpuTimeNanos) {
 		this.numRecordsIn = recordsIn.getCount();
 		this.numRecordsInPerSecond = recordsIn.getRate();
 		this.numRecordsOut = recordsOut.getCount();
@@ -54,6 +61,7 @@ public class IOMetrics implements Serializable {
 		this.numBytesInRemotePerSecond = bytesRemoteIn.getRate();
 		this.numBytesOut = bytesOut.getCount();
 		this.numBytesOutPerSecond = bytesOut.getRate();
+		this.cpuTimeNanos = cpuTimeNanos;
 	}
 
 	public IOMetrics(
@@ -122,4 +130,11 @@ public class IOMetrics implements Serializable {
 	public double getNumBytesOutPerSecond() {
 		return numBytesOutPerSecond;
 	}
+
+	/**
+	 * @return the CPU time the task thread used, in nanoseconds, 0 if unknown
+	 */
+	public long getCpuTimeNanos() {
+		return cpuTimeNanos;
+	}
 }
@@ -0,0 +1,377 @@
+package org.apache.flink.runtime.executiongraph;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.api.common.accumulators.Accumulator;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.OptimisationModelOptions;
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.jobgraph.IntermediateDataSet;
+import org.apache.flink.runtime.jobgraph.JobEdge;
+import org.apache.flink.runtime.jobgraph.JobGraph;
+import org.apache.flink.runtime.jobgraph.JobStatus;
+import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.apache.flink.runtime.jobgraph.JobVertexID;
+import org.apache.flink.runtime.state.KeyGroupAssignment;
+import org.apache.flink.runtime.state.KeyGroupHistogram;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
+import org.apache.flink.runtime.taskmanager.TaskManagerLocation;
+import org.apache.flink.util.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The traffic of the key-groups of the keyed vertices by the geo location it comes from, used to size the key-group
+ * ranges of the vertices placed at several locations.
+ *
+ * <p>The producers of the keyed inputs of vertices placed at several locations count the records they write to each
+ * key-group in a {@link KeyGroupHistogram} accumulator. Once the execution attempts are over, the histograms of the
+ * subtasks are added up by the geo location they ran at, as {@link OperatorProfileStore} does with the operator
+ * profiles.
+ *
+ * <p>The next time the job is placed, the subtasks of each vertex with a traffic are split among its locations in
+ * proportion to the traffic coming from each of them, and pinned there. Each location then gets a contiguous range of
+ * key-groups, of about the share of its subtasks but chosen to keep as much traffic as possible at the location it
+ * comes from, which its subtasks split evenly. The ranges are contiguous so that the keyed state of the vertex can be
+ * restored under any assignment, at the cost of keeping local only the traffic of key-groups that are close to each
+ * other: key-groups are hashes, so this pays off when the keys of each location fall in different key-groups.
+ *
+ * <p>Traffic is keyed by {@link JobVertexID} and kept in memory only.
+ */
+public class KeyGroupLocalityStore {
+
+	private static final Logger LOG = LoggerFactory.getLogger(KeyGroupLocalityStore.class);
+
+	/**
+	 * Creates the store if {@link OptimisationModelOptions#KEY_GROUP_LOCALITY} is set.
+	 *
+	 * @return the store, or null if the key-group ranges don't follow the traffic
+	 */
+	@Nullable
+	public static KeyGroupLocalityStore fromConfiguration(Configuration configuration) {
+		if (!configuration.getBoolean(OptimisationModelOptions.KEY_GROUP_LOCALITY)) {
+			return null;
+		}
+
+		return new KeyGroupLocalityStore(configuration.getDouble(OptimisationModelOptions.KEY_GROUP_MAX_IMBALANCE));
+	}
+
+	private final Map<JobVertexID, Map<GeoLocation, long[]>> traffic = new ConcurrentHashMap<>();
+
+	private final double maxImbalance;
+
+	/**
+	 * @param maxImbalance how much the key-groups of the subtasks at a location can deviate from an even split, as a
+	 *                     fraction of the even split
+	 */
+	public KeyGroupLocalityStore(double maxImbalance) {
+		Preconditions.checkArgument(maxImbalance >= 0, "The maximum imbalance must not be negative");
+		this.maxImbalance = maxImbalance;
+	}
+
+	/**
+	 * @return the records written to each key-group of the given vertex, by the location they were written at
+	 */
+	@Nullable
+	public Map<GeoLocation, long[]> getTraffic(JobVertexID vertexId) {
+		Map<GeoLocation, long[]> vertexTraffic = traffic.get(vertexId);
+		return vertexTraffic == null ? null : Collections.unmodifiableMap(vertexTraffic);
+	}
+
+	/**
+	 * Makes the producers of the vertices that the solution of the given graph places at several locations count the
+	 * records written to their keyed outputs, and sizes the key-group ranges of those of the vertices with a traffic,
+	 * pinning their subtasks to the locations of their key-groups. The subtasks of the other vertices are assigned by the
+	 * {@link SubtaskGeoLocationAssigner}. To be called once the solution is applied, before the execution graph is built.
+	 *
+	 * @return the number of vertices whose key-group ranges follow the traffic
+	 */
+	public int applyTo(JobGraph jobGraph) {
+		for (JobVertex vertex : jobGraph.getVertices()) {
+			KeyGroupAssignment.clear(vertex.getConfiguration());
+			KeyGroupAssignment.setSampleKeyGroups(vertex.getConfiguration(), false);
+			vertex.setSubtaskGeoLocations(null);
+		}
+
+		OptimisationModelSolution solution = jobGraph.getSolution();
+		if (solution == null) {
+			return 0;
+		}
+
+		Map<JobVertexID, List<GeoLocation>> pinnedSubtasks = new HashMap<>();
+		for (JobVertex vertex : jobGraph.getVertices()) {
+			List<GeoLocation> placement = solution.getPlacement(vertex);
+			int parallelism = vertex.getParallelism();
+			if (placement == null || placement.size() < 2 || parallelism < placement.size()) {
+				continue;
+			}
+
+			// the traffic is only used, and hence only counted, where the key-groups can be split among locations
+			for (JobEdge input : vertex.getInputs()) {
+				KeyGroupAssignment.setSampleKeyGroups(input.getSource().getProducer().getConfiguration(), true);
+			}
+
+			// as the execution graph does
+			int maxParallelism = vertex.getMaxParallelism() > 0 ?
+				vertex.getMaxParallelism() : KeyGroupRangeAssignment.computeDefaultMaxParallelism(parallelism);
+
+			Map<GeoLocation, long[]> vertexTraffic = new HashMap<>();
+			for (Map.Entry<GeoLocation, long[]> locationTraffic : traffic.getOrDefault(vertex.getID(), Collections.emptyMap()).entrySet()) {
+				// histograms of another number of key-groups are outdated
+				if (placement.contains(locationTraffic.getKey()) && locationTraffic.getValue().length == maxParallelism) {
+					vertexTraffic.put(locationTraffic.getKey(), locationTraffic.getValue());
+				}
+			}
+			if (vertexTraffic.isEmpty()) {
+				continue;
+			}
+
+			List<GeoLocation> subtaskLocations = assignSubtasks(placement, vertexTraffic, parallelism);
+			KeyGroupAssignment assignment = assignKeyGroups(subtaskLocations, vertexTraffic, maxParallelism, maxImbalance);
+
+			pinnedSubtasks.put(vertex.getID(), subtaskLocations);
+			assignment.writeTo(vertex.getConfiguration());
+			for (JobEdge input : vertex.getInputs()) {
+				JobVertex producer = input.getSource().getProducer();
+				assignment.writeToOutput(producer.getConfiguration(), producer.getProducedDataSets().indexOf(input.getSource()));
+			}
+
+			LOG.debug("Key-groups of vertex {} at locations {}: {}", vertex.getName(), subtaskLocations, assignment);
+		}
+
+		// the subtasks of the other vertices follow the solution, around the ones pinned by their key-groups
+		SubtaskGeoLocationAssigner.assign(jobGraph, pinnedSubtasks);
+
+		int applied = pinnedSubtasks.size();
+		if (applied > 0) {
+			LOG.info("Sized the key-group ranges of {} vertices of job {} by their traffic", applied, jobGraph.getJobID());
+		}
+
+		return applied;
+	}
+
+	/**
+	 * Adds the key-group histograms of the execution attempts of the given graph to the traffic of the vertices
+	 * consuming them, by the location of the producing attempt.
+	 */
+	public void record(ExecutionGraph executionGraph) {
+		int recorded = 0;
+
+		for (ExecutionJobVertex producer : executionGraph.getVerticesTopologically()) {
+			List<IntermediateDataSet> outputs = producer.getJobVertex().getProducedDataSets();
+
+			for (ExecutionVertex vertex : producer.getTaskVertices()) {
+				Execution execution = vertex.getCurrentExecutionAttempt();
+				TaskManagerLocation location = execution.getAssignedResourceLocation();
+				Map<String, Accumulator<?, ?>> accumulators = execution.getUserAccumulators();
+				if (location == null || location.getGeoLocation() == null || accumulators == null) {
+					continue;
+				}
+
+				for (int i = 0; i < outputs.size(); i++) {
+					Accumulator<?, ?> accumulator = accumulators.get(KeyGroupHistogram.getAccumulatorName(i));
+					if (!(accumulator instanceof KeyGroupHistogram)) {
+						continue;
+					}
+
+					long[] counts = ((KeyGroupHistogram) accumulator).getLocalValue().clone();
+					for (JobEdge edge : outputs.get(i).getConsumers()) {
+						traffic.computeIfAbsent(edge.getTarget().getID(), ignored -> new ConcurrentHashMap<>())
+							.merge(location.getGeoLocation(), counts, KeyGroupLocalityStore::add);
+					}
+					recorded++;
+				}
+			}
+		}
+
+		if (recorded > 0) {
+			LOG.debug("Recorded {} key-group histograms of job {}", recorded, executionGraph.getJobID());
+		}
+	}
+
+	/**
+	 * Creates a listener recording the traffic of the given graph when its execution attempts are over.
+	 */
+	public JobStatusListener createRecorder(ExecutionGraph executionGraph) {
+		return (JobID jobId, JobStatus newJobStatus, long timestamp, Throwable error) -> {
+			if (newJobStatus.isGloballyTerminalState() || newJobStatus == JobStatus.RESTARTING) {
+				record(executionGraph);
+			}
+		};
+	}
+
+	// ------------------------------------------------------------------------
+	//  Assignment
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Splits the subtasks of a vertex among its locations in proportion to the traffic coming from each location, at
+	 * least one per location. The subtasks of a location get consecutive indexes, and the locations are ordered by the
+	 * mean key-group of their traffic, so that the locations whose traffic is in the lower key-groups come first.
+	 *
+	 * @return the location of each subtask, by subtask index
+	 */
+	@VisibleForTesting
+	static List<GeoLocation> assignSubtasks(List<GeoLocation> locations, Map<GeoLocation, long[]> traffic, int parallelism) {
+		Preconditions.checkArgument(parallelism >= locations.size(), "Every location needs at least one subtask");
+
+		Map<GeoLocation, Double> meanKeyGroups = new HashMap<>();
+		Map<GeoLocation, Long> totals = new HashMap<>();
+		long total = 0;
+		for (GeoLocation location : locations) {
+			long[] counts = traffic.get(location);
+			long locationTotal = 0;
+			double keyGroupSum = 0;
+			if (counts != null) {
+				for (int keyGroup = 0; keyGroup < counts.length; keyGroup++) {
+					locationTotal += counts[keyGroup];
+					keyGroupSum += (double) keyGroup * counts[keyGroup];
+				}
+			}
+			totals.put(location, locationTotal);
+			meanKeyGroups.put(location, locationTotal > 0 ? keyGroupSum / locationTotal : Double.MAX_VALUE);
+			total += locationTotal;
+		}
+
+		List<GeoLocation> ordered = new ArrayList<>(locations);
+		ordered.sort(Comparator.comparing((GeoLocation location) -> meanKeyGroups.get(location)).thenComparing(GeoLocation::getKey));
+
+		// one subtask each, the others by largest remainder
+		int spare = parallelism - locations.size();
+		Map<GeoLocation, Integer> subtasks = new HashMap<>();
+		Map<GeoLocation, Double> remainders = new HashMap<>();
+		int assigned = 0;
+		for (GeoLocation location : ordered) {
+			double share = total > 0 ? (double) spare * totals.get(location) / total : (double) spare / locations.size();
+			subtasks.put(location, 1 + (int) share);
+			remainders.put(location, share - (int) share);
+			assigned += (int) share;
+		}
+
+		List<GeoLocation> byRemainder = new ArrayList<>(ordered);
+		byRemainder.sort(Comparator.comparing((GeoLocation location) -> -remainders.get(location)));
+		for (int i = 0; assigned < spare; i++, assigned++) {
+			subtasks.merge(byRemainder.get(i % byRemainder.size()), 1, Integer::sum);
+		}
+
+		List<GeoLocation> subtaskLocations = new ArrayList<>(parallelism);
+		for (GeoLocation location : ordered) {
+			subtaskLocations.addAll(Collections.nCopies(subtasks.get(location), location));
+		}
+		return subtaskLocations;
+	}
+
+	/**
+	 * Gives each run of subtasks at the same location a contiguous range of key-groups, maximising the traffic of the
+	 * key-groups of each range that comes from the location of its subtasks. The size of each range deviates from the
+	 * share of its subtasks by at most the given imbalance; among the ranges keeping the same traffic local, the ones
+	 * closest to the shares are preferred. The subtasks of a run split its range evenly.
+	 */
+	@VisibleForTesting
+	static KeyGroupAssignment assignKeyGroups(
+			List<GeoLocation> subtaskLocations,
+			Map<GeoLocation, long[]> traffic,
+			int maxParallelism,
+			double maxImbalance) {
+
+		int parallelism = subtaskLocations.size();
+		Preconditions.checkArgument(maxParallelism >= parallelism, "There must be at least a key-group per subtask");
+
+		// the runs of subtasks at the same location
+		List<GeoLocation> runLocations = new ArrayList<>();
+		List<Integer> runSizes = new ArrayList<>();
+		for (int i = 0; i < parallelism; i++) {
+			if (i > 0 && subtaskLocations.get(i).equals(subtaskLocations.get(i - 1))) {
+				runSizes.set(runSizes.size() - 1, runSizes.get(runSizes.size() - 1) + 1);
+			} else {
+				runLocations.add(subtaskLocations.get(i));
+				runSizes.add(1);
+			}
+		}
+		int runs = runLocations.size();
+
+		// local[r][k]: the traffic local to its range with the first r runs owning the first k key-groups
+		long[][] local = new long[runs + 1][maxParallelism + 1];
+		double[][] deviation = new double[runs + 1][maxParallelism + 1];
+		int[][] rangeSize = new int[runs + 1][maxParallelism + 1];
+		for (long[] row : local) {
+			Arrays.fill(row, -1);
+		}
+		local[0][0] = 0;
+
+		for (int r = 0; r < runs; r++) {
+			long[] prefix = prefixSums(traffic.get(runLocations.get(r)), maxParallelism);
+			double share = (double) runSizes.get(r) * maxParallelism / parallelism;
+			int minSize = Math.max(runSizes.get(r), Math.min((int) Math.floor(share), (int) Math.ceil(share / (1 + maxImbalance))));
+			int maxSize = Math.max((int) Math.ceil(share), (int) Math.floor(share * (1 + maxImbalance)));
+
+			for (int start = 0; start <= maxParallelism; start++) {
+				if (local[r][start] < 0) {
+					continue;
+				}
+				for (int size = minSize; size <= maxSize && start + size <= maxParallelism; size++) {
+					int end = start + size;
+					long candidateLocal = local[r][start] + prefix[end] - prefix[start];
+					double candidateDeviation = deviation[r][start] + Math.abs(size - share);
+					if (candidateLocal > local[r + 1][end] ||
+							(candidateLocal == local[r + 1][end] && candidateDeviation < deviation[r + 1][end])) {
+						local[r + 1][end] = candidateLocal;
+						deviation[r + 1][end] = candidateDeviation;
+						rangeSize[r + 1][end] = size;
+					}
+				}
+			}
+		}
+
+		Preconditions.checkState(local[runs][maxParallelism] >= 0, "No key-group ranges within the imbalance");
+
+		int[] rangeStarts = new int[parallelism + 1];
+		rangeStarts[parallelism] = maxParallelism;
+		int end = maxParallelism;
+		int subtask = parallelism;
+		for (int r = runs; r > 0; r--) {
+			int size = rangeSize[r][end];
+			int start = end - size;
+			int runSize = runSizes.get(r - 1);
+			subtask -= runSize;
+			for (int i = 0; i < runSize; i++) {
+				rangeStarts[subtask + i] = start + (i * size + runSize - 1) / runSize;
+			}
+			end = start;
+		}
+
+		return new KeyGroupAssignment(rangeStarts);
+	}
+
+	private static long[] prefixSums(@Nullable long[] counts, int maxParallelism) {
+		long[] prefix = new long[maxParallelism + 1];
+		for (int keyGroup = 0; keyGroup < maxParallelism; keyGroup++) {
+			prefix[keyGroup + 1] = prefix[keyGroup] + (counts == null ? 0 : counts[keyGroup]);
+		}
+		return prefix;
+	}
+
+	private static long[] add(long[] counts, long[] otherCounts) {
+		if (counts.length != otherCounts.length) {
+			// the number of key-groups changed, the older counts are outdated
+			return otherCounts;
+		}
+
+		long[] sum = new long[counts.length];
+		for (int i = 0; i < counts.length; i++) {
+			sum[i] = counts[i] + otherCounts[i];
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,119 @@
+package org.apache.flink.runtime.executiongraph;
+
+import gurobi.GRB;
+import gurobi.GRBException;
+import gurobi.GRBLinExpr;
+import gurobi.GRBQuadExpr;
+import gurobi.GRBVar;
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.jobgraph.JobEdge;
+import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.apache.flink.runtime.jobmanager.scheduler.BandwidthProvider;
+import org.apache.flink.types.TwoKeysMap;
+import org.apache.flink.types.TwoKeysMultiMap;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link MultiLocationOptimisationModel} with a linear network cost, so that the whole model is a MILP instead of
+ * a MIQCP.
+ *
+ * <p>The network cost counts, for each edge and location, the products
+ * <code>placement[o1][x] * (1 - placement[o2][x])</code>. Instead of creating a complement variable for each product
+ * and summing the products in a quadratic constraint, a single complement variable is created for each
+ * (vertex, location), and each product is replaced by a continuous variable constrained by its McCormick envelope,
+ * which is exact when the factors are binary.
+ *
+ * <p>The cost of the all-to-all edges is the one of {@link MultiLocationOptimisationModel}, which is already linear.
+ */
+public class LinearisedMultiLocationOptimisationModel extends MultiLocationOptimisationModel {
+
+	/**
+	 * oneMinusPlacement[o][x] = 1 - placement[o][x], shared by all the edges of o.
+	 */
+	private TwoKeysMap<JobVertex, GeoLocation, GRBVar> oneMinusPlacement;
+
+	public LinearisedMultiLocationOptimisationModel(Collection<JobVertex> vertices, Set<GeoLocation> locations, BandwidthProvider bandwidthProvider, Map<GeoLocation, Integer> slots, OptimisationModelParameters parameters) throws GRBException {
+		super(vertices, locations, bandwidthProvider, slots, parameters);
+	}
+
+	/**
+	 * Only has linear terms.
+	 */
+	@Override
+	protected GRBQuadExpr makeNetworkCostExpression() throws GRBException {
+		if (!bandwidthCosts.isUniform()) {
+			// already linear
+			return makeBandwidthWeightedNetworkCostExpression();
+		}
+
+		GRBQuadExpr expr = new GRBQuadExpr();
+		for (JobVertex vertexTo : vertices) {
+			for (JobEdge edge : vertexTo.getInputs()) {
+				JobVertex vertexFrom = edge.getSource().getProducer();
+
+				if (!isModelled(vertexFrom)) {
+					continue;
+				}
+
+				if (isAllToAll(edge)) {
+					addAllToAllCost(expr, edge, vertexFrom, vertexTo);
+					continue;
+				}
+
+				for (GeoLocation location : locations) {
+					expr.addTerm(edge.getWeight(), addPlacedWithout(vertexFrom, vertexTo, location));
+					expr.addTerm(edge.getWeight(), addPlacedWithout(vertexTo, vertexFrom, location));
+				}
+			}
+		}
+		return expr;
+	}
+
+	/**
+	 * Adds a variable equal to placement[vertex1][location] * (1 - placement[vertex2][location]).
+	 */
+	private GRBVar addPlacedWithout(JobVertex vertex1, JobVertex vertex2, GeoLocation location) throws GRBException {
+		String name = getVariableString("placed_", vertex1, "without", vertex2, location);
+		GRBVar product = model.addVar(0d, 1d, 0.0, GRB.CONTINUOUS, name);
+
+		GRBVar placementTask1 = placement.get(vertex1, location);
+		GRBVar oneMinusPlacementTask2 = getOneMinusPlacement(vertex2, location);
+
+		model.addConstr(product, GRB.LESS_EQUAL, placementTask1, name + "_upper_1");
+		model.addConstr(product, GRB.LESS_EQUAL, oneMinusPlacementTask2, name + "_upper_2");
+
+		GRBLinExpr lowerBound = new GRBLinExpr();
+		lowerBound.addTerm(1d, placementTask1);
+		lowerBound.addTerm(1d, oneMinusPlacementTask2);
+		lowerBound.addConstant(-1d);
+		model.addConstr(product, GRB.GREATER_EQUAL, lowerBound, name + "_lower");
+
+		return product;
+	}
+
+	private GRBVar getOneMinusPlacement(JobVertex vertex, GeoLocation location) throws GRBException {
+		// this is called by the super constructor, before any field initialiser of this class
+		if (oneMinusPlacement == null) {
+			oneMinusPlacement = new TwoKeysMultiMap<>();
+		}
+
+		GRBVar oneMinusPlacementVar = oneMinusPlacement.get(vertex, location);
+
+		if (oneMinusPlacementVar == null) {
+			String name = getVariableString("one_minus_placement_", vertex, location);
+			oneMinusPlacementVar = model.addVar(0d, 1d, 0.0, GRB.BINARY, name);
+
+			GRBLinExpr rhs = new GRBLinExpr();
+			rhs.addConstant(1d);
+			rhs.addTerm(-1d, placement.get(vertex, location));
+			model.addConstr(oneMinusPlacementVar, GRB.EQUAL, rhs, name);
+
+			oneMinusPlacement.put(vertex, location, oneMinusPlacementVar);
+		}
+
+		return oneMinusPlacementVar;
+	}
+}
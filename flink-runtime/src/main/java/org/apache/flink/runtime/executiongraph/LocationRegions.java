@@ -0,0 +1,309 @@
+package org.apache.flink.runtime.executiongraph;
+
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.apache.flink.runtime.jobmanager.scheduler.BandwidthProvider;
+import org.apache.flink.runtime.jobmanager.scheduler.StaticBandwidthProvider;
+import org.apache.flink.types.TwoKeysMap;
+import org.apache.flink.types.TwoKeysMultiMap;
+import org.apache.flink.util.Preconditions;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A partition of the locations of a cluster into regions of close locations, i.e. locations linked by fast, short
+ * links, so that the placement problem can be solved at region granularity first.
+ *
+ * <p>The locations are clustered by average linkage: the two closest regions are merged until no two regions can be
+ * merged without exceeding the maximum region size. The distance between two locations is the sum of the
+ * {@link BandwidthCosts} of the link between them, normalised by the highest cost, and of its latency, normalised by
+ * the highest latency, averaged over both directions.
+ *
+ * <p>Each region is named after one of its locations, so that the vertices placed at a location by their geo location
+ * key are placed at its region by the same key. Two locations vertices are placed at by key never share a region.
+ */
+public final class LocationRegions {
+
+	/**
+	 * The locations of each region, by region.
+	 */
+	private final Map<GeoLocation, List<GeoLocation>> members = new LinkedHashMap<>();
+
+	private final Map<GeoLocation, GeoLocation> regionOf = new HashMap<>();
+
+	/**
+	 * @param locations the locations to cluster
+	 * @param bandwidthProvider the bandwidths and round trip times between the locations
+	 * @param maxRegionSize the highest number of locations in a region
+	 * @param keyLocations the locations vertices are placed at by key, that must be in different regions
+	 */
+	public static LocationRegions cluster(Collection<GeoLocation> locations,
+										  BandwidthProvider bandwidthProvider,
+										  int maxRegionSize,
+										  Collection<GeoLocation> keyLocations) {
+		Preconditions.checkArgument(maxRegionSize > 0, "The maximum region size must be positive");
+
+		List<GeoLocation> sortedLocations = new ArrayList<>(locations);
+		sortedLocations.sort(Comparator.comparing(GeoLocation::getKey));
+		BandwidthCosts bandwidthCosts = new BandwidthCosts(sortedLocations, bandwidthProvider);
+
+		int m = sortedLocations.size();
+		double[][] distances = distances(bandwidthCosts);
+
+		List<List<Integer>> clusters = new ArrayList<>();
+		GeoLocation[] keyLocation = new GeoLocation[m];
+		for (int l = 0; l < m; l++) {
+			clusters.add(new ArrayList<>(Collections.singletonList(l)));
+			if (keyLocations.contains(sortedLocations.get(l))) {
+				keyLocation[l] = sortedLocations.get(l);
+			}
+		}
+
+		while (true) {
+			int bestI = -1;
+			int bestJ = -1;
+			for (int i = 0; i < m; i++) {
+				if (clusters.get(i) == null) {
+					continue;
+				}
+				for (int j = i + 1; j < m; j++) {
+					if (clusters.get(j) == null
+							|| clusters.get(i).size() + clusters.get(j).size() > maxRegionSize
+							|| (keyLocation[i] != null && keyLocation[j] != null)) {
+						continue;
+					}
+					if (bestI < 0 || distances[i][j] < distances[bestI][bestJ]) {
+						bestI = i;
+						bestJ = j;
+					}
+				}
+			}
+
+			if (bestI < 0) {
+				break;
+			}
+
+			// average linkage: the distance to the merged region is the mean distance to its locations
+			int sizeI = clusters.get(bestI).size();
+			int sizeJ = clusters.get(bestJ).size();
+			for (int k = 0; k < m; k++) {
+				if (clusters.get(k) != null && k != bestI && k != bestJ) {
+					double distance = (sizeI * distances[k][bestI] + sizeJ * distances[k][bestJ]) / (sizeI + sizeJ);
+					distances[k][bestI] = distance;
+					distances[bestI][k] = distance;
+				}
+			}
+
+			clusters.get(bestI).addAll(clusters.get(bestJ));
+			clusters.set(bestJ, null);
+			if (keyLocation[bestI] == null) {
+				keyLocation[bestI] = keyLocation[bestJ];
+			}
+		}
+
+		LocationRegions regions = new LocationRegions();
+		for (int i = 0; i < m; i++) {
+			if (clusters.get(i) == null) {
+				continue;
+			}
+
+			List<GeoLocation> regionLocations = new ArrayList<>();
+			for (int l : clusters.get(i)) {
+				regionLocations.add(sortedLocations.get(l));
+			}
+			regionLocations.sort(Comparator.comparing(GeoLocation::getKey));
+
+			regions.addRegion(keyLocation[i] != null ? keyLocation[i] : regionLocations.get(0), regionLocations);
+		}
+		return regions;
+	}
+
+	/**
+	 * Returns the symmetric distance between each two locations, in [0, 2].
+	 */
+	private static double[][] distances(BandwidthCosts bandwidthCosts) {
+		int m = bandwidthCosts.getLocations().length;
+
+		double maxLatency = 0;
+		for (int from = 0; from < m; from++) {
+			for (int to = 0; to < m; to++) {
+				maxLatency = Math.max(maxLatency, bandwidthCosts.getLatency(from, to));
+			}
+		}
+
+		double[][] distances = new double[m][m];
+		for (int from = 0; from < m; from++) {
+			for (int to = 0; to < m; to++) {
+				if (from == to) {
+					continue;
+				}
+
+				double cost = (bandwidthCosts.get(from, to) + bandwidthCosts.get(to, from)) / (2 * bandwidthCosts.getMaxCost());
+				double latency = maxLatency > 0 ?
+					(bandwidthCosts.getLatency(from, to) + bandwidthCosts.getLatency(to, from)) / (2 * maxLatency) :
+					0;
+				distances[from][to] = cost + latency;
+			}
+		}
+		return distances;
+	}
+
+	private LocationRegions() {
+	}
+
+	private void addRegion(GeoLocation region, List<GeoLocation> regionLocations) {
+		members.put(region, regionLocations);
+		for (GeoLocation location : regionLocations) {
+			regionOf.put(location, region);
+		}
+	}
+
+	public Set<GeoLocation> getRegions() {
+		return Collections.unmodifiableSet(members.keySet());
+	}
+
+	/**
+	 * @return the locations of a region
+	 */
+	public List<GeoLocation> getLocations(GeoLocation region) {
+		return members.get(region);
+	}
+
+	/**
+	 * @return the region of a location, or null if the location isn't in any region
+	 */
+	@Nullable
+	public GeoLocation getRegion(GeoLocation location) {
+		return regionOf.get(location);
+	}
+
+	/**
+	 * @return the slots of each region, the sum of the slots of its locations
+	 */
+	public Map<GeoLocation, Integer> getRegionSlots(Map<GeoLocation, Integer> slots) {
+		Map<GeoLocation, Integer> regionSlots = new HashMap<>();
+		for (Map.Entry<GeoLocation, List<GeoLocation>> region : members.entrySet()) {
+			int sum = 0;
+			for (GeoLocation location : region.getValue()) {
+				Integer locationSlots = slots.get(location);
+				sum += locationSlots == null ? 0 : locationSlots;
+			}
+			regionSlots.put(region.getKey(), sum);
+		}
+		return regionSlots;
+	}
+
+	/**
+	 * Returns the bandwidths and round trip times between the regions: the means of the known ones between their
+	 * locations. Regions without any known link between their locations have no known link either.
+	 */
+	public BandwidthProvider getRegionBandwidthProvider(BandwidthProvider bandwidthProvider) {
+		TwoKeysMap<GeoLocation, GeoLocation, Double> bandwidths = new TwoKeysMultiMap<>();
+		TwoKeysMap<GeoLocation, GeoLocation, Double> roundTripTimes = new TwoKeysMultiMap<>();
+
+		for (Map.Entry<GeoLocation, List<GeoLocation>> from : members.entrySet()) {
+			for (Map.Entry<GeoLocation, List<GeoLocation>> to : members.entrySet()) {
+				if (from.getKey().equals(to.getKey())) {
+					continue;
+				}
+
+				double bandwidthSum = 0;
+				int bandwidthCount = 0;
+				double roundTripTimeSum = 0;
+				int roundTripTimeCount = 0;
+				for (GeoLocation locationFrom : from.getValue()) {
+					for (GeoLocation locationTo : to.getValue()) {
+						if (bandwidthProvider != null && bandwidthProvider.hasBandwidth(locationFrom, locationTo)) {
+							bandwidthSum += bandwidthProvider.getBandwidth(locationFrom, locationTo);
+							bandwidthCount++;
+						}
+						double roundTripTime = bandwidthProvider == null ? -1 : bandwidthProvider.getRoundTripTime(locationFrom, locationTo);
+						if (roundTripTime >= 0) {
+							roundTripTimeSum += roundTripTime;
+							roundTripTimeCount++;
+						}
+					}
+				}
+
+				if (bandwidthCount > 0) {
+					bandwidths.put(from.getKey(), to.getKey(), bandwidthSum / bandwidthCount);
+				}
+				if (roundTripTimeCount > 0) {
+					roundTripTimes.put(from.getKey(), to.getKey(), roundTripTimeSum / roundTripTimeCount);
+				}
+			}
+		}
+
+		return new StaticBandwidthProvider(bandwidths, roundTripTimes);
+	}
+
+	/**
+	 * Maps a placement at locations to the regions of the locations, dropping the locations outside the regions.
+	 *
+	 * @return the placement at regions, or null if the given placement is null
+	 */
+	@Nullable
+	public Map<JobVertex, List<GeoLocation>> toRegionPlacement(@Nullable Map<JobVertex, List<GeoLocation>> placement) {
+		if (placement == null) {
+			return null;
+		}
+
+		Map<JobVertex, List<GeoLocation>> regionPlacement = new HashMap<>();
+		for (Map.Entry<JobVertex, List<GeoLocation>> entry : placement.entrySet()) {
+			Set<GeoLocation> vertexRegions = new LinkedHashSet<>();
+			for (GeoLocation location : entry.getValue()) {
+				GeoLocation region = regionOf.get(location);
+				if (region != null) {
+					vertexRegions.add(region);
+				}
+			}
+			if (!vertexRegions.isEmpty()) {
+				regionPlacement.put(entry.getKey(), new ArrayList<>(vertexRegions));
+			}
+		}
+		return regionPlacement;
+	}
+
+	/**
+	 * Restricts a placement at locations to the locations of a region, dropping the vertices without any location
+	 * there.
+	 *
+	 * @return the placement within the region, or null if the given placement is null
+	 */
+	@Nullable
+	public Map<JobVertex, List<GeoLocation>> restrictTo(GeoLocation region, @Nullable Map<JobVertex, List<GeoLocation>> placement) {
+		if (placement == null) {
+			return null;
+		}
+
+		Map<JobVertex, List<GeoLocation>> restricted = new HashMap<>();
+		for (Map.Entry<JobVertex, List<GeoLocation>> entry : placement.entrySet()) {
+			List<GeoLocation> regionLocations = new ArrayList<>();
+			for (GeoLocation location : entry.getValue()) {
+				if (region.equals(regionOf.get(location))) {
+					regionLocations.add(location);
+				}
+			}
+			if (!regionLocations.isEmpty()) {
+				restricted.put(entry.getKey(), regionLocations);
+			}
+		}
+		return restricted;
+	}
+
+	@Override
+	public String toString() {
+		return "LocationRegions" + members;
+	}
+}
@@ -6,6 +6,7 @@ import gurobi.GRBLinExpr;
 import gurobi.GRBQuadExpr;
 import gurobi.GRBVar;
 import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.jobgraph.DistributionPattern;
 import org.apache.flink.runtime.jobgraph.JobEdge;
 import org.apache.flink.runtime.jobgraph.JobVertex;
 import org.apache.flink.runtime.jobmanager.scheduler.BandwidthProvider;
@@ -13,11 +14,33 @@ import org.apache.flink.types.TwoKeysMap;
 import org.apache.flink.types.TwoKeysMultiMap;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
 /**
  * This model is able to spread a task across multiple locations, at the cost of a less exact network cost measurement
+ *
+ * <p>When the bandwidths between locations are known, the network cost of a location hosting only one end of an edge
+ * is weighted by the {@link BandwidthCosts} of the slowest link towards the other end.
+ *
+ * <p>That cost fits pointwise edges (forward, rescale), whose producer subtasks only send to the consumer subtasks
+ * they are paired with. The records of an all-to-all edge (keyed, rebalance, shuffle...) instead reach every consumer
+ * subtask, so the producer subtasks at x send to y the share of the consumer subtasks at y of their records, and a
+ * keyed stream split evenly across k locations sends (k-1)/k of its records across locations, even when both ends are
+ * at the same locations. The cost of an all-to-all edge is the sum over the links of the share of its records
+ * crossing them, weighted by their {@link BandwidthCosts}, and counted at both ends as the cost of the other edges.
+ *
+ * <p>The cost stays linear, each product being replaced by a continuous variable constrained by its McCormick
+ * envelope, which is exact as one of its factors is binary:
+ * <ul>
+ *     <li>the share of the subtasks of o at x, <code>share[o][x] = t[o][x] / parallelism[o]</code>, is constrained
+ *     by <code>share[o][x] * parallelism[o] = t[o][x]</code>, the product being the sum of the products of the share
+ *     and the binary digits of <code>parallelism[o]</code></li>
+ *     <li>the share of the records of o1 crossing from x to y, <code>crossing = share[o1][x] * share[o2][y]</code>,
+ *     is constrained by <code>crossing * parallelism[o1] = t[o1][x] * share[o2][y]</code>, both products being sums
+ *     of products with the binary digits of <code>parallelism[o1]</code> and <code>t[o1][x]</code></li>
+ * </ul>
  */
 public class MultiLocationOptimisationModel extends OptimisationModel {
 	/**
@@ -25,12 +48,28 @@ public class MultiLocationOptimisationModel extends OptimisationModel {
 	 */
 	private TwoKeysMap<JobVertex, GeoLocation, GRBVar> t;
 
+	/**
+	 * digits[o][x] are the binary digits of t[o][x], the least significant first, created for the producers of
+	 * all-to-all edges only.
+	 */
+	private TwoKeysMap<JobVertex, GeoLocation, GRBVar[]> digits;
+
+	/**
+	 * parallelismDigits[o] are the binary digits of parallelism[o], the least significant first, created for the ends
+	 * of all-to-all edges only.
+	 */
+	private Map<JobVertex, GRBVar[]> parallelismDigits;
+
+	/**
+	 * share[o][x] = t[o][x] / parallelism[o], created for the consumers of all-to-all edges only.
+	 */
+	private TwoKeysMap<JobVertex, GeoLocation, GRBVar> share;
+
 	public MultiLocationOptimisationModel(Collection<JobVertex> vertices, Set<GeoLocation> locations, BandwidthProvider bandwidthProvider, Map<GeoLocation, Integer> slots, OptimisationModelParameters parameters) throws GRBException {
 		super(vertices, locations, bandwidthProvider, slots, parameters);
 	}
 
 	public void init() throws GRBException {
-		t = new TwoKeysMultiMap<>();
 		addTMatrixVariables();
 	}
 
@@ -38,32 +77,209 @@ public class MultiLocationOptimisationModel extends OptimisationModel {
 		for (JobVertex vertex : vertices) {
 			GRBLinExpr rhsSplittingConstraint = new GRBLinExpr();
 			for (GeoLocation location : locations) {
-				String name = getVariableString("t_", vertex, location);
-				t.put(vertex, location, model.addVar(0d, getMaxParallelism(vertex), 0.0, GRB.INTEGER, name));
+				rhsSplittingConstraint.addTerm(1d, getT(vertex, location));
+			}
 
-				GRBLinExpr rhsLessThanMaxParallelism = new GRBLinExpr();
-				rhsLessThanMaxParallelism.addTerm(getMaxParallelism(vertex), placement.get(vertex, location));
-				model.addConstr(t.get(vertex, location), GRB.LESS_EQUAL, rhsLessThanMaxParallelism, name);
+			model.addConstr(parallelism.get(vertex), GRB.EQUAL, rhsSplittingConstraint, getVariableString("splitting_", vertex));
+		}
+	}
 
-				model.addConstr(t.get(vertex, location), GRB.LESS_EQUAL, slots.get(location), name);
+	/**
+	 * Returns t[vertex][location], creating it with its constraints the first time.
+	 */
+	protected GRBVar getT(JobVertex vertex, GeoLocation location) throws GRBException {
+		// the network cost is made by the super constructor, before init
+		if (t == null) {
+			t = new TwoKeysMultiMap<>();
+		}
 
-				model.addConstr(t.get(vertex, location), GRB.GREATER_EQUAL, placement.get(vertex, location), name);
+		GRBVar tVar = t.get(vertex, location);
 
+		if (tVar == null) {
+			String name = getVariableString("t_", vertex, location);
+			tVar = model.addVar(0d, getMaxParallelism(vertex), 0.0, GRB.INTEGER, name);
+			t.put(vertex, location, tVar);
 
-				rhsSplittingConstraint.addTerm(1d, t.get(vertex, location));
-			}
+			GRBLinExpr rhsLessThanMaxParallelism = new GRBLinExpr();
+			rhsLessThanMaxParallelism.addTerm(getMaxParallelism(vertex), placement.get(vertex, location));
+			model.addConstr(tVar, GRB.LESS_EQUAL, rhsLessThanMaxParallelism, name);
 
-			model.addConstr(parallelism.get(vertex), GRB.EQUAL, rhsSplittingConstraint, getVariableString("splitting_", vertex));
+			model.addConstr(tVar, GRB.LESS_EQUAL, slots.get(location), name);
+
+			model.addConstr(tVar, GRB.GREATER_EQUAL, placement.get(vertex, location), name);
+		}
+
+		return tVar;
+	}
+
+	@Override
+	protected TwoKeysMap<JobVertex, GeoLocation, GRBVar> getSubtaskVariables() {
+		return t;
+	}
+
+	/**
+	 * Returns the binary digits of t[vertex][location], creating them the first time.
+	 */
+	private GRBVar[] getDigits(JobVertex vertex, GeoLocation location) throws GRBException {
+		if (digits == null) {
+			digits = new TwoKeysMultiMap<>();
+		}
+
+		GRBVar[] digitVars = digits.get(vertex, location);
+
+		if (digitVars == null) {
+			digitVars = addDigits(getT(vertex, location), vertex, getVariableString("digits_", vertex, location));
+			digits.put(vertex, location, digitVars);
+		}
+
+		return digitVars;
+	}
+
+	/**
+	 * Returns the binary digits of parallelism[vertex], creating them the first time.
+	 */
+	private GRBVar[] getParallelismDigits(JobVertex vertex) throws GRBException {
+		if (parallelismDigits == null) {
+			parallelismDigits = new HashMap<>();
+		}
+
+		GRBVar[] digitVars = parallelismDigits.get(vertex);
+
+		if (digitVars == null) {
+			digitVars = addDigits(parallelism.get(vertex), vertex, getVariableString("parallelism_digits_", vertex));
+			parallelismDigits.put(vertex, digitVars);
+		}
+
+		return digitVars;
+	}
+
+	/**
+	 * Adds the binary digits of an integer variable between 0 and the maximum parallelism of the vertex.
+	 */
+	private GRBVar[] addDigits(GRBVar var, JobVertex vertex, String name) throws GRBException {
+		GRBVar[] digitVars = new GRBVar[32 - Integer.numberOfLeadingZeros((int) getMaxParallelism(vertex))];
+
+		// var = sum of 2^k * digit[k]
+		GRBLinExpr rhs = new GRBLinExpr();
+		for (int k = 0; k < digitVars.length; k++) {
+			digitVars[k] = model.addVar(0d, 1d, 0.0, GRB.BINARY, getVariableString(name, k));
+			rhs.addTerm(1 << k, digitVars[k]);
+		}
+		model.addConstr(var, GRB.EQUAL, rhs, name);
+
+		return digitVars;
+	}
+
+	/**
+	 * Returns share[vertex][location] = t[vertex][location] / parallelism[vertex], the share of the subtasks of vertex
+	 * at location, creating it the first time.
+	 */
+	private GRBVar getShare(JobVertex vertex, GeoLocation location) throws GRBException {
+		if (share == null) {
+			share = new TwoKeysMultiMap<>();
+		}
+
+		GRBVar shareVar = share.get(vertex, location);
+
+		if (shareVar == null) {
+			String name = getVariableString("share_", vertex, location);
+			shareVar = model.addVar(0d, 1d, 0.0, GRB.CONTINUOUS, name);
+
+			// share * parallelism = t
+			model.addConstr(addTimesParallelism(shareVar, vertex, name), GRB.EQUAL, getT(vertex, location), name);
+
+			share.put(vertex, location, shareVar);
 		}
+
+		return shareVar;
+	}
+
+	/**
+	 * Returns an expression equal to fraction * parallelism[vertex], with fraction between 0 and 1.
+	 */
+	private GRBLinExpr addTimesParallelism(GRBVar fraction, JobVertex vertex, String name) throws GRBException {
+		GRBVar[] digitVars = getParallelismDigits(vertex);
+
+		GRBLinExpr expr = new GRBLinExpr();
+		for (int k = 0; k < digitVars.length; k++) {
+			expr.addTerm(1 << k, addDigitTimesShare(digitVars[k], fraction, getVariableString(name, "parallelism", k)));
+		}
+		return expr;
+	}
+
+	/**
+	 * @return true if the records of the edge reach every subtask of its consumer, instead of the paired ones only
+	 */
+	protected static boolean isAllToAll(JobEdge edge) {
+		return edge.getDistributionPattern() == DistributionPattern.ALL_TO_ALL;
+	}
+
+	/**
+	 * Adds the cost of an all-to-all edge: for each link x to y, the share of the producer subtasks at x times the
+	 * share of the consumer subtasks at y, times the cost of the link, counted at both ends. Only has linear terms.
+	 */
+	protected void addAllToAllCost(GRBQuadExpr expr, JobEdge edge, JobVertex vertexFrom, JobVertex vertexTo) throws GRBException {
+		for (GeoLocation from : locations) {
+			GRBVar[] fromDigits = getDigits(vertexFrom, from);
+			for (GeoLocation to : locations) {
+				if (from.equals(to)) {
+					continue;
+				}
+
+				String name = getVariableString("crossing_", vertexFrom, vertexTo, from, to);
+				GRBVar crossing = model.addVar(0d, 1d, 0.0, GRB.CONTINUOUS, name);
+
+				// crossing * parallelism[from] = t[from][x] * share[to][y]
+				GRBVar toShare = getShare(vertexTo, to);
+				GRBLinExpr sent = new GRBLinExpr();
+				for (int k = 0; k < fromDigits.length; k++) {
+					sent.addTerm(1 << k, addDigitTimesShare(fromDigits[k], toShare, getVariableString(name, k)));
+				}
+				model.addConstr(addTimesParallelism(crossing, vertexFrom, name), GRB.EQUAL, sent, name);
+
+				expr.addTerm(2 * edge.getWeight() * bandwidthCosts.get(from, to), crossing);
+			}
+		}
+	}
+
+	/**
+	 * Adds a variable equal to digit * share, with digit binary and share between 0 and 1.
+	 */
+	private GRBVar addDigitTimesShare(GRBVar digit, GRBVar share, String name) throws GRBException {
+		GRBVar product = model.addVar(0d, 1d, 0.0, GRB.CONTINUOUS, name);
+
+		model.addConstr(product, GRB.LESS_EQUAL, digit, name + "_upper_1");
+		model.addConstr(product, GRB.LESS_EQUAL, share, name + "_upper_2");
+
+		GRBLinExpr lowerBound = new GRBLinExpr();
+		lowerBound.addTerm(1d, share);
+		lowerBound.addTerm(1d, digit);
+		lowerBound.addConstant(-1d);
+		model.addConstr(product, GRB.GREATER_EQUAL, lowerBound, name + "_lower");
+
+		return product;
 	}
 
 	@Override
 	protected GRBQuadExpr makeNetworkCostExpression() throws GRBException {
+		if (!bandwidthCosts.isUniform()) {
+			return makeBandwidthWeightedNetworkCostExpression();
+		}
+
 		GRBQuadExpr expr = new GRBQuadExpr();
 		for (JobVertex vertexTo : vertices) {
 			for (JobEdge edge : vertexTo.getInputs()) {
 				JobVertex vertexFrom = edge.getSource().getProducer();
 
+				if (!isModelled(vertexFrom)) {
+					continue;
+				}
+
+				if (isAllToAll(edge)) {
+					addAllToAllCost(expr, edge, vertexFrom, vertexTo);
+					continue;
+				}
+
 				GRBVar countTaskFromWithoutTaskTo = addCountTask1WithoutTask2(vertexFrom, vertexTo);
 				expr.addTerm(edge.getWeight(), countTaskFromWithoutTaskTo);
 
@@ -89,6 +305,66 @@ public class MultiLocationOptimisationModel extends OptimisationModel {
 		return countTask1WithoutTask2;
 	}
 
+	/**
+	 * The network cost weighting each location hosting only one end of an edge by the cost of the slowest link
+	 * between that location and the locations of the other end, i.e. by the inverse of its bandwidth.
+	 * Only has linear terms.
+	 */
+	protected GRBQuadExpr makeBandwidthWeightedNetworkCostExpression() throws GRBException {
+		GRBQuadExpr expr = new GRBQuadExpr();
+		for (JobVertex vertexTo : vertices) {
+			for (JobEdge edge : vertexTo.getInputs()) {
+				JobVertex vertexFrom = edge.getSource().getProducer();
+
+				if (!isModelled(vertexFrom)) {
+					continue;
+				}
+
+				if (isAllToAll(edge)) {
+					addAllToAllCost(expr, edge, vertexFrom, vertexTo);
+					continue;
+				}
+
+				for (GeoLocation location : locations) {
+					expr.addTerm(edge.getWeight(), addSendingCost(vertexFrom, vertexTo, location, true));
+					expr.addTerm(edge.getWeight(), addSendingCost(vertexTo, vertexFrom, location, false));
+				}
+			}
+		}
+		return expr;
+	}
+
+	/**
+	 * Adds a variable that, when vertex1 is placed at location and vertex2 is not, is at least the cost of the slowest
+	 * link between location and the locations of vertex2, and is otherwise at least 0. Being minimised, it is equal to
+	 * that cost.
+	 *
+	 * @param outgoing true if the data flows from vertex1 to vertex2
+	 */
+	private GRBVar addSendingCost(JobVertex vertex1, JobVertex vertex2, GeoLocation location, boolean outgoing) throws GRBException {
+		String name = getVariableString("sending_cost_", vertex1, "without", vertex2, location);
+		GRBVar sendingCost = model.addVar(0d, GRB.INFINITY, 0.0, GRB.CONTINUOUS, name);
+
+		for (GeoLocation otherLocation : locations) {
+			if (otherLocation.equals(location)) {
+				continue;
+			}
+
+			double cost = outgoing ? bandwidthCosts.get(location, otherLocation) : bandwidthCosts.get(otherLocation, location);
+
+			// sendingCost >= cost * (placement[vertex1][location] - placement[vertex2][location] + placement[vertex2][otherLocation] - 1)
+			GRBLinExpr rhs = new GRBLinExpr();
+			rhs.addTerm(cost, placement.get(vertex1, location));
+			rhs.addTerm(-cost, placement.get(vertex2, location));
+			rhs.addTerm(cost, placement.get(vertex2, otherLocation));
+			rhs.addConstant(-cost);
+
+			model.addConstr(sendingCost, GRB.GREATER_EQUAL, rhs, getVariableString(name, otherLocation));
+		}
+
+		return sendingCost;
+	}
+
 	private GRBVar addOneMinusPlacement(JobVertex vertex, GeoLocation location) throws GRBException {
 		String name = getVariableString("one_minus_placement_", vertex, location);
 		GRBVar oneMinusPlacementTaskFromSiteTo = model.addVar(0d, 1d, 0.0, GRB.BINARY, name);
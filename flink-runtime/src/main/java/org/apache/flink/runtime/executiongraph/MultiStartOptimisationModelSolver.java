@@ -0,0 +1,225 @@
+package org.apache.flink.runtime.executiongraph;
+
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.apache.flink.runtime.jobmanager.scheduler.BandwidthProvider;
+import org.apache.flink.util.ExceptionUtils;
+import org.apache.flink.util.FlinkException;
+import org.apache.flink.util.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs several solvers on the same placement problem in parallel, on a fork-join pool, and returns the best placement
+ * any of them found within a wall-clock budget.
+ *
+ * <p>The solvers are given most of the budget as their own time limit, so that they return the best placement they
+ * found by then. The placements of the solvers that didn't return within the budget are dropped, unless none did:
+ * the first placement returned afterwards is used instead. A Gurobi solve without any solution by its time limit
+ * returns no placement, the heuristic solvers always return one, so running one along Gurobi always gives a placement.
+ *
+ * <p>The solvers don't score their placements the same way: the latency penalty of Gurobi is not the one of the
+ * heuristic, and the solutions solved by regions have no objective. The placements are hence all scored with
+ * {@link HeuristicOptimisationModelSolver#evaluate}, with their own parallelism, and the returned solution has:
+ * <ul>
+ *     <li>the lowest score of the placements found</li>
+ *     <li>the highest bound of the objective proven by the solvers, Gurobi's, so that its optimality gap is the one of
+ *     the whole portfolio, or no bound if it exceeds that score, the bound being then of another objective</li>
+ *     <li>the incumbents of all the solvers, each better than the previous one, that is the best objective known over
+ *     time</li>
+ * </ul>
+ */
+public class MultiStartOptimisationModelSolver implements OptimisationModelSolver {
+
+	private static final Logger LOG = LoggerFactory.getLogger(MultiStartOptimisationModelSolver.class);
+
+	/** Share of the budget the solvers get as their time limit, leaving time to build their models and to return. */
+	private static final double SOLVER_TIME_FRACTION = 0.8;
+
+	/** Relative tolerance of the bound of the objective over the score of the best placement. */
+	private static final double EPSILON = 1e-6;
+
+	/**
+	 * Creates the solvers of {@link OptimisationModelParameters#getSolverStarts()} starts for the given parameters:
+	 * the solver of {@link OptimisationModelParameters#getSolverType()}, the other Gurobi formulation if Gurobi is
+	 * used, and heuristic solvers with different seeds. They solve by regions if the parameters ask for it.
+	 */
+	static MultiStartOptimisationModelSolver create(OptimisationModelParameters parameters) {
+		OptimisationModelSolverType solverType = parameters.getSolverType();
+		int starts = parameters.getSolverStarts();
+
+		List<OptimisationModelSolver> solvers = new ArrayList<>();
+		solvers.add(parameters.createHierarchicalSolver(solverType.createSolver()));
+
+		if (solvers.size() < starts && solverType == OptimisationModelSolverType.GUROBI) {
+			solvers.add(parameters.createHierarchicalSolver(OptimisationModelSolverType.GUROBI_LINEARISED.createSolver()));
+		} else if (solvers.size() < starts && solverType == OptimisationModelSolverType.GUROBI_LINEARISED) {
+			solvers.add(parameters.createHierarchicalSolver(OptimisationModelSolverType.GUROBI.createSolver()));
+		}
+
+		for (long seed = 43L; solvers.size() < starts; seed++) {
+			solvers.add(parameters.createHierarchicalSolver(new HeuristicOptimisationModelSolver(seed)));
+		}
+
+		return new MultiStartOptimisationModelSolver(solvers, parameters.getSolverTimeBudget());
+	}
+
+	private final List<OptimisationModelSolver> solvers;
+
+	private final long timeBudgetMillis;
+
+	/**
+	 * @param solvers the solvers to run in parallel
+	 * @param timeBudgetMillis the time in milliseconds solving may take
+	 */
+	public MultiStartOptimisationModelSolver(List<OptimisationModelSolver> solvers, long timeBudgetMillis) {
+		Preconditions.checkArgument(!solvers.isEmpty(), "At least one solver is needed");
+		Preconditions.checkArgument(timeBudgetMillis > 0, "The time budget must be positive");
+		this.solvers = new ArrayList<>(solvers);
+		this.timeBudgetMillis = timeBudgetMillis;
+	}
+
+	@Override
+	public OptimisationModelSolution solve(Collection<JobVertex> vertices,
+										   Set<GeoLocation> locations,
+										   BandwidthProvider bandwidthProvider,
+										   Map<GeoLocation, Integer> slots,
+										   OptimisationModelParameters parameters,
+										   @Nullable Map<JobVertex, List<GeoLocation>> startPlacement,
+										   @Nullable Map<JobVertex, List<GeoLocation>> fixedPlacement) throws FlinkException {
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis);
+
+		// the time limits of the solvers are set for each vertex, and the two steps of solving by regions have one each
+		boolean hierarchical = parameters.getHierarchicalMinLocations() > 0 && locations.size() >= parameters.getHierarchicalMinLocations();
+		OptimisationModelParameters solverParameters = parameters.copy();
+		solverParameters.setTimeForEachTaskBeforeHeuristicSolution(
+			timeBudgetMillis / 1000d * SOLVER_TIME_FRACTION / (hierarchical ? 2 : 1) / Math.max(vertices.size(), 1));
+
+		ForkJoinPool pool = new ForkJoinPool(solvers.size());
+		try {
+			CompletionService<OptimisationModelSolution> completionService = new ExecutorCompletionService<>(pool);
+			for (OptimisationModelSolver solver : solvers) {
+				completionService.submit(() -> solver.solve(
+					vertices, locations, bandwidthProvider, slots, solverParameters, startPlacement, fixedPlacement));
+			}
+
+			List<OptimisationModelSolution> solutions = new ArrayList<>();
+			FlinkException failures = null;
+			int pending = solvers.size();
+
+			while (pending > 0) {
+				long remaining = deadline - System.nanoTime();
+				Future<OptimisationModelSolution> done;
+				if (remaining > 0) {
+					done = completionService.poll(remaining, TimeUnit.NANOSECONDS);
+				} else if (solutions.isEmpty()) {
+					// over budget without any placement, waiting for the first one
+					done = completionService.take();
+				} else {
+					break;
+				}
+
+				if (done == null) {
+					continue;
+				}
+				pending--;
+
+				try {
+					OptimisationModelSolution solution = done.get();
+					if (solution != null) {
+						solutions.add(solution);
+					}
+				} catch (ExecutionException e) {
+					Throwable cause = ExceptionUtils.stripExecutionException(e);
+					LOG.warn("A placement solver failed, using the placements of the others", cause);
+					failures = ExceptionUtils.firstOrSuppressed(new FlinkException("A placement solver failed", cause), failures);
+				}
+			}
+
+			if (pending > 0) {
+				LOG.info("{} of {} placement solvers didn't finish within {} ms", pending, solvers.size(), timeBudgetMillis);
+			}
+
+			if (solutions.isEmpty()) {
+				if (failures != null) {
+					throw failures;
+				}
+				return null;
+			}
+
+			List<OptimisationModelSolution> evaluated = new ArrayList<>(solutions.size());
+			for (OptimisationModelSolution solution : solutions) {
+				evaluated.add(HeuristicOptimisationModelSolver.evaluate(solution, vertices, locations, bandwidthProvider, slots, parameters));
+			}
+
+			return combine(evaluated, (System.nanoTime() - start) / 1e9);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new FlinkException("Interrupted while solving the placement", e);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * @param solutions the solutions of the solvers, all scored by {@link HeuristicOptimisationModelSolver#evaluate}
+	 */
+	private static OptimisationModelSolution combine(List<OptimisationModelSolution> solutions, double modelExecutionTime) {
+		OptimisationModelSolution best = null;
+		double bound = Double.NaN;
+		List<OptimisationModelSolution.Incumbent> incumbents = new ArrayList<>();
+
+		for (OptimisationModelSolution solution : solutions) {
+			if (best == null || solution.getObjective() < best.getObjective()) {
+				best = solution;
+			}
+			if (!Double.isNaN(solution.getObjectiveBound()) && !(solution.getObjectiveBound() <= bound)) {
+				bound = solution.getObjectiveBound();
+			}
+			incumbents.addAll(solution.getIncumbents());
+		}
+
+		double objective = best.getObjective();
+
+		if (bound > objective + EPSILON * Math.max(Math.abs(objective), 1d)) {
+			LOG.debug("Dropping the bound {} of the placement objective, higher than the score {} of the best placement", bound, objective);
+			bound = Double.NaN;
+		}
+
+		// the best objective known over time
+		incumbents.sort(Comparator.comparingDouble(OptimisationModelSolution.Incumbent::getTime));
+		List<OptimisationModelSolution.Incumbent> improving = new ArrayList<>();
+		for (OptimisationModelSolution.Incumbent incumbent : incumbents) {
+			if (improving.isEmpty() || incumbent.getObjective() < improving.get(improving.size() - 1).getObjective()) {
+				improving.add(incumbent);
+			}
+		}
+		if (improving.isEmpty() || objective < improving.get(improving.size() - 1).getObjective()) {
+			improving.add(new OptimisationModelSolution.Incumbent(modelExecutionTime, objective));
+		}
+
+		OptimisationModelSolution solution = new OptimisationModelSolution(
+			best.getPlacementMap(), best.getParallelismMap(), best.getNetworkCost(), best.getExecutionSpeed(), modelExecutionTime);
+		solution.setSubtasksPerLocation(best.getSubtasksPerLocationMap());
+		solution.setObjective(objective);
+		solution.setObjectiveBound(bound);
+		solution.setIncumbents(improving);
+		return solution;
+	}
+}
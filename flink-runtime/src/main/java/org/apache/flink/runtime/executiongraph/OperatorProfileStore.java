@@ -0,0 +1,295 @@
+package org.apache.flink.runtime.executiongraph;
+
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.OptimisationModelOptions;
+import org.apache.flink.runtime.jobgraph.JobGraph;
+import org.apache.flink.runtime.jobgraph.JobStatus;
+import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.apache.flink.runtime.jobgraph.JobVertexID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * The measured profiles of the job vertices, used instead of the weight and selectivity hints when solving the
+ * placement model.
+ *
+ * <p>The profiles are built from the records read and written by each subtask and the CPU time of its thread
+ * ({@link IOMetrics}), once the execution attempts are over: when the job finishes, is cancelled or fails, and before
+ * it restarts. The selectivity of a vertex is <code>records out / records in</code>, its cost per record is the CPU
+ * time of its subtasks divided by the records they processed. Unlike the running time, which is the same for all the
+ * subtasks of a streaming job, the CPU time doesn't count the time spent waiting for records. Subtasks whose CPU time
+ * is unknown are not profiled. The measurements of all the runs are added up.
+ *
+ * <p>Profiles are keyed by {@link JobVertexID}. The ids of the streaming job vertices are hashes of the operator UIDs,
+ * so resubmitting a job, or a new version of it keeping the UIDs, finds the profiles of the previous runs.
+ */
+public class OperatorProfileStore {
+
+	private static final Logger LOG = LoggerFactory.getLogger(OperatorProfileStore.class);
+
+	/**
+	 * Creates the store if {@link OptimisationModelOptions#PROFILE_OPERATORS} is set, loading the profiles in
+	 * {@link OptimisationModelOptions#OPERATOR_PROFILES_FILE}, if any.
+	 *
+	 * @return the store, or null if operators are not profiled
+	 */
+	@Nullable
+	public static OperatorProfileStore fromConfiguration(Configuration configuration) throws IOException {
+		if (!configuration.getBoolean(OptimisationModelOptions.PROFILE_OPERATORS)) {
+			return null;
+		}
+
+		String path = configuration.getString(OptimisationModelOptions.OPERATOR_PROFILES_FILE);
+		OperatorProfileStore store = new OperatorProfileStore(path == null ? null : Paths.get(path));
+		if (path != null) {
+			store.profiles.putAll(readProfiles(store.file));
+		}
+		return store;
+	}
+
+	private final Map<JobVertexID, OperatorProfile> profiles = new ConcurrentHashMap<>();
+
+	@Nullable
+	private final Path file;
+
+	/**
+	 * @param file the file to persist the profiles to, or null to keep them in memory only
+	 */
+	public OperatorProfileStore(@Nullable Path file) {
+		this.file = file;
+	}
+
+	@Nullable
+	public OperatorProfile getProfile(JobVertexID vertexId) {
+		return profiles.get(vertexId);
+	}
+
+	public int size() {
+		return profiles.size();
+	}
+
+	/**
+	 * Sets the measured selectivity and weight of the profiled vertices of the given graph. The weights are the
+	 * costs per record normalised by their mean over the profiled vertices, so that they are comparable with the
+	 * default weight of 1 of the vertices without a profile.
+	 *
+	 * @return the number of vertices a profile was applied to
+	 */
+	public int applyTo(JobGraph jobGraph) {
+		Map<JobVertex, OperatorProfile> graphProfiles = new HashMap<>();
+		double costSum = 0;
+
+		for (JobVertex vertex : jobGraph.getVertices()) {
+			OperatorProfile profile = profiles.get(vertex.getID());
+			if (profile != null) {
+				graphProfiles.put(vertex, profile);
+				costSum += profile.getCostPerRecord();
+			}
+		}
+
+		double meanCost = graphProfiles.isEmpty() ? 0 : costSum / graphProfiles.size();
+
+		for (Map.Entry<JobVertex, OperatorProfile> vertexAndProfile : graphProfiles.entrySet()) {
+			JobVertex vertex = vertexAndProfile.getKey();
+			OperatorProfile profile = vertexAndProfile.getValue();
+
+			// sinks write no records, their selectivity doesn't weigh any edge
+			if (profile.getSelectivity() > 0) {
+				vertex.setSelectivity(profile.getSelectivity());
+			}
+			if (meanCost > 0 && profile.getCostPerRecord() > 0) {
+				vertex.setWeight(profile.getCostPerRecord() / meanCost);
+			}
+		}
+
+		if (!graphProfiles.isEmpty()) {
+			LOG.info("Applied the measured profiles of {} of {} vertices of job {}",
+				graphProfiles.size(), jobGraph.getNumberOfVertices(), jobGraph.getJobID());
+		}
+
+		return graphProfiles.size();
+	}
+
+	/**
+	 * Adds the measurements of the finished execution attempts of the given graph to the profiles.
+	 *
+	 * @return the number of vertices recorded
+	 */
+	public int record(ExecutionGraph executionGraph) {
+		int recorded = 0;
+
+		for (ExecutionJobVertex jobVertex : executionGraph.getVerticesTopologically()) {
+			long recordsIn = 0;
+			long recordsOut = 0;
+			long cpuTimeNanos = 0;
+
+			for (ExecutionVertex vertex : jobVertex.getTaskVertices()) {
+				IOMetrics metrics = vertex.getCurrentExecutionAttempt().getIOMetrics();
+
+				if (metrics != null && metrics.getCpuTimeNanos() > 0) {
+					recordsIn += metrics.getNumRecordsIn();
+					recordsOut += metrics.getNumRecordsOut();
+					cpuTimeNanos += metrics.getCpuTimeNanos();
+				}
+			}
+
+			// sources read no records, they are charged for the ones they write
+			long recordsProcessed = recordsIn > 0 ? recordsIn : recordsOut;
+			if (recordsProcessed > 0) {
+				OperatorProfile sample = new OperatorProfile(recordsIn, recordsOut, cpuTimeNanos);
+				profiles.merge(jobVertex.getJobVertexId(), sample, OperatorProfile::add);
+				recorded++;
+			}
+		}
+
+		if (recorded > 0) {
+			LOG.debug("Recorded the profiles of {} vertices of job {}", recorded, executionGraph.getJobID());
+		}
+
+		return recorded;
+	}
+
+	/**
+	 * Creates a listener recording the profiles of the given graph when its execution attempts are over. The
+	 * profiles are persisted with the given executor, as the listener is called by the main thread of the graph.
+	 */
+	public JobStatusListener createRecorder(ExecutionGraph executionGraph, Executor ioExecutor) {
+		return (JobID jobId, JobStatus newJobStatus, long timestamp, Throwable error) -> {
+			if ((newJobStatus.isGloballyTerminalState() || newJobStatus == JobStatus.RESTARTING) && record(executionGraph) > 0) {
+				ioExecutor.execute(this::persist);
+			}
+		};
+	}
+
+	// ------------------------------------------------------------------------
+	//  Persistence
+	// ------------------------------------------------------------------------
+
+	void persist() {
+		if (file == null) {
+			return;
+		}
+
+		try {
+			synchronized (this) {
+				// other JobManagers may share the file, keeping the vertices they profiled
+				Map<JobVertexID, OperatorProfile> toWrite = file.toFile().exists() ? readProfiles(file) : new HashMap<>();
+				toWrite.putAll(profiles);
+
+				List<String> lines = new ArrayList<>();
+				lines.add("# vertex id,records in,records out,cpu time (ns)");
+				for (Map.Entry<JobVertexID, OperatorProfile> entry : toWrite.entrySet()) {
+					OperatorProfile profile = entry.getValue();
+					lines.add(entry.getKey() + "," + profile.getRecordsIn() + "," + profile.getRecordsOut() + "," + profile.getCpuTimeNanos());
+				}
+
+				Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+				Files.write(temporaryFile, lines, StandardCharsets.UTF_8);
+				Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			LOG.warn("Could not write the operator profiles to {}", file, e);
+		}
+	}
+
+	/**
+	 * Reads a file with one "vertex id,records in,records out,cpu time" line for each vertex. Empty lines and
+	 * lines starting with # are skipped.
+	 */
+	static Map<JobVertexID, OperatorProfile> readProfiles(Path path) throws IOException {
+		Map<JobVertexID, OperatorProfile> out = new HashMap<>();
+		if (!path.toFile().exists()) {
+			return out;
+		}
+
+		List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+		for (int i = 0; i < lines.size(); i++) {
+			String line = lines.get(i).trim();
+			if (line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+
+			String[] fields = line.split(",");
+			if (fields.length != 4) {
+				throw new IOException("Line " + (i + 1) + " of " + path + " is not in the \"vertex id,records in,records out,cpu time\" format: " + line);
+			}
+
+			try {
+				out.put(
+					JobVertexID.fromHexString(fields[0].trim()),
+					new OperatorProfile(Long.parseLong(fields[1].trim()), Long.parseLong(fields[2].trim()), Long.parseLong(fields[3].trim())));
+			} catch (IllegalArgumentException e) {
+				throw new IOException("Line " + (i + 1) + " of " + path + " has an invalid profile: " + line, e);
+			}
+		}
+
+		return out;
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * The records read and written by all the subtasks of a vertex, and the CPU time they used.
+	 */
+	public static final class OperatorProfile {
+		private final long recordsIn;
+		private final long recordsOut;
+		private final long cpuTimeNanos;
+
+		public OperatorProfile(long recordsIn, long recordsOut, long cpuTimeNanos) {
+			this.recordsIn = recordsIn;
+			this.recordsOut = recordsOut;
+			this.cpuTimeNanos = cpuTimeNanos;
+		}
+
+		OperatorProfile add(OperatorProfile other) {
+			return new OperatorProfile(
+				recordsIn + other.recordsIn,
+				recordsOut + other.recordsOut,
+				cpuTimeNanos + other.cpuTimeNanos);
+		}
+
+		public long getRecordsIn() {
+			return recordsIn;
+		}
+
+		public long getRecordsOut() {
+			return recordsOut;
+		}
+
+		public long getCpuTimeNanos() {
+			return cpuTimeNanos;
+		}
+
+		/**
+		 * @return records out / records in, or 0 for sources and vertices that wrote no records
+		 */
+		public double getSelectivity() {
+			return recordsIn > 0 ? (double) recordsOut / recordsIn : 0;
+		}
+
+		/**
+		 * @return the CPU time of the subtasks for each record they processed, in nanoseconds
+		 */
+		public double getCostPerRecord() {
+			long recordsProcessed = recordsIn > 0 ? recordsIn : recordsOut;
+			return recordsProcessed > 0 ? (double) cpuTimeNanos / recordsProcessed : 0;
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package org.apache.flink.runtime.executiongraph;
 
 import gurobi.GRB;
+import gurobi.GRBCallback;
 import gurobi.GRBEnv;
 import gurobi.GRBException;
 import gurobi.GRBExpr;
@@ -18,8 +19,12 @@ import org.apache.flink.types.TwoKeysMap;
 import org.apache.flink.types.TwoKeysMultiMap;
 import org.apache.flink.util.Preconditions;
 
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -28,6 +33,7 @@ public abstract class OptimisationModel {
 	protected final Iterable<JobVertex> vertices;
 	protected final Set<GeoLocation> locations;
 	protected final BandwidthProvider bandwidthProvider;
+	protected final BandwidthCosts bandwidthCosts;
 	protected final Map<GeoLocation, Integer> slots;
 	protected final Map<JobVertex, GeoLocation> placedVertices;
 
@@ -53,6 +59,7 @@ public abstract class OptimisationModel {
 	 *     <li>Initialises vertices, locations, placedVertices, bandwidthProvider, slots and parameters</li>
 	 *     <li>Creates variables for placement and splitting</li>
 	 *     <li>Creates the variables for network cost and execution speed as specified in the {@link #addNetworkCostVariable()} and {@link #addExecutionSpeedVariable()} abstract methods</li>
+	 *     <li>Adds the path latency penalty or constraints, if the parameters have a {@link PathLatencyObjective}</li>
 	 * </ul>
 	 * All the rest is left to implementers.
 	 * */
@@ -74,6 +81,8 @@ public abstract class OptimisationModel {
 			this.bandwidthProvider = new StaticBandwidthProvider(new TwoKeysMultiMap<>());
 		}
 
+		this.bandwidthCosts = new BandwidthCosts(locations, this.bandwidthProvider);
+
 		this.placedVertices = new HashMap<>();
 
 		for (JobVertex vertex : vertices) {
@@ -99,6 +108,10 @@ public abstract class OptimisationModel {
 
 		addExecutionSpeedVariable();
 
+		if (parameters.getPathLatencyObjective() != null) {
+			addPathLatencyObjective(parameters.getPathLatencyObjective());
+		}
+
 		init();
 	}
 
@@ -155,8 +168,22 @@ public abstract class OptimisationModel {
 	}
 
 	public OptimisationModelSolution optimize() throws GRBException {
+		IncumbentRecorder incumbents = new IncumbentRecorder();
+		model.setCallback(incumbents);
 		model.optimize();
-		return OptimisationModelSolution.fromSolvedModel(model, placement, parallelism, executionSpeed, networkCost);
+
+		OptimisationModelSolution solution = OptimisationModelSolution.fromSolvedModel(model, placement, parallelism, getSubtaskVariables(), executionSpeed, networkCost);
+		if (solution != null) {
+			solution.setIncumbents(incumbents.incumbents);
+		}
+		return solution;
+	}
+
+	/**
+	 * Sets the seed of the solver, so that models solved with different seeds explore different solutions.
+	 */
+	public void setSeed(int seed) throws GRBException {
+		model.set(GRB.IntParam.Seed, seed);
 	}
 
 	public String solutionString() {
@@ -196,6 +223,60 @@ public abstract class OptimisationModel {
 		return out;
 	}
 
+	/**
+	 * Sets the start value of the placement variables, so that the solver can start from a known placement.
+	 * Vertices missing from the given placement are left to the solver.
+	 */
+	public void setStartPlacement(Map<JobVertex, List<GeoLocation>> startPlacement) throws GRBException {
+		for (TwoKeysMap.Entry<JobVertex, GeoLocation, GRBVar> placementVarEntry : placement.entrySet()) {
+			List<GeoLocation> startLocations = startPlacement.get(placementVarEntry.getKey1());
+			if (startLocations != null) {
+				placementVarEntry.getValue().set(GRB.DoubleAttr.Start, startLocations.contains(placementVarEntry.getKey2()) ? 1d : 0d);
+			}
+		}
+	}
+
+	/**
+	 * Fixes the placement variables of the given vertices, as {@link #placedVertices} does for vertices with a geo
+	 * location key, so that the solver only places the other vertices. A vertex can be fixed at several locations.
+	 * The fixed locations must have slots available, or the model is infeasible.
+	 */
+	public void fixPlacement(Map<JobVertex, List<GeoLocation>> fixedPlacement) throws GRBException {
+		for (TwoKeysMap.Entry<JobVertex, GeoLocation, GRBVar> placementVarEntry : placement.entrySet()) {
+			List<GeoLocation> fixedLocations = fixedPlacement.get(placementVarEntry.getKey1());
+			if (fixedLocations != null && !placedVertices.containsKey(placementVarEntry.getKey1())) {
+				double value = fixedLocations.contains(placementVarEntry.getKey2()) ? 1d : 0d;
+				placementVarEntry.getValue().set(GRB.DoubleAttr.LB, value);
+				placementVarEntry.getValue().set(GRB.DoubleAttr.UB, value);
+			}
+		}
+	}
+
+	/**
+	 * Releases the native resources held by the model. The model can't be used afterwards.
+	 */
+	public void dispose() throws GRBException {
+		model.dispose();
+		grbEnv.dispose();
+	}
+
+	/**
+	 * @return true if the vertex is placed by this model. The producers of the inputs of a model placing part of a job
+	 * graph, as a region of a {@link HierarchicalOptimisationModelSolver}, may not be, and their edges are ignored.
+	 */
+	protected boolean isModelled(JobVertex vertex) {
+		return parallelism.containsKey(vertex);
+	}
+
+	/**
+	 * @return the variables of the number of subtasks of each vertex at each location, or null if this model doesn't
+	 * decide them
+	 */
+	@Nullable
+	protected TwoKeysMap<JobVertex, GeoLocation, GRBVar> getSubtaskVariables() {
+		return null;
+	}
+
 	public boolean isSolved() throws GRBException {
 		return GRBUtils.isSolved(this.model);
 	}
@@ -209,7 +290,12 @@ public abstract class OptimisationModel {
 
 		weightedNetworkCostExpression.multAdd(automaticNetworkCostWeight, makeNetworkCostExpression());
 
-		model.addQConstr(networkCost, GRB.EQUAL, weightedNetworkCostExpression, "network_cost");
+		if (weightedNetworkCostExpression.size() == 0) {
+			// no quadratic terms, keeping the constraint linear
+			model.addConstr(networkCost, GRB.EQUAL, weightedNetworkCostExpression.getLinExpr(), "network_cost");
+		} else {
+			model.addQConstr(networkCost, GRB.EQUAL, weightedNetworkCostExpression, "network_cost");
+		}
 	}
 
 	protected double maxExecutionTime() {
@@ -224,10 +310,13 @@ public abstract class OptimisationModel {
 		double out = 0;
 		for (JobVertex destination : vertices) {
 			for (JobEdge jobEdge : destination.getInputs()) {
+				if (!isModelled(jobEdge.getSource().getProducer())) {
+					continue;
+				}
 				out += jobEdge.getWeight() * locations.size();
 			}
 		}
-		return out;
+		return out * bandwidthCosts.getMaxCost();
 	}
 
 	private void addExecutionSpeedVariable() throws GRBException {
@@ -235,7 +324,126 @@ public abstract class OptimisationModel {
 		model.addConstr(executionSpeed, GRB.EQUAL, makeExecutionSpeedExpression(), "execution_speed");
 	}
 
+	/**
+	 * Models the latency and the WAN hops of the worst path reaching each vertex, as the longest path over the edges:
+	 * <ul>
+	 *     <li>latency_e >= latency(a, b) * (placement_producer_a + placement_consumer_b - 1), for every pair of
+	 *     locations</li>
+	 *     <li>hop_e >= placement_producer_a + placement_consumer_b - 1, for every pair of different locations</li>
+	 *     <li>arrival_consumer >= arrival_producer + latency_e, hops_consumer >= hops_producer + hop_e</li>
+	 * </ul>
+	 * The arrivals and hops are then bounded by the limits, or their excess over the limits is added to the
+	 * objective.
+	 */
+	private void addPathLatencyObjective(PathLatencyObjective objective) throws GRBException {
+		GRBVar latencyExcess = null;
+		GRBVar hopExcess = null;
+		if (!objective.isConstraint()) {
+			latencyExcess = model.addVar(0, GRB.INFINITY, objective.getLatencyPenalty(maxExecutionTime()), GRB.CONTINUOUS, "latency_excess");
+			hopExcess = model.addVar(0, GRB.INFINITY, objective.getHopPenalty(maxExecutionTime()), GRB.CONTINUOUS, "hop_excess");
+		}
+
+		Map<JobVertex, GRBVar> arrivals = new HashMap<>();
+		Map<JobVertex, GRBVar> hops = new HashMap<>();
+		for (JobVertex vertex : vertices) {
+			arrivals.put(vertex, model.addVar(0, GRB.INFINITY, 0.0, GRB.CONTINUOUS, getVariableString("arrival", vertex)));
+			hops.put(vertex, model.addVar(0, GRB.INFINITY, 0.0, GRB.CONTINUOUS, getVariableString("hops", vertex)));
+		}
+
+		GeoLocation[] locationArray = bandwidthCosts.getLocations();
+
+		for (JobVertex consumer : vertices) {
+			for (JobEdge edge : consumer.getInputs()) {
+				JobVertex producer = edge.getSource().getProducer();
+				if (!arrivals.containsKey(producer)) {
+					continue;
+				}
+
+				GRBVar edgeLatency = model.addVar(0, GRB.INFINITY, 0.0, GRB.CONTINUOUS, getVariableString("latency", producer, consumer));
+				GRBVar edgeHop = model.addVar(0, 1, 0.0, GRB.CONTINUOUS, getVariableString("hop", producer, consumer));
+
+				for (int a = 0; a < locationArray.length; a++) {
+					for (int b = 0; b < locationArray.length; b++) {
+						if (a == b) {
+							continue;
+						}
+
+						// both placed: placement_producer_a + placement_consumer_b - 1 = 1
+						GRBLinExpr bothPlaced = new GRBLinExpr();
+						bothPlaced.addTerm(1, placement.get(producer, locationArray[a]));
+						bothPlaced.addTerm(1, placement.get(consumer, locationArray[b]));
+						bothPlaced.addConstant(-1);
+
+						model.addConstr(edgeHop, GRB.GREATER_EQUAL, bothPlaced, getVariableString("hop", producer, consumer, a, b));
+
+						double latency = bandwidthCosts.getLatency(a, b);
+						if (latency > 0) {
+							GRBLinExpr weighted = new GRBLinExpr();
+							weighted.multAdd(latency, bothPlaced);
+							model.addConstr(edgeLatency, GRB.GREATER_EQUAL, weighted, getVariableString("latency", producer, consumer, a, b));
+						}
+					}
+				}
+
+				GRBLinExpr arrival = new GRBLinExpr();
+				arrival.addTerm(1, arrivals.get(producer));
+				arrival.addTerm(1, edgeLatency);
+				model.addConstr(arrivals.get(consumer), GRB.GREATER_EQUAL, arrival, getVariableString("arrival", producer, consumer));
+
+				GRBLinExpr hopCount = new GRBLinExpr();
+				hopCount.addTerm(1, hops.get(producer));
+				hopCount.addTerm(1, edgeHop);
+				model.addConstr(hops.get(consumer), GRB.GREATER_EQUAL, hopCount, getVariableString("hops", producer, consumer));
+			}
+		}
+
+		for (JobVertex vertex : vertices) {
+			if (objective.hasLatencyLimit()) {
+				addLimit(arrivals.get(vertex), objective.getMaxPathLatencyMillis(), latencyExcess, getVariableString("latency_limit", vertex));
+			}
+			if (objective.hasHopLimit()) {
+				addLimit(hops.get(vertex), objective.getMaxWanHops(), hopExcess, getVariableString("hop_limit", vertex));
+			}
+		}
+	}
+
+	/**
+	 * Adds value <= limit, or value - excess <= limit if the excess is penalised.
+	 */
+	private void addLimit(GRBVar value, double limit, GRBVar excess, String name) throws GRBException {
+		GRBLinExpr bounded = new GRBLinExpr();
+		bounded.addTerm(1, value);
+		if (excess != null) {
+			bounded.addTerm(-1, excess);
+		}
+		model.addConstr(bounded, GRB.LESS_EQUAL, limit, name);
+	}
+
 	protected abstract GRBQuadExpr makeNetworkCostExpression() throws GRBException;
 
 	protected abstract GRBLinExpr makeExecutionSpeedExpression() throws GRBException;
+
+	/**
+	 * Records the objective of each new solution found by Gurobi, and when it was found.
+	 */
+	private static final class IncumbentRecorder extends GRBCallback {
+
+		private final List<OptimisationModelSolution.Incumbent> incumbents = new ArrayList<>();
+
+		@Override
+		protected void callback() {
+			if (where != GRB.CB_MIPSOL) {
+				return;
+			}
+
+			try {
+				double objective = getDoubleInfo(GRB.CB_MIPSOL_OBJ);
+				if (incumbents.isEmpty() || objective < incumbents.get(incumbents.size() - 1).getObjective()) {
+					incumbents.add(new OptimisationModelSolution.Incumbent(getDoubleInfo(GRB.CB_RUNTIME), objective));
+				}
+			} catch (GRBException e) {
+				// the incumbents are only reported, the solve goes on without them
+			}
+		}
+	}
 }
@@ -1,5 +1,10 @@
 package org.apache.flink.runtime.executiongraph;
 
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.OptimisationModelOptions;
+
+import javax.annotation.Nullable;
+
 public class OptimisationModelParameters {
 	private static OptimisationModelParameters defaultParameters;
 
@@ -7,6 +12,23 @@ public class OptimisationModelParameters {
 		return new OptimisationModelParameters();
 	}
 
+	/**
+	 * Creates the parameters from the {@link OptimisationModelOptions} in the given configuration.
+	 */
+	public static OptimisationModelParameters fromConfiguration(Configuration configuration) {
+		OptimisationModelParameters parameters = new OptimisationModelParameters();
+		parameters.setExecutionSpeedWeight(1 - configuration.getDouble(OptimisationModelOptions.NETWORK_COST));
+		parameters.setNetworkCostWeight(configuration.getDouble(OptimisationModelOptions.NETWORK_COST));
+		parameters.setSlotSharingEnabled(configuration.getBoolean(OptimisationModelOptions.GEO_ENABLE_SLOT_SHARING));
+		parameters.setSolverType(OptimisationModelSolverType.fromString(configuration.getString(OptimisationModelOptions.SOLVER)));
+		parameters.setPathLatencyObjective(PathLatencyObjective.fromConfiguration(configuration));
+		parameters.setHierarchicalMinLocations(configuration.getInteger(OptimisationModelOptions.HIERARCHICAL_MIN_LOCATIONS));
+		parameters.setMaxRegionSize(configuration.getInteger(OptimisationModelOptions.MAX_REGION_SIZE));
+		parameters.setSolverTimeBudget(configuration.getLong(OptimisationModelOptions.SOLVER_TIME_BUDGET));
+		parameters.setSolverStarts(configuration.getInteger(OptimisationModelOptions.SOLVER_STARTS));
+		return parameters;
+	}
+
 	/**
 	 * How important the network cost is (with respect to execution speed).
 	 */
@@ -28,6 +50,37 @@ public class OptimisationModelParameters {
 	 * */
 	private boolean isSlotSharingEnabled = false;
 
+	/**
+	 * The backend solving the model
+	 * */
+	private OptimisationModelSolverType solverType = OptimisationModelSolverType.GUROBI;
+
+	/**
+	 * The limits on the latency of the paths from the sources to the sinks, null for none
+	 * */
+	@Nullable
+	private PathLatencyObjective pathLatencyObjective;
+
+	/**
+	 * The number of locations from which the model is solved by regions, negative to never
+	 * */
+	private int hierarchicalMinLocations = -1;
+
+	/**
+	 * The maximum number of locations in a region, when the model is solved by regions
+	 * */
+	private int maxRegionSize = 8;
+
+	/**
+	 * The time in milliseconds solving the model may take, several solvers being run within it, negative for none
+	 * */
+	private long solverTimeBudget = -1;
+
+	/**
+	 * The number of solvers run within the time budget
+	 * */
+	private int solverStarts = 4;
+
 	/**
 	 * @param executionSpeedWeight                   How important the network cost is (with respect to execution speed).
 	 * @param networkCostWeight                      How important the execution speed is (with respect to network cost).
@@ -52,6 +105,43 @@ public class OptimisationModelParameters {
 
 	}
 
+	/**
+	 * @return a copy of these parameters, that can be changed independently
+	 */
+	public OptimisationModelParameters copy() {
+		OptimisationModelParameters copy = new OptimisationModelParameters();
+		copy.networkCostWeight = networkCostWeight;
+		copy.executionSpeedWeight = executionSpeedWeight;
+		copy.timeForEachTaskBeforeHeuristicSolution = timeForEachTaskBeforeHeuristicSolution;
+		copy.isSlotSharingEnabled = isSlotSharingEnabled;
+		copy.solverType = solverType;
+		copy.pathLatencyObjective = pathLatencyObjective;
+		copy.hierarchicalMinLocations = hierarchicalMinLocations;
+		copy.maxRegionSize = maxRegionSize;
+		copy.solverTimeBudget = solverTimeBudget;
+		copy.solverStarts = solverStarts;
+		return copy;
+	}
+
+	/**
+	 * Creates the solver these parameters ask for: a {@link MultiStartOptimisationModelSolver} if solving has a time
+	 * budget, the solver of the {@link #getSolverType()} otherwise, solving by regions if
+	 * {@link #getHierarchicalMinLocations()} is set.
+	 */
+	public OptimisationModelSolver createSolver() {
+		if (solverTimeBudget > 0) {
+			return MultiStartOptimisationModelSolver.create(this);
+		}
+		return createHierarchicalSolver(solverType.createSolver());
+	}
+
+	/**
+	 * @return the given solver, solving by regions if {@link #getHierarchicalMinLocations()} is set
+	 */
+	OptimisationModelSolver createHierarchicalSolver(OptimisationModelSolver solver) {
+		return hierarchicalMinLocations > 0 ? new HierarchicalOptimisationModelSolver(solver) : solver;
+	}
+
 	public double getNetworkCostWeight() {
 		return networkCostWeight;
 	}
@@ -85,4 +175,59 @@ public class OptimisationModelParameters {
 	public void setSlotSharingEnabled(boolean slotSharingEnabled) {
 		isSlotSharingEnabled = slotSharingEnabled;
 	}
+
+	public OptimisationModelSolverType getSolverType() {
+		return solverType;
+	}
+
+	public void setSolverType(OptimisationModelSolverType solverType) {
+		this.solverType = solverType;
+	}
+
+	@Nullable
+	public PathLatencyObjective getPathLatencyObjective() {
+		return pathLatencyObjective;
+	}
+
+	public void setPathLatencyObjective(@Nullable PathLatencyObjective pathLatencyObjective) {
+		this.pathLatencyObjective = pathLatencyObjective;
+	}
+
+	public int getHierarchicalMinLocations() {
+		return hierarchicalMinLocations;
+	}
+
+	public void setHierarchicalMinLocations(int hierarchicalMinLocations) {
+		this.hierarchicalMinLocations = hierarchicalMinLocations;
+	}
+
+	public int getMaxRegionSize() {
+		return maxRegionSize;
+	}
+
+	public void setMaxRegionSize(int maxRegionSize) {
+		if (maxRegionSize <= 0) {
+			throw new IllegalArgumentException("maxRegionSize <= 0");
+		}
+		this.maxRegionSize = maxRegionSize;
+	}
+
+	public long getSolverTimeBudget() {
+		return solverTimeBudget;
+	}
+
+	public void setSolverTimeBudget(long solverTimeBudget) {
+		this.solverTimeBudget = solverTimeBudget;
+	}
+
+	public int getSolverStarts() {
+		return solverStarts;
+	}
+
+	public void setSolverStarts(int solverStarts) {
+		if (solverStarts <= 0) {
+			throw new IllegalArgumentException("solverStarts <= 0");
+		}
+		this.solverStarts = solverStarts;
+	}
 }
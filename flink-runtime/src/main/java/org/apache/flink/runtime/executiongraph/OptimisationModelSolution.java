@@ -9,17 +9,26 @@ import org.apache.flink.runtime.jobgraph.JobVertex;
 import org.apache.flink.runtime.util.GRBUtils;
 import org.apache.flink.types.TwoKeysMap;
 
+import javax.annotation.Nullable;
+
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 public class OptimisationModelSolution {
 	private Map<JobVertex, List<GeoLocation>> placement;
 	private Map<JobVertex, Integer> parallelism;
+	private Map<JobVertex, Map<GeoLocation, Integer>> subtasksPerLocation = Collections.emptyMap();
 	private double networkCost;
 	private double executionSpeed;
 	private double modelExecutionTime;
+	private double objective = Double.NaN;
+	private double objectiveBound = Double.NaN;
+	private List<Incumbent> incumbents = Collections.emptyList();
 
 	public OptimisationModelSolution(Map<JobVertex, List<GeoLocation>> placement, Map<JobVertex, Integer> parallelism, double networkCost, double executionSpeed, double modelExecutionTime) {
 		this.placement = placement;
@@ -29,7 +38,11 @@ public class OptimisationModelSolution {
 		this.modelExecutionTime = modelExecutionTime;
 	}
 
-	public static OptimisationModelSolution fromSolvedModel(GRBModel solvedModel, TwoKeysMap<JobVertex, GeoLocation, GRBVar> placementVarMap, Map<JobVertex, GRBVar> parallelismVarMap, GRBVar executionTime, GRBVar networkCost) throws GRBException {
+	/**
+	 * @param subtasksVarMap the number of subtasks of each vertex at each location, or null if the model doesn't
+	 *                       decide them
+	 */
+	public static OptimisationModelSolution fromSolvedModel(GRBModel solvedModel, TwoKeysMap<JobVertex, GeoLocation, GRBVar> placementVarMap, Map<JobVertex, GRBVar> parallelismVarMap, @Nullable TwoKeysMap<JobVertex, GeoLocation, GRBVar> subtasksVarMap, GRBVar executionTime, GRBVar networkCost) throws GRBException {
 		if (!GRBUtils.isSolved(solvedModel)) {
 			return null;
 		}
@@ -37,7 +50,13 @@ public class OptimisationModelSolution {
 		Map<JobVertex, List<GeoLocation>> placement = makePlacementMap(placementVarMap);
 		Map<JobVertex, Integer> parallelism = makeParallelismMap(parallelismVarMap);
 
-		return new OptimisationModelSolution(placement, parallelism, networkCost.get(GRB.DoubleAttr.X), executionTime.get(GRB.DoubleAttr.X), solvedModel.get(GRB.DoubleAttr.Runtime));
+		OptimisationModelSolution solution = new OptimisationModelSolution(placement, parallelism, networkCost.get(GRB.DoubleAttr.X), executionTime.get(GRB.DoubleAttr.X), solvedModel.get(GRB.DoubleAttr.Runtime));
+		solution.setObjective(solvedModel.get(GRB.DoubleAttr.ObjVal));
+		solution.setObjectiveBound(solvedModel.get(GRB.DoubleAttr.ObjBound));
+		if (subtasksVarMap != null) {
+			solution.setSubtasksPerLocation(makeSubtasksMap(subtasksVarMap));
+		}
+		return solution;
 	}
 
 	private static Map<JobVertex, List<GeoLocation>> makePlacementMap(TwoKeysMap<JobVertex, GeoLocation, GRBVar> placementVarMap) throws GRBException {
@@ -59,6 +78,17 @@ public class OptimisationModelSolution {
 		return parallelism;
 	}
 
+	private static Map<JobVertex, Map<GeoLocation, Integer>> makeSubtasksMap(TwoKeysMap<JobVertex, GeoLocation, GRBVar> subtasksVarMap) throws GRBException {
+		Map<JobVertex, Map<GeoLocation, Integer>> subtasks = new HashMap<>();
+		for (TwoKeysMap.Entry<JobVertex, GeoLocation, GRBVar> subtasksVarEntry : subtasksVarMap.entrySet()) {
+			int count = (int) Math.round(subtasksVarEntry.getValue().get(GRB.DoubleAttr.X));
+			if (count > 0) {
+				subtasks.computeIfAbsent(subtasksVarEntry.getKey1(), ignored -> new HashMap<>()).put(subtasksVarEntry.getKey2(), count);
+			}
+		}
+		return subtasks;
+	}
+
 	public Map<JobVertex, List<GeoLocation>> getPlacementMap() {
 		return placement;
 	}
@@ -71,6 +101,137 @@ public class OptimisationModelSolution {
 
 	public Integer getParallelism(JobVertex vertex) {return parallelism.get(vertex);}
 
+	/**
+	 * Returns the number of subtasks of the vertex to place at each of its locations, in the order of its placement:
+	 * the ones decided by the solver, or the subtasks spread evenly over the locations, the first ones taking the
+	 * remainder, if the solver didn't decide them or they don't add up to the parallelism of the vertex.
+	 *
+	 * @return the subtasks by location, or null if the vertex is not placed
+	 */
+	@Nullable
+	public Map<GeoLocation, Integer> getSubtasksPerLocation(JobVertex vertex) {
+		List<GeoLocation> locations = placement.get(vertex);
+		if (locations == null || locations.isEmpty()) {
+			return null;
+		}
+
+		Integer vertexParallelism = parallelism.get(vertex);
+		int subtasks = vertexParallelism == null ? vertex.getParallelism() : vertexParallelism;
+
+		Map<GeoLocation, Integer> decided = subtasksPerLocation.get(vertex);
+		if (decided != null) {
+			Map<GeoLocation, Integer> ordered = new LinkedHashMap<>();
+			int total = 0;
+			for (GeoLocation location : locations) {
+				int count = decided.getOrDefault(location, 0);
+				if (count > 0) {
+					ordered.put(location, count);
+					total += count;
+				}
+			}
+			if (total == subtasks && ordered.size() == decided.size()) {
+				return ordered;
+			}
+		}
+
+		Map<GeoLocation, Integer> even = new LinkedHashMap<>();
+		for (GeoLocation location : locations) {
+			even.put(location, 1);
+		}
+		return spreadSubtasks(even, subtasks);
+	}
+
+	/**
+	 * Returns a copy of this solution in which the given vertices have the given parallelism, their subtasks being
+	 * spread over their locations in proportion to their subtasks in this solution. The locations left without a
+	 * subtask are dropped. The costs are the ones of this solution.
+	 */
+	public OptimisationModelSolution withParallelism(Map<JobVertex, Integer> fixedParallelism) {
+		Map<JobVertex, List<GeoLocation>> newPlacement = new HashMap<>(placement);
+		Map<JobVertex, Integer> newParallelism = new HashMap<>(parallelism);
+		Map<JobVertex, Map<GeoLocation, Integer>> newSubtasks = new HashMap<>(subtasksPerLocation);
+
+		for (Map.Entry<JobVertex, Integer> vertexParallelism : fixedParallelism.entrySet()) {
+			JobVertex vertex = vertexParallelism.getKey();
+			Map<GeoLocation, Integer> subtasks = getSubtasksPerLocation(vertex);
+			if (subtasks == null) {
+				continue;
+			}
+
+			Map<GeoLocation, Integer> spread = spreadSubtasks(subtasks, vertexParallelism.getValue());
+			newPlacement.put(vertex, new ArrayList<>(spread.keySet()));
+			newParallelism.put(vertex, vertexParallelism.getValue());
+			newSubtasks.put(vertex, spread);
+		}
+
+		OptimisationModelSolution solution = new OptimisationModelSolution(
+			newPlacement, newParallelism, networkCost, executionSpeed, modelExecutionTime);
+		solution.setSubtasksPerLocation(newSubtasks);
+		solution.setObjective(objective);
+		solution.setObjectiveBound(objectiveBound);
+		solution.setIncumbents(incumbents);
+		return solution;
+	}
+
+	/**
+	 * @return the subtasks of each vertex at each location as decided by the solver, empty if it didn't decide them
+	 */
+	public Map<JobVertex, Map<GeoLocation, Integer>> getSubtasksPerLocationMap() {
+		return subtasksPerLocation;
+	}
+
+	public void setSubtasksPerLocation(Map<JobVertex, Map<GeoLocation, Integer>> subtasksPerLocation) {
+		this.subtasksPerLocation = subtasksPerLocation;
+	}
+
+	/**
+	 * Spreads subtasks over locations in proportion to their weights, by largest remainder, the first locations
+	 * taking the ties. Locations getting no subtask are left out.
+	 *
+	 * @param weights the weight of each location, in the order of the locations
+	 * @return the subtasks by location, in the order of the locations
+	 */
+	static Map<GeoLocation, Integer> spreadSubtasks(Map<GeoLocation, Integer> weights, int subtasks) {
+		long totalWeight = 0;
+		for (int weight : weights.values()) {
+			totalWeight += Math.max(weight, 0);
+		}
+
+		List<GeoLocation> locations = new ArrayList<>(weights.keySet());
+		int[] counts = new int[locations.size()];
+		double[] remainders = new double[locations.size()];
+		int assigned = 0;
+
+		for (int i = 0; i < locations.size(); i++) {
+			double share = totalWeight > 0 ?
+				(double) subtasks * Math.max(weights.get(locations.get(i)), 0) / totalWeight :
+				(double) subtasks / locations.size();
+			counts[i] = (int) share;
+			remainders[i] = share - counts[i];
+			assigned += counts[i];
+		}
+
+		while (assigned < subtasks && !locations.isEmpty()) {
+			int largest = 0;
+			for (int i = 1; i < remainders.length; i++) {
+				if (remainders[i] > remainders[largest]) {
+					largest = i;
+				}
+			}
+			counts[largest]++;
+			remainders[largest] = -1;
+			assigned++;
+		}
+
+		Map<GeoLocation, Integer> spread = new LinkedHashMap<>();
+		for (int i = 0; i < locations.size(); i++) {
+			if (counts[i] > 0) {
+				spread.put(locations.get(i), counts[i]);
+			}
+		}
+		return spread;
+	}
+
 	public double getNetworkCost() {
 		return networkCost;
 	}
@@ -79,6 +240,90 @@ public class OptimisationModelSolution {
 		return executionSpeed;
 	}
 
+	/**
+	 * Returns the value of the objective of the model for this solution, the lower the better, NaN if unknown.
+	 */
+	public double getObjective() {
+		return objective;
+	}
+
+	/**
+	 * Returns the value of the objective of the model for this solution, or the weighted sum of its execution speed and
+	 * network cost if unknown.
+	 */
+	public double getObjective(OptimisationModelParameters parameters) {
+		if (!Double.isNaN(objective)) {
+			return objective;
+		}
+		return parameters.getExecutionSpeedWeight() * executionSpeed + parameters.getNetworkCostWeight() * networkCost;
+	}
+
+	public void setObjective(double objective) {
+		this.objective = objective;
+	}
+
+	/**
+	 * Returns a lower bound of the objective of any solution of the model, as proven by the solver, NaN if unknown.
+	 */
+	public double getObjectiveBound() {
+		return objectiveBound;
+	}
+
+	public void setObjectiveBound(double objectiveBound) {
+		this.objectiveBound = objectiveBound;
+	}
+
+	/**
+	 * Returns the relative distance between the objective of this solution and the bound of the objective,
+	 * <code>|objective - bound| / |objective|</code> as Gurobi's MIP gap: 0 if this solution is optimal, NaN if the
+	 * objective or its bound are unknown.
+	 */
+	public double getOptimalityGap() {
+		if (Double.isNaN(objective) || Double.isNaN(objectiveBound)) {
+			return Double.NaN;
+		}
+		if (objective == objectiveBound) {
+			return 0d;
+		}
+		return Math.abs(objective - objectiveBound) / Math.max(Math.abs(objective), 1e-10);
+	}
+
+	/**
+	 * Returns the solutions found while solving the model, each better than the previous one, the last being this one
+	 * if they were recorded.
+	 */
+	public List<Incumbent> getIncumbents() {
+		return incumbents;
+	}
+
+	public void setIncumbents(List<Incumbent> incumbents) {
+		this.incumbents = Collections.unmodifiableList(new ArrayList<>(incumbents));
+	}
+
+	/**
+	 * Returns a rough estimate of the heap used by this solution, in bytes. The vertices and the locations are shared
+	 * with the job graph and the scheduler, so only the maps and lists of the solution are counted.
+	 */
+	public long estimateMemoryFootprint() {
+		// object header and fields, the two maps
+		long bytes = 48 + 2 * 48;
+
+		for (List<GeoLocation> locations : placement.values()) {
+			// map entry and table slot, list object, backing array
+			bytes += 40 + 24 + 16 + 4L * (locations == null ? 0 : locations.size());
+		}
+
+		// map entry and table slot, boxed parallelism
+		bytes += (40 + 16) * (long) parallelism.size();
+
+		for (Map<GeoLocation, Integer> subtasks : subtasksPerLocation.values()) {
+			// map entry and table slot, inner map, its entries with boxed counts
+			bytes += 40 + 48 + (40 + 16) * (long) subtasks.size();
+		}
+
+		return bytes;
+	}
+
 	/**
 	 * Retunrs the time it took to excute the model, in seconds.
 	 * */
@@ -86,6 +331,38 @@ public class OptimisationModelSolution {
 		return modelExecutionTime;
 	}
 
+	/**
+	 * A solution found while solving a model: its objective and when it was found.
+	 */
+	public static final class Incumbent {
+
+		private final double time;
+
+		private final double objective;
+
+		/**
+		 * @param time the time the solution was found at, in seconds since the solver started
+		 * @param objective the objective of the solution
+		 */
+		public Incumbent(double time, double objective) {
+			this.time = time;
+			this.objective = objective;
+		}
+
+		public double getTime() {
+			return time;
+		}
+
+		public double getObjective() {
+			return objective;
+		}
+
+		@Override
+		public String toString() {
+			return String.format(Locale.ROOT, "%.3fs:%.6g", time, objective);
+		}
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder out = new StringBuilder("\n");
@@ -96,7 +373,13 @@ public class OptimisationModelSolution {
 		out.append("\n\n PARALLELISM:");
 		out.append(GRBUtils.mapToString(parallelism));
 
+		if (!subtasksPerLocation.isEmpty()) {
+			out.append("\n\n SUBTASKS PER LOCATION:");
+			out.append(GRBUtils.mapToString(subtasksPerLocation));
+		}
+
 		out.append("\n\n Model execution time: ").append(modelExecutionTime);
+		out.append("\n\n Optimality gap: ").append(getOptimalityGap());
 		out.append("\n\n Streaming app network cost: ").append(networkCost);
 		out.append("\n\n Streaming app execution speed: ").append(executionSpeed).append("\n\n");
 
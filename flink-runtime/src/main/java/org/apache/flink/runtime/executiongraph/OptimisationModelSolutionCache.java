@@ -0,0 +1,340 @@
+package org.apache.flink.runtime.executiongraph;
+
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.jobgraph.JobEdge;
+import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.apache.flink.runtime.jobmanager.scheduler.BandwidthProvider;
+import org.apache.flink.util.FlinkException;
+import org.apache.flink.util.Preconditions;
+import org.apache.flink.util.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A LRU cache of {@link OptimisationModelSolution}s, shared by all the jobs solved by a JobManager.
+ *
+ * <p>Solutions are keyed by a fingerprint of the job graph (vertices in topological order, their weights,
+ * selectivities and parallelism bounds, the edges and their weights, the model parameters) and a fingerprint of the
+ * cluster (the slots at each location and the bandwidths between them). Resubmitting or restarting a job on the same
+ * cluster doesn't solve the model again, and returns the solution with the objective, bound and solving time it was
+ * solved with.
+ *
+ * <p>When a graph with the same structure (vertices in topological order with their pinned geo locations, and the
+ * edges between them) has been solved before, its most recent placement is given to the solver as a starting point.
+ * This covers the same graph on another cluster, as after the loss of a TaskManager, as well as a rescaled or
+ * reweighted graph, as after a change of the maximum parallelism or of the observed traffic.
+ *
+ * <p>The cached solutions refer to vertices by their topological index, so they can be applied to new instances of
+ * the same job graph.
+ */
+public class OptimisationModelSolutionCache {
+
+	private static final Logger LOG = LoggerFactory.getLogger(OptimisationModelSolutionCache.class);
+
+	private final LinkedHashMap<String, CachedSolution> cache;
+
+	private long hits;
+
+	private long warmStarts;
+
+	private long misses;
+
+	/**
+	 * @param capacity the maximum number of solutions to keep, the least recently used ones are evicted first
+	 */
+	public OptimisationModelSolutionCache(int capacity) {
+		Preconditions.checkArgument(capacity > 0, "The capacity must be positive");
+		this.cache = new LinkedHashMap<String, CachedSolution>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedSolution> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * Returns the cached solution for the given problem, solving it with the given solver if there is none.
+	 *
+	 * @param vertices the vertices to place, sorted topologically from the sources
+	 * @return the solution, or null if the solver found no feasible solution
+	 */
+	public OptimisationModelSolution getOrSolve(OptimisationModelSolver solver,
+												List<JobVertex> vertices,
+												Set<GeoLocation> locations,
+												BandwidthProvider bandwidthProvider,
+												Map<GeoLocation, Integer> slots,
+												OptimisationModelParameters parameters) throws FlinkException {
+		String structureFingerprint = structureFingerprint(vertices);
+		String key = graphFingerprint(vertices, parameters) + clusterFingerprint(locations, bandwidthProvider, slots);
+
+		Map<JobVertex, List<GeoLocation>> startPlacement = null;
+
+		synchronized (cache) {
+			CachedSolution cached = cache.get(key);
+			if (cached != null) {
+				hits++;
+				LOG.info("Placement solution found in cache, skipping the model solving");
+				return cached.toSolution(vertices);
+			}
+
+			CachedSolution similar = mostRecentWithStructure(structureFingerprint);
+			if (similar != null) {
+				warmStarts++;
+				LOG.info("Placement solution for a similar job or a different cluster found in cache, using it as starting point");
+				startPlacement = similar.toPlacement(vertices);
+			} else {
+				misses++;
+			}
+		}
+
+		// solving outside of the lock, other jobs can be looked up meanwhile
+		OptimisationModelSolution solution = solver.solve(vertices, locations, bandwidthProvider, slots, parameters, startPlacement);
+
+		if (solution != null) {
+			synchronized (cache) {
+				cache.put(key, new CachedSolution(structureFingerprint, vertices, solution));
+			}
+		}
+
+		return solution;
+	}
+
+	private CachedSolution mostRecentWithStructure(String structureFingerprint) {
+		CachedSolution out = null;
+		// iterating from the least to the most recently used
+		for (CachedSolution cached : cache.values()) {
+			if (cached.structureFingerprint.equals(structureFingerprint)) {
+				out = cached;
+			}
+		}
+		return out;
+	}
+
+	public int size() {
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+
+	public void clear() {
+		synchronized (cache) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * @return how many solutions have been returned from the cache without solving the model
+	 */
+	public long getHits() {
+		synchronized (cache) {
+			return hits;
+		}
+	}
+
+	/**
+	 * @return how many models have been solved starting from a cached solution
+	 */
+	public long getWarmStarts() {
+		synchronized (cache) {
+			return warmStarts;
+		}
+	}
+
+	/**
+	 * @return how many models have been solved from scratch
+	 */
+	public long getMisses() {
+		synchronized (cache) {
+			return misses;
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	//  Fingerprints
+	// ------------------------------------------------------------------------
+
+	static String graphFingerprint(List<JobVertex> vertices, OptimisationModelParameters parameters) {
+		StringBuilder out = new StringBuilder();
+
+		out.append("p|").append(parameters.getNetworkCostWeight())
+			.append('|').append(parameters.getExecutionSpeedWeight())
+			.append('|').append(parameters.isSlotSharingEnabled())
+			.append('|').append(parameters.getSolverType())
+			.append('|').append(parameters.getPathLatencyObjective())
+			.append('|').append(parameters.getHierarchicalMinLocations())
+			.append('|').append(parameters.getMaxRegionSize())
+			.append('|').append(parameters.getSolverTimeBudget())
+			.append('|').append(parameters.getSolverStarts())
+			.append('\n');
+
+		Map<JobVertex, Integer> indexes = new HashMap<>();
+		for (int i = 0; i < vertices.size(); i++) {
+			indexes.put(vertices.get(i), i);
+		}
+
+		for (int i = 0; i < vertices.size(); i++) {
+			JobVertex vertex = vertices.get(i);
+			out.append("v|").append(i)
+				.append('|').append(vertex.getWeight())
+				.append('|').append(vertex.getSelectivity())
+				.append('|').append(HeuristicOptimisationModelSolver.getMaxParallelism(vertex))
+				.append('|').append(vertex.getGeoLocationKey())
+				.append('\n');
+
+			for (JobEdge edge : vertex.getInputs()) {
+				out.append("e|").append(indexes.get(edge.getSource().getProducer()))
+					.append('|').append(edge.getWeight())
+					.append('|').append(edge.getDistributionPattern())
+					.append('\n');
+			}
+		}
+
+		return digest(out.toString());
+	}
+
+	/**
+	 * Fingerprints what a placement refers to: the vertices in topological order with their pinned geo locations,
+	 * and the edges between them, but not the weights and parallelism bounds the placement was solved for.
+	 */
+	static String structureFingerprint(List<JobVertex> vertices) {
+		StringBuilder out = new StringBuilder();
+
+		Map<JobVertex, Integer> indexes = new HashMap<>();
+		for (int i = 0; i < vertices.size(); i++) {
+			indexes.put(vertices.get(i), i);
+		}
+
+		for (int i = 0; i < vertices.size(); i++) {
+			JobVertex vertex = vertices.get(i);
+			out.append("v|").append(i)
+				.append('|').append(vertex.getGeoLocationKey())
+				.append('\n');
+
+			for (JobEdge edge : vertex.getInputs()) {
+				out.append("e|").append(indexes.get(edge.getSource().getProducer()))
+					.append('|').append(edge.getDistributionPattern())
+					.append('\n');
+			}
+		}
+
+		return digest(out.toString());
+	}
+
+	static String clusterFingerprint(Set<GeoLocation> locations, BandwidthProvider bandwidthProvider, Map<GeoLocation, Integer> slots) {
+		List<GeoLocation> sortedLocations = new ArrayList<>(locations);
+		sortedLocations.sort(Comparator.comparing(GeoLocation::getKey));
+
+		StringBuilder out = new StringBuilder();
+
+		for (GeoLocation location : sortedLocations) {
+			out.append("l|").append(location.getKey()).append('|').append(slots.get(location)).append('\n');
+		}
+
+		if (bandwidthProvider != null) {
+			for (GeoLocation from : sortedLocations) {
+				for (GeoLocation to : sortedLocations) {
+					if (bandwidthProvider.hasBandwidth(from, to)) {
+						out.append("b|").append(from.getKey())
+							.append('|').append(to.getKey())
+							.append('|').append(bandwidthProvider.getBandwidth(from, to))
+							.append('\n');
+					}
+					if (bandwidthProvider.getRoundTripTime(from, to) >= 0) {
+						out.append("r|").append(from.getKey())
+							.append('|').append(to.getKey())
+							.append('|').append(bandwidthProvider.getRoundTripTime(from, to))
+							.append('\n');
+					}
+				}
+			}
+		}
+
+		return digest(out.toString());
+	}
+
+	private static String digest(String canonicalForm) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			return StringUtils.byteToHexString(digest.digest(canonicalForm.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			// every JVM supports SHA-256
+			throw new RuntimeException(e);
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * A solution referring to vertices by their topological index.
+	 */
+	private static final class CachedSolution {
+		private final String structureFingerprint;
+		private final List<List<GeoLocation>> placement;
+		private final List<Integer> parallelism;
+		private final List<Map<GeoLocation, Integer>> subtasks;
+		private final double networkCost;
+		private final double executionSpeed;
+		private final double modelExecutionTime;
+		private final double objective;
+		private final double objectiveBound;
+		private final List<OptimisationModelSolution.Incumbent> incumbents;
+
+		CachedSolution(String structureFingerprint, List<JobVertex> vertices, OptimisationModelSolution solution) {
+			this.structureFingerprint = structureFingerprint;
+			this.placement = new ArrayList<>(vertices.size());
+			this.parallelism = new ArrayList<>(vertices.size());
+			this.subtasks = new ArrayList<>(vertices.size());
+			for (JobVertex vertex : vertices) {
+				List<GeoLocation> vertexPlacement = solution.getPlacement(vertex);
+				placement.add(vertexPlacement == null ? new ArrayList<>() : new ArrayList<>(vertexPlacement));
+				parallelism.add(solution.getParallelism(vertex));
+				Map<GeoLocation, Integer> vertexSubtasks = solution.getSubtasksPerLocationMap().get(vertex);
+				subtasks.add(vertexSubtasks == null ? null : new HashMap<>(vertexSubtasks));
+			}
+			this.networkCost = solution.getNetworkCost();
+			this.executionSpeed = solution.getExecutionSpeed();
+			this.modelExecutionTime = solution.getModelExecutionTime();
+			this.objective = solution.getObjective();
+			this.objectiveBound = solution.getObjectiveBound();
+			this.incumbents = solution.getIncumbents();
+		}
+
+		Map<JobVertex, List<GeoLocation>> toPlacement(List<JobVertex> vertices) {
+			Map<JobVertex, List<GeoLocation>> out = new HashMap<>();
+			for (int i = 0; i < vertices.size(); i++) {
+				out.put(vertices.get(i), new ArrayList<>(placement.get(i)));
+			}
+			return out;
+		}
+
+		OptimisationModelSolution toSolution(List<JobVertex> vertices) {
+			Map<JobVertex, Integer> parallelismMap = new HashMap<>();
+			Map<JobVertex, Map<GeoLocation, Integer>> subtasksMap = new HashMap<>();
+			for (int i = 0; i < vertices.size(); i++) {
+				parallelismMap.put(vertices.get(i), parallelism.get(i));
+				if (subtasks.get(i) != null) {
+					subtasksMap.put(vertices.get(i), new HashMap<>(subtasks.get(i)));
+				}
+			}
+			OptimisationModelSolution solution = new OptimisationModelSolution(toPlacement(vertices), parallelismMap, networkCost, executionSpeed, modelExecutionTime);
+			solution.setSubtasksPerLocation(subtasksMap);
+			solution.setObjective(objective);
+			solution.setObjectiveBound(objectiveBound);
+			solution.setIncumbents(incumbents);
+			return solution;
+		}
+	}
+}
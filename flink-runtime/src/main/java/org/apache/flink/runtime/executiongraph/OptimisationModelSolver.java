@@ -0,0 +1,71 @@
+package org.apache.flink.runtime.executiongraph;
+
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.apache.flink.runtime.jobmanager.scheduler.BandwidthProvider;
+import org.apache.flink.util.FlinkException;
+
+import javax.annotation.Nullable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A backend able to solve the placement problem described by an {@link OptimisationModel}: deciding, for each
+ * {@link JobVertex}, the {@link GeoLocation}s its subtasks are placed at and its parallelism, minimising
+ * <code>executionSpeedWeight * executionSpeed + networkCostWeight * networkCost</code>.
+ */
+public interface OptimisationModelSolver {
+
+	/**
+	 * Solves the placement problem, keeping some vertices at the given locations.
+	 *
+	 * @param vertices          the vertices to place, sorted topologically from the sources
+	 * @param locations         the locations the vertices can be placed at
+	 * @param bandwidthProvider the provider for bandwidths between locations
+	 * @param slots             the slots available at each location
+	 * @param parameters        the parameters of the model
+	 * @param startPlacement    a placement to start the search from, as a previous solution for a similar problem.
+	 *                          Vertices missing from it, or placed at unavailable locations, are left to the solver
+	 * @param fixedPlacement    the vertices that must be placed exactly at the given locations, as the vertices of a
+	 *                          previous solution that are still valid. The solver only places the other vertices
+	 * @return the solution, or null if no feasible solution was found
+	 * @throws FlinkException if the solver failed
+	 */
+	OptimisationModelSolution solve(Collection<JobVertex> vertices,
+									Set<GeoLocation> locations,
+									BandwidthProvider bandwidthProvider,
+									Map<GeoLocation, Integer> slots,
+									OptimisationModelParameters parameters,
+									@Nullable Map<JobVertex, List<GeoLocation>> startPlacement,
+									@Nullable Map<JobVertex, List<GeoLocation>> fixedPlacement) throws FlinkException;
+
+	/**
+	 * Solves the placement problem, starting from the given placement.
+	 *
+	 * @see #solve(Collection, Set, BandwidthProvider, Map, OptimisationModelParameters, Map, Map)
+	 */
+	default OptimisationModelSolution solve(Collection<JobVertex> vertices,
+											Set<GeoLocation> locations,
+											BandwidthProvider bandwidthProvider,
+											Map<GeoLocation, Integer> slots,
+											OptimisationModelParameters parameters,
+											@Nullable Map<JobVertex, List<GeoLocation>> startPlacement) throws FlinkException {
+		return solve(vertices, locations, bandwidthProvider, slots, parameters, startPlacement, null);
+	}
+
+	/**
+	 * Solves the placement problem from scratch.
+	 *
+	 * @see #solve(Collection, Set, BandwidthProvider, Map, OptimisationModelParameters, Map, Map)
+	 */
+	default OptimisationModelSolution solve(Collection<JobVertex> vertices,
+											Set<GeoLocation> locations,
+											BandwidthProvider bandwidthProvider,
+											Map<GeoLocation, Integer> slots,
+											OptimisationModelParameters parameters) throws FlinkException {
+		return solve(vertices, locations, bandwidthProvider, slots, parameters, null, null);
+	}
+}
@@ -0,0 +1,54 @@
+package org.apache.flink.runtime.executiongraph;
+
+/**
+ * The available {@link OptimisationModelSolver} backends.
+ */
+public enum OptimisationModelSolverType {
+
+	/**
+	 * Solves the {@link MultiLocationOptimisationModel} with Gurobi. Requires a licensed native Gurobi library.
+	 */
+	GUROBI {
+		@Override
+		public OptimisationModelSolver createSolver() {
+			return new GurobiOptimisationModelSolver();
+		}
+	},
+
+	/**
+	 * Solves the {@link LinearisedMultiLocationOptimisationModel} with Gurobi: same problem as {@link #GUROBI}, as a
+	 * MILP that is usually faster to solve. Requires a licensed native Gurobi library.
+	 */
+	GUROBI_LINEARISED {
+		@Override
+		public OptimisationModelSolver createSolver() {
+			return new GurobiOptimisationModelSolver(true);
+		}
+	},
+
+	/**
+	 * Solves the model with a pure-Java greedy construction followed by local search.
+	 */
+	HEURISTIC {
+		@Override
+		public OptimisationModelSolver createSolver() {
+			return new HeuristicOptimisationModelSolver();
+		}
+	};
+
+	public abstract OptimisationModelSolver createSolver();
+
+	/**
+	 * Parses a solver type, ignoring case and accepting dashes instead of underscores.
+	 *
+	 * @throws IllegalArgumentException if no solver with the given name exists
+	 */
+	public static OptimisationModelSolverType fromString(String name) {
+		for (OptimisationModelSolverType type : values()) {
+			if (type.name().equalsIgnoreCase(name.trim().replace('-', '_'))) {
+				return type;
+			}
+		}
+		throw new IllegalArgumentException("Unknown optimisation model solver: " + name);
+	}
+}
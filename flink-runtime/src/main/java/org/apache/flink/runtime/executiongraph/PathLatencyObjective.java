@@ -0,0 +1,152 @@
+package org.apache.flink.runtime.executiongraph;
+
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.OptimisationModelOptions;
+import org.apache.flink.util.Preconditions;
+
+import javax.annotation.Nullable;
+
+/**
+ * Limits on the end-to-end latency of the paths of a job, from its sources to its sinks.
+ *
+ * <p>The latency of a path is the sum of the latencies of its edges. The latency of an edge is half the round trip
+ * time of the slowest link between the locations of its producer and the ones of its consumer, 0 if they share
+ * their only location. An edge is a WAN hop if its producer and consumer are not all at the same location. The
+ * worst path of a placement is the one with the highest latency, or the most WAN hops.
+ *
+ * <p>Placements exceeding the limits are either penalised, adding the relative excess over each limit times the
+ * penalty weight and the highest possible execution speed to their cost, or forbidden.
+ */
+public class PathLatencyObjective {
+
+	/**
+	 * How the placements exceeding the limits are treated.
+	 */
+	public enum Mode {
+		PENALTY,
+		CONSTRAINT;
+
+		public static Mode fromString(String name) {
+			for (Mode mode : values()) {
+				if (mode.name().equalsIgnoreCase(name.trim())) {
+					return mode;
+				}
+			}
+			throw new IllegalArgumentException("Unknown latency objective mode: " + name);
+		}
+	}
+
+	/**
+	 * Creates the objective from {@link OptimisationModelOptions#MAX_PATH_LATENCY} and
+	 * {@link OptimisationModelOptions#MAX_PATH_WAN_HOPS}.
+	 *
+	 * @return the objective, or null if neither limit is set
+	 */
+	@Nullable
+	public static PathLatencyObjective fromConfiguration(Configuration configuration) {
+		double maxPathLatencyMillis = configuration.getDouble(OptimisationModelOptions.MAX_PATH_LATENCY);
+		int maxWanHops = configuration.getInteger(OptimisationModelOptions.MAX_PATH_WAN_HOPS);
+
+		if (maxPathLatencyMillis < 0 && maxWanHops < 0) {
+			return null;
+		}
+
+		return new PathLatencyObjective(
+			maxPathLatencyMillis,
+			maxWanHops,
+			Mode.fromString(configuration.getString(OptimisationModelOptions.LATENCY_OBJECTIVE_MODE)),
+			configuration.getDouble(OptimisationModelOptions.LATENCY_PENALTY_WEIGHT));
+	}
+
+	private final double maxPathLatencyMillis;
+
+	private final int maxWanHops;
+
+	private final Mode mode;
+
+	private final double penaltyWeight;
+
+	/**
+	 * @param maxPathLatencyMillis the latency limit of each path, negative for no limit
+	 * @param maxWanHops the limit of WAN hops of each path, negative for no limit
+	 * @param mode whether the placements exceeding the limits are penalised or forbidden
+	 * @param penaltyWeight the weight of the penalty, ignored if the placements are forbidden
+	 */
+	public PathLatencyObjective(double maxPathLatencyMillis, int maxWanHops, Mode mode, double penaltyWeight) {
+		Preconditions.checkArgument(penaltyWeight >= 0, "The penalty weight must not be negative");
+		this.maxPathLatencyMillis = maxPathLatencyMillis;
+		this.maxWanHops = maxWanHops;
+		this.mode = Preconditions.checkNotNull(mode);
+		this.penaltyWeight = penaltyWeight;
+	}
+
+	public boolean hasLatencyLimit() {
+		return maxPathLatencyMillis >= 0;
+	}
+
+	public double getMaxPathLatencyMillis() {
+		return maxPathLatencyMillis;
+	}
+
+	public boolean hasHopLimit() {
+		return maxWanHops >= 0;
+	}
+
+	public int getMaxWanHops() {
+		return maxWanHops;
+	}
+
+	public boolean isConstraint() {
+		return mode == Mode.CONSTRAINT;
+	}
+
+	public double getPenaltyWeight() {
+		return penaltyWeight;
+	}
+
+	/**
+	 * @return the penalty of each millisecond over the latency limit, for the given highest execution speed
+	 */
+	public double getLatencyPenalty(double maxExecutionTime) {
+		return penaltyWeight * maxExecutionTime / Math.max(maxPathLatencyMillis, 1);
+	}
+
+	/**
+	 * @return the penalty of each WAN hop over the limit, for the given highest execution speed
+	 */
+	public double getHopPenalty(double maxExecutionTime) {
+		return penaltyWeight * maxExecutionTime / Math.max(maxWanHops, 1);
+	}
+
+	/**
+	 * @return the penalty of a placement whose worst paths have the given latency and WAN hops
+	 */
+	public double penalty(double worstPathLatencyMillis, int worstPathWanHops, double maxExecutionTime) {
+		double penalty = 0;
+		if (hasLatencyLimit() && worstPathLatencyMillis > maxPathLatencyMillis) {
+			penalty += getLatencyPenalty(maxExecutionTime) * (worstPathLatencyMillis - maxPathLatencyMillis);
+		}
+		if (hasHopLimit() && worstPathWanHops > maxWanHops) {
+			penalty += getHopPenalty(maxExecutionTime) * (worstPathWanHops - maxWanHops);
+		}
+		return penalty;
+	}
+
+	/**
+	 * @return true if a placement whose worst paths have the given latency and WAN hops is within the limits
+	 */
+	public boolean isSatisfied(double worstPathLatencyMillis, int worstPathWanHops) {
+		return (!hasLatencyLimit() || worstPathLatencyMillis <= maxPathLatencyMillis) &&
+			(!hasHopLimit() || worstPathWanHops <= maxWanHops);
+	}
+
+	@Override
+	public String toString() {
+		return "PathLatencyObjective{" +
+			"maxPathLatencyMillis=" + maxPathLatencyMillis +
+			", maxWanHops=" + maxWanHops +
+			", mode=" + mode +
+			", penaltyWeight=" + penaltyWeight +
+			'}';
+	}
+}
@@ -0,0 +1,223 @@
+package org.apache.flink.runtime.executiongraph;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.jobgraph.DistributionPattern;
+import org.apache.flink.runtime.jobgraph.JobEdge;
+import org.apache.flink.runtime.jobgraph.JobGraph;
+import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.apache.flink.runtime.jobgraph.JobVertexID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns the subtasks of the vertices of a placed job graph to the locations of their vertex, each location getting
+ * as many subtasks as the solution of the placement model puts there, see
+ * {@link OptimisationModelSolution#getSubtasksPerLocation(JobVertex)}. The same solution always gives a subtask the
+ * same location, which is kept by its vertex with {@link JobVertex#setSubtaskGeoLocations(List)} for the schedulers to
+ * pin the subtask there.
+ *
+ * <p>The subtasks of the consumer of a pointwise edge (forward, rescale) are assigned, as far as the counts allow, to
+ * the location of the producer subtasks they read from, so that the records of the edge stay at their location as the
+ * model assumes. The other subtasks get runs of consecutive indexes at each location, in the order of the placement.
+ *
+ * <p>The subtasks of a vertex placed at a single location are not pinned, they can only run there anyway.
+ */
+public final class SubtaskGeoLocationAssigner {
+
+	private static final Logger LOG = LoggerFactory.getLogger(SubtaskGeoLocationAssigner.class);
+
+	private SubtaskGeoLocationAssigner() {
+	}
+
+	/**
+	 * Assigns the subtasks of the vertices of the given graph to locations following its solution, or unpins them all
+	 * if the graph has no solution.
+	 *
+	 * @param pinnedSubtasks the location of each subtask of some vertices, by subtask index, decided elsewhere and
+	 *                       kept as they are, e.g. the ones of the keyed vertices sized by {@link KeyGroupLocalityStore}
+	 * @return the number of vertices whose subtasks are pinned
+	 */
+	public static int assign(JobGraph jobGraph, Map<JobVertexID, List<GeoLocation>> pinnedSubtasks) {
+		OptimisationModelSolution solution = jobGraph.getSolution();
+
+		// the location of every subtask of the placed vertices, pinned or not
+		Map<JobVertexID, List<GeoLocation>> subtaskLocationsByVertex = new HashMap<>();
+		int pinned = 0;
+
+		for (JobVertex vertex : jobGraph.getVerticesSortedTopologicallyFromSources()) {
+			List<GeoLocation> subtaskLocations = solution == null ?
+				null : assignVertex(vertex, solution, pinnedSubtasks.get(vertex.getID()), subtaskLocationsByVertex);
+
+			if (subtaskLocations != null) {
+				subtaskLocationsByVertex.put(vertex.getID(), subtaskLocations);
+			}
+
+			if (subtaskLocations != null && !isAtSingleLocation(subtaskLocations)) {
+				vertex.setSubtaskGeoLocations(subtaskLocations);
+				LOG.debug("Subtasks of vertex {} at locations {}", vertex.getName(), subtaskLocations);
+				pinned++;
+			} else {
+				vertex.setSubtaskGeoLocations(null);
+			}
+		}
+
+		return pinned;
+	}
+
+	@Nullable
+	private static List<GeoLocation> assignVertex(
+			JobVertex vertex,
+			OptimisationModelSolution solution,
+			@Nullable List<GeoLocation> pinnedSubtasks,
+			Map<JobVertexID, List<GeoLocation>> subtaskLocationsByVertex) {
+		int parallelism = vertex.getParallelism();
+
+		if (pinnedSubtasks != null && pinnedSubtasks.size() == parallelism) {
+			return pinnedSubtasks;
+		}
+
+		Map<GeoLocation, Integer> subtasks = solution.getSubtasksPerLocation(vertex);
+		if (subtasks == null || parallelism <= 0) {
+			return null;
+		}
+
+		if (count(subtasks) != parallelism) {
+			// the parallelism of the vertex was changed after the solution
+			subtasks = OptimisationModelSolution.spreadSubtasks(subtasks, parallelism);
+		}
+
+		// following the heaviest pointwise input
+		JobEdge followedInput = null;
+		List<GeoLocation> producerSubtaskLocations = null;
+		for (JobEdge input : vertex.getInputs()) {
+			List<GeoLocation> inputLocations = subtaskLocationsByVertex.get(input.getSource().getProducer().getID());
+			if (input.getDistributionPattern() == DistributionPattern.POINTWISE && inputLocations != null &&
+					(followedInput == null || input.getWeight() > followedInput.getWeight())) {
+				followedInput = input;
+				producerSubtaskLocations = inputLocations;
+			}
+		}
+
+		return assignSubtasks(subtasks, producerSubtaskLocations);
+	}
+
+	/**
+	 * Assigns subtasks to locations, each location getting the given number of them.
+	 *
+	 * @param subtasks the number of subtasks at each location, in the order of the placement
+	 * @param producerSubtaskLocations the location of each subtask of the producer of a pointwise input to follow, or
+	 *                                 null to give each location consecutive subtasks
+	 * @return the location of each subtask, by subtask index
+	 */
+	@VisibleForTesting
+	static List<GeoLocation> assignSubtasks(Map<GeoLocation, Integer> subtasks, @Nullable List<GeoLocation> producerSubtaskLocations) {
+		int parallelism = count(subtasks);
+		GeoLocation[] subtaskLocations = new GeoLocation[parallelism];
+		Map<GeoLocation, Integer> remaining = new LinkedHashMap<>(subtasks);
+
+		if (producerSubtaskLocations != null && !producerSubtaskLocations.isEmpty()) {
+			int numProducers = producerSubtaskLocations.size();
+			for (int i = 0; i < parallelism; i++) {
+				GeoLocation producerLocation = mostFrequent(
+					producerSubtaskLocations,
+					firstPointwiseSource(i, numProducers, parallelism),
+					lastPointwiseSource(i, numProducers, parallelism));
+
+				if (remaining.getOrDefault(producerLocation, 0) > 0) {
+					subtaskLocations[i] = producerLocation;
+					remaining.merge(producerLocation, -1, Integer::sum);
+				}
+			}
+		}
+
+		// the subtasks left take the locations left, in order
+		int next = 0;
+		for (Map.Entry<GeoLocation, Integer> location : remaining.entrySet()) {
+			for (int left = location.getValue(); left > 0; left--) {
+				while (subtaskLocations[next] != null) {
+					next++;
+				}
+				subtaskLocations[next] = location.getKey();
+			}
+		}
+
+		return Collections.unmodifiableList(Arrays.asList(subtaskLocations));
+	}
+
+	/**
+	 * The first subtask of the producer of a pointwise edge a subtask of its consumer reads from, as
+	 * {@link ExecutionVertex#connectSource} connects them.
+	 */
+	public static int firstPointwiseSource(int consumer, int numProducers, int numConsumers) {
+		if (numProducers == numConsumers) {
+			return consumer;
+		} else if (numProducers < numConsumers) {
+			return numConsumers % numProducers == 0 ?
+				consumer / (numConsumers / numProducers) :
+				(int) (consumer / (((float) numConsumers) / numProducers));
+		} else {
+			return numProducers % numConsumers == 0 ?
+				consumer * (numProducers / numConsumers) :
+				(int) (consumer * (((float) numProducers) / numConsumers));
+		}
+	}
+
+	/**
+	 * The last subtask of the producer of a pointwise edge a subtask of its consumer reads from, as
+	 * {@link ExecutionVertex#connectSource} connects them.
+	 */
+	public static int lastPointwiseSource(int consumer, int numProducers, int numConsumers) {
+		if (numProducers <= numConsumers) {
+			return firstPointwiseSource(consumer, numProducers, numConsumers);
+		} else if (numProducers % numConsumers == 0) {
+			return (consumer + 1) * (numProducers / numConsumers) - 1;
+		} else {
+			return consumer == numConsumers - 1 ?
+				numProducers - 1 :
+				(int) ((consumer + 1) * (((float) numProducers) / numConsumers)) - 1;
+		}
+	}
+
+	/**
+	 * The location of most of the subtasks between first and last, the first one seen among the ties.
+	 */
+	private static GeoLocation mostFrequent(List<GeoLocation> subtaskLocations, int first, int last) {
+		Map<GeoLocation, Integer> counts = new HashMap<>();
+		GeoLocation mostFrequent = null;
+		for (int i = first; i <= last; i++) {
+			GeoLocation location = subtaskLocations.get(i);
+			int count = counts.merge(location, 1, Integer::sum);
+			if (mostFrequent == null || count > counts.get(mostFrequent)) {
+				mostFrequent = location;
+			}
+		}
+		return mostFrequent;
+	}
+
+	private static boolean isAtSingleLocation(List<GeoLocation> subtaskLocations) {
+		for (GeoLocation location : subtaskLocations) {
+			if (!location.equals(subtaskLocations.get(0))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int count(Map<GeoLocation, Integer> subtasks) {
+		int count = 0;
+		for (int locationSubtasks : subtasks.values()) {
+			count += locationSubtasks;
+		}
+		return count;
+	}
+}
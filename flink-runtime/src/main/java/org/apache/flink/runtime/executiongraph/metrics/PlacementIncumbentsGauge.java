@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.executiongraph.metrics;
+
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.runtime.executiongraph.OptimisationModelSolution;
+import org.apache.flink.runtime.jobgraph.JobGraph;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Gauge which returns the best objective found over time while solving the placement of a geo scheduled job, as
+ * comma separated <code>seconds:objective</code> pairs.
+ *
+ * <p>Each pair is a placement better than the previous ones, found after the given seconds of solving. The gauge
+ * returns an empty string if the job has no placement, or if its solver didn't record the placements it found.
+ */
+public class PlacementIncumbentsGauge implements Gauge<String> {
+
+	public static final String METRIC_NAME = "placementIncumbents";
+
+	// ------------------------------------------------------------------------
+
+	private final JobGraph jobGraph;
+
+	public PlacementIncumbentsGauge(JobGraph jobGraph) {
+		this.jobGraph = checkNotNull(jobGraph);
+	}
+
+	// ------------------------------------------------------------------------
+
+	@Override
+	public String getValue() {
+		OptimisationModelSolution solution = jobGraph.getSolution();
+		if (solution == null) {
+			return "";
+		}
+
+		StringBuilder out = new StringBuilder();
+		for (OptimisationModelSolution.Incumbent incumbent : solution.getIncumbents()) {
+			if (out.length() > 0) {
+				out.append(',');
+			}
+			out.append(incumbent);
+		}
+		return out.toString();
+	}
+}
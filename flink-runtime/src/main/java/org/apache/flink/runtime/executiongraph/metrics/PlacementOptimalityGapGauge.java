@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.executiongraph.metrics;
+
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.runtime.executiongraph.OptimisationModelSolution;
+import org.apache.flink.runtime.jobgraph.JobGraph;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Gauge which returns the optimality gap of the placement of a geo scheduled job, as
+ * {@link OptimisationModelSolution#getOptimalityGap()}.
+ *
+ * <p>The gauge returns NaN if the job has no placement, or if no solver proved a bound of its objective.
+ */
+public class PlacementOptimalityGapGauge implements Gauge<Double> {
+
+	public static final String METRIC_NAME = "placementOptimalityGap";
+
+	// ------------------------------------------------------------------------
+
+	private final JobGraph jobGraph;
+
+	public PlacementOptimalityGapGauge(JobGraph jobGraph) {
+		this.jobGraph = checkNotNull(jobGraph);
+	}
+
+	// ------------------------------------------------------------------------
+
+	@Override
+	public Double getValue() {
+		OptimisationModelSolution solution = jobGraph.getSolution();
+		return solution == null ? Double.NaN : solution.getOptimalityGap();
+	}
+}
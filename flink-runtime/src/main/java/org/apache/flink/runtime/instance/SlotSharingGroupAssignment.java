@@ -35,6 +35,7 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -157,6 +158,36 @@ public class SlotSharingGroupAssignment {
 		}
 	}
 
+	/**
+	 * Gets the number of shared slots into which the given group can place subtasks or
+	 * nested task groups, at each location.
+	 *
+	 * @param groupId The ID of the group.
+	 * @return The number of shared slots available to the given job vertex, by location.
+	 */
+	public Map<GeoLocation, Integer> getNumberOfAvailableSlotsForGroupByGeoLocation(AbstractID groupId) {
+		synchronized (lock) {
+			Map<ResourceID, List<SharedSlot>> available = availableSlotsPerJid.get(groupId);
+
+			Set<SharedSlot> slots = new HashSet<SharedSlot>();
+			if (available != null) {
+				for (List<SharedSlot> list : available.values()) {
+					slots.addAll(list);
+				}
+			}
+			else {
+				// as above, all the shared slots of this group are available
+				slots.addAll(allSlots);
+			}
+
+			Map<GeoLocation, Integer> counts = new HashMap<>();
+			for (SharedSlot slot : slots) {
+				counts.merge(slot.getTaskManagerLocation().getGeoLocation(), 1, Integer::sum);
+			}
+			return counts;
+		}
+	}
+
 	/**
 	 * Gets the number of shared slots into which the given group can place subtasks or 
 	 * nested task groups.
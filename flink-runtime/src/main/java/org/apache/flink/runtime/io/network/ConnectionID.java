@@ -18,9 +18,12 @@
 
 package org.apache.flink.runtime.io.network;
 
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
 import org.apache.flink.runtime.executiongraph.IntermediateResult;
 import org.apache.flink.runtime.taskmanager.TaskManagerLocation;
 
+import javax.annotation.Nullable;
+
 import java.io.Serializable;
 import java.net.InetSocketAddress;
 
@@ -43,14 +46,26 @@ public class ConnectionID implements Serializable {
 
 	private final int connectionIndex;
 
+	/** The geo location of the remote task manager, not part of the identity of the connection. */
+	@Nullable
+	private final GeoLocation geoLocation;
+
 	public ConnectionID(TaskManagerLocation connectionInfo, int connectionIndex) {
-		this(new InetSocketAddress(connectionInfo.address(), connectionInfo.dataPort()), connectionIndex);
+		this(
+			new InetSocketAddress(connectionInfo.address(), connectionInfo.dataPort()),
+			connectionIndex,
+			connectionInfo.getGeoLocation());
 	}
 
 	public ConnectionID(InetSocketAddress address, int connectionIndex) {
+		this(address, connectionIndex, null);
+	}
+
+	public ConnectionID(InetSocketAddress address, int connectionIndex, @Nullable GeoLocation geoLocation) {
 		this.address = checkNotNull(address);
 		checkArgument(connectionIndex >= 0);
 		this.connectionIndex = connectionIndex;
+		this.geoLocation = geoLocation;
 	}
 
 	public InetSocketAddress getAddress() {
@@ -61,6 +76,14 @@ public class ConnectionID implements Serializable {
 		return connectionIndex;
 	}
 
+	/**
+	 * @return the geo location of the remote task manager, or null if unknown
+	 */
+	@Nullable
+	public GeoLocation getGeoLocation() {
+		return geoLocation;
+	}
+
 	@Override
 	public int hashCode() {
 		return address.hashCode() + (31 * connectionIndex);
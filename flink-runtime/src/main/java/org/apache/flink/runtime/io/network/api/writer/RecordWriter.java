@@ -145,7 +145,7 @@ public class RecordWriter<T extends IOReadableWritable> {
 		}
 		checkState(!serializer.hasSerializedData(), "All data should be written at once");
 
-		if (flushAlways) {
+		if (isFlushAlways(targetChannel)) {
 			targetPartition.flush(targetChannel);
 		}
 	}
@@ -164,6 +164,13 @@ public class RecordWriter<T extends IOReadableWritable> {
 			if (flushAlways) {
 				flushAll();
 			}
+			else {
+				for (int targetChannel = 0; targetChannel < numChannels; targetChannel++) {
+					if (isFlushAlways(targetChannel)) {
+						targetPartition.flush(targetChannel);
+					}
+				}
+			}
 		}
 	}
 
@@ -171,6 +178,13 @@ public class RecordWriter<T extends IOReadableWritable> {
 		targetPartition.flushAll();
 	}
 
+	/**
+	 * Returns whether every record written to the given channel is flushed right away.
+	 */
+	protected boolean isFlushAlways(int targetChannel) {
+		return flushAlways;
+	}
+
 	public void clearBuffers() {
 		for (int targetChannel = 0; targetChannel < numChannels; targetChannel++) {
 			RecordSerializer<?> serializer = serializers[targetChannel];
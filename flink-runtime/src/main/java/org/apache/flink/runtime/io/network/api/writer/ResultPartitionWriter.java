@@ -22,6 +22,8 @@ import org.apache.flink.runtime.io.network.buffer.BufferConsumer;
 import org.apache.flink.runtime.io.network.buffer.BufferProvider;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
 
 /**
@@ -37,6 +39,15 @@ public interface ResultPartitionWriter {
 
 	int getNumTargetKeyGroups();
 
+	/**
+	 * Returns the buffer timeout in milliseconds of each subpartition, negative for the subpartitions that keep the
+	 * buffer timeout of the producer, or null if they all keep it.
+	 */
+	@Nullable
+	default long[] getSubpartitionBufferTimeouts() {
+		return null;
+	}
+
 	/**
 	 * Adds the bufferConsumer to the subpartition with the given index.
 	 *
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.netty;
+
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+
+/**
+ * The throughput and round trip time measured on the connections to a remote TaskManager, as reported to the
+ * JobManager.
+ */
+public class LinkMeasurement implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final InetSocketAddress remoteAddress;
+
+	private final double bytesPerSecond;
+
+	private final double roundTripTimeMillis;
+
+	public LinkMeasurement(InetSocketAddress remoteAddress, double bytesPerSecond, double roundTripTimeMillis) {
+		this.remoteAddress = remoteAddress;
+		this.bytesPerSecond = bytesPerSecond;
+		this.roundTripTimeMillis = roundTripTimeMillis;
+	}
+
+	/**
+	 * @return the data address of the remote TaskManager
+	 */
+	public InetSocketAddress getRemoteAddress() {
+		return remoteAddress;
+	}
+
+	/**
+	 * @return the bytes per second received from the remote TaskManager, 0 if nothing has been received
+	 */
+	public double getBytesPerSecond() {
+		return bytesPerSecond;
+	}
+
+	/**
+	 * @return the time taken to establish the last connection to the remote TaskManager, or a negative value if
+	 * unknown
+	 */
+	public double getRoundTripTimeMillis() {
+		return roundTripTimeMillis;
+	}
+
+	@Override
+	public String toString() {
+		return "LinkMeasurement{" +
+			"remoteAddress=" + remoteAddress +
+			", bytesPerSecond=" + bytesPerSecond +
+			", roundTripTimeMillis=" + roundTripTimeMillis +
+			'}';
+	}
+}
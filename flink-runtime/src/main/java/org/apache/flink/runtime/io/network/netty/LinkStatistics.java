@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.netty;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the bytes the {@link NettyClient} receives from each remote TaskManager and the time taken to connect to
+ * them, so that the TaskManager can report the throughput and round trip time of its incoming links.
+ *
+ * <p>The counters are updated by the Netty event loops and polled by the TaskManager, so this class is thread-safe.
+ */
+public class LinkStatistics {
+
+	private final Map<InetSocketAddress, Link> links = new ConcurrentHashMap<>();
+
+	void recordBytesReceived(InetSocketAddress remoteAddress, long bytes) {
+		getLink(remoteAddress).bytesReceived.addAndGet(bytes);
+	}
+
+	void recordConnectTime(InetSocketAddress remoteAddress, long nanos) {
+		getLink(remoteAddress).connectTimeNanos = nanos;
+	}
+
+	private Link getLink(InetSocketAddress remoteAddress) {
+		return links.computeIfAbsent(remoteAddress, address -> new Link(System.nanoTime()));
+	}
+
+	/**
+	 * Returns the throughput of each link since the previous poll, and its last round trip time.
+	 * Links that received no data and have no new round trip time since the previous poll are omitted.
+	 */
+	public List<LinkMeasurement> poll() {
+		long now = System.nanoTime();
+		List<LinkMeasurement> measurements = new ArrayList<>();
+
+		for (Map.Entry<InetSocketAddress, Link> entry : links.entrySet()) {
+			Link link = entry.getValue();
+
+			long bytes = link.bytesReceived.getAndSet(0);
+			long connectTimeNanos = link.connectTimeNanos;
+			link.connectTimeNanos = -1;
+
+			long elapsedNanos = now - link.lastPoll;
+			link.lastPoll = now;
+
+			if (bytes > 0 || connectTimeNanos >= 0) {
+				double bytesPerSecond = elapsedNanos > 0 ? bytes * 1e9 / elapsedNanos : 0;
+				double roundTripTimeMillis = connectTimeNanos >= 0 ? connectTimeNanos / 1e6 : -1;
+				measurements.add(new LinkMeasurement(entry.getKey(), bytesPerSecond, roundTripTimeMillis));
+			}
+		}
+
+		return measurements;
+	}
+
+	private static final class Link {
+
+		private final AtomicLong bytesReceived = new AtomicLong();
+
+		/** The time taken by the last connection, or -1 if already polled. */
+		private volatile long connectTimeNanos = -1;
+
+		/** Only accessed by the polling thread. */
+		private long lastPoll;
+
+		Link(long creationTime) {
+			this.lastPoll = creationTime;
+		}
+	}
+}
@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.netty;
+
+import org.apache.flink.shaded.netty4.io.netty.buffer.ByteBuf;
+import org.apache.flink.shaded.netty4.io.netty.channel.ChannelHandlerContext;
+import org.apache.flink.shaded.netty4.io.netty.channel.ChannelInboundHandlerAdapter;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Counts the bytes read from a client channel into the {@link LinkStatistics}, before any decoding.
+ */
+class LinkStatisticsHandler extends ChannelInboundHandlerAdapter {
+
+	private final LinkStatistics linkStatistics;
+
+	private final InetSocketAddress remoteAddress;
+
+	LinkStatisticsHandler(LinkStatistics linkStatistics, InetSocketAddress remoteAddress) {
+		this.linkStatistics = linkStatistics;
+		this.remoteAddress = remoteAddress;
+	}
+
+	@Override
+	public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+		if (msg instanceof ByteBuf) {
+			linkStatistics.recordBytesReceived(remoteAddress, ((ByteBuf) msg).readableBytes());
+		}
+		ctx.fireChannelRead(msg);
+	}
+}
@@ -18,9 +18,13 @@
 
 package org.apache.flink.runtime.io.network.netty;
 
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.jobmanager.scheduler.BandwidthProvider;
+
 import org.apache.flink.shaded.netty4.io.netty.bootstrap.Bootstrap;
 import org.apache.flink.shaded.netty4.io.netty.channel.ChannelException;
 import org.apache.flink.shaded.netty4.io.netty.channel.ChannelFuture;
+import org.apache.flink.shaded.netty4.io.netty.channel.ChannelFutureListener;
 import org.apache.flink.shaded.netty4.io.netty.channel.ChannelInitializer;
 import org.apache.flink.shaded.netty4.io.netty.channel.ChannelOption;
 import org.apache.flink.shaded.netty4.io.netty.channel.epoll.Epoll;
@@ -34,11 +38,15 @@ import org.apache.flink.shaded.netty4.io.netty.handler.ssl.SslHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLParameters;
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import static org.apache.flink.util.Preconditions.checkState;
 
@@ -54,8 +62,29 @@ class NettyClient {
 
 	private SSLContext clientSSLContext = null;
 
+	private final LinkStatistics linkStatistics = new LinkStatistics();
+
+	/** The geo location of this TaskManager, null if unknown. */
+	@Nullable
+	private final GeoLocation localGeoLocation;
+
+	private final WanCompressionStatistics wanCompressionStatistics;
+
+	/** The servers that didn't answer the compression handshake, whose connections are not compressed. */
+	private final Set<InetSocketAddress> serversWithoutWanHandshake = ConcurrentHashMap.newKeySet();
+
+	/** The links emulated between geo locations, null if {@link NettyConfig#WAN_EMULATION} is disabled. */
+	@Nullable
+	private BandwidthProvider emulatedWanLinks;
+
 	NettyClient(NettyConfig config) {
+		this(config, null, new WanCompressionStatistics());
+	}
+
+	NettyClient(NettyConfig config, @Nullable GeoLocation localGeoLocation, WanCompressionStatistics wanCompressionStatistics) {
 		this.config = config;
+		this.localGeoLocation = localGeoLocation;
+		this.wanCompressionStatistics = wanCompressionStatistics;
 	}
 
 	void init(final NettyProtocol protocol, NettyBufferPool nettyBufferPool) throws IOException {
@@ -117,6 +146,11 @@ class NettyClient {
 			throw new IOException("Failed to initialize SSL Context for the Netty client", e);
 		}
 
+		if (config.isWanEmulationEnabled()) {
+			emulatedWanLinks = config.getEmulatedWanLinks();
+			LOG.info("Emulating the links between geo locations on the connections of {}.", localGeoLocation);
+		}
+
 		long end = System.currentTimeMillis();
 		LOG.info("Successful initialization (took {} ms).", (end - start));
 	}
@@ -129,6 +163,10 @@ class NettyClient {
 		return bootstrap;
 	}
 
+	LinkStatistics getLinkStatistics() {
+		return linkStatistics;
+	}
+
 	void shutdown() {
 		long start = System.currentTimeMillis();
 
@@ -166,17 +204,48 @@ class NettyClient {
 	// ------------------------------------------------------------------------
 
 	ChannelFuture connect(final InetSocketAddress serverSocketAddress) {
+		return connect(serverSocketAddress, null);
+	}
+
+	/**
+	 * Connects to the given server, compressing the connection if it is at a different geo location than this
+	 * TaskManager, {@link NettyConfig#WAN_COMPRESSION} is enabled and the server accepts it, and emulating the link
+	 * between the locations if {@link NettyConfig#WAN_EMULATION} is enabled.
+	 *
+	 * @param serverSocketAddress the data address of the remote TaskManager
+	 * @param serverGeoLocation the geo location of the remote TaskManager, null if unknown
+	 */
+	ChannelFuture connect(final InetSocketAddress serverSocketAddress, @Nullable final GeoLocation serverGeoLocation) {
 		checkState(bootstrap != null, "Client has not been initialized yet.");
 
+		final boolean compress = config.isWanCompressionEnabled() &&
+			isCrossLocation(localGeoLocation, serverGeoLocation) &&
+			!serversWithoutWanHandshake.contains(serverSocketAddress);
+
+		final boolean emulate = emulatedWanLinks != null &&
+			isCrossLocation(localGeoLocation, serverGeoLocation);
+
 		// --------------------------------------------------------------------
-		// Child channel pipeline for accepted connections
+		// Channel pipeline of this connection
 		// --------------------------------------------------------------------
 
-		bootstrap.handler(new ChannelInitializer<SocketChannel>() {
+		// the handler depends on the server, each connection gets its own bootstrap
+		final Bootstrap connectionBootstrap = bootstrap.clone().handler(new ChannelInitializer<SocketChannel>() {
 			@Override
 			public void initChannel(SocketChannel channel) throws Exception {
 
-				// SSL handler should be added first in the pipeline
+				// Emulating the link on the wire, so that everything after it sees the emulated link
+				if (emulate) {
+					WanLinkEmulator emulator = WanLinkEmulator.forLink(emulatedWanLinks, localGeoLocation, serverGeoLocation);
+					if (emulator != null) {
+						channel.pipeline().addLast("wanEmulator", emulator);
+					}
+				}
+
+				// Counting the bytes on the wire, before decryption and decoding
+				channel.pipeline().addLast("linkStatistics", new LinkStatisticsHandler(linkStatistics, serverSocketAddress));
+
+				// SSL handler should be added before the protocol handlers
 				if (clientSSLContext != null) {
 					SSLEngine sslEngine = clientSSLContext.createSSLEngine(
 						serverSocketAddress.getAddress().getCanonicalHostName(),
@@ -192,12 +261,40 @@ class NettyClient {
 
 					channel.pipeline().addLast("ssl", new SslHandler(sslEngine));
 				}
+
+				// Asking the server for compression, which installs the codec before encryption
+				if (compress) {
+					channel.pipeline().addLast("wanHandshake", new WanClientHandshakeHandler(
+						config,
+						wanCompressionStatistics.getOrCreateLink(serverGeoLocation),
+						localGeoLocation,
+						TimeUnit.SECONDS.toMillis(config.getClientConnectTimeoutSeconds()),
+						new Runnable() {
+							@Override
+							public void run() {
+								LOG.warn("The server {} did not answer the compression handshake, " +
+									"the next connections to it are not compressed.", serverSocketAddress);
+								serversWithoutWanHandshake.add(serverSocketAddress);
+							}
+						}));
+				}
 				channel.pipeline().addLast(protocol.getClientChannelHandlers());
 			}
 		});
 
 		try {
-			return bootstrap.connect(serverSocketAddress);
+			// the TCP handshake takes a round trip
+			final long connectStart = System.nanoTime();
+			ChannelFuture connectFuture = connectionBootstrap.connect(serverSocketAddress);
+			connectFuture.addListener(new ChannelFutureListener() {
+				@Override
+				public void operationComplete(ChannelFuture future) {
+					if (future.isSuccess()) {
+						linkStatistics.recordConnectTime(serverSocketAddress, System.nanoTime() - connectStart);
+					}
+				}
+			});
+			return connectFuture;
 		}
 		catch (ChannelException e) {
 			if ( (e.getCause() instanceof java.net.SocketException &&
@@ -215,4 +312,13 @@ class NettyClient {
 			}
 		}
 	}
+
+	/**
+	 * @return true if both geo locations are known and differ
+	 */
+	static boolean isCrossLocation(@Nullable GeoLocation localGeoLocation, @Nullable GeoLocation remoteGeoLocation) {
+		return localGeoLocation != null && remoteGeoLocation != null &&
+			!GeoLocation.UNKNOWN.equals(localGeoLocation) && !GeoLocation.UNKNOWN.equals(remoteGeoLocation) &&
+			!localGeoLocation.equals(remoteGeoLocation);
+	}
 }
@@ -22,6 +22,8 @@ import org.apache.flink.configuration.ConfigOption;
 import org.apache.flink.configuration.ConfigOptions;
 import org.apache.flink.configuration.Configuration;
 import org.apache.flink.configuration.TaskManagerOptions;
+import org.apache.flink.runtime.jobmanager.scheduler.BandwidthProvider;
+import org.apache.flink.runtime.jobmanager.scheduler.StaticBandwidthProvider;
 import org.apache.flink.runtime.net.SSLUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,6 +31,8 @@ import org.slf4j.LoggerFactory;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLParameters;
+
+import java.io.IOException;
 import java.net.InetAddress;
 
 import static org.apache.flink.util.Preconditions.checkArgument;
@@ -83,6 +87,34 @@ public class NettyConfig {
 			.withDeprecatedKeys("taskmanager.net.transport")
 			.withDescription("The Netty transport type, either \"nio\" or \"epoll\"");
 
+	public static final ConfigOption<Boolean> WAN_COMPRESSION = ConfigOptions
+			.key("taskmanager.network.netty.wan.compression")
+			.defaultValue(false)
+			.withDescription("Compress the data sent over the connections between TaskManagers at different geo" +
+				" locations. The connections within a geo location are not affected. A connection is only compressed if" +
+				" the TaskManager it connects to has it enabled as well, the two agree on it when connecting.");
+
+	public static final ConfigOption<Integer> WAN_BLOCK_SIZE = ConfigOptions
+			.key("taskmanager.network.netty.wan.block-size")
+			.defaultValue(64 * 1024)
+			.withDescription("The number of bytes the connections between geo locations aggregate before compressing" +
+				" and writing them, unless they are flushed earlier.");
+
+	public static final ConfigOption<Long> WAN_LINGER = ConfigOptions
+			.key("taskmanager.network.netty.wan.linger")
+			.defaultValue(0L)
+			.withDescription("Time in milliseconds the connections between geo locations wait for a block to fill up" +
+				" after a flush, so that several small flushes are compressed and sent together. With 0, every flush" +
+				" is sent immediately.");
+
+	public static final ConfigOption<Boolean> WAN_EMULATION = ConfigOptions
+			.key("taskmanager.network.netty.wan.emulation")
+			.defaultValue(false)
+			.withDescription("Emulate the links between geo locations on the connections between TaskManagers, with" +
+				" the bandwidths of \"optimisation-model.bandwidths-file\" and the round trip times of" +
+				" \"optimisation-model.round-trip-times-file\". Meant to test geo-distributed deployments with all the" +
+				" TaskManagers on one machine. The links missing from the files are not emulated.");
+
 	// ------------------------------------------------------------------------
 
 	enum TransportType {
@@ -224,6 +256,29 @@ public class NettyConfig {
 		SSLUtils.setSSLVerifyHostname(config, sslParams);
 	}
 
+	public boolean isWanCompressionEnabled() {
+		return config.getBoolean(WAN_COMPRESSION);
+	}
+
+	public int getWanBlockSize() {
+		return config.getInteger(WAN_BLOCK_SIZE);
+	}
+
+	public long getWanLingerMillis() {
+		return config.getLong(WAN_LINGER);
+	}
+
+	public boolean isWanEmulationEnabled() {
+		return config.getBoolean(WAN_EMULATION);
+	}
+
+	/**
+	 * Reads the links to emulate between geo locations, see {@link #WAN_EMULATION}.
+	 */
+	public BandwidthProvider getEmulatedWanLinks() throws IOException {
+		return StaticBandwidthProvider.fromConfiguration(config);
+	}
+
 	public boolean isCreditBasedEnabled() {
 		return config.getBoolean(TaskManagerOptions.NETWORK_CREDIT_MODEL);
 	}
@@ -18,11 +18,14 @@
 
 package org.apache.flink.runtime.io.network.netty;
 
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
 import org.apache.flink.runtime.io.network.ConnectionID;
 import org.apache.flink.runtime.io.network.ConnectionManager;
 import org.apache.flink.runtime.io.network.TaskEventDispatcher;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionProvider;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
 
 public class NettyConnectionManager implements ConnectionManager {
@@ -35,9 +38,18 @@ public class NettyConnectionManager implements ConnectionManager {
 
 	private final PartitionRequestClientFactory partitionRequestClientFactory;
 
+	private final WanCompressionStatistics wanCompressionStatistics = new WanCompressionStatistics();
+
 	public NettyConnectionManager(NettyConfig nettyConfig) {
-		this.server = new NettyServer(nettyConfig);
-		this.client = new NettyClient(nettyConfig);
+		this(nettyConfig, null);
+	}
+
+	/**
+	 * @param localGeoLocation the geo location of this TaskManager, deciding which connections are compressed
+	 */
+	public NettyConnectionManager(NettyConfig nettyConfig, @Nullable GeoLocation localGeoLocation) {
+		this.server = new NettyServer(nettyConfig, wanCompressionStatistics);
+		this.client = new NettyClient(nettyConfig, localGeoLocation, wanCompressionStatistics);
 		this.bufferPool = new NettyBufferPool(nettyConfig.getNumberOfArenas());
 
 		this.partitionRequestClientFactory = new PartitionRequestClientFactory(client);
@@ -85,6 +97,20 @@ public class NettyConnectionManager implements ConnectionManager {
 		server.shutdown();
 	}
 
+	/**
+	 * Returns the statistics of the data received from each remote TaskManager.
+	 */
+	public LinkStatistics getLinkStatistics() {
+		return client.getLinkStatistics();
+	}
+
+	/**
+	 * Returns the statistics of the compressed connections to other geo locations.
+	 */
+	public WanCompressionStatistics getWanCompressionStatistics() {
+		return wanCompressionStatistics;
+	}
+
 	NettyClient getClient() {
 		return client;
 	}
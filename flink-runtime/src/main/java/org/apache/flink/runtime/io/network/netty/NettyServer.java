@@ -65,8 +65,15 @@ class NettyServer {
 
 	private InetSocketAddress localAddress;
 
+	private final WanCompressionStatistics wanCompressionStatistics;
+
 	NettyServer(NettyConfig config) {
+		this(config, new WanCompressionStatistics());
+	}
+
+	NettyServer(NettyConfig config, WanCompressionStatistics wanCompressionStatistics) {
 		this.config = checkNotNull(config);
+		this.wanCompressionStatistics = checkNotNull(wanCompressionStatistics);
 		localAddress = null;
 	}
 
@@ -158,6 +165,9 @@ class NettyServer {
 					channel.pipeline().addLast("ssl", new SslHandler(sslEngine));
 				}
 
+				// Clients at other geo locations ask for compression, and are answered even if it is disabled
+				channel.pipeline().addLast("wanHandshake", new WanHandshakeHandler(config, wanCompressionStatistics));
+
 				channel.pipeline().addLast(protocol.getServerChannelHandlers());
 			}
 		});
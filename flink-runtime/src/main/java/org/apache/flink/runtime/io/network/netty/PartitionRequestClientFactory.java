@@ -80,7 +80,7 @@ class PartitionRequestClientFactory {
 				Object old = clients.putIfAbsent(connectionId, connectingChannel);
 
 				if (old == null) {
-					nettyClient.connect(connectionId.getAddress()).addListener(connectingChannel);
+					nettyClient.connect(connectionId.getAddress(), connectionId.getGeoLocation()).addListener(connectingChannel);
 
 					client = connectingChannel.waitForChannel();
 
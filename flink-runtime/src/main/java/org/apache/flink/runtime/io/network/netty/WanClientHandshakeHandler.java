@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.netty;
+
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.io.network.netty.exception.LocalTransportException;
+
+import org.apache.flink.shaded.netty4.io.netty.buffer.ByteBuf;
+import org.apache.flink.shaded.netty4.io.netty.channel.ChannelDuplexHandler;
+import org.apache.flink.shaded.netty4.io.netty.channel.ChannelHandlerContext;
+import org.apache.flink.shaded.netty4.io.netty.channel.ChannelPromise;
+import org.apache.flink.shaded.netty4.io.netty.channel.PendingWriteQueue;
+
+import javax.annotation.Nullable;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.flink.runtime.io.network.netty.WanCompressionEncoder.PREFACE_MAGIC;
+import static org.apache.flink.runtime.io.network.netty.WanHandshakeHandler.ANSWER_ACCEPTED;
+import static org.apache.flink.runtime.io.network.netty.WanHandshakeHandler.ANSWER_LENGTH;
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Asks the server for compression on the client side of a connection between geo locations, and removes itself.
+ *
+ * <p>The handler announces the local geo location with a preface and holds back the writes until the server
+ * answers, see {@link WanHandshakeHandler}. If the server accepts, the writes and the rest of the connection go
+ * through the compression codec, if it refuses, they are sent as they are. A server that doesn't answer within the
+ * timeout, or answers with something else, doesn't know the handshake: the connection fails and the callback is
+ * notified, so that the next connections to the server are not compressed.
+ */
+class WanClientHandshakeHandler extends ChannelDuplexHandler {
+
+	private final NettyConfig config;
+
+	private final WanCompressionStatistics.Link link;
+
+	private final GeoLocation localGeoLocation;
+
+	private final long timeoutMillis;
+
+	private final Runnable onMissingAnswer;
+
+	private boolean prefaceSent;
+
+	private boolean flushPending;
+
+	@Nullable
+	private PendingWriteQueue pendingWrites;
+
+	/** The bytes of the answer received so far, null until the first ones. */
+	@Nullable
+	private ByteBuf answer;
+
+	@Nullable
+	private ScheduledFuture<?> timeout;
+
+	/**
+	 * @param config the configuration of the compression
+	 * @param link the statistics of the link of the connection
+	 * @param localGeoLocation the local geo location, to announce to the server
+	 * @param timeoutMillis the time to wait for the answer of the server
+	 * @param onMissingAnswer called when the server doesn't answer the handshake
+	 */
+	WanClientHandshakeHandler(
+			NettyConfig config,
+			WanCompressionStatistics.Link link,
+			GeoLocation localGeoLocation,
+			long timeoutMillis,
+			Runnable onMissingAnswer) {
+		checkArgument(timeoutMillis > 0, "The timeout must be positive");
+		this.config = checkNotNull(config);
+		this.link = checkNotNull(link);
+		this.localGeoLocation = checkNotNull(localGeoLocation);
+		this.timeoutMillis = timeoutMillis;
+		this.onMissingAnswer = checkNotNull(onMissingAnswer);
+	}
+
+	@Override
+	public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+		pendingWrites = new PendingWriteQueue(ctx);
+		if (ctx.channel().isActive()) {
+			sendPreface(ctx);
+		}
+	}
+
+	@Override
+	public void channelActive(ChannelHandlerContext ctx) throws Exception {
+		sendPreface(ctx);
+		ctx.fireChannelActive();
+	}
+
+	@Override
+	public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+		cancelTimeout();
+		releaseAnswer();
+		if (pendingWrites != null) {
+			pendingWrites.removeAndFailAll(new ClosedChannelException());
+		}
+	}
+
+	@Override
+	public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+		cancelTimeout();
+		pendingWrites.removeAndFailAll(new ClosedChannelException());
+		ctx.fireChannelInactive();
+	}
+
+	@Override
+	public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+		pendingWrites.add(msg, promise);
+	}
+
+	@Override
+	public void flush(ChannelHandlerContext ctx) throws Exception {
+		flushPending = true;
+	}
+
+	@Override
+	public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+		if (!(msg instanceof ByteBuf)) {
+			ctx.fireChannelRead(msg);
+			return;
+		}
+
+		ByteBuf in = (ByteBuf) msg;
+		if (answer == null) {
+			answer = ctx.alloc().buffer(ANSWER_LENGTH, ANSWER_LENGTH);
+		}
+		answer.writeBytes(in, Math.min(in.readableBytes(), answer.writableBytes()));
+		if (answer.isWritable()) {
+			in.release();
+			return;
+		}
+
+		int magic = answer.readInt();
+		byte accepted = answer.readByte();
+		releaseAnswer();
+
+		if (magic != PREFACE_MAGIC) {
+			in.release();
+			failHandshake(ctx, "did not answer the compression handshake");
+			return;
+		}
+		cancelTimeout();
+
+		if (accepted == ANSWER_ACCEPTED) {
+			// the writes of this handler go through the encoder, the reads after it through the decoder
+			ctx.pipeline().addBefore(ctx.name(), "wanEncoder", new WanCompressionEncoder(
+				config.getWanBlockSize(),
+				config.getWanLingerMillis(),
+				link));
+			ctx.pipeline().addAfter(ctx.name(), "wanDecoder", new WanCompressionDecoder());
+		}
+
+		pendingWrites.removeAndWriteAll();
+		if (flushPending) {
+			ctx.flush();
+		}
+		ctx.pipeline().remove(this);
+
+		if (in.isReadable()) {
+			ctx.fireChannelRead(in);
+		}
+		else {
+			in.release();
+		}
+	}
+
+	private void sendPreface(final ChannelHandlerContext ctx) {
+		if (prefaceSent) {
+			return;
+		}
+		prefaceSent = true;
+
+		ByteBuf preface = ctx.alloc().buffer();
+		WanCompressionEncoder.writePreface(localGeoLocation, preface);
+		ctx.writeAndFlush(preface);
+
+		timeout = ctx.executor().schedule(new Runnable() {
+			@Override
+			public void run() {
+				timeout = null;
+				failHandshake(ctx, "did not answer the compression handshake within " + timeoutMillis + " ms");
+			}
+		}, timeoutMillis, TimeUnit.MILLISECONDS);
+	}
+
+	private void failHandshake(ChannelHandlerContext ctx, String reason) {
+		cancelTimeout();
+		releaseAnswer();
+		onMissingAnswer.run();
+
+		LocalTransportException cause = new LocalTransportException(
+			"The server " + reason + ", the next connections to it are not compressed.",
+			ctx.channel().remoteAddress());
+		pendingWrites.removeAndFailAll(cause);
+		ctx.fireExceptionCaught(cause);
+		ctx.close();
+	}
+
+	private void cancelTimeout() {
+		if (timeout != null) {
+			timeout.cancel(false);
+			timeout = null;
+		}
+	}
+
+	private void releaseAnswer() {
+		if (answer != null) {
+			answer.release();
+			answer = null;
+		}
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.netty;
+
+import org.apache.flink.shaded.netty4.io.netty.buffer.ByteBuf;
+import org.apache.flink.shaded.netty4.io.netty.channel.ChannelHandlerContext;
+import org.apache.flink.shaded.netty4.io.netty.handler.codec.ByteToMessageDecoder;
+import org.apache.flink.shaded.netty4.io.netty.handler.codec.CorruptedFrameException;
+import org.apache.flink.shaded.netty4.io.netty.handler.codec.compression.Snappy;
+
+import java.util.List;
+
+import static org.apache.flink.runtime.io.network.netty.WanCompressionEncoder.FRAME_HEADER_LENGTH;
+import static org.apache.flink.runtime.io.network.netty.WanCompressionEncoder.FRAME_RAW;
+import static org.apache.flink.runtime.io.network.netty.WanCompressionEncoder.FRAME_SNAPPY;
+import static org.apache.flink.runtime.io.network.netty.WanCompressionEncoder.MAX_CHUNK_LENGTH;
+
+/**
+ * Decodes the frames written by a {@link WanCompressionEncoder} back into the bytes written to it.
+ */
+class WanCompressionDecoder extends ByteToMessageDecoder {
+
+	private final Snappy snappy = new Snappy();
+
+	@Override
+	protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+		if (in.readableBytes() < FRAME_HEADER_LENGTH) {
+			return;
+		}
+
+		int frameLength = in.getInt(in.readerIndex());
+		if (frameLength < 1 || frameLength > MAX_CHUNK_LENGTH + 1) {
+			throw new CorruptedFrameException("Invalid compressed frame length: " + frameLength);
+		}
+		if (in.readableBytes() < frameLength + 4) {
+			return;
+		}
+
+		in.skipBytes(4);
+		byte type = in.readByte();
+		int payloadLength = frameLength - 1;
+
+		switch (type) {
+			case FRAME_RAW:
+				out.add(in.readRetainedSlice(payloadLength));
+				break;
+
+			case FRAME_SNAPPY:
+				ByteBuf uncompressed = ctx.alloc().buffer(MAX_CHUNK_LENGTH);
+				try {
+					snappy.decode(in.readSlice(payloadLength), uncompressed);
+				}
+				catch (Throwable t) {
+					uncompressed.release();
+					throw t;
+				}
+				finally {
+					snappy.reset();
+				}
+				out.add(uncompressed);
+				break;
+
+			default:
+				throw new CorruptedFrameException("Unknown compressed frame type: " + type);
+		}
+	}
+}
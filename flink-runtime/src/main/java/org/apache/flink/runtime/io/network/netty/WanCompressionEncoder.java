@@ -0,0 +1,257 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.netty;
+
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+
+import org.apache.flink.shaded.netty4.io.netty.buffer.ByteBuf;
+import org.apache.flink.shaded.netty4.io.netty.buffer.CompositeByteBuf;
+import org.apache.flink.shaded.netty4.io.netty.channel.ChannelFuture;
+import org.apache.flink.shaded.netty4.io.netty.channel.ChannelFutureListener;
+import org.apache.flink.shaded.netty4.io.netty.channel.ChannelHandlerContext;
+import org.apache.flink.shaded.netty4.io.netty.channel.ChannelOutboundHandlerAdapter;
+import org.apache.flink.shaded.netty4.io.netty.channel.ChannelPromise;
+import org.apache.flink.shaded.netty4.io.netty.handler.codec.compression.Snappy;
+
+import javax.annotation.Nullable;
+
+import java.nio.channels.ClosedChannelException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Aggregates the bytes written to a connection between geo locations into blocks, and writes each block as
+ * compressed frames.
+ *
+ * <p>A block is written when it reaches the block size, or when the channel is flushed. With a linger time, a flush
+ * of a block smaller than the block size is delayed by up to the linger time, so that the writes of several flushes
+ * are compressed together.
+ *
+ * <p>Each frame holds at most {@link #MAX_CHUNK_LENGTH} bytes of the block: its length, its type and its payload,
+ * compressed with Snappy or, if that doesn't make it smaller, as is. The encoder is only installed once both sides
+ * agreed on compressing the connection, see {@link WanClientHandshakeHandler} and {@link WanHandshakeHandler}.
+ */
+class WanCompressionEncoder extends ChannelOutboundHandlerAdapter {
+
+	/** The first bytes of the handshake, negative so that they can't be the length of a message. */
+	static final int PREFACE_MAGIC = 0xF11C0DEC;
+
+	/** The maximum number of bytes of a frame, Snappy's offsets only cover 64 KiB. */
+	static final int MAX_CHUNK_LENGTH = Short.MAX_VALUE;
+
+	static final byte FRAME_RAW = 0;
+
+	static final byte FRAME_SNAPPY = 1;
+
+	/** The length and the type of a frame. */
+	static final int FRAME_HEADER_LENGTH = 5;
+
+	private final Snappy snappy = new Snappy();
+
+	private final int blockSize;
+
+	private final long lingerMillis;
+
+	private final WanCompressionStatistics.Link link;
+
+	@Nullable
+	private CompositeByteBuf block;
+
+	private final List<ChannelPromise> blockPromises = new ArrayList<>();
+
+	@Nullable
+	private ScheduledFuture<?> lingerFlush;
+
+	/**
+	 * @param blockSize the number of bytes to aggregate before compressing them
+	 * @param lingerMillis the time a flush may be delayed for a block to fill up, 0 not to delay flushes
+	 * @param link the statistics of the link of the connection
+	 */
+	WanCompressionEncoder(int blockSize, long lingerMillis, WanCompressionStatistics.Link link) {
+		checkArgument(blockSize > 0, "The block size must be positive");
+		checkArgument(lingerMillis >= 0, "The linger time must not be negative");
+		this.blockSize = blockSize;
+		this.lingerMillis = lingerMillis;
+		this.link = checkNotNull(link);
+	}
+
+	@Override
+	public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+		if (!(msg instanceof ByteBuf)) {
+			writeBlock(ctx);
+			ctx.write(msg, promise);
+			return;
+		}
+
+		if (block == null) {
+			block = ctx.alloc().compositeBuffer(Integer.MAX_VALUE);
+		}
+		block.addComponent(true, (ByteBuf) msg);
+		blockPromises.add(promise);
+
+		if (block.readableBytes() >= blockSize) {
+			writeBlock(ctx);
+		}
+	}
+
+	@Override
+	public void flush(final ChannelHandlerContext ctx) throws Exception {
+		if (block == null || lingerMillis == 0) {
+			writeBlock(ctx);
+			ctx.flush();
+		}
+		else {
+			if (lingerFlush == null) {
+				lingerFlush = ctx.executor().schedule(new Runnable() {
+					@Override
+					public void run() {
+						lingerFlush = null;
+						writeBlock(ctx);
+						ctx.flush();
+					}
+				}, lingerMillis, TimeUnit.MILLISECONDS);
+			}
+
+			// the blocks written when they filled up
+			ctx.flush();
+		}
+	}
+
+	@Override
+	public void close(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+		cancelLingerFlush();
+		writeBlock(ctx);
+		ctx.flush();
+		ctx.close(promise);
+	}
+
+	@Override
+	public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+		cancelLingerFlush();
+		if (block != null) {
+			block.release();
+			block = null;
+			failBlockPromises(new ClosedChannelException());
+		}
+	}
+
+	private void cancelLingerFlush() {
+		if (lingerFlush != null) {
+			lingerFlush.cancel(false);
+			lingerFlush = null;
+		}
+	}
+
+	private void failBlockPromises(Throwable cause) {
+		for (ChannelPromise promise : blockPromises) {
+			promise.tryFailure(cause);
+		}
+		blockPromises.clear();
+	}
+
+	private void writeBlock(ChannelHandlerContext ctx) {
+		if (block == null) {
+			return;
+		}
+
+		final ChannelPromise[] promises = blockPromises.toArray(new ChannelPromise[blockPromises.size()]);
+		blockPromises.clear();
+
+		ByteBuf in = block;
+		block = null;
+
+		ByteBuf out = null;
+		try {
+			int uncompressedBytes = in.readableBytes();
+			out = ctx.alloc().buffer(uncompressedBytes + FRAME_HEADER_LENGTH * (uncompressedBytes / MAX_CHUNK_LENGTH + 1));
+
+			while (in.isReadable()) {
+				writeFrame(in, out, Math.min(in.readableBytes(), MAX_CHUNK_LENGTH));
+			}
+			link.record(uncompressedBytes, out.readableBytes());
+		}
+		catch (Throwable t) {
+			if (out != null) {
+				out.release();
+			}
+			for (ChannelPromise promise : promises) {
+				promise.tryFailure(t);
+			}
+			return;
+		}
+		finally {
+			in.release();
+		}
+
+		ctx.write(out).addListener(new ChannelFutureListener() {
+			@Override
+			public void operationComplete(ChannelFuture future) {
+				for (ChannelPromise promise : promises) {
+					if (future.isSuccess()) {
+						promise.trySuccess();
+					}
+					else {
+						promise.tryFailure(future.cause());
+					}
+				}
+			}
+		});
+	}
+
+	private void writeFrame(ByteBuf in, ByteBuf out, int length) {
+		int frameStart = out.writerIndex();
+		int payloadStart = frameStart + FRAME_HEADER_LENGTH;
+		int readerIndex = in.readerIndex();
+
+		out.ensureWritable(FRAME_HEADER_LENGTH);
+		out.writerIndex(payloadStart);
+		try {
+			// Snappy doesn't always consume its input
+			snappy.encode(in.readSlice(length), out, length);
+		}
+		finally {
+			snappy.reset();
+		}
+
+		byte type = FRAME_SNAPPY;
+		if (out.writerIndex() - payloadStart >= length) {
+			// incompressible, e.g. already compressed data
+			type = FRAME_RAW;
+			out.writerIndex(payloadStart);
+			out.writeBytes(in, readerIndex, length);
+		}
+
+		// the length doesn't include itself
+		out.setInt(frameStart, out.writerIndex() - frameStart - 4);
+		out.setByte(frameStart + 4, type);
+	}
+
+	static void writePreface(GeoLocation geoLocation, ByteBuf out) {
+		byte[] key = geoLocation.getKey().getBytes(StandardCharsets.UTF_8);
+		out.writeInt(PREFACE_MAGIC);
+		out.writeShort(key.length);
+		out.writeBytes(key);
+	}
+}
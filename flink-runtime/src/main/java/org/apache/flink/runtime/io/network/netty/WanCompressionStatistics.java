@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.netty;
+
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the bytes the compressed connections to each remote geo location send before and after compression.
+ *
+ * <p>Once {@link #registerMetrics(MetricGroup)} has been called, every link gets a metric group named after its
+ * remote geo location, with the bytes before and after compression, the bytes saved and the compression ratio.
+ *
+ * <p>The counters are updated by the Netty event loops and read by the metric reporters, so this class is
+ * thread-safe.
+ */
+public class WanCompressionStatistics {
+
+	private final Map<GeoLocation, Link> links = new ConcurrentHashMap<>();
+
+	@GuardedBy("links")
+	private MetricGroup metricGroup;
+
+	/**
+	 * Registers the metrics of the current links, and of the ones created later, in the given group.
+	 */
+	public void registerMetrics(MetricGroup metricGroup) {
+		synchronized (links) {
+			this.metricGroup = metricGroup;
+			for (Map.Entry<GeoLocation, Link> entry : links.entrySet()) {
+				registerMetrics(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * @return the link to the given remote geo location, or null if nothing has been sent to it
+	 */
+	public Link getLink(GeoLocation remoteGeoLocation) {
+		return links.get(remoteGeoLocation);
+	}
+
+	Link getOrCreateLink(GeoLocation remoteGeoLocation) {
+		Link link = links.get(remoteGeoLocation);
+		if (link == null) {
+			synchronized (links) {
+				link = links.get(remoteGeoLocation);
+				if (link == null) {
+					link = new Link();
+					links.put(remoteGeoLocation, link);
+					registerMetrics(remoteGeoLocation, link);
+				}
+			}
+		}
+		return link;
+	}
+
+	@GuardedBy("links")
+	private void registerMetrics(GeoLocation remoteGeoLocation, final Link link) {
+		if (metricGroup == null || link.registered) {
+			return;
+		}
+		link.registered = true;
+
+		MetricGroup group = metricGroup.addGroup(remoteGeoLocation.getKey());
+		group.gauge("bytesBeforeCompression", new Gauge<Long>() {
+			@Override
+			public Long getValue() {
+				return link.getBytesBeforeCompression();
+			}
+		});
+		group.gauge("bytesAfterCompression", new Gauge<Long>() {
+			@Override
+			public Long getValue() {
+				return link.getBytesAfterCompression();
+			}
+		});
+		group.gauge("bytesSaved", new Gauge<Long>() {
+			@Override
+			public Long getValue() {
+				return link.getBytesSaved();
+			}
+		});
+		group.gauge("compressionRatio", new Gauge<Double>() {
+			@Override
+			public Double getValue() {
+				return link.getCompressionRatio();
+			}
+		});
+	}
+
+	/**
+	 * The bytes sent to a remote geo location over all the compressed connections to it.
+	 */
+	public static final class Link {
+
+		private final AtomicLong bytesBeforeCompression = new AtomicLong();
+
+		private final AtomicLong bytesAfterCompression = new AtomicLong();
+
+		/** Only accessed while holding the lock of the statistics. */
+		private boolean registered;
+
+		void record(long uncompressedBytes, long compressedBytes) {
+			bytesBeforeCompression.addAndGet(uncompressedBytes);
+			bytesAfterCompression.addAndGet(compressedBytes);
+		}
+
+		public long getBytesBeforeCompression() {
+			return bytesBeforeCompression.get();
+		}
+
+		/**
+		 * @return the bytes written to the connections, including the framing
+		 */
+		public long getBytesAfterCompression() {
+			return bytesAfterCompression.get();
+		}
+
+		public long getBytesSaved() {
+			return getBytesBeforeCompression() - getBytesAfterCompression();
+		}
+
+		/**
+		 * @return the bytes before compression per byte after compression, 1 if nothing has been sent
+		 */
+		public double getCompressionRatio() {
+			long after = getBytesAfterCompression();
+			return after > 0 ? (double) getBytesBeforeCompression() / after : 1;
+		}
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.netty;
+
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+
+import org.apache.flink.shaded.netty4.io.netty.buffer.ByteBuf;
+import org.apache.flink.shaded.netty4.io.netty.channel.ChannelHandlerContext;
+import org.apache.flink.shaded.netty4.io.netty.handler.codec.ByteToMessageDecoder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.apache.flink.runtime.io.network.netty.WanCompressionEncoder.PREFACE_MAGIC;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Answers the compression handshake on the server side of the connections whose client announces its geo location
+ * with a preface, and removes itself.
+ *
+ * <p>The answer is the magic number of the preface followed by whether the server accepts to compress the
+ * connection, which it does if {@link NettyConfig#WAN_COMPRESSION} is enabled. The compression codec is then
+ * installed on both sides, see {@link WanClientHandshakeHandler}, otherwise the connection is left uncompressed.
+ *
+ * <p>The clients only announce themselves when they are at a different geo location, the connections of the other
+ * clients start with a message, whose length is never negative like the preface, and are left as they are.
+ */
+class WanHandshakeHandler extends ByteToMessageDecoder {
+
+	/** The magic number and the length of the geo location. */
+	private static final int PREFACE_HEADER_LENGTH = 6;
+
+	/** The magic number and whether the server accepts to compress the connection. */
+	static final int ANSWER_LENGTH = 5;
+
+	static final byte ANSWER_REFUSED = 0;
+
+	static final byte ANSWER_ACCEPTED = 1;
+
+	private final NettyConfig config;
+
+	private final WanCompressionStatistics statistics;
+
+	WanHandshakeHandler(NettyConfig config, WanCompressionStatistics statistics) {
+		this.config = checkNotNull(config);
+		this.statistics = checkNotNull(statistics);
+	}
+
+	@Override
+	protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+		if (in.readableBytes() < 4) {
+			return;
+		}
+
+		if (in.getInt(in.readerIndex()) != PREFACE_MAGIC) {
+			// the remaining bytes are passed on by the removal
+			ctx.pipeline().remove(this);
+			return;
+		}
+
+		if (in.readableBytes() < PREFACE_HEADER_LENGTH) {
+			return;
+		}
+		int keyLength = in.getUnsignedShort(in.readerIndex() + 4);
+		if (in.readableBytes() < PREFACE_HEADER_LENGTH + keyLength) {
+			return;
+		}
+
+		in.skipBytes(PREFACE_HEADER_LENGTH);
+		GeoLocation remoteGeoLocation = new GeoLocation(in.readCharSequence(keyLength, StandardCharsets.UTF_8).toString());
+
+		boolean accepted = config.isWanCompressionEnabled();
+
+		// the answer isn't compressed, it is written before the encoder is installed
+		ByteBuf answer = ctx.alloc().buffer(ANSWER_LENGTH, ANSWER_LENGTH);
+		answer.writeInt(PREFACE_MAGIC);
+		answer.writeByte(accepted ? ANSWER_ACCEPTED : ANSWER_REFUSED);
+		ctx.writeAndFlush(answer);
+
+		if (accepted) {
+			ctx.pipeline().addAfter(ctx.name(), "wanEncoder", new WanCompressionEncoder(
+				config.getWanBlockSize(),
+				config.getWanLingerMillis(),
+				statistics.getOrCreateLink(remoteGeoLocation)));
+			ctx.pipeline().addAfter(ctx.name(), "wanDecoder", new WanCompressionDecoder());
+		}
+		ctx.pipeline().remove(this);
+	}
+}
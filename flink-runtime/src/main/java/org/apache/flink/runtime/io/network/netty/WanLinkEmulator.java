@@ -0,0 +1,347 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.netty;
+
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.jobmanager.scheduler.BandwidthProvider;
+
+import org.apache.flink.shaded.netty4.io.netty.buffer.ByteBuf;
+import org.apache.flink.shaded.netty4.io.netty.channel.ChannelConfig;
+import org.apache.flink.shaded.netty4.io.netty.channel.ChannelDuplexHandler;
+import org.apache.flink.shaded.netty4.io.netty.channel.ChannelHandlerContext;
+import org.apache.flink.shaded.netty4.io.netty.channel.ChannelOutboundBuffer;
+import org.apache.flink.shaded.netty4.io.netty.channel.ChannelPromise;
+import org.apache.flink.shaded.netty4.io.netty.util.ReferenceCountUtil;
+
+import javax.annotation.Nullable;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+
+/**
+ * Emulates the link between two geo locations on a connection between TaskManagers, so that TaskManagers running on
+ * the same machine exchange data as if they were at their geo locations.
+ *
+ * <p>Each direction of the link is a queue: a message is transmitted at the bandwidth of the link once the messages
+ * before it are, and is then delivered after half the round trip time of the link. Both directions are emulated at the
+ * client side of the connection, which knows the geo locations of both sides: the messages read are delivered to the
+ * next handlers, and the messages written are written to the socket, when they would arrive at the other side.
+ *
+ * <p>Too many bytes queued stop the channel from reading, or make it unwritable, until half of them are delivered, so
+ * that the other side, or the writers of this side, are backpressured as by a slow link. The emulator stops reading by
+ * holding back the read requests rather than by disabling auto read, which the next handlers may disable and enable
+ * for their own backpressure: a read is requested again on resume only if one was held back.
+ */
+class WanLinkEmulator extends ChannelDuplexHandler {
+
+	/** The bytes queued in a direction above which the channel stops reading or becomes unwritable. */
+	static final long DEFAULT_HIGH_WATER_MARK = 4 * 1024 * 1024;
+
+	/** The index of the writability of the channel set by the emulator, 1 and 2 are used by Netty's traffic shaping. */
+	private static final int WRITABILITY_INDEX = 3;
+
+	/**
+	 * Creates the emulator of the link from a local geo location to a remote one, or null if neither the bandwidths
+	 * nor the round trip time of the link are known.
+	 *
+	 * @param links the bandwidths, in bytes per second, and the round trip times, in milliseconds, to emulate
+	 */
+	@Nullable
+	static WanLinkEmulator forLink(BandwidthProvider links, GeoLocation localGeoLocation, GeoLocation remoteGeoLocation) {
+		double inboundBandwidth = links.hasBandwidth(remoteGeoLocation, localGeoLocation) ?
+			links.getBandwidth(remoteGeoLocation, localGeoLocation) : 0;
+		double outboundBandwidth = links.hasBandwidth(localGeoLocation, remoteGeoLocation) ?
+			links.getBandwidth(localGeoLocation, remoteGeoLocation) : 0;
+		double roundTripTime = links.getRoundTripTime(localGeoLocation, remoteGeoLocation);
+
+		if (inboundBandwidth <= 0 && outboundBandwidth <= 0 && roundTripTime <= 0) {
+			return null;
+		}
+
+		long delayNanos = roundTripTime > 0 ? (long) (roundTripTime * 1_000_000 / 2) : 0;
+		return new WanLinkEmulator(inboundBandwidth, outboundBandwidth, delayNanos, DEFAULT_HIGH_WATER_MARK);
+	}
+
+	private final Direction inbound;
+
+	private final Direction outbound;
+
+	private final long highWaterMark;
+
+	/** True if the emulator holds back the read requests. */
+	private boolean readSuspended;
+
+	/** True if a read request was held back while reading was suspended. */
+	private boolean readRequested;
+
+	/**
+	 * @param inboundBandwidth the bytes per second read, 0 for no limit
+	 * @param outboundBandwidth the bytes per second written, 0 for no limit
+	 * @param delayNanos the time in nanoseconds a message takes to go from a side to the other once transmitted
+	 * @param highWaterMark the bytes queued in a direction above which it is backpressured
+	 */
+	WanLinkEmulator(double inboundBandwidth, double outboundBandwidth, long delayNanos, long highWaterMark) {
+		checkArgument(inboundBandwidth >= 0 && outboundBandwidth >= 0, "The bandwidths must not be negative");
+		checkArgument(delayNanos >= 0, "The delay must not be negative");
+		checkArgument(highWaterMark > 0, "The high water mark must be positive");
+		this.inbound = new Direction(inboundBandwidth, delayNanos);
+		this.outbound = new Direction(outboundBandwidth, delayNanos);
+		this.highWaterMark = highWaterMark;
+	}
+
+	// ------------------------------------------------------------------------
+	// Inbound
+	// ------------------------------------------------------------------------
+
+	@Override
+	public void channelRead(ChannelHandlerContext ctx, Object msg) {
+		inbound.enqueue(ctx, msg, null, sizeOf(msg));
+
+		if (inbound.queuedBytes > highWaterMark && !readSuspended) {
+			readSuspended = true;
+
+			ChannelConfig config = ctx.channel().config();
+			if (config.isAutoRead()) {
+				// stops the reading in progress, the read requested when auto read is set again is held back
+				config.setAutoRead(false);
+				config.setAutoRead(true);
+			}
+		}
+	}
+
+	@Override
+	public void read(ChannelHandlerContext ctx) {
+		if (readSuspended) {
+			readRequested = true;
+		} else {
+			ctx.read();
+		}
+	}
+
+	@Override
+	public void channelReadComplete(ChannelHandlerContext ctx) {
+		// fired after each batch of delivered messages instead
+	}
+
+	@Override
+	public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+		// the messages already read are delivered before the connection is closed
+		inbound.deliverAll(ctx);
+		super.channelInactive(ctx);
+	}
+
+	// ------------------------------------------------------------------------
+	// Outbound
+	// ------------------------------------------------------------------------
+
+	@Override
+	public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+		outbound.enqueue(ctx, msg, promise, sizeOf(msg));
+
+		if (outbound.queuedBytes > highWaterMark) {
+			setWritable(ctx, false);
+		}
+	}
+
+	@Override
+	public void flush(ChannelHandlerContext ctx) {
+		outbound.enqueue(ctx, null, null, 0);
+	}
+
+	@Override
+	public void handlerRemoved(ChannelHandlerContext ctx) {
+		inbound.discard();
+		outbound.discard();
+		resumeReading(ctx);
+	}
+
+	// ------------------------------------------------------------------------
+
+	private void delivered(ChannelHandlerContext ctx, Direction direction) {
+		if (direction == inbound) {
+			ctx.fireChannelReadComplete();
+			if (readSuspended && inbound.queuedBytes <= highWaterMark / 2) {
+				resumeReading(ctx);
+			}
+		} else {
+			if (outbound.queuedBytes <= highWaterMark / 2) {
+				setWritable(ctx, true);
+			}
+		}
+	}
+
+	private void resumeReading(ChannelHandlerContext ctx) {
+		readSuspended = false;
+		if (readRequested) {
+			readRequested = false;
+			ctx.read();
+		}
+	}
+
+	private static void setWritable(ChannelHandlerContext ctx, boolean writable) {
+		ChannelOutboundBuffer outboundBuffer = ctx.channel().unsafe().outboundBuffer();
+		if (outboundBuffer != null) {
+			outboundBuffer.setUserDefinedWritability(WRITABILITY_INDEX, writable);
+		}
+	}
+
+	private static long sizeOf(Object msg) {
+		return msg instanceof ByteBuf ? ((ByteBuf) msg).readableBytes() : 0;
+	}
+
+	/**
+	 * The messages in flight in a direction of the link, in the order they were sent.
+	 */
+	private final class Direction {
+
+		/** The bytes per nanosecond, 0 for no limit. */
+		private final double bytesPerNano;
+
+		private final long delayNanos;
+
+		private final ArrayDeque<Message> messages = new ArrayDeque<>();
+
+		/** The time the link is done transmitting the messages sent so far. */
+		private long transmittedAt;
+
+		private long queuedBytes;
+
+		@Nullable
+		private ScheduledFuture<?> scheduledDelivery;
+
+		Direction(double bandwidth, long delayNanos) {
+			this.bytesPerNano = bandwidth / 1e9;
+			this.delayNanos = delayNanos;
+		}
+
+		/**
+		 * @param msg the message, or null to flush the messages written before
+		 * @param promise the promise of a written message, null for a read one
+		 */
+		void enqueue(ChannelHandlerContext ctx, @Nullable Object msg, @Nullable ChannelPromise promise, long bytes) {
+			long now = System.nanoTime();
+			transmittedAt = Math.max(transmittedAt, now) + (bytesPerNano > 0 ? (long) (bytes / bytesPerNano) : 0);
+
+			messages.add(new Message(msg, promise, bytes, transmittedAt + delayNanos));
+			queuedBytes += bytes;
+
+			if (scheduledDelivery == null) {
+				deliver(ctx);
+			}
+		}
+
+		/**
+		 * Delivers the messages that arrived, and schedules the delivery of the next one.
+		 */
+		void deliver(ChannelHandlerContext ctx) {
+			scheduledDelivery = null;
+
+			long now = System.nanoTime();
+			boolean delivered = false;
+			while (!messages.isEmpty() && messages.peek().arrival <= now) {
+				deliver(ctx, messages.poll());
+				delivered = true;
+			}
+
+			if (delivered) {
+				delivered(ctx, this);
+			}
+
+			if (!messages.isEmpty()) {
+				scheduledDelivery = ctx.executor().schedule(
+					() -> deliver(ctx), messages.peek().arrival - now, TimeUnit.NANOSECONDS);
+			}
+		}
+
+		void deliverAll(ChannelHandlerContext ctx) {
+			cancelScheduledDelivery();
+
+			boolean delivered = !messages.isEmpty();
+			while (!messages.isEmpty()) {
+				deliver(ctx, messages.poll());
+			}
+
+			if (delivered) {
+				delivered(ctx, this);
+			}
+		}
+
+		private void deliver(ChannelHandlerContext ctx, Message message) {
+			queuedBytes -= message.bytes;
+
+			if (this == inbound) {
+				ctx.fireChannelRead(message.msg);
+			} else if (message.msg != null) {
+				ctx.write(message.msg, message.promise);
+			} else {
+				ctx.flush();
+			}
+		}
+
+		/**
+		 * Drops the messages in flight, when the channel is gone.
+		 */
+		void discard() {
+			cancelScheduledDelivery();
+
+			Message message;
+			while ((message = messages.poll()) != null) {
+				if (message.msg != null) {
+					ReferenceCountUtil.release(message.msg);
+				}
+				if (message.promise != null) {
+					message.promise.tryFailure(new ClosedChannelException());
+				}
+			}
+			queuedBytes = 0;
+		}
+
+		private void cancelScheduledDelivery() {
+			if (scheduledDelivery != null) {
+				scheduledDelivery.cancel(false);
+				scheduledDelivery = null;
+			}
+		}
+	}
+
+	private static final class Message {
+
+		@Nullable
+		final Object msg;
+
+		@Nullable
+		final ChannelPromise promise;
+
+		final long bytes;
+
+		/** The time the message arrives at the other side. */
+		final long arrival;
+
+		Message(@Nullable Object msg, @Nullable ChannelPromise promise, long bytes, long arrival) {
+			this.msg = msg;
+			this.promise = promise;
+			this.bytes = bytes;
+			this.arrival = arrival;
+		}
+	}
+}
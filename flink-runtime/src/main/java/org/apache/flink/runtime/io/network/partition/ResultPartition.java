@@ -36,6 +36,8 @@ import org.apache.flink.runtime.taskmanager.TaskManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -102,6 +104,10 @@ public class ResultPartition implements ResultPartitionWriter, BufferPoolOwner {
 
 	private final boolean sendScheduleOrUpdateConsumersMessage;
 
+	/** The buffer timeout of each subpartition, negative to keep the producer's, or null for all. */
+	@Nullable
+	private long[] subpartitionBufferTimeouts;
+
 	// - Runtime state --------------------------------------------------------
 
 	private final AtomicBoolean isReleased = new AtomicBoolean();
@@ -359,6 +365,21 @@ public class ResultPartition implements ResultPartitionWriter, BufferPoolOwner {
 		return numTargetKeyGroups;
 	}
 
+	@Nullable
+	@Override
+	public long[] getSubpartitionBufferTimeouts() {
+		return subpartitionBufferTimeouts;
+	}
+
+	/**
+	 * Sets the buffer timeout of each subpartition, chosen by the JobManager from the locations of the consumers.
+	 */
+	public void setSubpartitionBufferTimeouts(@Nullable long[] subpartitionBufferTimeouts) {
+		checkArgument(subpartitionBufferTimeouts == null || subpartitionBufferTimeouts.length == subpartitions.length,
+			"There must be a buffer timeout for each subpartition");
+		this.subpartitionBufferTimeouts = subpartitionBufferTimeouts;
+	}
+
 	/**
 	 * Releases buffers held by this result partition.
 	 *
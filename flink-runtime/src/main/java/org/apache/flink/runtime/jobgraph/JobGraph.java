@@ -18,7 +18,6 @@
 
 package org.apache.flink.runtime.jobgraph;
 
-import gurobi.GRBException;
 import org.apache.flink.api.common.ExecutionConfig;
 import org.apache.flink.api.common.InvalidProgramException;
 import org.apache.flink.api.common.JobID;
@@ -28,19 +27,23 @@ import org.apache.flink.core.fs.Path;
 import org.apache.flink.runtime.blob.BlobClient;
 import org.apache.flink.runtime.blob.PermanentBlobKey;
 import org.apache.flink.runtime.clusterframework.types.GeoLocation;
-import org.apache.flink.runtime.executiongraph.MultiLocationOptimisationModel;
-import org.apache.flink.runtime.executiongraph.OptimisationModel;
 import org.apache.flink.runtime.executiongraph.OptimisationModelParameters;
 import org.apache.flink.runtime.executiongraph.OptimisationModelSolution;
+import org.apache.flink.runtime.executiongraph.OptimisationModelSolutionCache;
+import org.apache.flink.runtime.executiongraph.OptimisationModelSolver;
+import org.apache.flink.runtime.executiongraph.SubtaskGeoLocationAssigner;
 import org.apache.flink.runtime.jobgraph.tasks.JobCheckpointingSettings;
 import org.apache.flink.runtime.jobmanager.scheduler.BandwidthProvider;
 import org.apache.flink.runtime.jobmanager.scheduler.SlotSharingGroup;
 import org.apache.flink.runtime.util.GRBUtils;
+import org.apache.flink.util.FlinkException;
 import org.apache.flink.util.InstantiationUtil;
 import org.apache.flink.util.SerializedValue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
 import java.io.Serializable;
 import java.net.InetSocketAddress;
@@ -54,6 +57,8 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
@@ -396,20 +401,43 @@ public class JobGraph implements Serializable {
 	 * @param bandwidthProvider the provider for bandwidths between locations
 	 */
 	public void solveOptimisationModel(BandwidthProvider bandwidthProvider, Map<GeoLocation, Integer> availableSlotsByGeoLocation) {
+		solveOptimisationModel(bandwidthProvider, availableSlotsByGeoLocation, null);
+	}
+
+	/**
+	 * Solve the optimisation model associated with this job graph, unless the solution is in the given cache.
+	 * The solution is retrievable with {@link #getSolution()}.
+	 *
+	 * @param availableSlotsByGeoLocation the slots to schedule this graph on, grouped by geo location
+	 * @param bandwidthProvider the provider for bandwidths between locations
+	 * @param solutionCache the cache of the solutions of previous jobs, or null to always solve the model
+	 */
+	public void solveOptimisationModel(BandwidthProvider bandwidthProvider,
+									   Map<GeoLocation, Integer> availableSlotsByGeoLocation,
+									   @Nullable OptimisationModelSolutionCache solutionCache) {
 
 		setAllEdgeWeights();
 
 		//creating and solving the model
-		OptimisationModel model;
+		OptimisationModelSolver solver = optimisationModelParameters.createSolver();
+		List<JobVertex> sortedVertices = this.getVerticesSortedTopologicallyFromSources();
 		try {
-			model = new MultiLocationOptimisationModel(
-				this.getVerticesSortedTopologicallyFromSources(),
-				availableSlotsByGeoLocation.keySet(),
-				bandwidthProvider,
-				availableSlotsByGeoLocation,
-				optimisationModelParameters);
-
-			this.solution = model.optimize();
+			if (solutionCache != null) {
+				this.solution = solutionCache.getOrSolve(
+					solver,
+					sortedVertices,
+					availableSlotsByGeoLocation.keySet(),
+					bandwidthProvider,
+					availableSlotsByGeoLocation,
+					optimisationModelParameters);
+			} else {
+				this.solution = solver.solve(
+					sortedVertices,
+					availableSlotsByGeoLocation.keySet(),
+					bandwidthProvider,
+					availableSlotsByGeoLocation,
+					optimisationModelParameters);
+			}
 
 			if(optimisationModelParameters.isSlotSharingEnabled()) {
 				setSlotSharing(availableSlotsByGeoLocation.keySet());
@@ -417,9 +445,8 @@ public class JobGraph implements Serializable {
 				unsetSlotSharing();
 			}
 
-			if (model.isSolved()) {
-				System.out.println("Model solved in: " + solution.getModelExecutionTime() + " seconds");
-				LOG.info("Model solved");
+			if (solution != null) {
+				LOG.info("Model solved in {} seconds", solution.getModelExecutionTime());
 				LOG.info("\n------------------------------");
 				LOG.info("Available slots:\n");
 				LOG.info(GRBUtils.mapToString(availableSlotsByGeoLocation));
@@ -429,16 +456,54 @@ public class JobGraph implements Serializable {
 				LOG.info("Model solution\n" + solution.toString());
 				LOG.info("------------------------------\n");
 
-				//applying parallelism decisions
-				for (JobVertex jobVertex : this.getVertices()) {
-					jobVertex.setParallelism(solution.getParallelism(jobVertex));
-				}
+				applyParallelism();
+				SubtaskGeoLocationAssigner.assign(this, Collections.emptyMap());
 			}
-		} catch (GRBException e) {
-			e.printStackTrace();
+		} catch (FlinkException e) {
+			LOG.error("Could not solve the optimisation model", e);
 		}
 	}
 
+	/**
+	 * Replaces the solution of this graph with one solved elsewhere, e.g. a new placement of the running job, and
+	 * applies its parallelism decisions and its subtasks per location. The solution must place the vertices of this graph.
+	 *
+	 * @param newSolution the solution to apply
+	 */
+	public void applySolution(OptimisationModelSolution newSolution) {
+		this.solution = checkNotNull(newSolution);
+		applyParallelism();
+		SubtaskGeoLocationAssigner.assign(this, Collections.emptyMap());
+	}
+
+	private void applyParallelism() {
+		for (JobVertex jobVertex : this.getVertices()) {
+			jobVertex.setParallelism(solution.getParallelism(jobVertex));
+		}
+	}
+
+	/**
+	 * Solve the optimisation model associated with this job graph on the given executor, without blocking the caller.
+	 * The solution is retrievable with {@link #getSolution()} once the returned future completes.
+	 *
+	 * @param availableSlotsByGeoLocation the slots to schedule this graph on, grouped by geo location
+	 * @param bandwidthProvider the provider for bandwidths between locations
+	 * @param solutionCache the cache of the solutions of previous jobs, or null to always solve the model
+	 * @param solverExecutor the executor to run the solver on
+	 * @return a future completed with the solution, or with null if the model could not be solved
+	 */
+	public CompletableFuture<OptimisationModelSolution> solveOptimisationModelAsync(
+			BandwidthProvider bandwidthProvider,
+			Map<GeoLocation, Integer> availableSlotsByGeoLocation,
+			@Nullable OptimisationModelSolutionCache solutionCache,
+			Executor solverExecutor) {
+
+		return CompletableFuture.supplyAsync(() -> {
+			solveOptimisationModel(bandwidthProvider, availableSlotsByGeoLocation, solutionCache);
+			return solution;
+		}, solverExecutor);
+	}
+
 	private void setSlotSharing(Set<GeoLocation> locations) {
 		if (this.solution == null) {
 			LOG.warn("You shouldn't be calling this before solving the model");
@@ -130,6 +130,12 @@ public class JobVertex implements java.io.Serializable {
 	 * */
 	private String geoLocationKey;
 
+	/**
+	 * The {@link GeoLocation} each subtask should run at, by subtask index, or null if the subtasks can run at any of
+	 * the locations of the vertex.
+	 * */
+	private List<GeoLocation> subtaskGeoLocations;
+
 	// --------------------------------------------------------------------------------------------
 
 	/**
@@ -497,6 +503,24 @@ public class JobVertex implements java.io.Serializable {
 		this.geoLocationKey = geoLocationKey;
 	}
 
+	/**
+	 * @return the {@link GeoLocation} the given subtask should run at, or null if it can run at any of the locations
+	 * of this vertex
+	 */
+	public GeoLocation getSubtaskGeoLocation(int subtaskIndex) {
+		return subtaskGeoLocations != null && subtaskIndex < subtaskGeoLocations.size() ?
+			subtaskGeoLocations.get(subtaskIndex) : null;
+	}
+
+	/**
+	 * Sets the {@link GeoLocation} each subtask should run at, by subtask index, e.g. the location the solution of the
+	 * placement model assigns it, or the one producing the traffic of the key-groups it owns. Null lets the subtasks run
+	 * at any of the locations of this vertex.
+	 */
+	public void setSubtaskGeoLocations(List<GeoLocation> subtaskGeoLocations) {
+		this.subtaskGeoLocations = subtaskGeoLocations == null ? null : new ArrayList<>(subtaskGeoLocations);
+	}
+
 	public void updateCoLocationGroup(CoLocationGroup group) {
 		this.coLocationGroup = group;
 	}
@@ -6,4 +6,11 @@ public interface BandwidthProvider {
 	double getBandwidth(GeoLocation from, GeoLocation to);
 
 	boolean hasBandwidth(GeoLocation locationFrom, GeoLocation locationTo);
+
+	/**
+	 * @return the round trip time between two locations in milliseconds, or a negative value if unknown
+	 */
+	default double getRoundTripTime(GeoLocation from, GeoLocation to) {
+		return -1;
+	}
 }
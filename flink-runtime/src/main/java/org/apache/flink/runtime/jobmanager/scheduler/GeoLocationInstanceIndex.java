@@ -0,0 +1,184 @@
+package org.apache.flink.runtime.jobmanager.scheduler;
+
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.clusterframework.types.ResourceID;
+import org.apache.flink.runtime.instance.Instance;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A lock-free index of the {@link Instance}s known to a {@link GeoScheduler}, grouped by {@link GeoLocation}.
+ *
+ * <p>Every location keeps a counter of its available slots, so that the slots by location can be read without
+ * iterating the instances. The counter is the sum of the last known number of available slots of each instance at
+ * the location, and it is brought up to date by {@link #refresh(ResourceID)} whenever a slot of an instance is
+ * allocated or returned.
+ *
+ * <p>All the methods can be called concurrently. Readers may see a value that is slightly out of date, but the
+ * counters never drift from the instances they refer to.
+ */
+class GeoLocationInstanceIndex {
+
+	private final ConcurrentMap<GeoLocation, LocationEntry> entries = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<ResourceID, Instance> instancesById = new ConcurrentHashMap<>();
+
+	/**
+	 * Adds an instance to the index.
+	 *
+	 * @return false if the instance was already indexed
+	 */
+	boolean add(Instance instance) {
+		GeoLocation location = getLocation(instance);
+		boolean[] added = new boolean[1];
+
+		entries.compute(location, (ignored, entry) -> {
+			LocationEntry out = entry == null ? new LocationEntry() : entry;
+			added[0] = out.add(instance);
+			return out;
+		});
+
+		if (added[0]) {
+			instancesById.put(instance.getTaskManagerID(), instance);
+		}
+
+		return added[0];
+	}
+
+	/**
+	 * Removes an instance from the index, dropping its location when it was the last instance there.
+	 *
+	 * @return false if the instance was not indexed
+	 */
+	boolean remove(Instance instance) {
+		GeoLocation location = getLocation(instance);
+		boolean[] removed = new boolean[1];
+
+		instancesById.remove(instance.getTaskManagerID(), instance);
+
+		entries.computeIfPresent(location, (ignored, entry) -> {
+			removed[0] = entry.remove(instance);
+			return entry.isEmpty() ? null : entry;
+		});
+
+		return removed[0];
+	}
+
+	/**
+	 * Updates the available slots counter of the location of the given instance. Does nothing if the instance is
+	 * not indexed.
+	 */
+	void refresh(Instance instance) {
+		LocationEntry entry = entries.get(getLocation(instance));
+		if (entry != null) {
+			entry.refresh(instance);
+		}
+	}
+
+	/**
+	 * Updates the available slots counter of the location of the instance with the given id, if indexed.
+	 */
+	void refresh(ResourceID instanceId) {
+		Instance instance = instancesById.get(instanceId);
+		if (instance != null) {
+			refresh(instance);
+		}
+	}
+
+	boolean contains(GeoLocation location) {
+		return entries.containsKey(location);
+	}
+
+	/**
+	 * @return the instances at the given location, an empty set if the location is unknown
+	 */
+	Set<Instance> getInstances(GeoLocation location) {
+		LocationEntry entry = entries.get(location);
+		return entry == null ? Collections.emptySet() : Collections.unmodifiableSet(entry.availableSlots.keySet());
+	}
+
+	/**
+	 * @return a snapshot of the available slots at each location, in O(locations)
+	 */
+	Map<GeoLocation, Integer> getAvailableSlots() {
+		Map<GeoLocation, Integer> out = new HashMap<>();
+		for (Map.Entry<GeoLocation, LocationEntry> entry : entries.entrySet()) {
+			out.put(entry.getKey(), entry.getValue().availableSlotsCount.get());
+		}
+		return out;
+	}
+
+	/**
+	 * @return a snapshot of the instances at each location
+	 */
+	Map<GeoLocation, Set<Instance>> getInstancesByLocation() {
+		Map<GeoLocation, Set<Instance>> out = new HashMap<>();
+		for (Map.Entry<GeoLocation, LocationEntry> entry : entries.entrySet()) {
+			out.put(entry.getKey(), Collections.unmodifiableSet(new HashSet<>(entry.getValue().availableSlots.keySet())));
+		}
+		return out;
+	}
+
+	void clear() {
+		entries.clear();
+		instancesById.clear();
+	}
+
+	private static GeoLocation getLocation(Instance instance) {
+		return instance.getTaskManagerLocation().getGeoLocation();
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * The instances at a location, with the number of available slots each had when last seen.
+	 */
+	private static final class LocationEntry {
+
+		private final ConcurrentMap<Instance, Integer> availableSlots = new ConcurrentHashMap<>();
+
+		private final AtomicInteger availableSlotsCount = new AtomicInteger();
+
+		boolean add(Instance instance) {
+			boolean[] added = new boolean[1];
+
+			availableSlots.computeIfAbsent(instance, ignored -> {
+				int slots = instance.getNumberOfAvailableSlots();
+				availableSlotsCount.addAndGet(slots);
+				added[0] = true;
+				return slots;
+			});
+
+			return added[0];
+		}
+
+		boolean remove(Instance instance) {
+			Integer slots = availableSlots.remove(instance);
+			if (slots != null) {
+				availableSlotsCount.addAndGet(-slots);
+				return true;
+			}
+			return false;
+		}
+
+		void refresh(Instance instance) {
+			// the per-instance computation is atomic, so concurrent refreshes of an instance apply their deltas once
+			availableSlots.computeIfPresent(instance, (ignored, lastSeen) -> {
+				int slots = instance.isAlive() ? instance.getNumberOfAvailableSlots() : 0;
+				availableSlotsCount.addAndGet(slots - lastSeen);
+				return slots;
+			});
+		}
+
+		boolean isEmpty() {
+			return availableSlots.isEmpty();
+		}
+	}
+}
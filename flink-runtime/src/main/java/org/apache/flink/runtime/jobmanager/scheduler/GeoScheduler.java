@@ -1,24 +1,40 @@
 package org.apache.flink.runtime.jobmanager.scheduler;
 
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.api.common.JobID;
 import org.apache.flink.api.common.time.Time;
 import org.apache.flink.runtime.clusterframework.types.GeoLocation;
 import org.apache.flink.runtime.clusterframework.types.SlotProfile;
 import org.apache.flink.runtime.concurrent.FutureUtils;
 import org.apache.flink.runtime.executiongraph.ExecutionGraph;
+import org.apache.flink.runtime.executiongraph.ExecutionJobVertex;
+import org.apache.flink.runtime.executiongraph.GeoPlacementStatistics;
+import org.apache.flink.runtime.executiongraph.HeuristicOptimisationModelSolver;
+import org.apache.flink.runtime.executiongraph.JobStatusListener;
+import org.apache.flink.runtime.executiongraph.KeyGroupLocalityStore;
+import org.apache.flink.runtime.executiongraph.OperatorProfileStore;
+import org.apache.flink.runtime.executiongraph.OptimisationModelParameters;
 import org.apache.flink.runtime.executiongraph.OptimisationModelSolution;
+import org.apache.flink.runtime.executiongraph.OptimisationModelSolutionCache;
+import org.apache.flink.runtime.executiongraph.OptimisationModelSolver;
 import org.apache.flink.runtime.instance.Instance;
 import org.apache.flink.runtime.instance.InstanceDiedException;
 import org.apache.flink.runtime.instance.SharedSlot;
 import org.apache.flink.runtime.instance.SimpleSlot;
 import org.apache.flink.runtime.instance.SlotSharingGroupAssignment;
+import org.apache.flink.runtime.jobgraph.JobStatus;
 import org.apache.flink.runtime.jobgraph.JobVertex;
 import org.apache.flink.runtime.jobmaster.LogicalSlot;
 import org.apache.flink.runtime.jobmaster.SlotRequestId;
 import org.apache.flink.runtime.taskmanager.TaskManagerLocation;
+import org.apache.flink.util.FlinkException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -26,7 +42,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This scheduler allows Flink to make better allocation decisions when the task managers are executed in geo-distributed data centers
@@ -35,9 +53,21 @@ public class GeoScheduler extends Scheduler {
 
 	private static Logger LOG = LoggerFactory.getLogger(GeoScheduler.class);
 
-	private Map<GeoLocation, Set<Instance>> allInstancesByGeoLocation = new HashMap<>();
-	private Map<ExecutionGraph, OptimisationModelSolution> solutions = new HashMap<>();
+	/** The instances by geo location, updated by the instance callbacks and read by the scheduling threads. */
+	private final GeoLocationInstanceIndex instancesByGeoLocation = new GeoLocationInstanceIndex();
+	/** The solutions of the live execution graphs, at most one per job. */
+	private final Map<JobID, GraphSolution> solutions = new ConcurrentHashMap<>();
 	private BandwidthProvider bandwidthProvider;
+	private OptimisationModelSolutionCache solutionCache;
+	private OptimisationModelParameters modelParameters = OptimisationModelParameters.defaultParameters();
+	@Nullable
+	private OperatorProfileStore operatorProfileStore;
+	@Nullable
+	private KeyGroupLocalityStore keyGroupLocalityStore;
+
+	/** Re-places the vertices affected by lost or full locations, it must take milliseconds. */
+	private final OptimisationModelSolver repairSolver = new HeuristicOptimisationModelSolver();
+	private final AtomicLong numberOfRepairs = new AtomicLong();
 
 	/**
 	 * Creates a new scheduler.
@@ -64,11 +94,14 @@ public class GeoScheduler extends Scheduler {
 	public void newInstanceAvailable(Instance instance) {
 		super.newInstanceAvailable(instance);
 
-		GeoLocation instanceLocation = getInstanceLocation(instance);
+		instancesByGeoLocation.add(instance);
+	}
+
+	@Override
+	public void newSlotAvailable(Instance instance) {
+		super.newSlotAvailable(instance);
 
-		Set<Instance> instanceSet = allInstancesByGeoLocation.getOrDefault(instanceLocation, new HashSet<>());
-		instanceSet.add(instance);
-		allInstancesByGeoLocation.put(instanceLocation, instanceSet);
+		instancesByGeoLocation.refresh(instance);
 	}
 
 	@Override
@@ -77,56 +110,31 @@ public class GeoScheduler extends Scheduler {
 			throw new NullPointerException();
 		}
 
-		GeoLocation instanceLocation = getInstanceLocation(instance);
-
-		Set<Instance> instanceSet = allInstancesByGeoLocation.get(instanceLocation);
-		if (instanceSet != null) {
-			instanceSet.remove(instance);
-			if (instanceSet.isEmpty()) {
-				allInstancesByGeoLocation.remove(instanceLocation);
-			}
-		}
+		instancesByGeoLocation.remove(instance);
 
 		super.instanceDied(instance);
 	}
 
 	@Override
 	public void shutdown() {
-		allInstancesByGeoLocation.clear();
+		instancesByGeoLocation.clear();
+		solutions.clear();
 		super.shutdown();
 	}
 
-	private Iterable<GeoLocation> getAllGeoLocations() {
-		return this.allInstancesByGeoLocation.keySet();
-	}
-
-	private GeoLocation getInstanceLocation(Instance instance) {
-			return instance.getTaskManagerLocation().getGeoLocation();
-	}
-
 	/**
-	 * Note that, due to asynchrony, the value returned may not be completely accurate.
+	 * Reads the per-location slot counters, without iterating the instances or taking the scheduler lock.
+	 *
+	 * <p>Note that, due to asynchrony, the value returned may not be completely accurate.
 	 */
 	public Map<GeoLocation, Integer> calculateAvailableSlotsByGeoLocation() {
-		Map<GeoLocation, Integer> out = new HashMap<>();
-
-		for (Map.Entry<GeoLocation, Set<Instance>> locationAndInstances : allInstancesByGeoLocation.entrySet()) {
-			int slots = 0;
-
-			for (Instance instance : locationAndInstances.getValue()) {
-				slots += instance.getNumberOfAvailableSlots();
-			}
-
-			out.put(locationAndInstances.getKey(), slots);
-		}
-
-		return out;
+		return instancesByGeoLocation.getAvailableSlots();
 	}
 
 	@Override
 	public CompletableFuture<LogicalSlot> allocateSlot(SlotRequestId slotRequestId, ScheduledUnit task, boolean allowQueued, SlotProfile slotProfile, Time allocationTimeout) {
 		ExecutionGraph graph = task.getTaskToExecute().getVertex().getExecutionGraph();
-		OptimisationModelSolution solution = solutions.get(graph);
+		OptimisationModelSolution solution = getGraphSolution(graph);
 		if(solution == null) {
 			throw new IllegalArgumentException("Please solve the placement problem for this graph first");
 		}
@@ -139,36 +147,45 @@ public class GeoScheduler extends Scheduler {
 			throw new IllegalArgumentException("The placement for this job vertex was not found. This should never happen");
 		}
 
+		if(!isKnown(whereToPlace)) {
+			//some locations of the solution are lost, re-placing the vertices that were there
+			solution = repairGraphSolution(graph, solution, null);
+			whereToPlace = solution == null ? null : solution.getPlacement(jobVertex);
 
-		ArrayList<TaskManagerLocation> locationsToPlaceIn = new ArrayList<>();
-
-		for(GeoLocation location : whereToPlace) {
-			if(!allInstancesByGeoLocation.containsKey(location)) {
+			if(whereToPlace == null || !isKnown(whereToPlace)) {
 				return FutureUtils.completedExceptionally(new NoResourceAvailableException("The geo location specified in " +
 					"the placement problem's solution is unknown to this scheduler"));
 			}
-
-			for (Instance instance : allInstancesByGeoLocation.get(location)) {
-				locationsToPlaceIn.add(instance.getTaskManagerLocation());
-			}
 		}
 
 		SimpleSlot slotToUse = null;
 
-		//try to find a shared slot
-		if(jobVertex.getSlotSharingGroup() != null) {
-			slotToUse = scheduleWithSlotSharing(task, whereToPlace, locationsToPlaceIn);
+		//subtasks assigned to a location by the solution, or owning its key-groups, are pinned to it, if possible
+		GeoLocation subtaskLocation = jobVertex.getSubtaskGeoLocation(task.getTaskToExecute().getParallelSubtaskIndex());
+		if(subtaskLocation != null && whereToPlace.contains(subtaskLocation)) {
+			slotToUse = allocateSlotAt(task, jobVertex, Collections.singletonList(subtaskLocation));
+			if(slotToUse == null) {
+				LOG.info("No slot at the location {} of {}, placing it at {}", subtaskLocation, task, whereToPlace);
+			}
+		}
+
+		if(slotToUse == null) {
+			slotToUse = allocateSlotAt(task, jobVertex, whereToPlace);
 		}
 
 		if(slotToUse == null) {
-			//still null, so we didn't find a shared slot, find another slot
-			slotToUse = super.getFreeSlotForTask(task.getTaskToExecute().getVertex(), locationsToPlaceIn, true);
-			if(slotToUse != null) {
-				LOG.info("Scheduled vertex {} without slot sharing at slot {}", task, slotToUse);
+			//the locations of this vertex are full, re-placing it while keeping the other vertices where they are
+			OptimisationModelSolution repaired = repairGraphSolution(graph, solution, jobVertex);
+			List<GeoLocation> repairedPlacement = repaired == null ? null : repaired.getPlacement(jobVertex);
+
+			if(repairedPlacement != null && !repairedPlacement.equals(whereToPlace) && isKnown(repairedPlacement)) {
+				whereToPlace = repairedPlacement;
+				slotToUse = allocateSlotAt(task, jobVertex, whereToPlace);
 			}
 		}
 
 		if(slotToUse != null) {
+			instancesByGeoLocation.refresh(slotToUse.getTaskManagerID());
 			if(!whereToPlace.contains(slotToUse.getTaskManagerLocation().getGeoLocation())) {
 				throw new RuntimeException("GeoScheduler is not respecting the allocation");
 			}
@@ -176,10 +193,151 @@ public class GeoScheduler extends Scheduler {
 		} else {
 			//we weren't able to schedule respecting the model solution, delegate to standard scheduler
 			LOG.info("GeoScheduler failure for vertex {}, delegating", task);
-			return super.allocateSlot(slotRequestId, task, allowQueued, slotProfile, allocationTimeout);
+			GeoPlacementStatistics statistics = graph.getGeoPlacementStatistics();
+			if (statistics != null) {
+				statistics.recordFallback();
+			}
+			CompletableFuture<LogicalSlot> delegated = super.allocateSlot(slotRequestId, task, allowQueued, slotProfile, allocationTimeout);
+			delegated.thenAccept(slot -> instancesByGeoLocation.refresh(slot.getTaskManagerLocation().getResourceID()));
+			return delegated;
+		}
+
+
+	}
+
+	private boolean isKnown(List<GeoLocation> locations) {
+		for (GeoLocation location : locations) {
+			if (!instancesByGeoLocation.contains(location)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private SimpleSlot allocateSlotAt(ScheduledUnit task, JobVertex jobVertex, List<GeoLocation> whereToPlace) {
+		ArrayList<TaskManagerLocation> locationsToPlaceIn = new ArrayList<>();
+
+		for(GeoLocation location : whereToPlace) {
+			for (Instance instance : instancesByGeoLocation.getInstances(location)) {
+				locationsToPlaceIn.add(instance.getTaskManagerLocation());
+			}
 		}
 
+		SimpleSlot slotToUse = null;
+
+		// the slots are taken from the instances through the base scheduler's structures, which are guarded by its lock
+		synchronized (globalLock) {
+			//try to find a shared slot
+			if(jobVertex.getSlotSharingGroup() != null) {
+				slotToUse = scheduleWithSlotSharing(task, whereToPlace, locationsToPlaceIn);
+			}
 
+			if(slotToUse == null) {
+				//still null, so we didn't find a shared slot, find another slot
+				slotToUse = super.getFreeSlotForTask(task.getTaskToExecute().getVertex(), locationsToPlaceIn, true);
+				if(slotToUse != null) {
+					LOG.info("Scheduled vertex {} without slot sharing at slot {}", task, slotToUse);
+				}
+			}
+		}
+
+		return slotToUse;
+	}
+
+	/**
+	 * Re-solves the placement of a graph only for the vertices whose placement is no longer valid: the ones placed
+	 * at locations that are no longer available, and the given full vertex. The placement of all the other vertices
+	 * is kept fixed, and the repaired vertices are placed with the slots currently available, counting the shared slots
+	 * of their slot sharing groups that have room for them. The graph is already deployed with its parallelism, so the
+	 * repaired solution keeps the parallelism of the graph's vertices.
+	 *
+	 * @param fullVertex a vertex whose locations have no slot left, or null
+	 * @return the repaired solution, that replaces the solution of the graph, or null if it could not be repaired
+	 */
+	@VisibleForTesting
+	@Nullable
+	OptimisationModelSolution repairGraphSolution(ExecutionGraph graph, OptimisationModelSolution solution, @Nullable JobVertex fullVertex) {
+		long start = System.nanoTime();
+
+		Map<GeoLocation, Integer> slots = new HashMap<>(calculateAvailableSlotsByGeoLocation());
+
+		List<JobVertex> vertices = new ArrayList<>();
+		Map<JobVertex, Integer> deployedParallelism = new HashMap<>();
+		for (ExecutionJobVertex executionJobVertex : graph.getVerticesTopologically()) {
+			vertices.add(executionJobVertex.getJobVertex());
+			deployedParallelism.put(executionJobVertex.getJobVertex(), executionJobVertex.getParallelism());
+		}
+
+		Map<JobVertex, List<GeoLocation>> fixedPlacement = new HashMap<>();
+		List<JobVertex> repairedVertices = new ArrayList<>();
+		for (JobVertex vertex : vertices) {
+			List<GeoLocation> placement = solution.getPlacement(vertex);
+			if (vertex != fullVertex && placement != null && !placement.isEmpty() && slots.keySet().containsAll(placement)) {
+				fixedPlacement.put(vertex, placement);
+			} else {
+				repairedVertices.add(vertex);
+			}
+		}
+
+		if (repairedVertices.isEmpty()) {
+			return solution;
+		}
+
+		for (Map.Entry<GeoLocation, Integer> sharedSlots : countSharedSlots(repairedVertices).entrySet()) {
+			slots.computeIfPresent(sharedSlots.getKey(), (ignored, freeSlots) -> freeSlots + sharedSlots.getValue());
+		}
+
+		OptimisationModelSolution repaired;
+		try {
+			repaired = repairSolver.solve(vertices, slots.keySet(), bandwidthProvider, slots, modelParameters,
+				solution.getPlacementMap(), fixedPlacement);
+		} catch (FlinkException e) {
+			LOG.warn("Could not repair the placement of job {}", graph.getJobID(), e);
+			return null;
+		}
+
+		if (repaired == null) {
+			LOG.info("The placement of job {} has no feasible repair with the available slots", graph.getJobID());
+			return null;
+		}
+
+		// the subtasks of the deployed vertices are spread over the repaired locations, and the costs evaluated again
+		OptimisationModelSolution deployedRepaired = HeuristicOptimisationModelSolver.evaluate(
+			repaired.withParallelism(deployedParallelism), vertices, slots.keySet(), bandwidthProvider, slots, modelParameters);
+
+		numberOfRepairs.incrementAndGet();
+		GeoPlacementStatistics statistics = graph.getGeoPlacementStatistics();
+		if (statistics != null) {
+			statistics.recordRepair(deployedRepaired);
+		}
+		LOG.info("Re-placed {} of {} vertices of job {} in {} ms", repairedVertices.size(),
+			vertices.size(), graph.getJobID(), (System.nanoTime() - start) / 1_000_000);
+
+		// a newer graph of the same job keeps its own solution
+		solutions.computeIfPresent(
+			graph.getJobID(),
+			(ignored, graphSolution) -> graphSolution.executionGraph == graph ? new GraphSolution(graph, deployedRepaired) : graphSolution);
+
+		return deployedRepaired;
+	}
+
+	/**
+	 * Counts, at each location, the shared slots that have room for a subtask of every given vertex: the vertices
+	 * of a slot sharing group can be placed in the slots the group already holds, besides the free ones.
+	 */
+	private static Map<GeoLocation, Integer> countSharedSlots(List<JobVertex> vertices) {
+		Map<GeoLocation, Integer> sharedSlots = null;
+		for (JobVertex vertex : vertices) {
+			Map<GeoLocation, Integer> vertexSharedSlots = vertex.getSlotSharingGroup() == null ? Collections.emptyMap() :
+				vertex.getSlotSharingGroup().getTaskAssignment().getNumberOfAvailableSlotsForGroupByGeoLocation(vertex.getID());
+
+			if (sharedSlots == null) {
+				sharedSlots = new HashMap<>(vertexSharedSlots);
+			} else {
+				sharedSlots.replaceAll((location, count) -> Math.min(count, vertexSharedSlots.getOrDefault(location, 0)));
+			}
+		}
+		return sharedSlots == null ? Collections.emptyMap() : sharedSlots;
 	}
 
 	private SimpleSlot scheduleWithSlotSharing(ScheduledUnit task, List<GeoLocation> whereToPlace, ArrayList<TaskManagerLocation> locationsToPlaceIn) {
@@ -195,7 +353,7 @@ public class GeoScheduler extends Scheduler {
 			Set<Instance> instances = new HashSet<>();
 
 			for (GeoLocation location : whereToPlace) {
-				instances.addAll(allInstancesByGeoLocation.get(location));
+				instances.addAll(instancesByGeoLocation.getInstances(location));
 			}
 			Iterator<Instance> iterator = instances.iterator();
 
@@ -221,13 +379,74 @@ public class GeoScheduler extends Scheduler {
 		return slotToUse;
 	}
 
+	/**
+	 * @return a snapshot of the instances at each geo location
+	 */
 	public Map<GeoLocation, Set<Instance>> getAllInstancesByGeoLocation() {
-		return allInstancesByGeoLocation;
+		return instancesByGeoLocation.getInstancesByLocation();
 	}
 
 
+	/**
+	 * Sets the placement solution of the given graph, replacing the solution of any previous graph of the same job.
+	 * The solution is removed when the graph reaches a terminal state.
+	 */
 	public void addGraphSolution(ExecutionGraph executionGraph, OptimisationModelSolution solution) {
-		solutions.put(executionGraph, solution);
+		GraphSolution previous = solutions.put(executionGraph.getJobID(), new GraphSolution(executionGraph, solution));
+
+		if (previous == null || previous.executionGraph != executionGraph) {
+			if (previous != null) {
+				LOG.debug("Replaced the placement solution of a previous execution graph of job {}", executionGraph.getJobID());
+			}
+			executionGraph.registerJobStatusListener(new SolutionEvictingJobStatusListener(executionGraph));
+		}
+	}
+
+	/**
+	 * Removes the placement solution of the given graph, if it has not been replaced by a newer graph of the same job.
+	 */
+	public void removeGraphSolution(ExecutionGraph executionGraph) {
+		solutions.computeIfPresent(
+			executionGraph.getJobID(),
+			(ignored, graphSolution) -> graphSolution.executionGraph == executionGraph ? null : graphSolution);
+	}
+
+	@VisibleForTesting
+	OptimisationModelSolution getGraphSolution(ExecutionGraph executionGraph) {
+		GraphSolution graphSolution = solutions.get(executionGraph.getJobID());
+		return graphSolution == null || graphSolution.executionGraph != executionGraph ? null : graphSolution.solution;
+	}
+
+	/**
+	 * @return the number of placement solutions held for live execution graphs
+	 */
+	public int getNumberOfGraphSolutions() {
+		return solutions.size();
+	}
+
+	/**
+	 * @return a rough estimate of the heap used by the held placement solutions, in bytes
+	 */
+	public long getGraphSolutionsMemoryFootprint() {
+		long bytes = 0;
+		for (GraphSolution graphSolution : solutions.values()) {
+			bytes += graphSolution.solution.estimateMemoryFootprint();
+		}
+		return bytes;
+	}
+
+	/**
+	 * @return how many times the placement of a graph has been repaired after the loss of slots
+	 */
+	public long getNumberOfRepairs() {
+		return numberOfRepairs.get();
+	}
+
+	/**
+	 * Sets the parameters used to repair the placement of the graphs.
+	 */
+	public void setModelParameters(OptimisationModelParameters modelParameters) {
+		this.modelParameters = modelParameters;
 	}
 
 	public BandwidthProvider getBandwidthProvider() {
@@ -237,4 +456,70 @@ public class GeoScheduler extends Scheduler {
 	public void setBandwidthProvider(BandwidthProvider bandwidthProvider) {
 		this.bandwidthProvider = bandwidthProvider;
 	}
+
+	/**
+	 * @return the cache of the placement solutions of the jobs scheduled by this scheduler, or null if disabled
+	 */
+	public OptimisationModelSolutionCache getSolutionCache() {
+		return solutionCache;
+	}
+
+	public void setSolutionCache(OptimisationModelSolutionCache solutionCache) {
+		this.solutionCache = solutionCache;
+	}
+
+	/**
+	 * @return the measured profiles of the vertices of the jobs scheduled by this scheduler, or null if disabled
+	 */
+	@Nullable
+	public OperatorProfileStore getOperatorProfileStore() {
+		return operatorProfileStore;
+	}
+
+	public void setOperatorProfileStore(@Nullable OperatorProfileStore operatorProfileStore) {
+		this.operatorProfileStore = operatorProfileStore;
+	}
+
+	/**
+	 * @return the traffic of the key-groups of the jobs scheduled by this scheduler, or null if disabled
+	 */
+	@Nullable
+	public KeyGroupLocalityStore getKeyGroupLocalityStore() {
+		return keyGroupLocalityStore;
+	}
+
+	public void setKeyGroupLocalityStore(@Nullable KeyGroupLocalityStore keyGroupLocalityStore) {
+		this.keyGroupLocalityStore = keyGroupLocalityStore;
+	}
+
+	// ------------------------------------------------------------------------
+
+	private static final class GraphSolution {
+		private final ExecutionGraph executionGraph;
+		private final OptimisationModelSolution solution;
+
+		GraphSolution(ExecutionGraph executionGraph, OptimisationModelSolution solution) {
+			this.executionGraph = executionGraph;
+			this.solution = solution;
+		}
+	}
+
+	/**
+	 * Drops the solution of a graph once it is finished, cancelled, failed or suspended. Graphs restarting after a
+	 * failure keep their solution.
+	 */
+	private final class SolutionEvictingJobStatusListener implements JobStatusListener {
+		private final ExecutionGraph executionGraph;
+
+		SolutionEvictingJobStatusListener(ExecutionGraph executionGraph) {
+			this.executionGraph = executionGraph;
+		}
+
+		@Override
+		public void jobStatusChanges(JobID jobId, JobStatus newJobStatus, long timestamp, Throwable error) {
+			if (newJobStatus.isTerminalState()) {
+				removeGraphSolution(executionGraph);
+			}
+		}
+	}
 }
@@ -0,0 +1,205 @@
+package org.apache.flink.runtime.jobmanager.scheduler;
+
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.instance.Instance;
+import org.apache.flink.runtime.io.network.netty.LinkMeasurement;
+import org.apache.flink.runtime.taskmanager.TaskManagerLocation;
+import org.apache.flink.runtime.util.clock.Clock;
+import org.apache.flink.runtime.util.clock.SystemClock;
+import org.apache.flink.util.Preconditions;
+
+import java.net.InetSocketAddress;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link BandwidthProvider} built from the throughput and round trip times the TaskManagers measure on their
+ * network connections.
+ *
+ * <p>The bandwidth of a link is a decayed maximum of the throughputs observed on it: links are often not saturated,
+ * so a single low throughput doesn't mean a low capacity, while old peaks are forgotten with the given half life, so
+ * that a congested link is reported below its nominal capacity. Round trip times are averaged with the same decay.
+ * The fallback provider, usually the bandwidths file, only answers for the links without a recent measurement: the
+ * bandwidth and the round trip time of a link expire separately, after {@link #EXPIRATION_HALF_LIVES} half lives
+ * without a positive throughput or a round trip time, so that a link left idle by the placement gets its nominal
+ * capacity back instead of being avoided for good.
+ *
+ * <p>Bandwidths and round trip times are rounded to two significant digits, so that small fluctuations don't change
+ * the placement of the jobs or the fingerprint of the cluster.
+ *
+ * <p>This class is thread-safe: measurements are reported by the JobManager actor while the models are solved by
+ * other threads.
+ */
+public class MeasuredBandwidthProvider implements BandwidthProvider {
+
+	static final int EXPIRATION_HALF_LIVES = 10;
+
+	private final BandwidthProvider fallback;
+
+	private final long halfLifeMillis;
+
+	private final Clock clock;
+
+	private final Map<GeoLocation, Map<GeoLocation, LinkEstimate>> estimates = new ConcurrentHashMap<>();
+
+	public MeasuredBandwidthProvider(BandwidthProvider fallback, long halfLifeMillis) {
+		this(fallback, halfLifeMillis, SystemClock.getInstance());
+	}
+
+	MeasuredBandwidthProvider(BandwidthProvider fallback, long halfLifeMillis, Clock clock) {
+		Preconditions.checkArgument(halfLifeMillis > 0, "The half life must be positive");
+		this.fallback = Preconditions.checkNotNull(fallback);
+		this.halfLifeMillis = halfLifeMillis;
+		this.clock = Preconditions.checkNotNull(clock);
+	}
+
+	// ------------------------------------------------------------------------
+	//  Measurements
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Reports the measurements of a TaskManager, resolving the remote TaskManagers among the given instances.
+	 * The measured data flows from the remote TaskManagers to the reporting one.
+	 *
+	 * @param reporter the TaskManager that measured the links
+	 * @param instances the registered TaskManagers
+	 */
+	public void reportMeasurements(Instance reporter, Collection<Instance> instances, Collection<LinkMeasurement> measurements) {
+		Map<InetSocketAddress, GeoLocation> locationsByAddress = new HashMap<>();
+		for (Instance instance : instances) {
+			TaskManagerLocation location = instance.getTaskManagerLocation();
+			locationsByAddress.put(new InetSocketAddress(location.address(), location.dataPort()), location.getGeoLocation());
+		}
+
+		GeoLocation to = reporter.getTaskManagerLocation().getGeoLocation();
+
+		for (LinkMeasurement measurement : measurements) {
+			GeoLocation from = locationsByAddress.get(measurement.getRemoteAddress());
+			if (from != null) {
+				report(from, to, measurement.getBytesPerSecond(), measurement.getRoundTripTimeMillis());
+			}
+		}
+	}
+
+	/**
+	 * Reports a measurement of the link between two locations. Links within a location are ignored.
+	 *
+	 * @param bytesPerSecond the throughput observed, ignored if not positive
+	 * @param roundTripTimeMillis the round trip time observed, ignored if negative
+	 */
+	public void report(GeoLocation from, GeoLocation to, double bytesPerSecond, double roundTripTimeMillis) {
+		if (from.equals(to) || (bytesPerSecond <= 0 && roundTripTimeMillis < 0)) {
+			return;
+		}
+
+		long now = nowMillis();
+
+		estimates.computeIfAbsent(from, location -> new ConcurrentHashMap<>())
+			.compute(to, (location, estimate) -> estimate == null ?
+				new LinkEstimate(Math.max(bytesPerSecond, 0), now, roundTripTimeMillis, now) :
+				estimate.update(bytesPerSecond, roundTripTimeMillis, now, halfLifeMillis));
+	}
+
+	// ------------------------------------------------------------------------
+	//  BandwidthProvider
+	// ------------------------------------------------------------------------
+
+	/**
+	 * @return the bandwidth measured on the link, the one of the fallback provider if it has no recent measurement
+	 */
+	@Override
+	public double getBandwidth(GeoLocation from, GeoLocation to) {
+		LinkEstimate estimate = getEstimate(from, to);
+		if (estimate != null && hasMeasuredBandwidth(estimate)) {
+			return roundToSignificantDigits(estimate.bandwidth);
+		} else {
+			return fallback.getBandwidth(from, to);
+		}
+	}
+
+	@Override
+	public boolean hasBandwidth(GeoLocation locationFrom, GeoLocation locationTo) {
+		LinkEstimate estimate = getEstimate(locationFrom, locationTo);
+		return (estimate != null && hasMeasuredBandwidth(estimate)) || fallback.hasBandwidth(locationFrom, locationTo);
+	}
+
+	/**
+	 * @return the measured round trip time between two locations, the one of the fallback provider if it has no
+	 * recent measurement
+	 */
+	@Override
+	public double getRoundTripTime(GeoLocation from, GeoLocation to) {
+		LinkEstimate estimate = getEstimate(from, to);
+		if (estimate == null || estimate.roundTripTimeMillis < 0 || isExpired(estimate.roundTripTimeUpdate)) {
+			return fallback.getRoundTripTime(from, to);
+		}
+		return estimate.roundTripTimeMillis > 0 ? roundToSignificantDigits(estimate.roundTripTimeMillis) : 0;
+	}
+
+	private LinkEstimate getEstimate(GeoLocation from, GeoLocation to) {
+		Map<GeoLocation, LinkEstimate> fromEstimates = estimates.get(from);
+		return fromEstimates == null ? null : fromEstimates.get(to);
+	}
+
+	private boolean hasMeasuredBandwidth(LinkEstimate estimate) {
+		return estimate.bandwidth > 0 && !isExpired(estimate.bandwidthUpdate);
+	}
+
+	private boolean isExpired(long lastUpdate) {
+		return nowMillis() - lastUpdate > EXPIRATION_HALF_LIVES * halfLifeMillis;
+	}
+
+	private long nowMillis() {
+		return clock.relativeTimeNanos() / 1_000_000L;
+	}
+
+	static double roundToSignificantDigits(double value) {
+		double magnitude = Math.pow(10, Math.floor(Math.log10(value)) - 1);
+		return Math.round(value / magnitude) * magnitude;
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * The immutable estimate of a link, replaced at each measurement.
+	 */
+	private static final class LinkEstimate {
+		private final double bandwidth;
+		private final long bandwidthUpdate;
+		private final double roundTripTimeMillis;
+		private final long roundTripTimeUpdate;
+
+		LinkEstimate(double bandwidth, long bandwidthUpdate, double roundTripTimeMillis, long roundTripTimeUpdate) {
+			this.bandwidth = bandwidth;
+			this.bandwidthUpdate = bandwidthUpdate;
+			this.roundTripTimeMillis = roundTripTimeMillis;
+			this.roundTripTimeUpdate = roundTripTimeUpdate;
+		}
+
+		LinkEstimate update(double bytesPerSecond, double newRoundTripTimeMillis, long now, long halfLifeMillis) {
+			double newBandwidth = bandwidth;
+			long newBandwidthUpdate = bandwidthUpdate;
+			if (bytesPerSecond > 0) {
+				newBandwidth = Math.max(bandwidth * decay(bandwidthUpdate, now, halfLifeMillis), bytesPerSecond);
+				newBandwidthUpdate = now;
+			}
+
+			double newRoundTripTime = roundTripTimeMillis;
+			long newRoundTripTimeUpdate = roundTripTimeUpdate;
+			if (newRoundTripTimeMillis >= 0) {
+				double decay = decay(roundTripTimeUpdate, now, halfLifeMillis);
+				newRoundTripTime = roundTripTimeMillis < 0 ?
+					newRoundTripTimeMillis : roundTripTimeMillis * decay + newRoundTripTimeMillis * (1 - decay);
+				newRoundTripTimeUpdate = now;
+			}
+
+			return new LinkEstimate(newBandwidth, newBandwidthUpdate, newRoundTripTime, newRoundTripTimeUpdate);
+		}
+
+		private static double decay(long lastUpdate, long now, long halfLifeMillis) {
+			return Math.pow(0.5, (double) (now - lastUpdate) / halfLifeMillis);
+		}
+	}
+}
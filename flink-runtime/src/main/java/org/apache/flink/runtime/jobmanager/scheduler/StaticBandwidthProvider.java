@@ -1,20 +1,84 @@
 package org.apache.flink.runtime.jobmanager.scheduler;
 
 import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.OptimisationModelOptions;
 import org.apache.flink.runtime.clusterframework.types.GeoLocation;
 import org.apache.flink.types.TwoKeysMap;
 import org.apache.flink.types.TwoKeysMultiMap;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
 public class StaticBandwidthProvider implements BandwidthProvider {
 
-	public static StaticBandwidthProvider fromFile() {
-		return new StaticBandwidthProvider(new TwoKeysMultiMap<>());
+	/**
+	 * Reads the bandwidths from the file set in {@link OptimisationModelOptions#BANDWIDTHS_FILE} and the round trip
+	 * times from the file set in {@link OptimisationModelOptions#ROUND_TRIP_TIMES_FILE}, if any.
+	 */
+	public static StaticBandwidthProvider fromConfiguration(Configuration configuration) throws IOException {
+		String bandwidthsPath = configuration.getString(OptimisationModelOptions.BANDWIDTHS_FILE);
+		String roundTripTimesPath = configuration.getString(OptimisationModelOptions.ROUND_TRIP_TIMES_FILE);
+
+		return new StaticBandwidthProvider(
+			bandwidthsPath != null ? readLinks(bandwidthsPath, "bandwidth") : new TwoKeysMultiMap<>(),
+			roundTripTimesPath != null ? readLinks(roundTripTimesPath, "round trip time") : new TwoKeysMultiMap<>());
+	}
+
+	/**
+	 * Reads the bandwidths from a file with one "from,to,bandwidth" line for each link. Empty lines and lines starting
+	 * with # are skipped.
+	 */
+	public static StaticBandwidthProvider fromFile(String path) throws IOException {
+		return new StaticBandwidthProvider(readLinks(path, "bandwidth"));
+	}
+
+	/**
+	 * Reads a file with one "from,to,value" line for each link. Empty lines and lines starting with # are skipped.
+	 */
+	private static TwoKeysMap<GeoLocation, GeoLocation, Double> readLinks(String path, String valueName) throws IOException {
+		TwoKeysMap<GeoLocation, GeoLocation, Double> links = new TwoKeysMultiMap<>();
+
+		List<String> lines = Files.readAllLines(Paths.get(path), StandardCharsets.UTF_8);
+		for (int i = 0; i < lines.size(); i++) {
+			String line = lines.get(i).trim();
+			if (line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+
+			String[] fields = line.split(",");
+			if (fields.length != 3) {
+				throw new IOException("Line " + (i + 1) + " of " + path + " is not in the \"from,to," + valueName + "\" format: " + line);
+			}
+
+			try {
+				links.put(new GeoLocation(fields[0].trim()), new GeoLocation(fields[1].trim()), Double.parseDouble(fields[2].trim()));
+			} catch (NumberFormatException e) {
+				throw new IOException("Line " + (i + 1) + " of " + path + " has an invalid " + valueName + ": " + line, e);
+			}
+		}
+
+		return links;
 	}
 
 	private final TwoKeysMap<GeoLocation, GeoLocation, Double> bandwidths;
 
+	private final TwoKeysMap<GeoLocation, GeoLocation, Double> roundTripTimes;
+
 	public StaticBandwidthProvider(TwoKeysMap<GeoLocation, GeoLocation, Double> bandwidths) {
+		this(bandwidths, new TwoKeysMultiMap<>());
+	}
+
+	/**
+	 * @param roundTripTimes the round trip times in milliseconds, the links missing from it have an unknown round trip
+	 *                       time unless the reverse link is there
+	 */
+	public StaticBandwidthProvider(TwoKeysMap<GeoLocation, GeoLocation, Double> bandwidths,
+								   TwoKeysMap<GeoLocation, GeoLocation, Double> roundTripTimes) {
 		this.bandwidths = bandwidths;
+		this.roundTripTimes = roundTripTimes;
 	}
 
 	@Override
@@ -30,4 +94,16 @@ public class StaticBandwidthProvider implements BandwidthProvider {
 	public boolean hasBandwidth(GeoLocation locationFrom, GeoLocation locationTo) {
 		return bandwidths.containsKey(locationFrom, locationTo);
 	}
+
+	@Override
+	public double getRoundTripTime(GeoLocation from, GeoLocation to) {
+		// round trips are symmetric
+		if (roundTripTimes.containsKey(from, to)) {
+			return roundTripTimes.get(from, to);
+		} else if (roundTripTimes.containsKey(to, from)) {
+			return roundTripTimes.get(to, from);
+		} else {
+			return -1;
+		}
+	}
 }
@@ -22,6 +22,8 @@ import org.apache.flink.api.common.JobID;
 import org.apache.flink.api.common.restartstrategy.RestartStrategies;
 import org.apache.flink.api.common.time.Time;
 import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.JobManagerOptions;
 import org.apache.flink.core.io.InputSplit;
 import org.apache.flink.core.io.InputSplitAssigner;
 import org.apache.flink.queryablestate.KvStateID;
@@ -38,18 +40,26 @@ import org.apache.flink.runtime.checkpoint.CompletedCheckpoint;
 import org.apache.flink.runtime.checkpoint.TaskStateSnapshot;
 import org.apache.flink.runtime.client.JobExecutionException;
 import org.apache.flink.runtime.clusterframework.types.AllocationID;
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
 import org.apache.flink.runtime.clusterframework.types.ResourceID;
 import org.apache.flink.runtime.concurrent.FutureUtils;
 import org.apache.flink.runtime.execution.ExecutionState;
 import org.apache.flink.runtime.execution.SuppressRestartsException;
+import org.apache.flink.runtime.executiongraph.AdaptivePlacementMonitor;
 import org.apache.flink.runtime.executiongraph.ArchivedExecutionGraph;
+import org.apache.flink.runtime.executiongraph.ChannelBufferTimeouts;
 import org.apache.flink.runtime.executiongraph.Execution;
 import org.apache.flink.runtime.executiongraph.ExecutionAttemptID;
 import org.apache.flink.runtime.executiongraph.ExecutionGraph;
 import org.apache.flink.runtime.executiongraph.ExecutionGraphBuilder;
 import org.apache.flink.runtime.executiongraph.ExecutionJobVertex;
+import org.apache.flink.runtime.executiongraph.IOMetrics;
 import org.apache.flink.runtime.executiongraph.IntermediateResult;
 import org.apache.flink.runtime.executiongraph.JobStatusListener;
+import org.apache.flink.runtime.executiongraph.KeyGroupLocalityStore;
+import org.apache.flink.runtime.executiongraph.OperatorProfileStore;
+import org.apache.flink.runtime.executiongraph.OptimisationModelParameters;
+import org.apache.flink.runtime.executiongraph.OptimisationModelSolution;
 import org.apache.flink.runtime.executiongraph.restart.RestartStrategy;
 import org.apache.flink.runtime.executiongraph.restart.RestartStrategyFactory;
 import org.apache.flink.runtime.heartbeat.HeartbeatListener;
@@ -66,11 +76,15 @@ import org.apache.flink.runtime.jobgraph.JobVertexID;
 import org.apache.flink.runtime.jobgraph.SavepointRestoreSettings;
 import org.apache.flink.runtime.jobmanager.OnCompletionActions;
 import org.apache.flink.runtime.jobmanager.PartitionProducerDisposedException;
+import org.apache.flink.runtime.jobmanager.scheduler.BandwidthProvider;
+import org.apache.flink.runtime.jobmanager.scheduler.StaticBandwidthProvider;
 import org.apache.flink.runtime.jobmaster.exceptions.JobModificationException;
 import org.apache.flink.runtime.jobmaster.factories.JobManagerJobMetricGroupFactory;
 import org.apache.flink.runtime.jobmaster.message.ClassloadingProps;
+import org.apache.flink.runtime.jobmaster.slotpool.GeoSlotProvider;
 import org.apache.flink.runtime.jobmaster.slotpool.SlotPool;
 import org.apache.flink.runtime.jobmaster.slotpool.SlotPoolGateway;
+import org.apache.flink.runtime.jobmaster.slotpool.SlotProvider;
 import org.apache.flink.runtime.leaderretrieval.LeaderRetrievalListener;
 import org.apache.flink.runtime.leaderretrieval.LeaderRetrievalService;
 import org.apache.flink.runtime.messages.Acknowledge;
@@ -101,6 +115,7 @@ import org.apache.flink.runtime.taskexecutor.TaskExecutorGateway;
 import org.apache.flink.runtime.taskexecutor.slot.SlotOffer;
 import org.apache.flink.runtime.taskmanager.TaskExecutionState;
 import org.apache.flink.runtime.taskmanager.TaskManagerLocation;
+import org.apache.flink.runtime.util.ExecutorThreadFactory;
 import org.apache.flink.runtime.util.clock.SystemClock;
 import org.apache.flink.runtime.webmonitor.WebMonitorUtils;
 import org.apache.flink.util.ExceptionUtils;
@@ -119,6 +134,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -127,7 +143,10 @@ import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import static org.apache.flink.util.Preconditions.checkNotNull;
@@ -181,6 +200,33 @@ public class JobMaster extends FencedRpcEndpoint<JobMasterId> implements JobMast
 
 	private final SlotPoolGateway slotPoolGateway;
 
+	/** The slot provider placing the tasks where the job's placement model decides, null without geo scheduling. */
+	@Nullable
+	private final GeoSlotProvider geoSlotProvider;
+
+	@Nullable
+	private final BandwidthProvider bandwidthProvider;
+
+	/** The measured profiles of the job's vertices, null without geo scheduling or operator profiling. */
+	@Nullable
+	private final OperatorProfileStore operatorProfileStore;
+
+	/** The traffic of the key-groups of the job's vertices, null without geo scheduling or key-group locality. */
+	@Nullable
+	private final KeyGroupLocalityStore keyGroupLocalityStore;
+
+	/** The buffer timeouts of the channels between geo locations, null to keep the ones of the operators. */
+	@Nullable
+	private final ChannelBufferTimeouts channelBufferTimeouts;
+
+	/** Moves the running job to a new placement when the observed traffic makes it cheaper, null if disabled. */
+	@Nullable
+	private final AdaptivePlacementMonitor placementMonitor;
+
+	/** Solves the placement models of the job off the shared executor, null without geo scheduling. */
+	@Nullable
+	private final ExecutorService optimisationModelSolverExecutor;
+
 	private final RestartStrategy restartStrategy;
 
 	// --------- BackPressure --------
@@ -194,6 +240,9 @@ public class JobMaster extends FencedRpcEndpoint<JobMasterId> implements JobMast
 	@Nullable
 	private ResourceManagerConnection resourceManagerConnection;
 
+	/** Future of the gateway of the ResourceManager, completed once the JobMaster is registered there. */
+	private CompletableFuture<ResourceManagerGateway> resourceManagerGatewayFuture;
+
 	// --------- TaskManagers --------
 
 	private final Map<ResourceID, Tuple2<TaskManagerLocation, TaskExecutorGateway>> registeredTaskManagers;
@@ -282,6 +331,37 @@ public class JobMaster extends FencedRpcEndpoint<JobMasterId> implements JobMast
 
 		this.slotPoolGateway = slotPool.getSelfGateway(SlotPoolGateway.class);
 
+		final Configuration configuration = jobMasterConfiguration.getConfiguration();
+
+		if (configuration.getBoolean(JobManagerOptions.IS_GEO_SCHEDULING_ENABLED)) {
+			if (jobGraph.getOptimisationModelParameters() == null) {
+				jobGraph.setOptimisationModelParameters(OptimisationModelParameters.fromConfiguration(configuration));
+			}
+
+			this.geoSlotProvider = new GeoSlotProvider(
+				slotPool.getSlotProvider(),
+				jobGraph,
+				Time.milliseconds(configuration.getLong(JobManagerOptions.GEO_SLOT_REQUEST_TIMEOUT)));
+			this.bandwidthProvider = StaticBandwidthProvider.fromConfiguration(configuration);
+			this.operatorProfileStore = OperatorProfileStore.fromConfiguration(configuration);
+			this.keyGroupLocalityStore = KeyGroupLocalityStore.fromConfiguration(configuration);
+			this.channelBufferTimeouts = ChannelBufferTimeouts.fromConfiguration(configuration, bandwidthProvider);
+			this.placementMonitor = AdaptivePlacementMonitor.fromConfiguration(configuration);
+			// the models of a job are solved one at a time
+			this.optimisationModelSolverExecutor = Executors.newSingleThreadExecutor(
+				new ExecutorThreadFactory("jobmaster-optimisation-model-solver"));
+		} else {
+			this.geoSlotProvider = null;
+			this.bandwidthProvider = null;
+			this.operatorProfileStore = null;
+			this.keyGroupLocalityStore = null;
+			this.channelBufferTimeouts = null;
+			this.placementMonitor = null;
+			this.optimisationModelSolverExecutor = null;
+		}
+
+		this.resourceManagerGatewayFuture = new CompletableFuture<>();
+
 		this.registeredTaskManagers = new HashMap<>(4);
 
 		this.backPressureStatsTracker = checkNotNull(jobManagerSharedServices.getBackPressureStatsTracker());
@@ -361,6 +441,10 @@ public class JobMaster extends FencedRpcEndpoint<JobMasterId> implements JobMast
 		// shut down will internally release all registered slots
 		slotPool.shutDown();
 
+		if (optimisationModelSolverExecutor != null) {
+			optimisationModelSolverExecutor.shutdownNow();
+		}
+
 		final CompletableFuture<Void> disposeInternalSavepointFuture;
 
 		if (lastInternalSavepoint != null) {
@@ -432,6 +516,19 @@ public class JobMaster extends FencedRpcEndpoint<JobMasterId> implements JobMast
 			return FutureUtils.completedExceptionally(new JobModificationException(msg, e));
 		}
 
+		return restartFromModificationSavepoint("rescaling", timeout);
+	}
+
+	/**
+	 * Restarts the job from a savepoint with a new {@link ExecutionGraph} created from the modified {@link JobGraph}.
+	 * The checkpoint coordinator is stopped, a savepoint is taken and the current graph is suspended, then the new
+	 * graph is restored from the savepoint and scheduled.
+	 *
+	 * @param modification the modification of the job graph, for the log and the exception messages
+	 * @param timeout for the savepoint
+	 * @return Future which is completed once the new graph is scheduled
+	 */
+	private CompletableFuture<Acknowledge> restartFromModificationSavepoint(String modification, Time timeout) {
 		final ExecutionGraph currentExecutionGraph = executionGraph;
 
 		final JobManagerJobMetricGroup newJobManagerJobMetricGroup = jobMetricGroupFactory.create(jobGraph);
@@ -441,7 +538,7 @@ public class JobMaster extends FencedRpcEndpoint<JobMasterId> implements JobMast
 			newExecutionGraph = createExecutionGraph(newJobManagerJobMetricGroup);
 		} catch (JobExecutionException | JobException e) {
 			return FutureUtils.completedExceptionally(
-				new JobModificationException("Could not create rescaled ExecutionGraph.", e));
+				new JobModificationException(String.format("Could not create the ExecutionGraph for the %s.", modification), e));
 		}
 
 		// 3. disable checkpoint coordinator to suppress subsequent checkpoints
@@ -458,7 +555,7 @@ public class JobMaster extends FencedRpcEndpoint<JobMasterId> implements JobMast
 				(ExecutionGraph executionGraph, Throwable failure) -> {
 					if (failure != null) {
 						// in case that we couldn't take a savepoint or restore from it, let's restart the checkpoint
-						// coordinator and abort the rescaling operation
+						// coordinator and abort the modification
 						if (checkpointCoordinator.isPeriodicCheckpointingConfigured()) {
 							checkpointCoordinator.startCheckpointScheduler();
 						}
@@ -473,7 +570,7 @@ public class JobMaster extends FencedRpcEndpoint<JobMasterId> implements JobMast
 		// 5. suspend the current job
 		final CompletableFuture<JobStatus> terminationFuture = executionGraphFuture.thenComposeAsync(
 			(ExecutionGraph ignored) -> {
-				suspendExecutionGraph(new FlinkException("Job is being rescaled."));
+				suspendExecutionGraph(new FlinkException(String.format("Job is being restarted for the %s.", modification)));
 				return currentExecutionGraph.getTerminationFuture();
 			},
 			getMainThreadExecutor());
@@ -481,14 +578,14 @@ public class JobMaster extends FencedRpcEndpoint<JobMasterId> implements JobMast
 		final CompletableFuture<Void> suspendedFuture = terminationFuture.thenAccept(
 			(JobStatus jobStatus) -> {
 				if (jobStatus != JobStatus.SUSPENDED) {
-					final String msg = String.format("Job %s rescaling failed because we could not suspend the execution graph.", jobGraph.getName());
+					final String msg = String.format("Job %s %s failed because we could not suspend the execution graph.", jobGraph.getName(), modification);
 					log.info(msg);
 					throw new CompletionException(new JobModificationException(msg));
 				}
 			});
 
 		// 6. resume the new execution graph from the taken savepoint
-		final CompletableFuture<Acknowledge> rescalingFuture = suspendedFuture.thenCombineAsync(
+		final CompletableFuture<Acknowledge> modificationFuture = suspendedFuture.thenCombineAsync(
 			executionGraphFuture,
 			(Void ignored, ExecutionGraph restoredExecutionGraph) -> {
 				// check if the ExecutionGraph is still the same
@@ -499,25 +596,25 @@ public class JobMaster extends FencedRpcEndpoint<JobMasterId> implements JobMast
 
 					return Acknowledge.get();
 				} else {
-					throw new CompletionException(new JobModificationException("Detected concurrent modification of ExecutionGraph. Aborting the rescaling."));
+					throw new CompletionException(new JobModificationException("Detected concurrent modification of ExecutionGraph. Aborting the " + modification + '.'));
 				}
 
 			},
 			getMainThreadExecutor());
 
-		rescalingFuture.whenComplete(
+		modificationFuture.whenComplete(
 			(Acknowledge ignored, Throwable throwable) -> {
 				if (throwable != null) {
 					// fail the newly created execution graph
 					newExecutionGraph.failGlobal(
 						new SuppressRestartsException(
 							new FlinkException(
-								String.format("Failed to rescale the job %s.", jobGraph.getJobID()),
+								String.format("The %s of job %s failed.", modification, jobGraph.getJobID()),
 								throwable)));
 				}
 			});
 
-		return rescalingFuture;
+		return modificationFuture;
 	}
 
 	/**
@@ -994,6 +1091,10 @@ public class JobMaster extends FencedRpcEndpoint<JobMasterId> implements JobMast
 		startJobMasterServices();
 		resetAndScheduleExecutionGraph();
 
+		if (placementMonitor != null) {
+			schedulePlacementCheck(newJobMasterId);
+		}
+
 		return Acknowledge.get();
 	}
 
@@ -1072,9 +1173,40 @@ public class JobMaster extends FencedRpcEndpoint<JobMasterId> implements JobMast
 	private void resetAndScheduleExecutionGraph() throws Exception {
 		validateRunsInMainThread();
 
+		if (geoSlotProvider != null) {
+			final JobMasterId jobMasterId = getFencingToken();
+
+			solvePlacement().whenCompleteAsync(
+				(OptimisationModelSolution solution, Throwable throwable) -> {
+					if (!Objects.equals(getFencingToken(), jobMasterId)) {
+						log.info("Ignoring the placement of job {} solved for an outdated leader session.", jobGraph.getJobID());
+						return;
+					}
+
+					if (throwable != null || solution == null) {
+						log.warn("Could not solve the placement of job {}, scheduling it without geo locations.",
+							jobGraph.getJobID(), throwable);
+					}
+
+					try {
+						// the solution may have changed the parallelism of the vertices, which requires a new graph
+						resetAndScheduleExecutionGraph(solution != null);
+					} catch (Exception e) {
+						handleJobMasterError(e);
+					}
+				},
+				getMainThreadExecutor());
+		} else {
+			resetAndScheduleExecutionGraph(false);
+		}
+	}
+
+	private void resetAndScheduleExecutionGraph(boolean recreateExecutionGraph) throws Exception {
+		validateRunsInMainThread();
+
 		final CompletableFuture<Void> executionGraphAssignedFuture;
 
-		if (executionGraph.getState() == JobStatus.CREATED) {
+		if (executionGraph.getState() == JobStatus.CREATED && !recreateExecutionGraph) {
 			executionGraphAssignedFuture = CompletableFuture.completedFuture(null);
 		} else {
 			suspendAndClearExecutionGraphFields(new FlinkException("ExecutionGraph is being reset in order to be rescheduled."));
@@ -1092,12 +1224,73 @@ public class JobMaster extends FencedRpcEndpoint<JobMasterId> implements JobMast
 		executionGraphAssignedFuture.thenRun(this::scheduleExecutionGraph);
 	}
 
+	/**
+	 * Solves the placement model of the job on the slots it can use, once the JobMaster is connected to the
+	 * ResourceManager. The solution is retrievable with {@link JobGraph#getSolution()}.
+	 *
+	 * @return future completed with the solution, or with null if the model could not be solved
+	 */
+	private CompletableFuture<OptimisationModelSolution> solvePlacement() {
+		return requestSlotsByGeoLocation()
+			.thenComposeAsync((Map<GeoLocation, Integer> slotsByGeoLocation) -> {
+				log.info("Solving the placement of job {} on the slots {}.", jobGraph.getJobID(), slotsByGeoLocation);
+
+				if (slotsByGeoLocation.isEmpty()) {
+					return CompletableFuture.completedFuture(null);
+				}
+
+				if (operatorProfileStore != null) {
+					operatorProfileStore.applyTo(jobGraph);
+				}
+
+				return jobGraph.solveOptimisationModelAsync(
+					bandwidthProvider,
+					slotsByGeoLocation,
+					null,
+					optimisationModelSolverExecutor);
+			},
+			// the job graph is only modified by the main thread
+			getMainThreadExecutor());
+	}
+
+	/**
+	 * Requests the slots the job can use at each geo location: the free slots of the ResourceManager, and the
+	 * slots the job already holds.
+	 */
+	private CompletableFuture<Map<GeoLocation, Integer>> requestSlotsByGeoLocation() {
+		return resourceManagerGatewayFuture
+			.thenCompose((ResourceManagerGateway resourceManagerGateway) ->
+				resourceManagerGateway.requestFreeSlotsByGeoLocation(rpcTimeout))
+			.thenCombine(
+				slotPoolGateway.requestSlotsByGeoLocation(),
+				(Map<GeoLocation, Integer> freeSlots, Map<GeoLocation, Integer> jobSlots) -> {
+					final Map<GeoLocation, Integer> slotsByGeoLocation = new HashMap<>(freeSlots);
+					jobSlots.forEach((GeoLocation geoLocation, Integer slots) ->
+						slotsByGeoLocation.merge(geoLocation, slots, Integer::sum));
+					return slotsByGeoLocation;
+				});
+	}
+
 	private void scheduleExecutionGraph() {
 		Preconditions.checkState(jobStatusListener == null);
 		// register self as job status change listener
 		jobStatusListener = new JobManagerJobStatusListener();
 		executionGraph.registerJobStatusListener(jobStatusListener);
 
+		if (operatorProfileStore != null) {
+			executionGraph.registerJobStatusListener(operatorProfileStore.createRecorder(executionGraph, scheduledExecutorService));
+		}
+
+		if (keyGroupLocalityStore != null) {
+			executionGraph.registerJobStatusListener(keyGroupLocalityStore.createRecorder(executionGraph));
+		}
+
+		executionGraph.setChannelBufferTimeouts(channelBufferTimeouts);
+
+		if (placementMonitor != null) {
+			placementMonitor.notifyPlacementChanged();
+		}
+
 		try {
 			executionGraph.scheduleForExecution();
 		}
@@ -1106,6 +1299,102 @@ public class JobMaster extends FencedRpcEndpoint<JobMasterId> implements JobMast
 		}
 	}
 
+	private void schedulePlacementCheck(JobMasterId jobMasterId) {
+		scheduleRunAsync(() -> checkPlacement(jobMasterId), placementMonitor.getCheckIntervalMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Compares the placement of the running job with one solved for the traffic observed since the last check, and
+	 * moves the job to the new placement with a savepoint if the {@link AdaptivePlacementMonitor} decides so. The
+	 * next check is scheduled once this one is over, until the leader session changes.
+	 */
+	private void checkPlacement(JobMasterId jobMasterId) {
+		validateRunsInMainThread();
+
+		if (!Objects.equals(getFencingToken(), jobMasterId)) {
+			return;
+		}
+
+		final OptimisationModelSolution currentSolution = jobGraph.getSolution();
+
+		// only running streaming jobs can be moved with a savepoint
+		if (currentSolution == null
+				|| executionGraph.getState() != JobStatus.RUNNING
+				|| executionGraph.getCheckpointCoordinator() == null) {
+			schedulePlacementCheck(jobMasterId);
+			return;
+		}
+
+		for (ExecutionJobVertex jobVertex : executionGraph.getVerticesTopologically()) {
+			backPressureStatsTracker.getOperatorBackPressureStats(jobVertex).ifPresent(
+				(OperatorBackPressureStats stats) ->
+					placementMonitor.reportBackPressure(jobVertex.getJobVertexId(), stats.getMaxBackPressureRatio()));
+		}
+
+		final Map<JobVertexID, Double> vertexRates = placementMonitor.sampleRates();
+		final Map<JobVertex, List<GeoLocation>> currentPlacement = new HashMap<>(currentSolution.getPlacementMap());
+		final OptimisationModelParameters parameters = jobGraph.getOptimisationModelParameters();
+		// the placements are compared on copies, the job graph is only read and modified by the main thread
+		final List<JobVertex> vertices = AdaptivePlacementMonitor.copyVertices(jobGraph.getVerticesSortedTopologicallyFromSources());
+
+		requestSlotsByGeoLocation()
+			.thenApplyAsync(
+				(Map<GeoLocation, Integer> slotsByGeoLocation) -> placementMonitor.check(
+					vertices,
+					bandwidthProvider,
+					slotsByGeoLocation,
+					parameters,
+					currentPlacement,
+					vertexRates),
+				optimisationModelSolverExecutor)
+			.thenComposeAsync(
+				(@Nullable OptimisationModelSolution newSolution) -> {
+					if (newSolution == null || !Objects.equals(getFencingToken(), jobMasterId) || jobGraph.getSolution() != currentSolution) {
+						return CompletableFuture.completedFuture(Acknowledge.get());
+					}
+					return changePlacement(currentSolution, newSolution, vertexRates);
+				},
+				getMainThreadExecutor())
+			.whenCompleteAsync(
+				(Acknowledge ignored, Throwable throwable) -> {
+					if (throwable != null) {
+						log.warn("Could not check the placement of job {}.", jobGraph.getJobID(), throwable);
+					}
+					if (Objects.equals(getFencingToken(), jobMasterId)) {
+						schedulePlacementCheck(jobMasterId);
+					}
+				},
+				getMainThreadExecutor());
+	}
+
+	/**
+	 * Moves the running job to the given placement with a savepoint, keeping the current placement if the move fails.
+	 * The edges of the job graph get the weights the placement was solved for.
+	 *
+	 * @param newSolution the placement of copies of the vertices of the job graph
+	 */
+	private CompletableFuture<Acknowledge> changePlacement(
+			OptimisationModelSolution currentSolution,
+			OptimisationModelSolution newSolution,
+			Map<JobVertexID, Double> vertexRates) {
+		log.info("Moving job {} to a new placement.", jobGraph.getJobID());
+
+		final List<JobVertex> vertices = jobGraph.getVerticesSortedTopologicallyFromSources();
+		AdaptivePlacementMonitor.setObservedEdgeWeights(vertices, vertexRates);
+		final OptimisationModelSolution solution = AdaptivePlacementMonitor.toVertices(newSolution, vertices);
+
+		jobGraph.applySolution(solution);
+
+		return restartFromModificationSavepoint("re-placement", rpcTimeout)
+			.whenCompleteAsync(
+				(Acknowledge ignored, Throwable throwable) -> {
+					if (throwable != null && jobGraph.getSolution() == solution) {
+						jobGraph.applySolution(currentSolution);
+					}
+				},
+				getMainThreadExecutor());
+	}
+
 	private ExecutionGraph createAndRestoreExecutionGraph(JobManagerJobMetricGroup currentJobManagerJobMetricGroup) throws Exception {
 
 		ExecutionGraph newExecutionGraph = createExecutionGraph(currentJobManagerJobMetricGroup);
@@ -1128,13 +1417,19 @@ public class JobMaster extends FencedRpcEndpoint<JobMasterId> implements JobMast
 	}
 
 	private ExecutionGraph createExecutionGraph(JobManagerJobMetricGroup currentJobManagerJobMetricGroup) throws JobExecutionException, JobException {
+		if (keyGroupLocalityStore != null) {
+			// the key-group ranges and the pinned subtasks follow the current placement, also after a rescaling or
+			// a re-placement
+			keyGroupLocalityStore.applyTo(jobGraph);
+		}
+
 		return ExecutionGraphBuilder.buildGraph(
 			null,
 			jobGraph,
 			jobMasterConfiguration.getConfiguration(),
 			scheduledExecutorService,
 			scheduledExecutorService,
-			slotPool.getSlotProvider(),
+			getSlotProvider(),
 			userCodeLoader,
 			highAvailabilityServices.getCheckpointRecoveryFactory(),
 			rpcTimeout,
@@ -1145,6 +1440,10 @@ public class JobMaster extends FencedRpcEndpoint<JobMasterId> implements JobMast
 			log);
 	}
 
+	private SlotProvider getSlotProvider() {
+		return geoSlotProvider != null ? geoSlotProvider : slotPool.getSlotProvider();
+	}
+
 	private void suspendAndClearExecutionGraphFields(Exception cause) {
 		suspendExecutionGraph(cause);
 		clearExecutionGraphFields();
@@ -1279,6 +1578,8 @@ public class JobMaster extends FencedRpcEndpoint<JobMasterId> implements JobMast
 
 			slotPoolGateway.connectToResourceManager(resourceManagerGateway);
 
+			resourceManagerGatewayFuture.complete(resourceManagerGateway);
+
 			resourceManagerHeartbeatManager.monitorTarget(success.getResourceManagerResourceId(), new HeartbeatTarget<Void>() {
 				@Override
 				public void receiveHeartbeat(ResourceID resourceID, Void payload) {
@@ -1313,6 +1614,10 @@ public class JobMaster extends FencedRpcEndpoint<JobMasterId> implements JobMast
 			resourceManagerConnection = null;
 		}
 
+		if (resourceManagerGatewayFuture.isDone()) {
+			resourceManagerGatewayFuture = new CompletableFuture<>();
+		}
+
 		slotPoolGateway.disconnectResourceManager();
 	}
 
@@ -1576,6 +1881,17 @@ public class JobMaster extends FencedRpcEndpoint<JobMasterId> implements JobMast
 		public void reportPayload(ResourceID resourceID, AccumulatorReport payload) {
 			for (AccumulatorSnapshot snapshot : payload.getAccumulatorSnapshots()) {
 				executionGraph.updateAccumulators(snapshot);
+
+				final IOMetrics ioMetrics = snapshot.getIOMetrics();
+				if (placementMonitor != null && ioMetrics != null) {
+					final Execution execution = executionGraph.getRegisteredExecutions().get(snapshot.getExecutionAttemptID());
+					if (execution != null) {
+						placementMonitor.reportBytesOut(
+							snapshot.getExecutionAttemptID(),
+							execution.getVertex().getJobvertexId(),
+							ioMetrics.getNumBytesOut());
+					}
+				}
 			}
 		}
 
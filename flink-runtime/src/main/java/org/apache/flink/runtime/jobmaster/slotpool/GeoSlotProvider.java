@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.jobmaster.slotpool;
+
+import org.apache.flink.api.common.time.Time;
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.clusterframework.types.SlotProfile;
+import org.apache.flink.runtime.concurrent.FutureUtils;
+import org.apache.flink.runtime.executiongraph.GeoPlacementStatistics;
+import org.apache.flink.runtime.executiongraph.OptimisationModelSolution;
+import org.apache.flink.runtime.instance.SlotSharingGroupId;
+import org.apache.flink.runtime.jobgraph.JobGraph;
+import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.apache.flink.runtime.jobmanager.scheduler.NoResourceAvailableException;
+import org.apache.flink.runtime.jobmanager.scheduler.ScheduledUnit;
+import org.apache.flink.runtime.jobmaster.LogicalSlot;
+import org.apache.flink.runtime.jobmaster.SlotRequestId;
+import org.apache.flink.runtime.messages.Acknowledge;
+import org.apache.flink.util.ExceptionUtils;
+import org.apache.flink.util.Preconditions;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * A {@link SlotProvider} which places the tasks of a job at the geo locations chosen by the solution of the job's
+ * placement model. The slot requests are restricted to the geo locations of the task's job vertex, both when
+ * they are fulfilled with the slots of the {@link SlotPool} and when they are forwarded to the ResourceManager.
+ *
+ * <p>If the job graph has not been solved, the requests are passed on unchanged. If no slot is available at the
+ * chosen geo locations, or none has been allocated there within the geo location timeout, the task is placed
+ * anywhere, as the legacy {@link org.apache.flink.runtime.jobmanager.scheduler.GeoScheduler} does.
+ */
+public class GeoSlotProvider implements SlotProvider {
+
+	private static final Logger LOG = LoggerFactory.getLogger(GeoSlotProvider.class);
+
+	private final SlotProvider slotProvider;
+
+	private final JobGraph jobGraph;
+
+	/** The time to wait for a slot at the chosen geo locations, before placing the task anywhere. */
+	private final Time geoLocationTimeout;
+
+	/** The requests without geo constraints that replaced the failed geo constrained ones. */
+	private final Map<SlotRequestId, SlotRequestId> fallbackSlotRequestIds;
+
+	public GeoSlotProvider(SlotProvider slotProvider, JobGraph jobGraph, Time geoLocationTimeout) {
+		this.slotProvider = Preconditions.checkNotNull(slotProvider);
+		this.jobGraph = Preconditions.checkNotNull(jobGraph);
+		this.geoLocationTimeout = Preconditions.checkNotNull(geoLocationTimeout);
+		this.fallbackSlotRequestIds = new ConcurrentHashMap<>();
+	}
+
+	@Override
+	public CompletableFuture<LogicalSlot> allocateSlot(
+			SlotRequestId slotRequestId,
+			ScheduledUnit task,
+			boolean allowQueued,
+			SlotProfile slotProfile,
+			Time timeout) {
+
+		final List<GeoLocation> geoLocations = getGeoLocations(task);
+
+		if (geoLocations == null || geoLocations.isEmpty()) {
+			return slotProvider.allocateSlot(slotRequestId, task, allowQueued, slotProfile, timeout);
+		}
+
+		// the fallback doesn't wait for the whole timeout
+		final Time geoTimeout = geoLocationTimeout.toMilliseconds() < timeout.toMilliseconds() ? geoLocationTimeout : timeout;
+
+		return slotProvider
+			.allocateSlot(slotRequestId, task, allowQueued, slotProfile.withGeoLocations(geoLocations), geoTimeout)
+			.handle((LogicalSlot slot, Throwable throwable) -> {
+				if (throwable == null) {
+					return CompletableFuture.completedFuture(slot);
+				}
+
+				final Throwable cause = ExceptionUtils.stripCompletionException(throwable);
+
+				if (cause instanceof NoResourceAvailableException || cause instanceof TimeoutException) {
+					LOG.info("Could not allocate a slot at geo locations {} for {}, placing it anywhere.", geoLocations, task);
+					recordFallback(task);
+					return allocateFallbackSlot(slotRequestId, task, allowQueued, slotProfile, timeout);
+				} else {
+					return FutureUtils.<LogicalSlot>completedExceptionally(cause);
+				}
+			})
+			.thenCompose(Function.identity());
+	}
+
+	private CompletableFuture<LogicalSlot> allocateFallbackSlot(
+			SlotRequestId slotRequestId,
+			ScheduledUnit task,
+			boolean allowQueued,
+			SlotProfile slotProfile,
+			Time timeout) {
+
+		final SlotRequestId fallbackSlotRequestId = new SlotRequestId();
+		fallbackSlotRequestIds.put(slotRequestId, fallbackSlotRequestId);
+
+		return slotProvider
+			.allocateSlot(fallbackSlotRequestId, task, allowQueued, slotProfile, timeout)
+			.whenComplete((LogicalSlot ignored, Throwable throwable) -> fallbackSlotRequestIds.remove(slotRequestId));
+	}
+
+	private static void recordFallback(ScheduledUnit task) {
+		if (task.getTaskToExecute() != null) {
+			final GeoPlacementStatistics statistics = task.getTaskToExecute().getVertex().getExecutionGraph().getGeoPlacementStatistics();
+			if (statistics != null) {
+				statistics.recordFallback();
+			}
+		}
+	}
+
+	/**
+	 * Returns the geo locations where the task has been placed by the solution of the job's placement model, or the
+	 * location its subtask is pinned to.
+	 *
+	 * @return the geo locations, or null if the model hasn't been solved
+	 */
+	@Nullable
+	List<GeoLocation> getGeoLocations(ScheduledUnit task) {
+		final OptimisationModelSolution solution = jobGraph.getSolution();
+
+		if (solution == null) {
+			return null;
+		}
+
+		final JobVertex jobVertex = jobGraph.findVertexByID(task.getJobVertexId());
+
+		if (jobVertex == null) {
+			return null;
+		}
+
+		final List<GeoLocation> placement = solution.getPlacement(jobVertex);
+
+		// subtasks assigned to a location by the solution, or owning its key-groups, are pinned to it
+		if (placement != null && task.getTaskToExecute() != null) {
+			final GeoLocation subtaskLocation = jobVertex.getSubtaskGeoLocation(task.getTaskToExecute().getParallelSubtaskIndex());
+			if (subtaskLocation != null && placement.contains(subtaskLocation)) {
+				return Collections.singletonList(subtaskLocation);
+			}
+		}
+
+		return placement;
+	}
+
+	@Override
+	public CompletableFuture<Acknowledge> cancelSlotRequest(
+			SlotRequestId slotRequestId,
+			@Nullable SlotSharingGroupId slotSharingGroupId,
+			Throwable cause) {
+
+		final SlotRequestId fallbackSlotRequestId = fallbackSlotRequestIds.remove(slotRequestId);
+
+		if (fallbackSlotRequestId != null) {
+			slotProvider.cancelSlotRequest(fallbackSlotRequestId, slotSharingGroupId, cause);
+		}
+
+		return slotProvider.cancelSlotRequest(slotRequestId, slotSharingGroupId, cause);
+	}
+
+	@Override
+	public int getNumberOfAvailableSlots() {
+		return slotProvider.getNumberOfAvailableSlots();
+	}
+
+	@Override
+	public int getTotalNumberOfSlots() {
+		return slotProvider.getTotalNumberOfSlots();
+	}
+}
@@ -24,6 +24,7 @@ import org.apache.flink.api.common.time.Time;
 import org.apache.flink.configuration.JobManagerOptions;
 import org.apache.flink.runtime.akka.AkkaUtils;
 import org.apache.flink.runtime.clusterframework.types.AllocationID;
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
 import org.apache.flink.runtime.clusterframework.types.ResourceID;
 import org.apache.flink.runtime.clusterframework.types.ResourceProfile;
 import org.apache.flink.runtime.clusterframework.types.SlotID;
@@ -431,7 +432,8 @@ public class SlotPool extends RpcEndpoint implements SlotPoolGateway, AllocatedS
 			slotProfile = new SlotProfile(
 				slotProfile.getResourceProfile(),
 				Collections.singleton(coLocationConstraint.getLocation()),
-				slotProfile.getPriorAllocations());
+				slotProfile.getPriorAllocations(),
+				slotProfile.getGeoLocations());
 		}
 
 		// get a new multi task slot
@@ -549,14 +551,18 @@ public class SlotPool extends RpcEndpoint implements SlotPoolGateway, AllocatedS
 		}
 
 		if (allowQueuedScheduling) {
-			// there is no slot immediately available --> check first for uncompleted slots at the slot sharing group
-			SlotSharingManager.MultiTaskSlot multiTaskSlotFuture = slotSharingManager.getUnresolvedRootSlot(groupId);
+			// there is no slot immediately available --> check first for uncompleted slots at the slot sharing group.
+			// The geo location of an uncompleted slot is not known yet, so geo constrained requests can't use them.
+			SlotSharingManager.MultiTaskSlot multiTaskSlotFuture = slotProfile.getGeoLocations().isEmpty() ?
+				slotSharingManager.getUnresolvedRootSlot(groupId) :
+				null;
 
 			if (multiTaskSlotFuture == null) {
 				// it seems as if we have to request a new slot from the resource manager, this is always the last resort!!!
 				final CompletableFuture<AllocatedSlot> futureSlot = requestNewAllocatedSlot(
 					allocatedSlotRequestId,
 					slotProfile.getResourceProfile(),
+					slotProfile.getGeoLocations(),
 					allocationTimeout);
 
 				multiTaskSlotFuture = slotSharingManager.createRootSlot(
@@ -621,6 +627,7 @@ public class SlotPool extends RpcEndpoint implements SlotPoolGateway, AllocatedS
 			CompletableFuture<AllocatedSlot> allocatedSlotFuture = requestNewAllocatedSlot(
 				slotRequestId,
 				slotProfile.getResourceProfile(),
+				slotProfile.getGeoLocations(),
 				allocationTimeout);
 
 			allocatedSlotLocalityFuture = allocatedSlotFuture.thenApply((AllocatedSlot allocatedSlot) -> new SlotAndLocality(allocatedSlot, Locality.UNKNOWN));
@@ -639,17 +646,20 @@ public class SlotPool extends RpcEndpoint implements SlotPoolGateway, AllocatedS
 	 *
 	 * @param slotRequestId identifying the requested slot
 	 * @param resourceProfile which the requested slot should fulfill
+	 * @param geoLocations the geo locations the requested slot can be at, empty if it can be anywhere
 	 * @param allocationTimeout timeout before the slot allocation times out
 	 * @return An {@link AllocatedSlot} future which is completed once the slot is offered to the {@link SlotPool}
 	 */
 	private CompletableFuture<AllocatedSlot> requestNewAllocatedSlot(
 			SlotRequestId slotRequestId,
 			ResourceProfile resourceProfile,
+			Collection<GeoLocation> geoLocations,
 			Time allocationTimeout) {
 
 		final PendingRequest pendingRequest = new PendingRequest(
 			slotRequestId,
-			resourceProfile);
+			resourceProfile,
+			geoLocations);
 
 		// register request timeout
 		FutureUtils
@@ -678,7 +688,8 @@ public class SlotPool extends RpcEndpoint implements SlotPoolGateway, AllocatedS
 		checkNotNull(resourceManagerGateway);
 		checkNotNull(pendingRequest);
 
-		log.info("Requesting slot with profile {} from resource manager (request = {}).", pendingRequest.getResourceProfile(), pendingRequest.getSlotRequestId());
+		log.info("Requesting slot with profile {} at geo locations {} from resource manager (request = {}).",
+			pendingRequest.getResourceProfile(), pendingRequest.getGeoLocations(), pendingRequest.getSlotRequestId());
 
 		final AllocationID allocationId = new AllocationID();
 
@@ -695,7 +706,7 @@ public class SlotPool extends RpcEndpoint implements SlotPoolGateway, AllocatedS
 
 		CompletableFuture<Acknowledge> rmResponse = resourceManagerGateway.requestSlot(
 			jobMasterId,
-			new SlotRequest(jobId, allocationId, pendingRequest.getResourceProfile(), jobManagerAddress),
+			new SlotRequest(jobId, allocationId, pendingRequest.getResourceProfile(), jobManagerAddress, pendingRequest.getGeoLocations()),
 			rpcTimeout);
 
 		// on failure, fail the request future
@@ -838,10 +849,11 @@ public class SlotPool extends RpcEndpoint implements SlotPoolGateway, AllocatedS
 
 	private PendingRequest pollMatchingPendingRequest(final AllocatedSlot slot) {
 		final ResourceProfile slotResources = slot.getResourceProfile();
+		final GeoLocation slotGeoLocation = slot.getTaskManagerLocation().getGeoLocation();
 
 		// try the requests sent to the resource manager first
 		for (PendingRequest request : pendingRequests.values()) {
-			if (slotResources.isMatching(request.getResourceProfile())) {
+			if (slotResources.isMatching(request.getResourceProfile()) && request.isMatchingGeoLocation(slotGeoLocation)) {
 				pendingRequests.removeKeyA(request.getSlotRequestId());
 				return request;
 			}
@@ -849,7 +861,7 @@ public class SlotPool extends RpcEndpoint implements SlotPoolGateway, AllocatedS
 
 		// try the requests waiting for a resource manager connection next
 		for (PendingRequest request : waitingForResourceManager.values()) {
-			if (slotResources.isMatching(request.getResourceProfile())) {
+			if (slotResources.isMatching(request.getResourceProfile()) && request.isMatchingGeoLocation(slotGeoLocation)) {
 				waitingForResourceManager.remove(request.getSlotRequestId());
 				return request;
 			}
@@ -953,7 +965,22 @@ public class SlotPool extends RpcEndpoint implements SlotPoolGateway, AllocatedS
 
 		// check whether we have request waiting for this slot
 		PendingRequest pendingRequest = pendingRequests.removeKeyB(allocationID);
-		if (pendingRequest != null) {
+		if (pendingRequest != null && !pendingRequest.isMatchingGeoLocation(taskManagerLocation.getGeoLocation())) {
+			// the slot is not where the geo scheduling placed the task, e.g. because the TaskManager
+			// didn't tell its geo location to the resource manager --> ask for another slot, and use
+			// this one for other requests
+			log.info("Slot {} at geo location {} does not fulfill the geo locations {} of request {}, requesting another slot.",
+				allocationID, taskManagerLocation.getGeoLocation(), pendingRequest.getGeoLocations(), pendingRequest.getSlotRequestId());
+
+			if (resourceManagerGateway == null) {
+				stashRequestWaitingForResourceManager(pendingRequest);
+			} else {
+				requestSlotFromResourceManager(resourceManagerGateway, pendingRequest);
+			}
+
+			tryFulfillSlotRequestOrMakeAvailable(allocatedSlot);
+		}
+		else if (pendingRequest != null) {
 			// we were waiting for this!
 			allocatedSlots.add(pendingRequest.getSlotRequestId(), allocatedSlot);
 
@@ -1053,6 +1080,16 @@ public class SlotPool extends RpcEndpoint implements SlotPoolGateway, AllocatedS
 		return CompletableFuture.completedFuture(Acknowledge.get());
 	}
 
+	@Override
+	public CompletableFuture<Map<GeoLocation, Integer>> requestSlotsByGeoLocation() {
+		final Map<GeoLocation, Integer> slotsByGeoLocation = new HashMap<>();
+
+		allocatedSlots.countByGeoLocation(slotsByGeoLocation);
+		availableSlots.countByGeoLocation(slotsByGeoLocation);
+
+		return CompletableFuture.completedFuture(slotsByGeoLocation);
+	}
+
 	// ------------------------------------------------------------------------
 	//  Internal methods
 	// ------------------------------------------------------------------------
@@ -1336,6 +1373,17 @@ public class SlotPool extends RpcEndpoint implements SlotPoolGateway, AllocatedS
 			allocatedSlotsByTaskManager.clear();
 		}
 
+		/**
+		 * Adds the number of allocated slots at each geo location to the given counts.
+		 */
+		void countByGeoLocation(Map<GeoLocation, Integer> slotsByGeoLocation) {
+			for (Set<AllocatedSlot> slots : allocatedSlotsByTaskManager.values()) {
+				for (AllocatedSlot slot : slots) {
+					slotsByGeoLocation.merge(slot.getTaskManagerLocation().getGeoLocation(), 1, Integer::sum);
+				}
+			}
+		}
+
 		String printAllSlots() {
 			return allocatedSlotsByTaskManager.values().toString();
 		}
@@ -1529,6 +1577,15 @@ public class SlotPool extends RpcEndpoint implements SlotPoolGateway, AllocatedS
 			}
 		}
 
+		/**
+		 * Adds the number of available slots at each geo location to the given counts.
+		 */
+		void countByGeoLocation(Map<GeoLocation, Integer> slotsByGeoLocation) {
+			for (SlotAndTimestamp slotAndTimestamp : availableSlots.values()) {
+				slotsByGeoLocation.merge(slotAndTimestamp.slot().getTaskManagerLocation().getGeoLocation(), 1, Integer::sum);
+			}
+		}
+
 		String printAllSlots() {
 			return availableSlots.values().toString();
 		}
@@ -1634,13 +1691,17 @@ public class SlotPool extends RpcEndpoint implements SlotPoolGateway, AllocatedS
 
 		private final ResourceProfile resourceProfile;
 
+		private final Collection<GeoLocation> geoLocations;
+
 		private final CompletableFuture<AllocatedSlot> allocatedSlotFuture;
 
 		PendingRequest(
 				SlotRequestId slotRequestId,
-				ResourceProfile resourceProfile) {
+				ResourceProfile resourceProfile,
+				Collection<GeoLocation> geoLocations) {
 			this.slotRequestId = Preconditions.checkNotNull(slotRequestId);
 			this.resourceProfile = Preconditions.checkNotNull(resourceProfile);
+			this.geoLocations = Preconditions.checkNotNull(geoLocations);
 
 			allocatedSlotFuture = new CompletableFuture<>();
 		}
@@ -1657,11 +1718,20 @@ public class SlotPool extends RpcEndpoint implements SlotPoolGateway, AllocatedS
 			return resourceProfile;
 		}
 
+		public Collection<GeoLocation> getGeoLocations() {
+			return geoLocations;
+		}
+
+		public boolean isMatchingGeoLocation(GeoLocation geoLocation) {
+			return geoLocations.isEmpty() || geoLocations.contains(geoLocation);
+		}
+
 		@Override
 		public String toString() {
 			return "PendingRequest{" +
 					"slotRequestId=" + slotRequestId +
 					", resourceProfile=" + resourceProfile +
+					", geoLocations=" + geoLocations +
 					", allocatedSlotFuture=" + allocatedSlotFuture +
 					'}';
 		}
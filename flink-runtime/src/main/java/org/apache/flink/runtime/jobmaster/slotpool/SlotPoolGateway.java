@@ -20,6 +20,7 @@ package org.apache.flink.runtime.jobmaster.slotpool;
 
 import org.apache.flink.api.common.time.Time;
 import org.apache.flink.runtime.clusterframework.types.AllocationID;
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
 import org.apache.flink.runtime.clusterframework.types.ResourceID;
 import org.apache.flink.runtime.clusterframework.types.ResourceProfile;
 import org.apache.flink.runtime.clusterframework.types.SlotProfile;
@@ -36,6 +37,7 @@ import org.apache.flink.runtime.taskexecutor.slot.SlotOffer;
 import org.apache.flink.runtime.taskmanager.TaskManagerLocation;
 
 import java.util.Collection;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -90,6 +92,14 @@ public interface SlotPoolGateway extends AllocatedSlotActions, RpcGateway {
 	 */
 	CompletableFuture<Acknowledge> releaseTaskManager(final ResourceID resourceId);
 
+	/**
+	 * Requests the number of slots this {@link SlotPool} holds at each {@link GeoLocation}, allocated to
+	 * tasks or available.
+	 *
+	 * @return Future map from the geo locations to the number of slots held there
+	 */
+	CompletableFuture<Map<GeoLocation, Integer>> requestSlotsByGeoLocation();
+
 	/**
 	 * Offers a slot to the {@link SlotPool}. The slot offer can be accepted or
 	 * rejected.
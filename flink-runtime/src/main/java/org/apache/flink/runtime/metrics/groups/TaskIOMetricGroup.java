@@ -30,6 +30,8 @@ import org.apache.flink.runtime.io.network.partition.consumer.SingleInputGate;
 import org.apache.flink.runtime.metrics.MetricNames;
 import org.apache.flink.runtime.taskmanager.Task;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -51,6 +53,9 @@ public class TaskIOMetricGroup extends ProxyMetricGroup<TaskMetricGroup> {
 	private final Meter numRecordsInRate;
 	private final Meter numRecordsOutRate;
 
+	/** The CPU time of the task thread at the last update, 0 if unknown. */
+	private volatile long cpuTimeNanos;
+
 	public TaskIOMetricGroup(TaskMetricGroup parent) {
 		super(parent);
 
@@ -67,7 +72,21 @@ public class TaskIOMetricGroup extends ProxyMetricGroup<TaskMetricGroup> {
 	}
 
 	public IOMetrics createSnapshot() {
-		return new IOMetrics(numRecordsInRate, numRecordsOutRate, numBytesInRateLocal, numBytesInRateRemote, numBytesOutRate);
+		return new IOMetrics(numRecordsInRate, numRecordsOutRate, numBytesInRateLocal, numBytesInRateRemote, numBytesOutRate, cpuTimeNanos);
+	}
+
+	/**
+	 * Updates the CPU time of the task with the one of the calling thread, which must be the task thread. The CPU
+	 * time stays unknown if the JVM doesn't measure it.
+	 */
+	public void updateCpuTime() {
+		ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		if (threadMXBean.isCurrentThreadCpuTimeSupported()) {
+			long currentThreadCpuTime = threadMXBean.getCurrentThreadCpuTime();
+			if (currentThreadCpuTime > 0) {
+				cpuTimeNanos = currentThreadCpuTime;
+			}
+		}
 	}
 
 	// ============================================================================================
@@ -21,6 +21,7 @@ package org.apache.flink.runtime.metrics.util;
 import org.apache.flink.metrics.Gauge;
 import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.runtime.io.network.NetworkEnvironment;
+import org.apache.flink.runtime.io.network.netty.NettyConnectionManager;
 import org.apache.flink.runtime.metrics.MetricRegistry;
 import org.apache.flink.runtime.metrics.groups.JobManagerMetricGroup;
 import org.apache.flink.runtime.metrics.groups.TaskManagerMetricGroup;
@@ -118,6 +119,12 @@ public class MetricUtils {
 				return (long) network.getNetworkBufferPool().getNumberOfAvailableMemorySegments();
 			}
 		});
+
+		if (network.getConnectionManager() instanceof NettyConnectionManager) {
+			((NettyConnectionManager) network.getConnectionManager())
+				.getWanCompressionStatistics()
+				.registerMetrics(metrics.addGroup("WanCompression"));
+		}
 	}
 
 	private static void instantiateClassLoaderMetrics(MetricGroup metrics) {
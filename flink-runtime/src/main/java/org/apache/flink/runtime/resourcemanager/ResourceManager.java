@@ -26,6 +26,7 @@ import org.apache.flink.runtime.blob.TransientBlobKey;
 import org.apache.flink.runtime.clusterframework.ApplicationStatus;
 import org.apache.flink.runtime.clusterframework.messages.InfoMessage;
 import org.apache.flink.runtime.clusterframework.types.AllocationID;
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
 import org.apache.flink.runtime.clusterframework.types.ResourceID;
 import org.apache.flink.runtime.clusterframework.types.ResourceIDRetrievable;
 import org.apache.flink.runtime.clusterframework.types.ResourceProfile;
@@ -343,6 +344,26 @@ public abstract class ResourceManager<WorkerType extends ResourceIDRetrievable>
 			final HardwareDescription hardwareDescription,
 			final Time timeout) {
 
+		return registerTaskExecutor(
+			taskExecutorAddress,
+			taskExecutorResourceId,
+			slotReport,
+			dataPort,
+			hardwareDescription,
+			GeoLocation.UNKNOWN,
+			timeout);
+	}
+
+	@Override
+	public CompletableFuture<RegistrationResponse> registerTaskExecutor(
+			final String taskExecutorAddress,
+			final ResourceID taskExecutorResourceId,
+			final SlotReport slotReport,
+			final int dataPort,
+			final HardwareDescription hardwareDescription,
+			final GeoLocation geoLocation,
+			final Time timeout) {
+
 		CompletableFuture<TaskExecutorGateway> taskExecutorGatewayFuture = getRpcService().connect(taskExecutorAddress, TaskExecutorGateway.class);
 
 		return taskExecutorGatewayFuture.handleAsync(
@@ -356,7 +377,8 @@ public abstract class ResourceManager<WorkerType extends ResourceIDRetrievable>
 						taskExecutorResourceId,
 						slotReport,
 						dataPort,
-						hardwareDescription);
+						hardwareDescription,
+						geoLocation);
 				}
 			},
 			getMainThreadExecutor());
@@ -565,6 +587,11 @@ public abstract class ResourceManager<WorkerType extends ResourceIDRetrievable>
 				numberFreeSlots));
 	}
 
+	@Override
+	public CompletableFuture<Map<GeoLocation, Integer>> requestFreeSlotsByGeoLocation(Time timeout) {
+		return CompletableFuture.completedFuture(slotManager.getNumberFreeSlotsByGeoLocation());
+	}
+
 	@Override
 	public CompletableFuture<Collection<Tuple2<ResourceID, String>>> requestTaskManagerMetricQueryServicePaths(Time timeout) {
 		final ArrayList<Tuple2<ResourceID, String>> metricQueryServicePaths = new ArrayList<>(taskExecutors.size());
@@ -672,6 +699,7 @@ public abstract class ResourceManager<WorkerType extends ResourceIDRetrievable>
 	 * @param slotReport initial slot report from the TaskExecutor
 	 * @param dataPort port used for data transfer
 	 * @param hardwareDescription of the registering TaskExecutor
+	 * @param geoLocation of the registering TaskExecutor
 	 * @return RegistrationResponse
 	 */
 	private RegistrationResponse registerTaskExecutorInternal(
@@ -680,7 +708,8 @@ public abstract class ResourceManager<WorkerType extends ResourceIDRetrievable>
 			ResourceID taskExecutorResourceId,
 			SlotReport slotReport,
 			int dataPort,
-			HardwareDescription hardwareDescription) {
+			HardwareDescription hardwareDescription,
+			GeoLocation geoLocation) {
 		WorkerRegistration<WorkerType> oldRegistration = taskExecutors.remove(taskExecutorResourceId);
 		if (oldRegistration != null) {
 			// TODO :: suggest old taskExecutor to stop itself
@@ -698,7 +727,7 @@ public abstract class ResourceManager<WorkerType extends ResourceIDRetrievable>
 			return new RegistrationResponse.Decline("unrecognized TaskExecutor");
 		} else {
 			WorkerRegistration<WorkerType> registration =
-				new WorkerRegistration<>(taskExecutorGateway, newWorker, dataPort, hardwareDescription);
+				new WorkerRegistration<>(taskExecutorGateway, newWorker, dataPort, hardwareDescription, geoLocation);
 
 			taskExecutors.put(taskExecutorResourceId, registration);
 
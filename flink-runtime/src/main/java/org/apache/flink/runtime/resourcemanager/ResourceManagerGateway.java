@@ -25,6 +25,7 @@ import org.apache.flink.runtime.blob.BlobServer;
 import org.apache.flink.runtime.blob.TransientBlobKey;
 import org.apache.flink.runtime.clusterframework.ApplicationStatus;
 import org.apache.flink.runtime.clusterframework.types.AllocationID;
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
 import org.apache.flink.runtime.clusterframework.types.ResourceID;
 import org.apache.flink.runtime.clusterframework.types.SlotID;
 import org.apache.flink.runtime.instance.HardwareDescription;
@@ -44,6 +45,7 @@ import org.apache.flink.runtime.taskexecutor.TaskExecutor;
 import javax.annotation.Nullable;
 
 import java.util.Collection;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -107,6 +109,28 @@ public interface ResourceManagerGateway extends FencedRpcGateway<ResourceManager
 		HardwareDescription hardwareDescription,
 		@RpcTimeout Time timeout);
 
+	/**
+	 * Register a {@link TaskExecutor} running at the given {@link GeoLocation} at the resource manager.
+	 *
+	 * @param taskExecutorAddress The address of the TaskExecutor that registers
+	 * @param resourceId The resource ID of the TaskExecutor that registers
+	 * @param slotReport The slot report containing free and allocated task slots
+	 * @param dataPort port used for data communication between TaskExecutors
+	 * @param hardwareDescription of the registering TaskExecutor
+	 * @param geoLocation of the registering TaskExecutor
+	 * @param timeout The timeout for the response.
+	 *
+	 * @return The future to the response by the ResourceManager.
+	 */
+	CompletableFuture<RegistrationResponse> registerTaskExecutor(
+		String taskExecutorAddress,
+		ResourceID resourceId,
+		SlotReport slotReport,
+		int dataPort,
+		HardwareDescription hardwareDescription,
+		GeoLocation geoLocation,
+		@RpcTimeout Time timeout);
+
 	/**
 	 * Sent by the TaskExecutor to notify the ResourceManager that a slot has become available.
 	 *
@@ -206,6 +230,15 @@ public interface ResourceManagerGateway extends FencedRpcGateway<ResourceManager
 	 */
 	CompletableFuture<ResourceOverview> requestResourceOverview(@RpcTimeout Time timeout);
 
+	/**
+	 * Requests the number of free slots at each {@link GeoLocation}, which the geo scheduling uses, together
+	 * with the slots the job already holds, to solve the placement of a job.
+	 *
+	 * @param timeout of the request
+	 * @return Future map from the geo locations to the number of slots free there
+	 */
+	CompletableFuture<Map<GeoLocation, Integer>> requestFreeSlotsByGeoLocation(@RpcTimeout Time timeout);
+
 	/**
 	 * Requests the paths for the TaskManager's {@link MetricQueryService} to query.
 	 *
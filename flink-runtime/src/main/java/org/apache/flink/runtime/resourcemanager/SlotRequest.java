@@ -20,9 +20,13 @@ package org.apache.flink.runtime.resourcemanager;
 
 import org.apache.flink.api.common.JobID;
 import org.apache.flink.runtime.clusterframework.types.AllocationID;
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
 import org.apache.flink.runtime.clusterframework.types.ResourceProfile;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
@@ -45,15 +49,28 @@ public class SlotRequest implements Serializable {
 	/** Address of the emitting job manager */
 	private final String targetAddress;
 
+	/** The geo locations the slot can be at, empty if it can be anywhere */
+	private final ArrayList<GeoLocation> geoLocations;
+
 	public SlotRequest(
 			JobID jobId,
 			AllocationID allocationId,
 			ResourceProfile resourceProfile,
 			String targetAddress) {
+		this(jobId, allocationId, resourceProfile, targetAddress, Collections.emptyList());
+	}
+
+	public SlotRequest(
+			JobID jobId,
+			AllocationID allocationId,
+			ResourceProfile resourceProfile,
+			String targetAddress,
+			Collection<GeoLocation> geoLocations) {
 		this.jobId = checkNotNull(jobId);
 		this.allocationId = checkNotNull(allocationId);
 		this.resourceProfile = checkNotNull(resourceProfile);
 		this.targetAddress = checkNotNull(targetAddress);
+		this.geoLocations = new ArrayList<>(checkNotNull(geoLocations));
 	}
 
 	/**
@@ -83,4 +100,12 @@ public class SlotRequest implements Serializable {
 	public String getTargetAddress() {
 		return targetAddress;
 	}
+
+	/**
+	 * Get the geo locations the slot can be at, as decided by the geo scheduling of the job
+	 * @return The geo locations, empty if the slot can be anywhere
+	 */
+	public Collection<GeoLocation> getGeoLocations() {
+		return geoLocations;
+	}
 }
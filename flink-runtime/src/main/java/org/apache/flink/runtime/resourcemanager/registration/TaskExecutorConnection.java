@@ -18,6 +18,7 @@
 
 package org.apache.flink.runtime.resourcemanager.registration;
 
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
 import org.apache.flink.runtime.clusterframework.types.ResourceID;
 import org.apache.flink.runtime.instance.InstanceID;
 import org.apache.flink.runtime.taskexecutor.TaskExecutorGateway;
@@ -36,10 +37,17 @@ public class TaskExecutorConnection {
 
 	private final TaskExecutorGateway taskExecutorGateway;
 
+	private final GeoLocation geoLocation;
+
 	public TaskExecutorConnection(ResourceID resourceID, TaskExecutorGateway taskExecutorGateway) {
+		this(resourceID, taskExecutorGateway, GeoLocation.UNKNOWN);
+	}
+
+	public TaskExecutorConnection(ResourceID resourceID, TaskExecutorGateway taskExecutorGateway, GeoLocation geoLocation) {
 		this.resourceID = checkNotNull(resourceID);
 		this.instanceID = new InstanceID();
 		this.taskExecutorGateway = checkNotNull(taskExecutorGateway);
+		this.geoLocation = checkNotNull(geoLocation);
 	}
 
 	public ResourceID getResourceID() {
@@ -53,4 +61,8 @@ public class TaskExecutorConnection {
 	public TaskExecutorGateway getTaskExecutorGateway() {
 		return taskExecutorGateway;
 	}
+
+	public GeoLocation getGeoLocation() {
+		return geoLocation;
+	}
 }
@@ -18,6 +18,7 @@
 
 package org.apache.flink.runtime.resourcemanager.registration;
 
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
 import org.apache.flink.runtime.clusterframework.types.ResourceIDRetrievable;
 import org.apache.flink.runtime.instance.HardwareDescription;
 import org.apache.flink.runtime.taskexecutor.TaskExecutorGateway;
@@ -40,7 +41,17 @@ public class WorkerRegistration<WorkerType extends ResourceIDRetrievable> extend
 			int dataPort,
 			HardwareDescription hardwareDescription) {
 
-		super(worker.getResourceID(), taskExecutorGateway);
+		this(taskExecutorGateway, worker, dataPort, hardwareDescription, GeoLocation.UNKNOWN);
+	}
+
+	public WorkerRegistration(
+			TaskExecutorGateway taskExecutorGateway,
+			WorkerType worker,
+			int dataPort,
+			HardwareDescription hardwareDescription,
+			GeoLocation geoLocation) {
+
+		super(worker.getResourceID(), taskExecutorGateway, geoLocation);
 
 		this.worker = Preconditions.checkNotNull(worker);
 		this.dataPort = dataPort;
@@ -20,6 +20,7 @@ package org.apache.flink.runtime.resourcemanager.slotmanager;
 
 import org.apache.flink.api.common.JobID;
 import org.apache.flink.runtime.clusterframework.types.AllocationID;
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
 import org.apache.flink.runtime.clusterframework.types.ResourceProfile;
 import org.apache.flink.runtime.messages.Acknowledge;
 import org.apache.flink.runtime.resourcemanager.SlotRequest;
@@ -27,6 +28,7 @@ import org.apache.flink.util.Preconditions;
 
 import javax.annotation.Nullable;
 
+import java.util.Collection;
 import java.util.concurrent.CompletableFuture;
 
 public class PendingSlotRequest {
@@ -62,6 +64,18 @@ public class PendingSlotRequest {
 		return slotRequest.getTargetAddress();
 	}
 
+	public Collection<GeoLocation> getGeoLocations() {
+		return slotRequest.getGeoLocations();
+	}
+
+	/**
+	 * Returns whether a slot at the given geo location can fulfill this request.
+	 */
+	public boolean isMatchingGeoLocation(GeoLocation geoLocation) {
+		Collection<GeoLocation> geoLocations = slotRequest.getGeoLocations();
+		return geoLocations.isEmpty() || geoLocations.contains(geoLocation);
+	}
+
 	public long getCreationTimestamp() {
 		return creationTimestamp;
 	}
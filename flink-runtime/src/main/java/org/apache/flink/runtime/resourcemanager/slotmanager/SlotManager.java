@@ -21,6 +21,7 @@ package org.apache.flink.runtime.resourcemanager.slotmanager;
 import org.apache.flink.annotation.VisibleForTesting;
 import org.apache.flink.api.common.time.Time;
 import org.apache.flink.runtime.clusterframework.types.AllocationID;
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
 import org.apache.flink.runtime.clusterframework.types.ResourceProfile;
 import org.apache.flink.runtime.clusterframework.types.SlotID;
 import org.apache.flink.runtime.clusterframework.types.TaskManagerSlot;
@@ -45,6 +46,7 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Nullable;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -153,10 +155,36 @@ public class SlotManager implements AutoCloseable {
 		}
 	}
 
+	/**
+	 * Returns the number of registered slots at each geo location.
+	 */
+	public Map<GeoLocation, Integer> getNumberRegisteredSlotsByGeoLocation() {
+		Map<GeoLocation, Integer> slotsByGeoLocation = new HashMap<>();
+
+		for (TaskManagerSlot slot : slots.values()) {
+			slotsByGeoLocation.merge(slot.getTaskManagerConnection().getGeoLocation(), 1, Integer::sum);
+		}
+
+		return slotsByGeoLocation;
+	}
+
 	public int getNumberFreeSlots() {
 		return freeSlots.size();
 	}
 
+	/**
+	 * Returns the number of free slots at each geo location.
+	 */
+	public Map<GeoLocation, Integer> getNumberFreeSlotsByGeoLocation() {
+		Map<GeoLocation, Integer> slotsByGeoLocation = new HashMap<>();
+
+		for (TaskManagerSlot slot : freeSlots.values()) {
+			slotsByGeoLocation.merge(slot.getTaskManagerConnection().getGeoLocation(), 1, Integer::sum);
+		}
+
+		return slotsByGeoLocation;
+	}
+
 	public int getNumberFreeSlotsOf(InstanceID instanceId) {
 		TaskManagerRegistration taskManagerRegistration = taskManagerRegistrations.get(instanceId);
 
@@ -451,13 +479,16 @@ public class SlotManager implements AutoCloseable {
 	 * request fulfillment, then you should override this method.
 	 *
 	 * @param slotResourceProfile defining the resources of an available slot
+	 * @param slotGeoLocation the geo location of the available slot
 	 * @return A matching slot request which can be deployed in a slot with the given resource
-	 * profile. Null if there is no such slot request pending.
+	 * profile at the given geo location. Null if there is no such slot request pending.
 	 */
-	protected PendingSlotRequest findMatchingRequest(ResourceProfile slotResourceProfile) {
+	protected PendingSlotRequest findMatchingRequest(ResourceProfile slotResourceProfile, GeoLocation slotGeoLocation) {
 
 		for (PendingSlotRequest pendingSlotRequest : pendingSlotRequests.values()) {
-			if (!pendingSlotRequest.isAssigned() && slotResourceProfile.isMatching(pendingSlotRequest.getResourceProfile())) {
+			if (!pendingSlotRequest.isAssigned() &&
+					slotResourceProfile.isMatching(pendingSlotRequest.getResourceProfile()) &&
+					pendingSlotRequest.isMatchingGeoLocation(slotGeoLocation)) {
 				return pendingSlotRequest;
 			}
 		}
@@ -474,10 +505,11 @@ public class SlotManager implements AutoCloseable {
 	 * request fulfillment, then you should override this method.
 	 *
 	 * @param requestResourceProfile specifying the resource requirements for the a slot request
-	 * @return A matching slot which fulfills the given resource profile. Null if there is no such
-	 * slot available.
+	 * @param requestGeoLocations the geo locations the slot can be at, empty if it can be anywhere
+	 * @return A matching slot which fulfills the given resource profile and geo locations. Null if
+	 * there is no such slot available.
 	 */
-	protected TaskManagerSlot findMatchingSlot(ResourceProfile requestResourceProfile) {
+	protected TaskManagerSlot findMatchingSlot(ResourceProfile requestResourceProfile, Collection<GeoLocation> requestGeoLocations) {
 		Iterator<Map.Entry<SlotID, TaskManagerSlot>> iterator = freeSlots.entrySet().iterator();
 
 		while (iterator.hasNext()) {
@@ -489,7 +521,9 @@ public class SlotManager implements AutoCloseable {
 				"TaskManagerSlot %s is not in state FREE but %s.",
 				taskManagerSlot.getSlotId(), taskManagerSlot.getState());
 
-			if (taskManagerSlot.getResourceProfile().isMatching(requestResourceProfile)) {
+			if (taskManagerSlot.getResourceProfile().isMatching(requestResourceProfile) &&
+					(requestGeoLocations.isEmpty() ||
+						requestGeoLocations.contains(taskManagerSlot.getTaskManagerConnection().getGeoLocation()))) {
 				iterator.remove();
 				return taskManagerSlot;
 			}
@@ -635,7 +669,9 @@ public class SlotManager implements AutoCloseable {
 	 * @throws ResourceManagerException if the resource manager cannot allocate more resource
 	 */
 	private void internalRequestSlot(PendingSlotRequest pendingSlotRequest) throws ResourceManagerException {
-		TaskManagerSlot taskManagerSlot = findMatchingSlot(pendingSlotRequest.getResourceProfile());
+		TaskManagerSlot taskManagerSlot = findMatchingSlot(
+			pendingSlotRequest.getResourceProfile(),
+			pendingSlotRequest.getGeoLocations());
 
 		if (taskManagerSlot != null) {
 			allocateSlot(taskManagerSlot, pendingSlotRequest);
@@ -726,7 +762,9 @@ public class SlotManager implements AutoCloseable {
 	private void handleFreeSlot(TaskManagerSlot freeSlot) {
 		Preconditions.checkState(freeSlot.getState() == TaskManagerSlot.State.FREE);
 
-		PendingSlotRequest pendingSlotRequest = findMatchingRequest(freeSlot.getResourceProfile());
+		PendingSlotRequest pendingSlotRequest = findMatchingRequest(
+			freeSlot.getResourceProfile(),
+			freeSlot.getTaskManagerConnection().getGeoLocation());
 
 		if (null != pendingSlotRequest) {
 			allocateSlot(freeSlot, pendingSlotRequest);
@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.rest.handler.job;
+
+import org.apache.flink.api.common.time.Time;
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.clusterframework.types.ResourceID;
+import org.apache.flink.runtime.executiongraph.AccessExecutionGraph;
+import org.apache.flink.runtime.executiongraph.AccessExecutionJobVertex;
+import org.apache.flink.runtime.executiongraph.AccessExecutionVertex;
+import org.apache.flink.runtime.executiongraph.GeoPlacementStatistics;
+import org.apache.flink.runtime.executiongraph.SubtaskGeoLocationAssigner;
+import org.apache.flink.runtime.jobgraph.DistributionPattern;
+import org.apache.flink.runtime.rest.NotFoundException;
+import org.apache.flink.runtime.rest.handler.HandlerRequest;
+import org.apache.flink.runtime.rest.handler.RestHandlerException;
+import org.apache.flink.runtime.rest.handler.legacy.ExecutionGraphCache;
+import org.apache.flink.runtime.rest.handler.legacy.metrics.MetricFetcher;
+import org.apache.flink.runtime.rest.handler.util.MutableIOMetrics;
+import org.apache.flink.runtime.rest.messages.EmptyRequestBody;
+import org.apache.flink.runtime.rest.messages.JobMessageParameters;
+import org.apache.flink.runtime.rest.messages.MessageHeaders;
+import org.apache.flink.runtime.rest.messages.job.JobGeoPlacementInfo;
+import org.apache.flink.runtime.taskmanager.TaskManagerLocation;
+import org.apache.flink.runtime.webmonitor.RestfulGateway;
+import org.apache.flink.runtime.webmonitor.retriever.GatewayRetriever;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Handler serving the placement of a geo scheduled job over the geo locations.
+ *
+ * <p>The bytes of an edge are the bytes written by the subtasks of its producer, shared evenly among the edges the
+ * producer writes to. The bytes the placement expected to cross geo locations are the share of them given by the
+ * locations of the producer and of the consumer, the subtasks being spread evenly over them. The bytes measured to
+ * cross geo locations are, for each subtask of the producer, the share of its consumers running at another geo
+ * location than it.
+ */
+public class JobGeoPlacementHandler extends AbstractExecutionGraphHandler<JobGeoPlacementInfo, JobMessageParameters> {
+
+	private final MetricFetcher<? extends RestfulGateway> metricFetcher;
+
+	public JobGeoPlacementHandler(
+			CompletableFuture<String> localRestAddress,
+			GatewayRetriever<? extends RestfulGateway> leaderRetriever,
+			Time timeout,
+			Map<String, String> responseHeaders,
+			MessageHeaders<EmptyRequestBody, JobGeoPlacementInfo, JobMessageParameters> messageHeaders,
+			ExecutionGraphCache executionGraphCache,
+			Executor executor,
+			MetricFetcher<? extends RestfulGateway> metricFetcher) {
+		super(
+			localRestAddress,
+			leaderRetriever,
+			timeout,
+			responseHeaders,
+			messageHeaders,
+			executionGraphCache,
+			executor);
+		this.metricFetcher = metricFetcher;
+	}
+
+	@Override
+	protected JobGeoPlacementInfo handleRequest(
+			HandlerRequest<EmptyRequestBody, JobMessageParameters> request,
+			AccessExecutionGraph executionGraph) throws RestHandlerException {
+		final GeoPlacementStatistics statistics = executionGraph.getGeoPlacementStatistics();
+
+		if (statistics == null) {
+			throw new NotFoundException(String.format("Job %s is not geo scheduled, or its placement was not solved", executionGraph.getJobID()));
+		}
+
+		final Map<GeoLocation, Integer> subtasksByLocation = new HashMap<>();
+		final Map<GeoLocation, Set<ResourceID>> taskManagersByLocation = new HashMap<>();
+		final List<JobGeoPlacementInfo.VertexPlacement> vertices = new ArrayList<>();
+
+		for (AccessExecutionJobVertex jobVertex : executionGraph.getVerticesTopologically()) {
+			final List<GeoLocation> locations = statistics.getLocations().getOrDefault(jobVertex.getJobVertexId(), Collections.emptyList());
+			int subtasksOutsidePlacement = 0;
+
+			for (AccessExecutionVertex subtask : jobVertex.getTaskVertices()) {
+				final TaskManagerLocation taskManagerLocation = subtask.getCurrentAssignedResourceLocation();
+				if (taskManagerLocation != null) {
+					final GeoLocation location = taskManagerLocation.getGeoLocation();
+					subtasksByLocation.merge(location, 1, Integer::sum);
+					taskManagersByLocation.computeIfAbsent(location, ignored -> new HashSet<>()).add(taskManagerLocation.getResourceID());
+
+					if (!locations.contains(location)) {
+						subtasksOutsidePlacement++;
+					}
+				}
+			}
+
+			final List<String> locationKeys = new ArrayList<>(locations.size());
+			for (GeoLocation location : locations) {
+				locationKeys.add(location.getKey());
+			}
+
+			vertices.add(new JobGeoPlacementInfo.VertexPlacement(
+				jobVertex.getJobVertexId(),
+				jobVertex.getName(),
+				statistics.getParallelism().getOrDefault(jobVertex.getJobVertexId(), jobVertex.getParallelism()),
+				locationKeys,
+				subtasksOutsidePlacement));
+		}
+
+		final Set<GeoLocation> allLocations = new TreeSet<>((first, second) -> first.getKey().compareTo(second.getKey()));
+		allLocations.addAll(statistics.getPlannedSubtasks().keySet());
+		allLocations.addAll(subtasksByLocation.keySet());
+
+		final List<JobGeoPlacementInfo.LocationUsage> locations = new ArrayList<>(allLocations.size());
+		for (GeoLocation location : allLocations) {
+			locations.add(new JobGeoPlacementInfo.LocationUsage(
+				location.getKey(),
+				statistics.getPlannedSubtasks().getOrDefault(location, 0),
+				subtasksByLocation.getOrDefault(location, 0),
+				taskManagersByLocation.getOrDefault(location, Collections.emptySet()).size()));
+		}
+
+		final List<JobGeoPlacementInfo.EdgeTraffic> edges = new ArrayList<>(statistics.getEdges().size());
+		for (GeoPlacementStatistics.Edge edge : statistics.getEdges()) {
+			final AccessExecutionJobVertex producer = executionGraph.getJobVertex(edge.getProducer());
+			final AccessExecutionJobVertex consumer = executionGraph.getJobVertex(edge.getConsumer());
+
+			if (producer != null && consumer != null) {
+				edges.add(createEdgeTraffic(executionGraph, edge, producer, consumer));
+			}
+		}
+
+		return new JobGeoPlacementInfo(
+			statistics.getSolverType() == null ? null : statistics.getSolverType().name(),
+			statistics.getSolveTimeMillis(),
+			statistics.getObjective(),
+			statistics.getObjectiveBound(),
+			statistics.getOptimalityGap(),
+			statistics.getNetworkCost(),
+			statistics.getExecutionSpeed(),
+			statistics.getNumberOfFallbacks(),
+			statistics.getNumberOfRepairs(),
+			vertices,
+			locations,
+			edges);
+	}
+
+	private JobGeoPlacementInfo.EdgeTraffic createEdgeTraffic(
+			AccessExecutionGraph executionGraph,
+			GeoPlacementStatistics.Edge edge,
+			AccessExecutionJobVertex producer,
+			AccessExecutionJobVertex consumer) {
+		final AccessExecutionVertex[] producerSubtasks = producer.getTaskVertices();
+		final double[] crossLocationShares = crossLocationShares(producerSubtasks, consumer.getTaskVertices(), edge.getDistributionPattern());
+		final int producerOutputs = Math.max(edge.getProducerOutputs(), 1);
+
+		long bytes = 0;
+		boolean bytesComplete = true;
+		double measuredCrossLocationBytes = 0;
+
+		for (int i = 0; i < producerSubtasks.length; i++) {
+			final MutableIOMetrics counts = new MutableIOMetrics();
+			counts.addIOMetrics(
+				producerSubtasks[i].getCurrentExecutionAttempt(),
+				metricFetcher,
+				executionGraph.getJobID().toString(),
+				producer.getJobVertexId().toString());
+
+			final long subtaskBytes = counts.getNumBytesOut() / producerOutputs;
+			bytes += subtaskBytes;
+			bytesComplete &= counts.isNumBytesOutComplete();
+			measuredCrossLocationBytes += subtaskBytes * crossLocationShares[i];
+		}
+
+		return new JobGeoPlacementInfo.EdgeTraffic(
+			edge.getProducer(),
+			edge.getConsumer(),
+			edge.getDistributionPattern(),
+			edge.getWeight(),
+			bytes,
+			bytesComplete,
+			Math.round(bytes * edge.getEstimatedCrossLocationShare()),
+			Math.round(measuredCrossLocationBytes));
+	}
+
+	/**
+	 * Returns, for each subtask of the producer, the share of its consumers running at another geo location, among
+	 * the ones running somewhere. The consumers of a pointwise edge are the ones the execution graph connects it to.
+	 */
+	static double[] crossLocationShares(
+			AccessExecutionVertex[] producerSubtasks,
+			AccessExecutionVertex[] consumerSubtasks,
+			DistributionPattern distributionPattern) {
+		final int numProducers = producerSubtasks.length;
+		final int numConsumers = consumerSubtasks.length;
+
+		final GeoLocation[] producerLocations = new GeoLocation[numProducers];
+		for (int i = 0; i < numProducers; i++) {
+			producerLocations[i] = geoLocationOf(producerSubtasks[i]);
+		}
+
+		final int[] remoteConsumers = new int[numProducers];
+		final int[] placedConsumers = new int[numProducers];
+
+		for (int j = 0; j < numConsumers; j++) {
+			final GeoLocation consumerLocation = geoLocationOf(consumerSubtasks[j]);
+			if (consumerLocation == null) {
+				continue;
+			}
+
+			final int start;
+			final int end;
+			if (distributionPattern == DistributionPattern.ALL_TO_ALL) {
+				start = 0;
+				end = numProducers;
+			} else {
+				start = SubtaskGeoLocationAssigner.firstPointwiseSource(j, numProducers, numConsumers);
+				end = SubtaskGeoLocationAssigner.lastPointwiseSource(j, numProducers, numConsumers) + 1;
+			}
+
+			for (int i = start; i < end; i++) {
+				placedConsumers[i]++;
+				if (producerLocations[i] != null && !producerLocations[i].equals(consumerLocation)) {
+					remoteConsumers[i]++;
+				}
+			}
+		}
+
+		final double[] shares = new double[numProducers];
+		for (int i = 0; i < numProducers; i++) {
+			shares[i] = producerLocations[i] == null || placedConsumers[i] == 0 ? 0 : (double) remoteConsumers[i] / placedConsumers[i];
+		}
+		return shares;
+	}
+
+	@Nullable
+	private static GeoLocation geoLocationOf(@Nullable AccessExecutionVertex subtask) {
+		final TaskManagerLocation location = subtask == null ? null : subtask.getCurrentAssignedResourceLocation();
+		return location == null ? null : location.getGeoLocation();
+	}
+}
@@ -0,0 +1,477 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.rest.messages.job;
+
+import org.apache.flink.runtime.jobgraph.DistributionPattern;
+import org.apache.flink.runtime.jobgraph.JobVertexID;
+import org.apache.flink.runtime.rest.handler.job.JobGeoPlacementHandler;
+import org.apache.flink.runtime.rest.messages.ResponseBody;
+import org.apache.flink.runtime.rest.messages.json.JobVertexIDDeserializer;
+import org.apache.flink.runtime.rest.messages.json.JobVertexIDSerializer;
+
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.annotation.JsonCreator;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.annotation.JsonProperty;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import javax.annotation.Nullable;
+
+import java.util.List;
+import java.util.Objects;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Response type of the {@link JobGeoPlacementHandler}.
+ */
+public class JobGeoPlacementInfo implements ResponseBody {
+
+	public static final String FIELD_NAME_SOLVER = "solver";
+	public static final String FIELD_NAME_SOLVE_TIME = "solve-time";
+	public static final String FIELD_NAME_OBJECTIVE = "objective";
+	public static final String FIELD_NAME_OBJECTIVE_BOUND = "objective-bound";
+	public static final String FIELD_NAME_OPTIMALITY_GAP = "optimality-gap";
+	public static final String FIELD_NAME_NETWORK_COST = "network-cost";
+	public static final String FIELD_NAME_EXECUTION_SPEED = "execution-speed";
+	public static final String FIELD_NAME_FALLBACKS = "fallbacks";
+	public static final String FIELD_NAME_REPAIRS = "repairs";
+	public static final String FIELD_NAME_VERTICES = "vertices";
+	public static final String FIELD_NAME_LOCATIONS = "locations";
+	public static final String FIELD_NAME_EDGES = "edges";
+
+	@Nullable
+	@JsonProperty(FIELD_NAME_SOLVER)
+	private final String solver;
+
+	@JsonProperty(FIELD_NAME_SOLVE_TIME)
+	private final long solveTime;
+
+	@JsonProperty(FIELD_NAME_OBJECTIVE)
+	private final double objective;
+
+	@JsonProperty(FIELD_NAME_OBJECTIVE_BOUND)
+	private final double objectiveBound;
+
+	@JsonProperty(FIELD_NAME_OPTIMALITY_GAP)
+	private final double optimalityGap;
+
+	@JsonProperty(FIELD_NAME_NETWORK_COST)
+	private final double networkCost;
+
+	@JsonProperty(FIELD_NAME_EXECUTION_SPEED)
+	private final double executionSpeed;
+
+	@JsonProperty(FIELD_NAME_FALLBACKS)
+	private final long fallbacks;
+
+	@JsonProperty(FIELD_NAME_REPAIRS)
+	private final long repairs;
+
+	@JsonProperty(FIELD_NAME_VERTICES)
+	private final List<VertexPlacement> vertices;
+
+	@JsonProperty(FIELD_NAME_LOCATIONS)
+	private final List<LocationUsage> locations;
+
+	@JsonProperty(FIELD_NAME_EDGES)
+	private final List<EdgeTraffic> edges;
+
+	@JsonCreator
+	public JobGeoPlacementInfo(
+			@Nullable @JsonProperty(FIELD_NAME_SOLVER) String solver,
+			@JsonProperty(FIELD_NAME_SOLVE_TIME) long solveTime,
+			@JsonProperty(FIELD_NAME_OBJECTIVE) double objective,
+			@JsonProperty(FIELD_NAME_OBJECTIVE_BOUND) double objectiveBound,
+			@JsonProperty(FIELD_NAME_OPTIMALITY_GAP) double optimalityGap,
+			@JsonProperty(FIELD_NAME_NETWORK_COST) double networkCost,
+			@JsonProperty(FIELD_NAME_EXECUTION_SPEED) double executionSpeed,
+			@JsonProperty(FIELD_NAME_FALLBACKS) long fallbacks,
+			@JsonProperty(FIELD_NAME_REPAIRS) long repairs,
+			@JsonProperty(FIELD_NAME_VERTICES) List<VertexPlacement> vertices,
+			@JsonProperty(FIELD_NAME_LOCATIONS) List<LocationUsage> locations,
+			@JsonProperty(FIELD_NAME_EDGES) List<EdgeTraffic> edges) {
+		this.solver = solver;
+		this.solveTime = solveTime;
+		this.objective = objective;
+		this.objectiveBound = objectiveBound;
+		this.optimalityGap = optimalityGap;
+		this.networkCost = networkCost;
+		this.executionSpeed = executionSpeed;
+		this.fallbacks = fallbacks;
+		this.repairs = repairs;
+		this.vertices = checkNotNull(vertices);
+		this.locations = checkNotNull(locations);
+		this.edges = checkNotNull(edges);
+	}
+
+	@Nullable
+	public String getSolver() {
+		return solver;
+	}
+
+	public long getSolveTime() {
+		return solveTime;
+	}
+
+	public double getObjective() {
+		return objective;
+	}
+
+	public double getObjectiveBound() {
+		return objectiveBound;
+	}
+
+	public double getOptimalityGap() {
+		return optimalityGap;
+	}
+
+	public double getNetworkCost() {
+		return networkCost;
+	}
+
+	public double getExecutionSpeed() {
+		return executionSpeed;
+	}
+
+	public long getFallbacks() {
+		return fallbacks;
+	}
+
+	public long getRepairs() {
+		return repairs;
+	}
+
+	public List<VertexPlacement> getVertices() {
+		return vertices;
+	}
+
+	public List<LocationUsage> getLocations() {
+		return locations;
+	}
+
+	public List<EdgeTraffic> getEdges() {
+		return edges;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		JobGeoPlacementInfo that = (JobGeoPlacementInfo) o;
+		return Objects.equals(solver, that.solver) &&
+			solveTime == that.solveTime &&
+			Double.compare(objective, that.objective) == 0 &&
+			Double.compare(objectiveBound, that.objectiveBound) == 0 &&
+			Double.compare(optimalityGap, that.optimalityGap) == 0 &&
+			Double.compare(networkCost, that.networkCost) == 0 &&
+			Double.compare(executionSpeed, that.executionSpeed) == 0 &&
+			fallbacks == that.fallbacks &&
+			repairs == that.repairs &&
+			Objects.equals(vertices, that.vertices) &&
+			Objects.equals(locations, that.locations) &&
+			Objects.equals(edges, that.edges);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(solver, solveTime, objective, objectiveBound, optimalityGap, networkCost, executionSpeed,
+			fallbacks, repairs, vertices, locations, edges);
+	}
+
+	//---------------------------------------------------------------------------------
+	// Static helper classes
+	//---------------------------------------------------------------------------------
+
+	/**
+	 * The geo locations of a vertex, and how many of its subtasks run elsewhere.
+	 */
+	public static final class VertexPlacement {
+
+		public static final String FIELD_NAME_VERTEX_ID = "id";
+		public static final String FIELD_NAME_VERTEX_NAME = "name";
+		public static final String FIELD_NAME_PARALLELISM = "parallelism";
+		public static final String FIELD_NAME_LOCATIONS = "locations";
+		public static final String FIELD_NAME_SUBTASKS_OUTSIDE_PLACEMENT = "subtasks-outside-placement";
+
+		@JsonProperty(FIELD_NAME_VERTEX_ID)
+		@JsonSerialize(using = JobVertexIDSerializer.class)
+		private final JobVertexID id;
+
+		@JsonProperty(FIELD_NAME_VERTEX_NAME)
+		private final String name;
+
+		@JsonProperty(FIELD_NAME_PARALLELISM)
+		private final int parallelism;
+
+		@JsonProperty(FIELD_NAME_LOCATIONS)
+		private final List<String> locations;
+
+		@JsonProperty(FIELD_NAME_SUBTASKS_OUTSIDE_PLACEMENT)
+		private final int subtasksOutsidePlacement;
+
+		@JsonCreator
+		public VertexPlacement(
+				@JsonDeserialize(using = JobVertexIDDeserializer.class) @JsonProperty(FIELD_NAME_VERTEX_ID) JobVertexID id,
+				@JsonProperty(FIELD_NAME_VERTEX_NAME) String name,
+				@JsonProperty(FIELD_NAME_PARALLELISM) int parallelism,
+				@JsonProperty(FIELD_NAME_LOCATIONS) List<String> locations,
+				@JsonProperty(FIELD_NAME_SUBTASKS_OUTSIDE_PLACEMENT) int subtasksOutsidePlacement) {
+			this.id = checkNotNull(id);
+			this.name = checkNotNull(name);
+			this.parallelism = parallelism;
+			this.locations = checkNotNull(locations);
+			this.subtasksOutsidePlacement = subtasksOutsidePlacement;
+		}
+
+		public JobVertexID getId() {
+			return id;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public int getParallelism() {
+			return parallelism;
+		}
+
+		public List<String> getLocations() {
+			return locations;
+		}
+
+		public int getSubtasksOutsidePlacement() {
+			return subtasksOutsidePlacement;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			VertexPlacement that = (VertexPlacement) o;
+			return Objects.equals(id, that.id) &&
+				Objects.equals(name, that.name) &&
+				parallelism == that.parallelism &&
+				Objects.equals(locations, that.locations) &&
+				subtasksOutsidePlacement == that.subtasksOutsidePlacement;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(id, name, parallelism, locations, subtasksOutsidePlacement);
+		}
+	}
+
+	/**
+	 * The subtasks planned at a geo location, and the subtasks and TaskManagers actually used there.
+	 */
+	public static final class LocationUsage {
+
+		public static final String FIELD_NAME_LOCATION = "location";
+		public static final String FIELD_NAME_PLANNED_SUBTASKS = "planned-subtasks";
+		public static final String FIELD_NAME_SUBTASKS = "subtasks";
+		public static final String FIELD_NAME_TASKMANAGERS = "taskmanagers";
+
+		@JsonProperty(FIELD_NAME_LOCATION)
+		private final String location;
+
+		@JsonProperty(FIELD_NAME_PLANNED_SUBTASKS)
+		private final int plannedSubtasks;
+
+		@JsonProperty(FIELD_NAME_SUBTASKS)
+		private final int subtasks;
+
+		@JsonProperty(FIELD_NAME_TASKMANAGERS)
+		private final int taskManagers;
+
+		@JsonCreator
+		public LocationUsage(
+				@JsonProperty(FIELD_NAME_LOCATION) String location,
+				@JsonProperty(FIELD_NAME_PLANNED_SUBTASKS) int plannedSubtasks,
+				@JsonProperty(FIELD_NAME_SUBTASKS) int subtasks,
+				@JsonProperty(FIELD_NAME_TASKMANAGERS) int taskManagers) {
+			this.location = checkNotNull(location);
+			this.plannedSubtasks = plannedSubtasks;
+			this.subtasks = subtasks;
+			this.taskManagers = taskManagers;
+		}
+
+		public String getLocation() {
+			return location;
+		}
+
+		public int getPlannedSubtasks() {
+			return plannedSubtasks;
+		}
+
+		public int getSubtasks() {
+			return subtasks;
+		}
+
+		public int getTaskManagers() {
+			return taskManagers;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			LocationUsage that = (LocationUsage) o;
+			return Objects.equals(location, that.location) &&
+				plannedSubtasks == that.plannedSubtasks &&
+				subtasks == that.subtasks &&
+				taskManagers == that.taskManagers;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(location, plannedSubtasks, subtasks, taskManagers);
+		}
+	}
+
+	/**
+	 * The bytes sent over an edge, and the ones the placement expected to cross geo locations against the ones
+	 * actually crossing them given where the subtasks run.
+	 */
+	public static final class EdgeTraffic {
+
+		public static final String FIELD_NAME_SOURCE = "source";
+		public static final String FIELD_NAME_TARGET = "target";
+		public static final String FIELD_NAME_DISTRIBUTION_PATTERN = "distribution-pattern";
+		public static final String FIELD_NAME_WEIGHT = "weight";
+		public static final String FIELD_NAME_BYTES = "bytes";
+		public static final String FIELD_NAME_BYTES_COMPLETE = "bytes-complete";
+		public static final String FIELD_NAME_ESTIMATED_CROSS_LOCATION_BYTES = "estimated-cross-location-bytes";
+		public static final String FIELD_NAME_MEASURED_CROSS_LOCATION_BYTES = "measured-cross-location-bytes";
+
+		@JsonProperty(FIELD_NAME_SOURCE)
+		@JsonSerialize(using = JobVertexIDSerializer.class)
+		private final JobVertexID source;
+
+		@JsonProperty(FIELD_NAME_TARGET)
+		@JsonSerialize(using = JobVertexIDSerializer.class)
+		private final JobVertexID target;
+
+		@JsonProperty(FIELD_NAME_DISTRIBUTION_PATTERN)
+		private final DistributionPattern distributionPattern;
+
+		@JsonProperty(FIELD_NAME_WEIGHT)
+		private final double weight;
+
+		@JsonProperty(FIELD_NAME_BYTES)
+		private final long bytes;
+
+		@JsonProperty(FIELD_NAME_BYTES_COMPLETE)
+		private final boolean bytesComplete;
+
+		@JsonProperty(FIELD_NAME_ESTIMATED_CROSS_LOCATION_BYTES)
+		private final long estimatedCrossLocationBytes;
+
+		@JsonProperty(FIELD_NAME_MEASURED_CROSS_LOCATION_BYTES)
+		private final long measuredCrossLocationBytes;
+
+		@JsonCreator
+		public EdgeTraffic(
+				@JsonDeserialize(using = JobVertexIDDeserializer.class) @JsonProperty(FIELD_NAME_SOURCE) JobVertexID source,
+				@JsonDeserialize(using = JobVertexIDDeserializer.class) @JsonProperty(FIELD_NAME_TARGET) JobVertexID target,
+				@JsonProperty(FIELD_NAME_DISTRIBUTION_PATTERN) DistributionPattern distributionPattern,
+				@JsonProperty(FIELD_NAME_WEIGHT) double weight,
+				@JsonProperty(FIELD_NAME_BYTES) long bytes,
+				@JsonProperty(FIELD_NAME_BYTES_COMPLETE) boolean bytesComplete,
+				@JsonProperty(FIELD_NAME_ESTIMATED_CROSS_LOCATION_BYTES) long estimatedCrossLocationBytes,
+				@JsonProperty(FIELD_NAME_MEASURED_CROSS_LOCATION_BYTES) long measuredCrossLocationBytes) {
+			this.source = checkNotNull(source);
+			this.target = checkNotNull(target);
+			this.distributionPattern = checkNotNull(distributionPattern);
+			this.weight = weight;
+			this.bytes = bytes;
+			this.bytesComplete = bytesComplete;
+			this.estimatedCrossLocationBytes = estimatedCrossLocationBytes;
+			this.measuredCrossLocationBytes = measuredCrossLocationBytes;
+		}
+
+		public JobVertexID getSource() {
+			return source;
+		}
+
+		public JobVertexID getTarget() {
+			return target;
+		}
+
+		public DistributionPattern getDistributionPattern() {
+			return distributionPattern;
+		}
+
+		public double getWeight() {
+			return weight;
+		}
+
+		public long getBytes() {
+			return bytes;
+		}
+
+		public boolean isBytesComplete() {
+			return bytesComplete;
+		}
+
+		public long getEstimatedCrossLocationBytes() {
+			return estimatedCrossLocationBytes;
+		}
+
+		public long getMeasuredCrossLocationBytes() {
+			return measuredCrossLocationBytes;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			EdgeTraffic that = (EdgeTraffic) o;
+			return Objects.equals(source, that.source) &&
+				Objects.equals(target, that.target) &&
+				distributionPattern == that.distributionPattern &&
+				Double.compare(weight, that.weight) == 0 &&
+				bytes == that.bytes &&
+				bytesComplete == that.bytesComplete &&
+				estimatedCrossLocationBytes == that.estimatedCrossLocationBytes &&
+				measuredCrossLocationBytes == that.measuredCrossLocationBytes;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(source, target, distributionPattern, weight, bytes, bytesComplete,
+				estimatedCrossLocationBytes, measuredCrossLocationBytes);
+		}
+	}
+}
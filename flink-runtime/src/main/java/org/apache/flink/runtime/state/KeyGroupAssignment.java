@@ -0,0 +1,258 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state;
+
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.util.Preconditions;
+
+import javax.annotation.Nullable;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An assignment of the key-groups of an operator to its parallel instances, in contiguous ranges of any size.
+ *
+ * <p>{@link KeyGroupRangeAssignment} splits the key-groups in ranges of equal size. This assignment lets the size of
+ * the ranges follow the key-groups' traffic instead, e.g. so that the subtasks running at a geo location own the
+ * key-groups whose records are mostly produced there. The ranges stay contiguous, so the keyed state of an operator
+ * can be restored, or rescaled, under any assignment through the {@link KeyGroupRangeOffsets} of its snapshots.
+ *
+ * <p>The assignment of an operator is kept in the configuration of its job vertex, for the state backends, and in the
+ * configuration of the job vertices producing its keyed inputs, for their partitioners. Without an assignment, the
+ * key-groups are split in ranges of equal size.
+ */
+public final class KeyGroupAssignment implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final String KEY_GROUP_RANGES_KEY = "key-group-assignment.ranges";
+
+	private static final String OUTPUT_KEY_GROUP_RANGES_KEY_PREFIX = "key-group-assignment.output.";
+
+	private static final String SAMPLE_KEY_GROUPS_KEY = "key-group-assignment.sample-key-groups";
+
+	/** The first key-group of each parallel instance, followed by the number of key-groups. */
+	private final int[] rangeStarts;
+
+	/**
+	 * @param rangeStarts the first key-group of each parallel instance, in increasing order and starting with 0,
+	 *                    followed by the number of key-groups
+	 */
+	public KeyGroupAssignment(int[] rangeStarts) {
+		Preconditions.checkArgument(rangeStarts.length > 1, "The assignment needs at least one parallel instance");
+		Preconditions.checkArgument(rangeStarts[0] == 0, "The first range must start at key-group 0");
+		for (int i = 1; i < rangeStarts.length; i++) {
+			Preconditions.checkArgument(rangeStarts[i] > rangeStarts[i - 1],
+				"Every parallel instance must own at least one key-group: " + Arrays.toString(rangeStarts));
+		}
+		KeyGroupRangeAssignment.checkParallelismPreconditions(rangeStarts[rangeStarts.length - 1]);
+
+		this.rangeStarts = rangeStarts.clone();
+	}
+
+	/**
+	 * Creates the assignment of {@link KeyGroupRangeAssignment}, splitting the key-groups in ranges of equal size.
+	 */
+	public static KeyGroupAssignment uniform(int maxParallelism, int parallelism) {
+		int[] rangeStarts = new int[parallelism + 1];
+		for (int i = 0; i < parallelism; i++) {
+			rangeStarts[i] = KeyGroupRangeAssignment.computeKeyGroupRangeForOperatorIndex(maxParallelism, parallelism, i).getStartKeyGroup();
+		}
+		rangeStarts[parallelism] = maxParallelism;
+		return new KeyGroupAssignment(rangeStarts);
+	}
+
+	public int getParallelism() {
+		return rangeStarts.length - 1;
+	}
+
+	public int getMaxParallelism() {
+		return rangeStarts[rangeStarts.length - 1];
+	}
+
+	/**
+	 * @return the key-groups owned by the given parallel instance
+	 */
+	public KeyGroupRange getKeyGroupRange(int operatorIndex) {
+		return new KeyGroupRange(rangeStarts[operatorIndex], rangeStarts[operatorIndex + 1] - 1);
+	}
+
+	/**
+	 * @return the key-groups owned by each parallel instance, by index
+	 */
+	public List<KeyGroupRange> getKeyGroupRanges() {
+		List<KeyGroupRange> ranges = new ArrayList<>(getParallelism());
+		for (int i = 0; i < getParallelism(); i++) {
+			ranges.add(getKeyGroupRange(i));
+		}
+		return ranges;
+	}
+
+	/**
+	 * @return the index of the parallel instance owning the given key-group
+	 */
+	public int computeOperatorIndexForKeyGroup(int keyGroupId) {
+		int index = Arrays.binarySearch(rangeStarts, keyGroupId);
+		// a key-group that doesn't start a range is in the range before its insertion point
+		return index >= 0 ? index : -index - 2;
+	}
+
+	/**
+	 * @return the index of the parallel instance the given key should be routed to
+	 */
+	public int assignKeyToParallelOperator(Object key) {
+		return computeOperatorIndexForKeyGroup(KeyGroupRangeAssignment.assignToKeyGroup(key, getMaxParallelism()));
+	}
+
+	/**
+	 * @return true if this assignment is the one of {@link KeyGroupRangeAssignment}
+	 */
+	public boolean isUniform() {
+		return equals(uniform(getMaxParallelism(), getParallelism()));
+	}
+
+	// ------------------------------------------------------------------------
+	//  Configuration
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Sets this assignment as the one of the operator of the job vertex with the given configuration.
+	 */
+	public void writeTo(Configuration configuration) {
+		configuration.setString(KEY_GROUP_RANGES_KEY, toConfigString());
+	}
+
+	/**
+	 * Sets this assignment as the one of the consumer of the given output of the job vertex with the given
+	 * configuration.
+	 */
+	public void writeToOutput(Configuration configuration, int outputIndex) {
+		configuration.setString(OUTPUT_KEY_GROUP_RANGES_KEY_PREFIX + outputIndex, toConfigString());
+	}
+
+	/**
+	 * @return the assignment of the operator of the job vertex with the given configuration, or null if it has none
+	 */
+	@Nullable
+	public static KeyGroupAssignment readFrom(Configuration configuration) {
+		return fromConfigString(configuration.getString(KEY_GROUP_RANGES_KEY, null));
+	}
+
+	/**
+	 * @return the assignment of the consumer of the given output of the job vertex with the given configuration, or
+	 * null if it has none
+	 */
+	@Nullable
+	public static KeyGroupAssignment readFromOutput(Configuration configuration, int outputIndex) {
+		return fromConfigString(configuration.getString(OUTPUT_KEY_GROUP_RANGES_KEY_PREFIX + outputIndex, null));
+	}
+
+	/**
+	 * Removes the assignments of the operator and of the outputs of the job vertex with the given configuration.
+	 */
+	public static void clear(Configuration configuration) {
+		for (String key : configuration.keySet()) {
+			if (key.equals(KEY_GROUP_RANGES_KEY) || key.startsWith(OUTPUT_KEY_GROUP_RANGES_KEY_PREFIX)) {
+				configuration.setString(key, "");
+			}
+		}
+	}
+
+	/**
+	 * Computes the key-groups owned by a parallel instance of the operator of the job vertex with the given
+	 * configuration, with its assignment if it matches the given parallelism, or in ranges of equal size.
+	 */
+	public static KeyGroupRange computeKeyGroupRangeForOperatorIndex(
+			Configuration configuration,
+			int maxParallelism,
+			int parallelism,
+			int operatorIndex) {
+
+		KeyGroupAssignment assignment = readFrom(configuration);
+		if (assignment != null && assignment.getMaxParallelism() == maxParallelism && assignment.getParallelism() == parallelism) {
+			return assignment.getKeyGroupRange(operatorIndex);
+		}
+		return KeyGroupRangeAssignment.computeKeyGroupRangeForOperatorIndex(maxParallelism, parallelism, operatorIndex);
+	}
+
+	/**
+	 * Sets whether the job vertex with the given configuration counts the records it writes to each key-group of its
+	 * keyed outputs, in a {@link KeyGroupHistogram} accumulator per output.
+	 */
+	public static void setSampleKeyGroups(Configuration configuration, boolean sampleKeyGroups) {
+		configuration.setBoolean(SAMPLE_KEY_GROUPS_KEY, sampleKeyGroups);
+	}
+
+	public static boolean isSampleKeyGroups(Configuration configuration) {
+		return configuration.getBoolean(SAMPLE_KEY_GROUPS_KEY, false);
+	}
+
+	private String toConfigString() {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < rangeStarts.length; i++) {
+			if (i > 0) {
+				builder.append(',');
+			}
+			builder.append(rangeStarts[i]);
+		}
+		return builder.toString();
+	}
+
+	@Nullable
+	private static KeyGroupAssignment fromConfigString(@Nullable String value) {
+		if (value == null || value.isEmpty()) {
+			return null;
+		}
+
+		String[] fields = value.split(",");
+		int[] rangeStarts = new int[fields.length];
+		for (int i = 0; i < fields.length; i++) {
+			rangeStarts[i] = Integer.parseInt(fields[i].trim());
+		}
+		return new KeyGroupAssignment(rangeStarts);
+	}
+
+	// ------------------------------------------------------------------------
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		return Arrays.equals(rangeStarts, ((KeyGroupAssignment) o).rangeStarts);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(rangeStarts);
+	}
+
+	@Override
+	public String toString() {
+		return "KeyGroupAssignment{" +
+			"ranges=" + getKeyGroupRanges() +
+			'}';
+	}
+}
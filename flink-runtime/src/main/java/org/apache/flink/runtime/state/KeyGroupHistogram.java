@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state;
+
+import org.apache.flink.api.common.accumulators.Accumulator;
+import org.apache.flink.util.Preconditions;
+
+/**
+ * An accumulator counting the records written to each key-group of a keyed output of a task. The JobManager adds up
+ * the histograms of the subtasks by their geo location, to find where the traffic of each key-group comes from.
+ */
+public class KeyGroupHistogram implements Accumulator<Integer, long[]> {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final String NAME_PREFIX = "__key-group-histogram-";
+
+	private long[] counts;
+
+	public KeyGroupHistogram(int numberOfKeyGroups) {
+		Preconditions.checkArgument(numberOfKeyGroups > 0, "The number of key-groups must be positive");
+		this.counts = new long[numberOfKeyGroups];
+	}
+
+	/**
+	 * @return the name of the histogram of the given keyed output of a task
+	 */
+	public static String getAccumulatorName(int outputIndex) {
+		return NAME_PREFIX + outputIndex;
+	}
+
+	/**
+	 * Consider using {@link #add(int)} instead for primitive int values.
+	 */
+	@Override
+	public void add(Integer keyGroup) {
+		add(keyGroup.intValue());
+	}
+
+	public void add(int keyGroup) {
+		counts[keyGroup]++;
+	}
+
+	@Override
+	public long[] getLocalValue() {
+		return counts;
+	}
+
+	@Override
+	public void resetLocal() {
+		counts = new long[counts.length];
+	}
+
+	@Override
+	public void merge(Accumulator<Integer, long[]> other) {
+		long[] otherCounts = other.getLocalValue();
+		Preconditions.checkArgument(otherCounts.length == counts.length, "The histograms have different key-groups");
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] += otherCounts[i];
+		}
+	}
+
+	@Override
+	public KeyGroupHistogram clone() {
+		KeyGroupHistogram result = new KeyGroupHistogram(counts.length);
+		result.counts = counts.clone();
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		long total = 0;
+		for (long count : counts) {
+			total += count;
+		}
+		return "KeyGroupHistogram " + total + " records in " + counts.length + " key-groups";
+	}
+}
@@ -21,6 +21,9 @@ package org.apache.flink.runtime.taskexecutor;
 import org.apache.flink.annotation.VisibleForTesting;
 import org.apache.flink.api.common.JobID;
 import org.apache.flink.api.common.time.Time;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.JobManagerOptions;
+import org.apache.flink.configuration.OptimisationModelOptions;
 import org.apache.flink.runtime.accumulators.AccumulatorSnapshot;
 import org.apache.flink.runtime.blob.BlobCacheService;
 import org.apache.flink.runtime.blob.TransientBlobCache;
@@ -37,6 +40,7 @@ import org.apache.flink.runtime.execution.ExecutionState;
 import org.apache.flink.runtime.execution.librarycache.BlobLibraryCacheManager;
 import org.apache.flink.runtime.execution.librarycache.LibraryCacheManager;
 import org.apache.flink.runtime.executiongraph.ExecutionAttemptID;
+import org.apache.flink.runtime.executiongraph.IOMetrics;
 import org.apache.flink.runtime.executiongraph.JobInformation;
 import org.apache.flink.runtime.executiongraph.PartitionInfo;
 import org.apache.flink.runtime.executiongraph.TaskInformation;
@@ -185,6 +189,9 @@ public class TaskExecutor extends RpcEndpoint implements TaskExecutorGateway {
 
 	private final HardwareDescription hardwareDescription;
 
+	/** Whether the I/O metrics of the tasks are sent with the heartbeats, for the JobMaster to revisit placements. */
+	private final boolean reportIOMetrics;
+
 	private FileCache fileCache;
 
 	public TaskExecutor(
@@ -208,6 +215,10 @@ public class TaskExecutor extends RpcEndpoint implements TaskExecutorGateway {
 		this.taskManagerMetricGroup = checkNotNull(taskManagerMetricGroup);
 		this.blobCacheService = checkNotNull(blobCacheService);
 
+		final Configuration configuration = taskManagerConfiguration.getConfiguration();
+		this.reportIOMetrics = configuration.getBoolean(JobManagerOptions.IS_GEO_SCHEDULING_ENABLED) &&
+			configuration.getBoolean(OptimisationModelOptions.ADAPTIVE_REPLACEMENT);
+
 		this.taskSlotTable = taskExecutorServices.getTaskSlotTable();
 		this.jobManagerTable = taskExecutorServices.getJobManagerTable();
 		this.jobLeaderService = taskExecutorServices.getJobLeaderService();
@@ -886,6 +897,7 @@ public class TaskExecutor extends RpcEndpoint implements TaskExecutorGateway {
 					taskSlotTable.createSlotReport(getResourceID()),
 					taskManagerLocation.dataPort(),
 					hardwareDescription,
+					taskManagerLocation.getGeoLocation(),
 					newLeaderAddress,
 					newResourceManagerId,
 					getMainThreadExecutor(),
@@ -1538,7 +1550,10 @@ public class TaskExecutor extends RpcEndpoint implements TaskExecutorGateway {
 
 				while (allTasks.hasNext()) {
 					Task task = allTasks.next();
-					accumulatorSnapshots.add(task.getAccumulatorRegistry().getSnapshot());
+					// the I/O counters let the JobMaster follow the traffic between the geo locations
+					IOMetrics ioMetrics = reportIOMetrics && task.getMetricGroup() != null ?
+						task.getMetricGroup().getIOMetricGroup().createSnapshot() : null;
+					accumulatorSnapshots.add(task.getAccumulatorRegistry().getSnapshot(ioMetrics));
 				}
 				return CompletableFuture.completedFuture(new AccumulatorReport(accumulatorSnapshots));
 			} else {
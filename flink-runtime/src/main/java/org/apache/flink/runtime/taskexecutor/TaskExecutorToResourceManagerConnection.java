@@ -19,6 +19,7 @@
 package org.apache.flink.runtime.taskexecutor;
 
 import org.apache.flink.api.common.time.Time;
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
 import org.apache.flink.runtime.clusterframework.types.ResourceID;
 import org.apache.flink.runtime.instance.HardwareDescription;
 import org.apache.flink.runtime.instance.InstanceID;
@@ -56,6 +57,8 @@ public class TaskExecutorToResourceManagerConnection
 
 	private final HardwareDescription hardwareDescription;
 
+	private final GeoLocation geoLocation;
+
 	private final RegistrationConnectionListener<TaskExecutorRegistrationSuccess> registrationListener;
 
 	private InstanceID registrationId;
@@ -70,6 +73,7 @@ public class TaskExecutorToResourceManagerConnection
 			SlotReport slotReport,
 			int dataPort,
 			HardwareDescription hardwareDescription,
+			GeoLocation geoLocation,
 			String resourceManagerAddress,
 			ResourceManagerId resourceManagerId,
 			Executor executor,
@@ -83,6 +87,7 @@ public class TaskExecutorToResourceManagerConnection
 		this.slotReport = Preconditions.checkNotNull(slotReport);
 		this.dataPort = dataPort;
 		this.hardwareDescription = Preconditions.checkNotNull(hardwareDescription);
+		this.geoLocation = Preconditions.checkNotNull(geoLocation);
 		this.registrationListener = Preconditions.checkNotNull(registrationListener);
 	}
 
@@ -98,7 +103,8 @@ public class TaskExecutorToResourceManagerConnection
 			taskManagerResourceId,
 			slotReport,
 			dataPort,
-			hardwareDescription);
+			hardwareDescription,
+			geoLocation);
 	}
 
 	@Override
@@ -150,6 +156,8 @@ public class TaskExecutorToResourceManagerConnection
 
 		private final HardwareDescription hardwareDescription;
 
+		private final GeoLocation geoLocation;
+
 		ResourceManagerRegistration(
 				Logger log,
 				RpcService rpcService,
@@ -159,7 +167,8 @@ public class TaskExecutorToResourceManagerConnection
 				ResourceID resourceID,
 				SlotReport slotReport,
 				int dataPort,
-				HardwareDescription hardwareDescription) {
+				HardwareDescription hardwareDescription,
+				GeoLocation geoLocation) {
 
 			super(log, rpcService, "ResourceManager", ResourceManagerGateway.class, targetAddress, resourceManagerId);
 			this.taskExecutorAddress = checkNotNull(taskExecutorAddress);
@@ -167,6 +176,7 @@ public class TaskExecutorToResourceManagerConnection
 			this.slotReport = checkNotNull(slotReport);
 			this.dataPort = dataPort;
 			this.hardwareDescription = checkNotNull(hardwareDescription);
+			this.geoLocation = checkNotNull(geoLocation);
 		}
 
 		@Override
@@ -180,6 +190,7 @@ public class TaskExecutorToResourceManagerConnection
 				slotReport,
 				dataPort,
 				hardwareDescription,
+				geoLocation,
 				timeout);
 		}
 	}
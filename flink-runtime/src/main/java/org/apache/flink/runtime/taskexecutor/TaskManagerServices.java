@@ -238,7 +238,7 @@ public class TaskManagerServices {
 		// pre-start checks
 		checkTempDirs(taskManagerServicesConfiguration.getTmpDirPaths());
 
-		final NetworkEnvironment network = createNetworkEnvironment(taskManagerServicesConfiguration, maxJvmHeapMemory);
+		final NetworkEnvironment network = createNetworkEnvironment(taskManagerServicesConfiguration, maxJvmHeapMemory, geoLocation);
 		network.start();
 
 		final TaskManagerLocation taskManagerLocation = new TaskManagerLocation(
@@ -412,12 +412,14 @@ public class TaskManagerServices {
 	 *
 	 * @param taskManagerServicesConfiguration to construct the network environment from
 	 * @param maxJvmHeapMemory the maximum JVM heap size
+	 * @param geoLocation the geo location of the task manager
 	 * @return Network environment
 	 * @throws IOException
 	 */
 	private static NetworkEnvironment createNetworkEnvironment(
 			TaskManagerServicesConfiguration taskManagerServicesConfiguration,
-			long maxJvmHeapMemory) {
+			long maxJvmHeapMemory,
+			GeoLocation geoLocation) {
 
 		NetworkEnvironmentConfiguration networkEnvironmentConfiguration = taskManagerServicesConfiguration.getNetworkConfig();
 
@@ -439,7 +441,7 @@ public class TaskManagerServices {
 		boolean enableCreditBased = false;
 		NettyConfig nettyConfig = networkEnvironmentConfiguration.nettyConfig();
 		if (nettyConfig != null) {
-			connectionManager = new NettyConnectionManager(nettyConfig);
+			connectionManager = new NettyConnectionManager(nettyConfig, geoLocation);
 			enableCreditBased = nettyConfig.isCreditBasedEnabled();
 		} else {
 			connectionManager = new LocalConnectionManager();
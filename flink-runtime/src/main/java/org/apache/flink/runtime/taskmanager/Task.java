@@ -374,6 +374,7 @@ public class Task implements Runnable, TaskActions, CheckpointListener {
 				resultPartitionConsumableNotifier,
 				ioManager,
 				desc.sendScheduleOrUpdateConsumersMessage());
+			this.producedPartitions[counter].setSubpartitionBufferTimeouts(desc.getSubpartitionBufferTimeouts());
 
 			++counter;
 		}
@@ -804,6 +805,11 @@ public class Task implements Runnable, TaskActions, CheckpointListener {
 			}
 		}
 		finally {
+			// the CPU time is reported with the IO metrics of the final state, before the cleanup adds to it
+			if (metrics != null) {
+				metrics.getIOMetricGroup().updateCpuTime();
+			}
+
 			try {
 				LOG.info("Freeing task resources for {} ({}).", taskNameWithSubtask, executionId);
 
@@ -23,7 +23,7 @@ import java.net._
 import java.util
 import java.util.UUID
 import java.util.concurrent.{TimeUnit, Future => _, TimeoutException => _, _}
-import java.util.function.{BiFunction, Consumer}
+import java.util.function.{BiConsumer, BiFunction, Consumer}
 
 import akka.actor.Status.{Failure, Success}
 import akka.actor._
@@ -55,7 +55,7 @@ import org.apache.flink.runtime.highavailability.{HighAvailabilityServices, High
 import org.apache.flink.runtime.instance.{AkkaActorGateway, InstanceID, InstanceManager}
 import org.apache.flink.runtime.jobgraph.{JobGraph, JobStatus}
 import org.apache.flink.runtime.jobmanager.SubmittedJobGraphStore.SubmittedJobGraphListener
-import org.apache.flink.runtime.jobmanager.scheduler.{StaticBandwidthProvider, GeoScheduler => FlinkGeoScheduler, Scheduler => FlinkScheduler}
+import org.apache.flink.runtime.jobmanager.scheduler.{MeasuredBandwidthProvider, StaticBandwidthProvider, GeoScheduler => FlinkGeoScheduler, Scheduler => FlinkScheduler}
 import org.apache.flink.runtime.jobmanager.slots.ActorTaskManagerGateway
 import org.apache.flink.runtime.jobmaster.JobMaster
 import org.apache.flink.runtime.leaderelection.{LeaderContender, LeaderElectionService}
@@ -64,7 +64,7 @@ import org.apache.flink.runtime.messages.ExecutionGraphMessages.JobStatusChanged
 import org.apache.flink.runtime.messages.JobManagerMessages._
 import org.apache.flink.runtime.messages.Messages.Disconnect
 import org.apache.flink.runtime.messages.RegistrationMessages._
-import org.apache.flink.runtime.messages.TaskManagerMessages.Heartbeat
+import org.apache.flink.runtime.messages.TaskManagerMessages.{Heartbeat, LinkMeasurements}
 import org.apache.flink.runtime.messages.TaskMessages.UpdateTaskExecutionState
 import org.apache.flink.runtime.messages.accumulators._
 import org.apache.flink.runtime.messages.checkpoint.{AbstractCheckpointMessage, AcknowledgeCheckpoint, DeclineCheckpoint}
@@ -147,6 +147,13 @@ class JobManager(
   /** Either running or not yet archived jobs (session hasn't been ended). */
   protected val currentJobs = scala.collection.mutable.HashMap[JobID, (ExecutionGraph, JobInfo)]()
 
+  /**
+   * Jobs whose placement model is being solved, before they become current jobs, with the future
+   * of their solution.
+   */
+  protected val solvingJobs = scala.collection.mutable.HashMap[
+    JobID, (JobInfo, CompletableFuture[OptimisationModelSolution])]()
+
   protected val haMode = HighAvailabilityMode.fromConfig(flinkConfiguration)
 
   var leaderSessionID: Option[UUID] = None
@@ -169,6 +176,11 @@ class JobManager(
     flinkConfiguration.getLong(JobManagerOptions.RESOURCE_MANAGER_RECONNECT_INTERVAL),
     TimeUnit.MILLISECONDS)
 
+  /** Executor solving the placement models of submitted jobs, so that the actor is not blocked. */
+  protected val optimisationModelSolverExecutor: ExecutorService = Executors.newFixedThreadPool(
+    flinkConfiguration.getInteger(OptimisationModelOptions.SOLVER_THREADS),
+    new ExecutorThreadFactory("jobmanager-optimisation-model-solver"))
+
   /**
    * Run when the job manager is started. Simply logs an informational message.
    * The method also starts the leader election service.
@@ -237,6 +249,7 @@ class JobManager(
 
     instanceManager.shutdown()
     scheduler.shutdown()
+    optimisationModelSolverExecutor.shutdownNow()
     libraryCacheManager.shutdown()
 
     try {
@@ -447,6 +460,38 @@ class JobManager(
 
       submitJob(jobGraph, jobInfo)
 
+    case SubmitSolvedJob(submittedJobGraph, isRecovery, solvingLeaderSessionID, solvingFailure) =>
+      val jobGraph = submittedJobGraph.getJobGraph()
+      val jobInfo = submittedJobGraph.getJobInfo()
+
+      if (solvingLeaderSessionID != leaderSessionID) {
+        // the leadership changed while solving, the job has been cleared with the old session
+        log.info(s"Discarding the placement of job ${jobGraph.getJobID} solved with leader " +
+          s"session ID $solvingLeaderSessionID.")
+      } else if (!solvingJobs.get(jobGraph.getJobID).exists(_._1 eq jobInfo)) {
+        // the job has been cancelled while solving, and possibly submitted again since
+        log.info(s"Discarding the placement of job ${jobGraph.getJobID}, which was cancelled " +
+          "while solving.")
+      } else {
+        solvingJobs.remove(jobGraph.getJobID)
+
+        solvingFailure match {
+          case Some(cause) =>
+            log.error(s"Failed to solve the placement model for job ${jobGraph.getJobID}", cause)
+
+            libraryCacheManager.unregisterJob(jobGraph.getJobID)
+            blobServer.cleanupJob(jobGraph.getJobID)
+
+            jobInfo.notifyClients(
+              decorateMessage(JobResultFailure(
+                new SerializedThrowable(
+                  new JobSubmissionException(
+                    jobGraph.getJobID, "Could not solve the placement model.", cause)))))
+          case None =>
+            submitJob(jobGraph, jobInfo, isRecovery, isModelSolved = true)
+        }
+      }
+
     case RegisterJobClient(jobID, listeningBehaviour) =>
       val client = sender()
       currentJobs.get(jobID) match {
@@ -548,12 +593,29 @@ class JobManager(
             origSender ! decorateMessage(CancellationSuccess(jobID))
           }(context.dispatcher)
         case None =>
-          log.info(s"No job found with ID $jobID.")
-          sender ! decorateMessage(
-            CancellationFailure(
-              jobID,
-              new IllegalArgumentException(s"No job found with ID $jobID."))
-          )
+          solvingJobs.remove(jobID) match {
+            case Some((jobInfo, solutionFuture)) =>
+              // the job has no execution graph yet, its placement is discarded once solved
+              solutionFuture.cancel(false)
+
+              libraryCacheManager.unregisterJob(jobID)
+              blobServer.cleanupJob(jobID)
+
+              jobInfo.notifyNonDetachedClients(
+                decorateMessage(JobResultFailure(
+                  new SerializedThrowable(
+                    new JobCancellationException(
+                      jobID, "Job was cancelled while solving its placement model.", null)))))
+
+              sender ! decorateMessage(CancellationSuccess(jobID))
+            case None =>
+              log.info(s"No job found with ID $jobID.")
+              sender ! decorateMessage(
+                CancellationFailure(
+                  jobID,
+                  new IllegalArgumentException(s"No job found with ID $jobID."))
+              )
+          }
       }
 
     case CancelJobWithSavepoint(jobId, savepointDirectory) =>
@@ -988,6 +1050,9 @@ class JobManager(
       currentJobs.get(jobID) match {
         case Some((executionGraph,_)) =>
           sender ! decorateMessage(CurrentJobStatus(jobID, executionGraph.getState))
+        case None if solvingJobs.contains(jobID) =>
+          // the execution graph is created once the placement model is solved
+          sender ! decorateMessage(CurrentJobStatus(jobID, JobStatus.CREATED))
         case None =>
           // check the archive
           archive forward decorateMessage(RequestJobStatus(jobID))
@@ -1063,6 +1128,23 @@ class JobManager(
 
       instanceManager.reportHeartBeat(instanceID)
 
+    case LinkMeasurements(instanceID, measurements) =>
+      scheduler match {
+        case geoScheduler: FlinkGeoScheduler =>
+          geoScheduler.getBandwidthProvider match {
+            case measuredBandwidthProvider: MeasuredBandwidthProvider =>
+              val instance = instanceManager.getRegisteredInstanceById(instanceID)
+              if (instance != null) {
+                measuredBandwidthProvider.reportMeasurements(
+                  instance,
+                  instanceManager.getAllRegisteredInstances,
+                  measurements)
+              }
+            case _ => // bandwidths are not measured
+          }
+        case _ => // not geo scheduling
+      }
+
     case message: AccumulatorMessage => handleAccumulatorMessage(message)
 
     case message: InfoMessage => handleInfoRequestMessage(message, sender())
@@ -1210,14 +1292,26 @@ class JobManager(
    * @param jobGraph representing the Flink job
    * @param jobInfo the job info
    * @param isRecovery Flag indicating whether this is a recovery or initial submission
+   * @param isModelSolved Flag indicating whether the placement model has already been solved
    */
-  private def submitJob(jobGraph: JobGraph, jobInfo: JobInfo, isRecovery: Boolean = false): Unit = {
+  private def submitJob(
+      jobGraph: JobGraph,
+      jobInfo: JobInfo,
+      isRecovery: Boolean = false,
+      isModelSolved: Boolean = false): Unit = {
     if (jobGraph == null) {
       jobInfo.notifyClients(
         decorateMessage(JobResultFailure(
           new SerializedThrowable(
             new JobSubmissionException(null, "JobGraph must not be null.")))))
     }
+    else if (solvingJobs.contains(jobGraph.getJobID)) {
+      jobInfo.notifyClients(
+        decorateMessage(JobResultFailure(
+          new SerializedThrowable(
+            new JobSubmissionException(
+              jobGraph.getJobID, "The placement model of the job is already being solved.")))))
+    }
     else {
       val jobId = jobGraph.getJobID
       val jobName = jobGraph.getName
@@ -1228,15 +1322,17 @@ class JobManager(
       try {
         // Important: We need to make sure that the library registration is the first action,
         // because this makes sure that the uploaded jar files are removed in case of
-        // unsuccessful
-        try {
-          libraryCacheManager.registerJob(
-            jobGraph.getJobID, jobGraph.getUserJarBlobKeys, jobGraph.getClasspaths)
-        }
-        catch {
-          case t: Throwable =>
-            throw new JobSubmissionException(jobId,
-              "Cannot set up the user code libraries: " + t.getMessage, t)
+        // unsuccessful. The libraries of solved jobs have been registered before solving.
+        if (!isModelSolved) {
+          try {
+            libraryCacheManager.registerJob(
+              jobGraph.getJobID, jobGraph.getUserJarBlobKeys, jobGraph.getClasspaths)
+          }
+          catch {
+            case t: Throwable =>
+              throw new JobSubmissionException(jobId,
+                "Cannot set up the user code libraries: " + t.getMessage, t)
+          }
         }
 
         val userCodeLoader = libraryCacheManager.getClassLoader(jobGraph.getJobID)
@@ -1249,6 +1345,14 @@ class JobManager(
           throw new JobSubmissionException(jobId, "The given job is empty")
         }
 
+        scheduler match {
+          case geoScheduler: FlinkGeoScheduler if !isModelSolved =>
+            // solving may take minutes, the submission is resumed by a SubmitSolvedJob message
+            solveOptimisationModel(jobGraph, jobInfo, isRecovery, geoScheduler)
+            return
+          case _ =>
+        }
+
         val restartStrategy =
           Option(jobGraph.getSerializedExecutionConfig()
             .deserializeValue(userCodeLoader)
@@ -1278,23 +1382,11 @@ class JobManager(
         val allocationTimeout: Long = flinkConfiguration.getLong(
           JobManagerOptions.SLOT_REQUEST_TIMEOUT)
 
-        log.info("Checking scheduler...")
+        // size the key-group ranges by the traffic of the previous runs
         scheduler match {
-          case geoScheduler: FlinkGeoScheduler =>
-            log.info("GeoScheduler available, initiating model solving")
-
-            if(jobGraph.getOptimisationModelParameters == null) {
-              var parameters = new OptimisationModelParameters()
-              parameters.setExecutionSpeedWeight(1 - flinkConfiguration.getDouble(OptimisationModelOptions.NETWORK_COST))
-              parameters.setNetworkCostWeight(flinkConfiguration.getDouble(OptimisationModelOptions.NETWORK_COST))
-              parameters.setSlotSharingEnabled(flinkConfiguration.getBoolean(OptimisationModelOptions.GEO_ENABLE_SLOT_SHARING))
-
-              jobGraph.setOptimisationModelParameters(parameters)
-            }
-
-            jobGraph.solveOptimisationModel(geoScheduler.getBandwidthProvider, geoScheduler.calculateAvailableSlotsByGeoLocation)
+          case geoScheduler: FlinkGeoScheduler if geoScheduler.getKeyGroupLocalityStore != null =>
+            geoScheduler.getKeyGroupLocalityStore.applyTo(jobGraph)
           case _ =>
-            log.info("GeoScheduler not available, not solving the model")
         }
 
         executionGraph = ExecutionGraphBuilder.buildGraph(
@@ -1322,6 +1414,30 @@ class JobManager(
         executionGraph.registerJobStatusListener(
           new StatusListenerMessenger(self, leaderSessionID.orNull))
 
+        // measure the vertices for the next placements
+        scheduler match {
+          case geoScheduler: FlinkGeoScheduler if geoScheduler.getOperatorProfileStore != null =>
+            executionGraph.registerJobStatusListener(
+              geoScheduler.getOperatorProfileStore.createRecorder(executionGraph, ioExecutor))
+          case _ =>
+        }
+        scheduler match {
+          case geoScheduler: FlinkGeoScheduler if geoScheduler.getKeyGroupLocalityStore != null =>
+            executionGraph.registerJobStatusListener(
+              geoScheduler.getKeyGroupLocalityStore.createRecorder(executionGraph))
+          case _ =>
+        }
+
+        // flush the channels by the locations of their subtasks
+        scheduler match {
+          case geoScheduler: FlinkGeoScheduler =>
+            executionGraph.setChannelBufferTimeouts(
+              ChannelBufferTimeouts.fromConfiguration(
+                flinkConfiguration,
+                geoScheduler.getBandwidthProvider))
+          case _ =>
+        }
+
         jobInfo.clients foreach {
           // the sender wants to be notified about state changes
           case (client, ListeningBehaviour.EXECUTION_RESULT_AND_STATE_CHANGES) =>
@@ -1431,6 +1547,67 @@ class JobManager(
     }
   }
 
+  /**
+   * Solves the placement model of the given job on the [[optimisationModelSolverExecutor]] and
+   * resumes the submission with a [[SubmitSolvedJob]] message once the solution is available.
+   * The message carries the current leader session ID, the submission is only resumed if this
+   * JobManager is still the leader of the same session.
+   *
+   * @param jobGraph representing the Flink job
+   * @param jobInfo the job info
+   * @param isRecovery Flag indicating whether this is a recovery or initial submission
+   * @param geoScheduler the scheduler providing the bandwidths and the available slots
+   */
+  private def solveOptimisationModel(
+      jobGraph: JobGraph,
+      jobInfo: JobInfo,
+      isRecovery: Boolean,
+      geoScheduler: FlinkGeoScheduler): Unit = {
+    val jobId = jobGraph.getJobID
+    val solvingLeaderSessionID = leaderSessionID
+
+    log.info(s"GeoScheduler available, initiating model solving for job $jobId")
+
+    if (jobGraph.getOptimisationModelParameters == null) {
+      jobGraph.setOptimisationModelParameters(
+        OptimisationModelParameters.fromConfiguration(flinkConfiguration))
+    }
+
+    Option(geoScheduler.getOperatorProfileStore).foreach(_.applyTo(jobGraph))
+
+    def resumeSubmission(solvingFailure: Option[Throwable]): Unit = {
+      // all the work happens on the actor, the message is checked against the current session
+      self ! SubmitSolvedJob(
+        new SubmittedJobGraph(jobGraph, jobInfo),
+        isRecovery,
+        solvingLeaderSessionID,
+        solvingFailure)
+    }
+
+    val solutionFuture =
+      try {
+        // the slots are collected here, as the scheduler's view must not be read off the actor
+        jobGraph.solveOptimisationModelAsync(
+          geoScheduler.getBandwidthProvider,
+          geoScheduler.calculateAvailableSlotsByGeoLocation,
+          geoScheduler.getSolutionCache,
+          optimisationModelSolverExecutor)
+      } catch {
+        case e: RejectedExecutionException =>
+          FutureUtils.completedExceptionally[OptimisationModelSolution](e)
+      }
+
+    // the submission is resumed on the actor, after this entry is registered
+    solvingJobs.put(jobId, (jobInfo, solutionFuture))
+
+    solutionFuture.whenComplete(
+      new BiConsumer[OptimisationModelSolution, Throwable] {
+        override def accept(solution: OptimisationModelSolution, cause: Throwable): Unit = {
+          resumeSubmission(Option(cause))
+        }
+      })
+  }
+
   /**
    * Dedicated handler for checkpoint messages.
    *
@@ -1806,6 +1983,18 @@ class JobManager(
 
     currentJobs.clear()
 
+    // the solutions of these jobs are discarded once solved, as they carry the old session
+    for ((jobID, (jobInfo, _)) <- solvingJobs) {
+      libraryCacheManager.unregisterJob(jobID)
+
+      jobInfo.notifyNonDetachedClients(
+        decorateMessage(
+          Failure(
+            new JobExecutionException(jobID, "All jobs are cancelled and cleared.", cause))))
+    }
+
+    solvingJobs.clear()
+
     futures.toSeq
   }
 
@@ -1908,6 +2097,17 @@ class JobManager(
         }
       }
     })
+
+    scheduler match {
+      case geoScheduler: FlinkGeoScheduler =>
+        jobManagerMetricGroup.gauge[Long, Gauge[Long]]("numGeoPlacementSolutions", new Gauge[Long] {
+          override def getValue: Long = geoScheduler.getNumberOfGraphSolutions
+        })
+        jobManagerMetricGroup.gauge[Long, Gauge[Long]]("geoPlacementSolutionsBytes", new Gauge[Long] {
+          override def getValue: Long = geoScheduler.getGraphSolutionsMemoryFootprint
+        })
+      case _ =>
+    }
   }
 }
 
@@ -2545,7 +2745,29 @@ object JobManager {
         if (configuration.getBoolean(JobManagerOptions.IS_GEO_SCHEDULING_ENABLED)) {
           //geoscheduling
           scheduler = new FlinkGeoScheduler(ExecutionContext.fromExecutor(futureExecutor))
-          scheduler.asInstanceOf[FlinkGeoScheduler].setBandwidthProvider(StaticBandwidthProvider.fromFile())
+          val staticBandwidthProvider = StaticBandwidthProvider.fromConfiguration(configuration)
+          if (configuration.getBoolean(OptimisationModelOptions.MEASURE_BANDWIDTHS)) {
+            scheduler.asInstanceOf[FlinkGeoScheduler].setBandwidthProvider(
+              new MeasuredBandwidthProvider(
+                staticBandwidthProvider,
+                configuration.getLong(OptimisationModelOptions.BANDWIDTH_MEASUREMENT_HALF_LIFE)))
+          } else {
+            scheduler.asInstanceOf[FlinkGeoScheduler].setBandwidthProvider(staticBandwidthProvider)
+          }
+
+          scheduler.asInstanceOf[FlinkGeoScheduler].setModelParameters(
+            OptimisationModelParameters.fromConfiguration(configuration))
+          scheduler.asInstanceOf[FlinkGeoScheduler].setOperatorProfileStore(
+            OperatorProfileStore.fromConfiguration(configuration))
+          scheduler.asInstanceOf[FlinkGeoScheduler].setKeyGroupLocalityStore(
+            KeyGroupLocalityStore.fromConfiguration(configuration))
+
+          val solutionCacheSize =
+            configuration.getInteger(OptimisationModelOptions.SOLUTION_CACHE_SIZE)
+          if (solutionCacheSize > 0) {
+            scheduler.asInstanceOf[FlinkGeoScheduler].setSolutionCache(
+              new OptimisationModelSolutionCache(solutionCacheSize))
+          }
         } else {
           scheduler = new FlinkScheduler(ExecutionContext.fromExecutor(futureExecutor))
         }
@@ -98,6 +98,22 @@ object JobManagerMessages {
   case class RecoverSubmittedJob(submittedJobGraph: SubmittedJobGraph)
     extends RequiresLeaderSessionID
 
+  /**
+   * Resumes the submission of a job once the placement model of its [[JobGraph]] has been
+   * solved off the JobManager actor. The message is only sent by the JobManager to itself, and
+   * is discarded if the leader session changed, or the job was cancelled, while solving.
+   *
+   * @param submittedJobGraph Contains the solved JobGraph and the associated JobInfo
+   * @param isRecovery Flag indicating whether this is a recovery or initial submission
+   * @param leaderSessionID The leader session ID at the time the solving started
+   * @param solvingFailure The cause of the failure, if the model could not be solved
+   */
+  case class SubmitSolvedJob(
+      submittedJobGraph: SubmittedJobGraph,
+      isRecovery: Boolean,
+      leaderSessionID: Option[UUID],
+      solvingFailure: Option[Throwable])
+
   /**
    * Triggers recovery of all available jobs.
    */
@@ -23,6 +23,7 @@ import java.util.UUID
 import akka.actor.ActorRef
 import org.apache.flink.runtime.accumulators.AccumulatorSnapshot
 import org.apache.flink.runtime.instance.InstanceID
+import org.apache.flink.runtime.io.network.netty.LinkMeasurement
 
 /**
  * Miscellaneous actor messages exchanged with the TaskManager.
@@ -59,6 +60,17 @@ object TaskManagerMessages {
    */
   case class Heartbeat(instanceID: InstanceID, accumulators: Seq[AccumulatorSnapshot])
 
+  /**
+   * Reports the throughput and round trip times measured on the network connections of the
+   * TaskManager with the given instance ID since the last report. Sent with the heartbeat.
+   *
+   * @param instanceID The instance ID of the reporting TaskManager.
+   * @param measurements The measurements of the links from the remote TaskManagers.
+   */
+  case class LinkMeasurements(
+      instanceID: InstanceID,
+      measurements: java.util.List[LinkMeasurement])
+
 
   // --------------------------------------------------------------------------
   //  Reporting the current TaskManager stack trace
@@ -51,7 +51,7 @@ import org.apache.flink.runtime.highavailability.{HighAvailabilityServices, High
 import org.apache.flink.runtime.instance.{AkkaActorGateway, HardwareDescription, InstanceID}
 import org.apache.flink.runtime.io.disk.iomanager.IOManager
 import org.apache.flink.runtime.io.network.NetworkEnvironment
-import org.apache.flink.runtime.io.network.netty.PartitionProducerStateChecker
+import org.apache.flink.runtime.io.network.netty.{NettyConnectionManager, PartitionProducerStateChecker}
 import org.apache.flink.runtime.io.network.partition.ResultPartitionConsumableNotifier
 import org.apache.flink.runtime.leaderretrieval.{LeaderRetrievalListener, LeaderRetrievalService}
 import org.apache.flink.runtime.memory.MemoryManager
@@ -149,6 +149,11 @@ class TaskManager(
   /** Handler for shared broadcast variables (shared between multiple Tasks) */
   protected val bcVarManager = new BroadcastVariableManager()
 
+  /** Whether the JobManager measures the bandwidths with the links measured by this TaskManager */
+  protected val measureLinks: Boolean =
+    config.getConfiguration().getBoolean(JobManagerOptions.IS_GEO_SCHEDULING_ENABLED) &&
+      config.getConfiguration().getBoolean(OptimisationModelOptions.MEASURE_BANDWIDTHS)
+
 
 
   protected val leaderRetrievalService: LeaderRetrievalService = highAvailabilityServices.
@@ -1426,6 +1431,17 @@ class TaskManager(
        currentJobManager foreach {
         jm => jm ! decorateMessage(Heartbeat(instanceID, accumulatorEvents))
       }
+
+      network.getConnectionManager match {
+        case nettyConnectionManager: NettyConnectionManager if measureLinks =>
+          val measurements = nettyConnectionManager.getLinkStatistics.poll()
+          if (!measurements.isEmpty) {
+            currentJobManager foreach {
+              jm => jm ! decorateMessage(LinkMeasurements(instanceID, measurements))
+            }
+          }
+        case _ => // local connections only or not measured, nothing to report
+      }
     }
     catch {
       case e: Exception => log.warn("Error sending the metric heartbeat to the JobManager", e)
@@ -122,7 +122,47 @@ public class SlotProfileTest {
 		Assert.assertEquals(null, match);
 	}
 
+	@Test
+	public void matchGeoLocation() {
+		GeoLocation europe = new GeoLocation("europe");
+		GeoLocation america = new GeoLocation("america");
+
+		SimpleSlotContext europeSlot = new SimpleSlotContext(
+			aid1, new TaskManagerLocation(new ResourceID("tm-eu"), InetAddress.getLoopbackAddress(), 47, europe), 1, taskManagerGateway);
+		SimpleSlotContext americaSlot = new SimpleSlotContext(
+			aid2, new TaskManagerLocation(new ResourceID("tm-am"), InetAddress.getLoopbackAddress(), 48, america), 2, taskManagerGateway);
+
+		Set<SlotContext> geoCandidates = new HashSet<>(Arrays.asList(europeSlot, americaSlot));
+
+		// the geo location overrules the preferred location
+		SlotProfile slotProfile = new SlotProfile(
+			resourceProfile,
+			Collections.singletonList(americaSlot.getTaskManagerLocation()),
+			Collections.emptyList(),
+			Collections.singletonList(europe));
+
+		Assert.assertEquals(europeSlot, runMatching(slotProfile, geoCandidates));
+
+		slotProfile = SlotProfile.noLocality(resourceProfile).withGeoLocations(Arrays.asList(america, europe));
+
+		Assert.assertTrue(geoCandidates.contains(runMatching(slotProfile, geoCandidates)));
+	}
+
+	@Test
+	public void matchGeoLocationNotAvailable() {
+
+		SlotProfile slotProfile = SlotProfile.noLocality(resourceProfile)
+			.withGeoLocations(Collections.singletonList(new GeoLocation("asia")));
+		SlotContext match = runMatching(slotProfile);
+
+		Assert.assertEquals(null, match);
+	}
+
 	private SlotContext runMatching(SlotProfile slotProfile) {
+		return runMatching(slotProfile, candidates);
+	}
+
+	private SlotContext runMatching(SlotProfile slotProfile, Set<SlotContext> candidates) {
 		SlotProfile.ProfileToSlotContextMatcher matcher = slotProfile.matcher();
 		return matcher.findMatchWithLocality(
 			candidates.stream(),
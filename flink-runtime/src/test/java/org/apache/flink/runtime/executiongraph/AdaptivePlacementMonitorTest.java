@@ -0,0 +1,204 @@
+package org.apache.flink.runtime.executiongraph;
+
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionType;
+import org.apache.flink.runtime.jobgraph.DistributionPattern;
+import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.apache.flink.runtime.jobgraph.JobVertexID;
+import org.apache.flink.runtime.jobmanager.scheduler.BandwidthProvider;
+import org.apache.flink.runtime.jobmanager.scheduler.StaticBandwidthProvider;
+import org.apache.flink.runtime.util.clock.ManualClock;
+import org.apache.flink.types.TwoKeysMap;
+import org.apache.flink.types.TwoKeysMultiMap;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptivePlacementMonitorTest {
+
+	private final GeoLocation a = new GeoLocation("a");
+	private final GeoLocation b = new GeoLocation("b");
+
+	@Test
+	public void ratesFollowBytesOutAndBackPressure() {
+		ManualClock clock = new ManualClock();
+		AdaptivePlacementMonitor monitor = new AdaptivePlacementMonitor(1000, 0.2, 1, 0, clock);
+
+		JobVertexID source = new JobVertexID();
+		JobVertexID map = new JobVertexID();
+		ExecutionAttemptID source0 = new ExecutionAttemptID();
+		ExecutionAttemptID source1 = new ExecutionAttemptID();
+		ExecutionAttemptID map0 = new ExecutionAttemptID();
+
+		monitor.reportBytesOut(source0, source, 1000);
+		monitor.reportBytesOut(map0, map, 1000);
+
+		// the first sample starts the measurement
+		assertTrue(monitor.sampleRates().isEmpty());
+
+		clock.advanceTime(2, TimeUnit.SECONDS);
+		monitor.reportBytesOut(source0, source, 3000);
+		monitor.reportBytesOut(source1, source, 2000);
+		monitor.reportBytesOut(map0, map, 2000);
+		monitor.reportBackPressure(map, 0.5);
+
+		Map<JobVertexID, Double> rates = monitor.sampleRates();
+		assertEquals(2000, rates.get(source), 1e-9);
+		// the back pressured map would write twice as much
+		assertEquals(1000, rates.get(map), 1e-9);
+
+		// the rates are smoothed, source1 is over
+		clock.advanceTime(1, TimeUnit.SECONDS);
+		monitor.reportBytesOut(source0, source, 3000);
+		monitor.reportBackPressure(map, 0);
+
+		rates = monitor.sampleRates();
+		assertEquals(1000, rates.get(source), 1e-9);
+		assertEquals(500, rates.get(map), 1e-9);
+
+		monitor.notifyPlacementChanged();
+		assertTrue(monitor.sampleRates().isEmpty());
+	}
+
+	@Test
+	public void hysteresisAndMinimumIntervalPreventFlapping() {
+		ManualClock clock = new ManualClock();
+		AdaptivePlacementMonitor monitor = new AdaptivePlacementMonitor(1000, 0.2, 2, 10000, clock);
+
+		// cheaper by less than the margin
+		assertFalse(monitor.decide(-10, -11));
+		assertFalse(monitor.decide(-10, -11));
+
+		// cheaper by the margin, but not for enough consecutive checks
+		assertFalse(monitor.decide(-10, -13));
+		assertFalse(monitor.decide(-10, -11));
+		assertFalse(monitor.decide(-10, -13));
+
+		// cheaper for enough checks, but too early after the deployment
+		assertFalse(monitor.decide(-10, -13));
+
+		clock.advanceTime(10, TimeUnit.SECONDS);
+		assertTrue(monitor.decide(-10, -13));
+
+		// a move restarts both the hysteresis and the interval
+		assertFalse(monitor.decide(-10, -13));
+		assertFalse(monitor.decide(-10, -13));
+		clock.advanceTime(10, TimeUnit.SECONDS);
+		assertTrue(monitor.decide(-10, -13));
+	}
+
+	@Test
+	public void vertexIsMovedToFollowObservedTraffic() {
+		JobVertex source = makeVertex("source");
+		JobVertex map = makeVertex("map");
+		JobVertex sink = makeVertex("sink");
+		map.connectNewDataSetAsInput(source, DistributionPattern.POINTWISE, ResultPartitionType.PIPELINED);
+		sink.connectNewDataSetAsInput(map, DistributionPattern.POINTWISE, ResultPartitionType.PIPELINED);
+		List<JobVertex> vertices = Arrays.asList(source, map, sink);
+
+		Map<GeoLocation, Integer> slots = new HashMap<>();
+		slots.put(a, 3);
+		slots.put(b, 3);
+
+		Map<JobVertexID, Double> rates = new HashMap<>();
+		rates.put(source.getID(), 100d);
+		rates.put(map.getID(), 10d);
+
+		AdaptivePlacementMonitor monitor = new AdaptivePlacementMonitor(1000, 0.2, 1, 0, new ManualClock());
+		List<JobVertex> copies = AdaptivePlacementMonitor.copyVertices(vertices);
+
+		// co-located vertices stay where they are
+		Map<JobVertex, List<GeoLocation>> colocated = new HashMap<>();
+		for (JobVertex vertex : vertices) {
+			colocated.put(vertex, Collections.singletonList(a));
+		}
+		assertNull(check(monitor, copies, slots, colocated, rates));
+		assertEquals(100, copies.get(1).getInputs().get(0).getWeight(), 1e-9);
+		assertEquals(10, copies.get(2).getInputs().get(0).getWeight(), 1e-9);
+		// the job graph is left untouched
+		assertEquals(1, map.getInputs().get(0).getWeight(), 1e-9);
+
+		// the heavy source to map edge crossing locations moves the job
+		Map<JobVertex, List<GeoLocation>> split = new HashMap<>();
+		split.put(source, Collections.singletonList(a));
+		split.put(map, Collections.singletonList(b));
+		split.put(sink, Collections.singletonList(b));
+
+		OptimisationModelSolution newSolution = check(monitor, copies, slots, split, rates);
+		assertNotNull(newSolution);
+
+		newSolution = AdaptivePlacementMonitor.toVertices(newSolution, vertices);
+		assertNotNull(newSolution.getPlacement(source));
+		assertEquals(newSolution.getPlacement(source), newSolution.getPlacement(map));
+	}
+
+	@Test
+	public void placementsAreComparedWithTheLatencyPenalty() {
+		JobVertex source = makeVertex("source");
+		JobVertex map = makeVertex("map");
+		map.setMaxParallelism(4);
+		map.connectNewDataSetAsInput(source, DistributionPattern.POINTWISE, ResultPartitionType.PIPELINED);
+		source.setGeoLocationKey("a");
+		List<JobVertex> vertices = Arrays.asList(source, map);
+
+		Map<GeoLocation, Integer> slots = new HashMap<>();
+		slots.put(a, 1);
+		slots.put(b, 4);
+
+		TwoKeysMap<GeoLocation, GeoLocation, Double> roundTripTimes = new TwoKeysMultiMap<>();
+		roundTripTimes.put(a, b, 100d);
+		BandwidthProvider bandwidthProvider = new StaticBandwidthProvider(new TwoKeysMultiMap<>(), roundTripTimes);
+
+		// the speed of the map at b outweighs its network cost, but any WAN hop is penalised
+		OptimisationModelParameters parameters = new OptimisationModelParameters(0.25, 0.75, 1, false);
+		parameters.setPathLatencyObjective(new PathLatencyObjective(-1, 0, PathLatencyObjective.Mode.PENALTY, 10));
+
+		Map<JobVertexID, Double> rates = Collections.singletonMap(source.getID(), 1d);
+
+		// the map at b is faster, but its path crosses locations, which only the objective accounts for
+		Map<JobVertex, List<GeoLocation>> split = new HashMap<>();
+		split.put(source, Collections.singletonList(a));
+		split.put(map, Collections.singletonList(b));
+
+		AdaptivePlacementMonitor monitor = new AdaptivePlacementMonitor(1000, 0.2, 1, 0, new ManualClock());
+		OptimisationModelSolution newSolution = monitor.check(
+			AdaptivePlacementMonitor.copyVertices(vertices), bandwidthProvider, slots, parameters, split, rates);
+		assertNotNull(newSolution);
+
+		newSolution = AdaptivePlacementMonitor.toVertices(newSolution, vertices);
+		assertEquals(Collections.singletonList(a), newSolution.getPlacement(map));
+	}
+
+	private static OptimisationModelSolution check(
+			AdaptivePlacementMonitor monitor,
+			List<JobVertex> vertices,
+			Map<GeoLocation, Integer> slots,
+			Map<JobVertex, List<GeoLocation>> currentPlacement,
+			Map<JobVertexID, Double> rates) {
+		return monitor.check(
+			vertices,
+			new StaticBandwidthProvider(new TwoKeysMultiMap<>()),
+			slots,
+			new OptimisationModelParameters(0.5, 0.5, 1, false),
+			currentPlacement,
+			rates);
+	}
+
+	private static JobVertex makeVertex(String name) {
+		JobVertex vertex = new JobVertex(name);
+		vertex.setParallelism(1);
+		vertex.setMaxParallelism(1);
+		return vertex;
+	}
+}
@@ -0,0 +1,63 @@
+package org.apache.flink.runtime.executiongraph;
+
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.OptimisationModelOptions;
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.jobmanager.scheduler.StaticBandwidthProvider;
+import org.apache.flink.types.TwoKeysMultiMap;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class ChannelBufferTimeoutsTest {
+
+	private final GeoLocation a = new GeoLocation("a");
+	private final GeoLocation b = new GeoLocation("b");
+	private final GeoLocation c = new GeoLocation("c");
+
+	@Test
+	public void staticTimeoutsDependOnTheLocations() {
+		ChannelBufferTimeouts timeouts = new ChannelBufferTimeouts(
+			ChannelBufferTimeouts.Mode.STATIC, emptyBandwidthProvider(), 1, 200, 0.1, 1000, 32768);
+
+		assertEquals(1, timeouts.getBufferTimeout(a, a));
+		assertEquals(200, timeouts.getBufferTimeout(a, b));
+		// consumers without a slot keep the timeout of the operator
+		assertEquals(-1, timeouts.getBufferTimeout(a, null));
+	}
+
+	@Test
+	public void automaticTimeoutsFollowTheLinks() {
+		TwoKeysMultiMap<GeoLocation, GeoLocation, Double> bandwidths = new TwoKeysMultiMap<>();
+		bandwidths.put(a, b, 32768d * 1000);
+		bandwidths.put(a, c, 32768d);
+		TwoKeysMultiMap<GeoLocation, GeoLocation, Double> roundTripTimes = new TwoKeysMultiMap<>();
+		roundTripTimes.put(a, b, 100d);
+
+		ChannelBufferTimeouts timeouts = new ChannelBufferTimeouts(
+			ChannelBufferTimeouts.Mode.AUTO, new StaticBandwidthProvider(bandwidths, roundTripTimes), -1, 50, 0.1, 500, 32768);
+
+		// a buffer is sent in 1 ms, it may wait for 10% of the 50 ms latency
+		assertEquals(5, timeouts.getBufferTimeout(a, b));
+		// a buffer is sent in 1 s, more than the highest timeout
+		assertEquals(500, timeouts.getBufferTimeout(a, c));
+		// nothing is known about the link
+		assertEquals(50, timeouts.getBufferTimeout(b, c));
+		assertEquals(-1, timeouts.getBufferTimeout(a, a));
+	}
+
+	@Test
+	public void operatorTimeoutsByDefault() {
+		Configuration configuration = new Configuration();
+		assertNull(ChannelBufferTimeouts.fromConfiguration(configuration, emptyBandwidthProvider()));
+
+		configuration.setString(OptimisationModelOptions.BUFFER_TIMEOUT_MODE, "auto");
+		assertNotNull(ChannelBufferTimeouts.fromConfiguration(configuration, emptyBandwidthProvider()));
+	}
+
+	private static StaticBandwidthProvider emptyBandwidthProvider() {
+		return new StaticBandwidthProvider(new TwoKeysMultiMap<>());
+	}
+}
@@ -365,6 +365,16 @@ public class ExecutionGraphTestUtils {
 		return vertex;
 	}
 
+	/**
+	 * Creates a vertex of parallelism 1 that the placement solvers may scale up to the given maximum parallelism.
+	 */
+	public static JobVertex createScalableVertex(String name, int maxParallelism) {
+		JobVertex vertex = new JobVertex(name);
+		vertex.setParallelism(1);
+		vertex.setMaxParallelism(maxParallelism);
+		return vertex;
+	}
+
 	// ------------------------------------------------------------------------
 	//  utility mocking methods
 	// ------------------------------------------------------------------------
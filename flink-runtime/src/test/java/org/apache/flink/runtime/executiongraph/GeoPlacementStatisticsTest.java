@@ -0,0 +1,105 @@
+package org.apache.flink.runtime.executiongraph;
+
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionType;
+import org.apache.flink.runtime.jobgraph.DistributionPattern;
+import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.apache.flink.util.InstantiationUtil;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class GeoPlacementStatisticsTest {
+
+	private final GeoLocation a = new GeoLocation("a");
+	private final GeoLocation b = new GeoLocation("b");
+	private final GeoLocation c = new GeoLocation("c");
+
+	@Test
+	public void pointwiseEdgesCrossLocationsOnlyFromTheLocationsNotShared() {
+		assertEquals(0, GeoPlacementStatistics.estimateCrossLocationShare(Arrays.asList(a, b), Arrays.asList(a, b), DistributionPattern.POINTWISE), 0);
+		assertEquals(0.5, GeoPlacementStatistics.estimateCrossLocationShare(Arrays.asList(a, b), Arrays.asList(a, c), DistributionPattern.POINTWISE), 0);
+		assertEquals(1, GeoPlacementStatistics.estimateCrossLocationShare(Collections.singletonList(a), Collections.singletonList(b), DistributionPattern.POINTWISE), 0);
+	}
+
+	@Test
+	public void allToAllEdgesCrossLocationsToEveryOtherLocationOfTheConsumer() {
+		assertEquals(0, GeoPlacementStatistics.estimateCrossLocationShare(Collections.singletonList(a), Collections.singletonList(a), DistributionPattern.ALL_TO_ALL), 0);
+		assertEquals(0.5, GeoPlacementStatistics.estimateCrossLocationShare(Arrays.asList(a, b), Arrays.asList(a, b), DistributionPattern.ALL_TO_ALL), 0);
+		assertEquals(0.5, GeoPlacementStatistics.estimateCrossLocationShare(Collections.singletonList(a), Arrays.asList(a, c), DistributionPattern.ALL_TO_ALL), 0);
+	}
+
+	@Test
+	public void solutionIsKeptByVertexIds() {
+		JobVertex source = new JobVertex("source");
+		JobVertex sink = new JobVertex("sink");
+		sink.connectNewDataSetAsInput(source, DistributionPattern.ALL_TO_ALL, ResultPartitionType.PIPELINED);
+
+		GeoPlacementStatistics statistics = new GeoPlacementStatistics(
+			makeSolution(source, Arrays.asList(a, b), 3, sink, Collections.singletonList(a), 2),
+			OptimisationModelSolverType.HEURISTIC);
+
+		assertEquals(Arrays.asList(a, b), statistics.getLocations().get(source.getID()));
+		assertEquals(Integer.valueOf(2), statistics.getParallelism().get(sink.getID()));
+		assertEquals(1500, statistics.getSolveTimeMillis());
+
+		// the subtasks of the source are spread over its two locations, the first one taking the remainder
+		Map<GeoLocation, Integer> expectedSubtasks = new HashMap<>();
+		expectedSubtasks.put(a, 4);
+		expectedSubtasks.put(b, 1);
+		assertEquals(expectedSubtasks, statistics.getPlannedSubtasks());
+
+		assertEquals(1, statistics.getEdges().size());
+		GeoPlacementStatistics.Edge edge = statistics.getEdges().get(0);
+		assertEquals(source.getID(), edge.getProducer());
+		assertEquals(sink.getID(), edge.getConsumer());
+		assertEquals(1, edge.getProducerOutputs());
+		assertEquals(0.5, edge.getEstimatedCrossLocationShare(), 0);
+	}
+
+	@Test
+	public void archivedStatisticsAreNoLongerUpdated() throws Exception {
+		JobVertex source = new JobVertex("source");
+		JobVertex sink = new JobVertex("sink");
+		sink.connectNewDataSetAsInput(source, DistributionPattern.POINTWISE, ResultPartitionType.PIPELINED);
+
+		GeoPlacementStatistics statistics = new GeoPlacementStatistics(
+			makeSolution(source, Collections.singletonList(a), 1, sink, Collections.singletonList(a), 1),
+			OptimisationModelSolverType.HEURISTIC);
+		statistics.recordFallback();
+
+		GeoPlacementStatistics archived = InstantiationUtil.clone(statistics.archive());
+
+		statistics.recordFallback();
+		statistics.recordRepair(makeSolution(source, Collections.singletonList(a), 1, sink, Collections.singletonList(b), 1));
+
+		assertEquals(2, statistics.getNumberOfFallbacks());
+		assertEquals(1, statistics.getNumberOfRepairs());
+		assertEquals(1, statistics.getEdges().get(0).getEstimatedCrossLocationShare(), 0);
+
+		assertEquals(1, archived.getNumberOfFallbacks());
+		assertEquals(0, archived.getNumberOfRepairs());
+		assertEquals(0, archived.getEdges().get(0).getEstimatedCrossLocationShare(), 0);
+		assertEquals(Collections.singletonList(a), archived.getLocations().get(sink.getID()));
+	}
+
+	private static OptimisationModelSolution makeSolution(
+			JobVertex source, List<GeoLocation> sourceLocations, int sourceParallelism,
+			JobVertex sink, List<GeoLocation> sinkLocations, int sinkParallelism) {
+		Map<JobVertex, List<GeoLocation>> placement = new HashMap<>();
+		placement.put(source, sourceLocations);
+		placement.put(sink, sinkLocations);
+
+		Map<JobVertex, Integer> parallelism = new HashMap<>();
+		parallelism.put(source, sourceParallelism);
+		parallelism.put(sink, sinkParallelism);
+
+		return new OptimisationModelSolution(placement, parallelism, 1, 1, 1.5);
+	}
+}
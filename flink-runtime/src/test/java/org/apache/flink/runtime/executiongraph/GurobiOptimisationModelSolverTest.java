@@ -0,0 +1,119 @@
+package org.apache.flink.runtime.executiongraph;
+
+import gurobi.GRBEnv;
+import gurobi.GRBException;
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionType;
+import org.apache.flink.runtime.jobgraph.DistributionPattern;
+import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.apache.flink.runtime.jobmanager.scheduler.StaticBandwidthProvider;
+import org.apache.flink.types.TwoKeysMap;
+import org.apache.flink.types.TwoKeysMultiMap;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.flink.runtime.executiongraph.ExecutionGraphTestUtils.createScalableVertex;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeNoException;
+
+/**
+ * Solves small jobs with Gurobi, skipped where Gurobi or its license are not available.
+ */
+public class GurobiOptimisationModelSolverTest {
+
+	private final GeoLocation a = new GeoLocation("a");
+	private final GeoLocation b = new GeoLocation("b");
+
+	@Before
+	public void checkGurobi() {
+		try {
+			new GRBEnv().dispose();
+		} catch (GRBException | LinkageError e) {
+			assumeNoException("Gurobi is not available", e);
+		}
+	}
+
+	@Test
+	public void keyedJobIsSolvedWithTheQuadraticModel() throws Exception {
+		keyedJobIsSolved(false);
+	}
+
+	@Test
+	public void keyedJobIsSolvedWithTheLinearisedModel() throws Exception {
+		keyedJobIsSolved(true);
+	}
+
+	private void keyedJobIsSolved(boolean linearised) throws Exception {
+		JobVertex source = createScalableVertex("source", 1);
+		JobVertex window = createScalableVertex("window", 8);
+		JobVertex sink = createScalableVertex("sink", 1);
+		window.connectNewDataSetAsInput(source, DistributionPattern.ALL_TO_ALL, ResultPartitionType.PIPELINED);
+		sink.connectNewDataSetAsInput(window, DistributionPattern.POINTWISE, ResultPartitionType.PIPELINED);
+		source.setGeoLocationKey("a");
+		sink.setGeoLocationKey("a");
+		List<JobVertex> vertices = Arrays.asList(source, window, sink);
+
+		Map<GeoLocation, Integer> slots = new HashMap<>();
+		slots.put(a, 4);
+		slots.put(b, 4);
+
+		TwoKeysMap<GeoLocation, GeoLocation, Double> bandwidths = new TwoKeysMultiMap<>();
+		bandwidths.put(a, b, 10d);
+		bandwidths.put(b, a, 10d);
+
+		GurobiOptimisationModelSolver solver = new GurobiOptimisationModelSolver(linearised);
+
+		// only the network counts: the keyed records stay at a
+		OptimisationModelSolution solution = solver.solve(vertices, slots.keySet(), new StaticBandwidthProvider(bandwidths),
+			slots, new OptimisationModelParameters(1, 0, 10, false), null, null);
+		assertNotNull(solution);
+		assertEquals(Collections.singletonList(a), solution.getPlacement(source));
+		assertEquals(Collections.singletonList(a), solution.getPlacement(window));
+
+		// only the execution speed counts: the window reaches b for parallelism
+		solution = solver.solve(vertices, slots.keySet(), new StaticBandwidthProvider(bandwidths),
+			slots, new OptimisationModelParameters(0, 1, 10, false), null, null);
+		assertNotNull(solution);
+		assertTrue(solution.getPlacement(window).contains(b));
+		assertEquals(8, (int) solution.getParallelism(window));
+	}
+
+	@Test
+	public void linearisedModelSolvesTheSameProblem() throws Exception {
+		JobVertex source = createScalableVertex("source", 1);
+		JobVertex window = createScalableVertex("window", 8);
+		JobVertex sink = createScalableVertex("sink", 1);
+		window.connectNewDataSetAsInput(source, DistributionPattern.ALL_TO_ALL, ResultPartitionType.PIPELINED);
+		sink.connectNewDataSetAsInput(window, DistributionPattern.POINTWISE, ResultPartitionType.PIPELINED);
+		source.setGeoLocationKey("a");
+		List<JobVertex> vertices = Arrays.asList(source, window, sink);
+
+		// the window can't reach its maximum parallelism, so its shares are not t / maxParallelism
+		Map<GeoLocation, Integer> slots = new HashMap<>();
+		slots.put(a, 3);
+		slots.put(b, 2);
+
+		TwoKeysMap<GeoLocation, GeoLocation, Double> bandwidths = new TwoKeysMultiMap<>();
+		bandwidths.put(a, b, 10d);
+		bandwidths.put(b, a, 10d);
+
+		OptimisationModelParameters parameters = new OptimisationModelParameters(1, 1, 10, false);
+		OptimisationModelSolution quadratic = new GurobiOptimisationModelSolver(false).solve(vertices, slots.keySet(),
+			new StaticBandwidthProvider(bandwidths), slots, parameters, null, null);
+		OptimisationModelSolution linearised = new GurobiOptimisationModelSolver(true).solve(vertices, slots.keySet(),
+			new StaticBandwidthProvider(bandwidths), slots, parameters, null, null);
+
+		assertNotNull(quadratic);
+		assertNotNull(linearised);
+		assertEquals(quadratic.getObjective(), linearised.getObjective(), 1e-6);
+		assertEquals(quadratic.getNetworkCost(), linearised.getNetworkCost(), 1e-6);
+	}
+}
@@ -0,0 +1,380 @@
+package org.apache.flink.runtime.executiongraph;
+
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionType;
+import org.apache.flink.runtime.jobgraph.DistributionPattern;
+import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.apache.flink.runtime.jobmanager.scheduler.BandwidthProvider;
+import org.apache.flink.runtime.jobmanager.scheduler.StaticBandwidthProvider;
+import org.apache.flink.types.TwoKeysMap;
+import org.apache.flink.types.TwoKeysMultiMap;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.flink.runtime.executiongraph.ExecutionGraphTestUtils.createScalableVertex;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class HeuristicOptimisationModelSolverTest {
+
+	private final GeoLocation a = new GeoLocation("a");
+	private final GeoLocation b = new GeoLocation("b");
+	private final GeoLocation c = new GeoLocation("c");
+
+	@Test
+	public void freeVertexFollowsPlacedNeighbours() {
+		JobVertex source = createScalableVertex("source", 4);
+		JobVertex map = createScalableVertex("map", 4);
+		JobVertex sink = createScalableVertex("sink", 4);
+		map.connectNewDataSetAsInput(source, DistributionPattern.POINTWISE, ResultPartitionType.PIPELINED);
+		sink.connectNewDataSetAsInput(map, DistributionPattern.ALL_TO_ALL, ResultPartitionType.PIPELINED);
+		source.setGeoLocationKey("a");
+		sink.setGeoLocationKey("a");
+
+		Map<GeoLocation, Integer> slots = new HashMap<>();
+		slots.put(a, 4);
+		slots.put(b, 4);
+
+		OptimisationModelSolution solution = solve(Arrays.asList(source, map, sink), slots);
+
+		assertNotNull(solution);
+		assertEquals(Collections.singletonList(a), solution.getPlacement(map));
+		assertEquals(4, (int) solution.getParallelism(map));
+		assertEquals(0, solution.getNetworkCost(), 0);
+	}
+
+	@Test
+	public void vertexWithoutEdgesIsSpreadForParallelism() {
+		JobVertex vertex = createScalableVertex("vertex", 4);
+
+		Map<GeoLocation, Integer> slots = new HashMap<>();
+		slots.put(a, 2);
+		slots.put(b, 2);
+
+		OptimisationModelSolution solution = solve(Collections.singletonList(vertex), slots);
+
+		assertNotNull(solution);
+		assertEquals(new HashSet<>(Arrays.asList(a, b)), new HashSet<>(solution.getPlacement(vertex)));
+		assertEquals(4, (int) solution.getParallelism(vertex));
+		assertEquals(-4, solution.getExecutionSpeed(), 0);
+	}
+
+	@Test
+	public void subtasksFollowTheSlotsOfEachLocation() {
+		JobVertex vertex = createScalableVertex("vertex", 4);
+
+		Map<GeoLocation, Integer> slots = new HashMap<>();
+		slots.put(a, 3);
+		slots.put(b, 1);
+
+		OptimisationModelSolution solution = solve(Collections.singletonList(vertex), slots);
+
+		Map<GeoLocation, Integer> expectedSubtasks = new HashMap<>();
+		expectedSubtasks.put(a, 3);
+		expectedSubtasks.put(b, 1);
+
+		assertNotNull(solution);
+		assertEquals(4, (int) solution.getParallelism(vertex));
+		assertEquals(expectedSubtasks, solution.getSubtasksPerLocation(vertex));
+	}
+
+	@Test
+	public void vertexPlacedAtUnknownLocationIsInfeasible() {
+		JobVertex vertex = createScalableVertex("vertex", 4);
+		vertex.setGeoLocationKey("unknown");
+
+		Map<GeoLocation, Integer> slots = new HashMap<>();
+		slots.put(a, 2);
+
+		assertNull(solve(Collections.singletonList(vertex), slots));
+	}
+
+	@Test
+	public void flowIsRoutedOverFastLinks() {
+		JobVertex source = createScalableVertex("source", 1);
+		JobVertex map = createScalableVertex("map", 1);
+		JobVertex sink = createScalableVertex("sink", 1);
+		map.connectNewDataSetAsInput(source, DistributionPattern.POINTWISE, ResultPartitionType.PIPELINED);
+		sink.connectNewDataSetAsInput(map, DistributionPattern.POINTWISE, ResultPartitionType.PIPELINED);
+		source.setGeoLocationKey("a");
+		sink.setGeoLocationKey("b");
+
+		Map<GeoLocation, Integer> slots = new HashMap<>();
+		slots.put(a, 1);
+		slots.put(b, 1);
+		slots.put(c, 1);
+
+		List<JobVertex> vertices = Arrays.asList(source, map, sink);
+
+		// without bandwidths, the map is best placed with one of its neighbours
+		OptimisationModelSolution uniformSolution = solve(vertices, slots);
+		assertNotNull(uniformSolution);
+		assertNotEquals(Collections.singletonList(c), uniformSolution.getPlacement(map));
+
+		// with a slow link from a to b, the map is placed at c to avoid it
+		TwoKeysMap<GeoLocation, GeoLocation, Double> bandwidths = new TwoKeysMultiMap<>();
+		bandwidths.put(a, b, 1d);
+		bandwidths.put(a, c, 100d);
+		bandwidths.put(c, b, 100d);
+
+		OptimisationModelSolution solution = solve(vertices, slots, new StaticBandwidthProvider(bandwidths));
+		assertNotNull(solution);
+		assertEquals(Collections.singletonList(c), solution.getPlacement(map));
+	}
+
+	@Test
+	public void largeGraphIsPlaced() {
+		Map<GeoLocation, Integer> slots = new HashMap<>();
+		for (int i = 0; i < 10; i++) {
+			slots.put(new GeoLocation("location" + i), 8);
+		}
+
+		List<JobVertex> vertices = new ArrayList<>();
+		List<JobVertex> previousLayer = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			JobVertex source = createScalableVertex("source" + i, 8);
+			source.setGeoLocationKey("location" + i);
+			previousLayer.add(source);
+		}
+		vertices.addAll(previousLayer);
+
+		for (int layer = 0; layer < 30; layer++) {
+			List<JobVertex> currentLayer = new ArrayList<>();
+			for (int i = 0; i < 10; i++) {
+				JobVertex vertex = createScalableVertex("vertex" + layer + "_" + i, 8);
+				vertex.connectNewDataSetAsInput(previousLayer.get(i), DistributionPattern.POINTWISE, ResultPartitionType.PIPELINED);
+				vertex.connectNewDataSetAsInput(previousLayer.get((i + 1) % 10), DistributionPattern.ALL_TO_ALL, ResultPartitionType.PIPELINED);
+				currentLayer.add(vertex);
+			}
+			vertices.addAll(currentLayer);
+			previousLayer = currentLayer;
+		}
+
+		OptimisationModelSolution solution = solve(vertices, slots);
+
+		// the solving time is measured by the OptimisationModelSolveBenchmark of flink-geo-benchmarks
+		assertNotNull(solution);
+		for (JobVertex vertex : vertices) {
+			assertFalse(solution.getPlacement(vertex).isEmpty());
+			assertTrue(solution.getParallelism(vertex) >= 1);
+			assertTrue(solution.getParallelism(vertex) <= 8);
+		}
+	}
+
+	@Test
+	public void vertexIsPlacedWithoutFiniteCosts() {
+		JobVertex source = createScalableVertex("source", 4);
+		JobVertex map = createScalableVertex("map", 4);
+		map.connectNewDataSetAsInput(source, DistributionPattern.ALL_TO_ALL, ResultPartitionType.PIPELINED);
+		source.setGeoLocationKey("a");
+		// the costs of all the placements of map are NaN
+		map.setWeight(Double.NaN);
+
+		Map<GeoLocation, Integer> slots = new HashMap<>();
+		slots.put(a, 4);
+		slots.put(b, 4);
+
+		OptimisationModelSolution solution = solve(Arrays.asList(source, map), slots);
+
+		// map is placed at the least loaded location
+		assertNotNull(solution);
+		assertEquals(Collections.singletonList(b), solution.getPlacement(map));
+	}
+
+	@Test
+	public void fixedPlacementIsKept() {
+		JobVertex source = createScalableVertex("source", 4);
+		JobVertex map = createScalableVertex("map", 4);
+		JobVertex sink = createScalableVertex("sink", 4);
+		map.connectNewDataSetAsInput(source, DistributionPattern.POINTWISE, ResultPartitionType.PIPELINED);
+		sink.connectNewDataSetAsInput(map, DistributionPattern.ALL_TO_ALL, ResultPartitionType.PIPELINED);
+
+		Map<GeoLocation, Integer> slots = new HashMap<>();
+		slots.put(a, 4);
+		slots.put(b, 4);
+		slots.put(c, 4);
+
+		// as after the loss of the location of map, the placement of source and sink is kept
+		Map<JobVertex, List<GeoLocation>> fixedPlacement = new HashMap<>();
+		fixedPlacement.put(source, Arrays.asList(a, b));
+		fixedPlacement.put(sink, Collections.singletonList(b));
+
+		OptimisationModelSolution solution = new HeuristicOptimisationModelSolver().solve(
+			Arrays.asList(source, map, sink),
+			slots.keySet(),
+			new StaticBandwidthProvider(new TwoKeysMultiMap<>()),
+			slots,
+			new OptimisationModelParameters(0.5, 0.5, 10, false),
+			null,
+			fixedPlacement);
+
+		assertNotNull(solution);
+		assertEquals(new HashSet<>(Arrays.asList(a, b)), new HashSet<>(solution.getPlacement(source)));
+		assertEquals(Collections.singletonList(b), solution.getPlacement(sink));
+		assertFalse(solution.getPlacement(map).isEmpty());
+		assertFalse(solution.getPlacement(map).contains(c));
+	}
+
+	@Test
+	public void keyedEdgeBetweenSplitVerticesCrossesLocations() {
+		Map<GeoLocation, Integer> slots = new HashMap<>();
+		slots.put(a, 2);
+		slots.put(b, 2);
+
+		// a forward edge between vertices at the same locations stays local
+		assertEquals(0, solveSplit(DistributionPattern.POINTWISE, slots, Arrays.asList(a, b)).getNetworkCost(), 0);
+
+		// while half of a keyed stream split evenly across two locations crosses them
+		double keyedCost = solveSplit(DistributionPattern.ALL_TO_ALL, slots, Arrays.asList(a, b)).getNetworkCost();
+		assertTrue(keyedCost > 0);
+
+		// and three quarters of it from a, with three quarters of the consumer subtasks at b
+		slots.put(b, 6);
+		assertEquals(1.5 * keyedCost, solveSplit(DistributionPattern.ALL_TO_ALL, slots, Collections.singletonList(a)).getNetworkCost(), 1e-9);
+	}
+
+	private static OptimisationModelSolution solveSplit(DistributionPattern distributionPattern,
+														Map<GeoLocation, Integer> slots,
+														List<GeoLocation> sourceLocations) {
+		JobVertex source = createScalableVertex("source", 4);
+		JobVertex sink = createScalableVertex("sink", 8);
+		sink.connectNewDataSetAsInput(source, distributionPattern, ResultPartitionType.PIPELINED);
+
+		Map<JobVertex, List<GeoLocation>> fixedPlacement = new HashMap<>();
+		fixedPlacement.put(source, sourceLocations);
+		fixedPlacement.put(sink, new ArrayList<>(slots.keySet()));
+
+		return new HeuristicOptimisationModelSolver().solve(
+			Arrays.asList(source, sink),
+			slots.keySet(),
+			new StaticBandwidthProvider(new TwoKeysMultiMap<>()),
+			slots,
+			new OptimisationModelParameters(0.5, 0.5, 10, false),
+			null,
+			fixedPlacement);
+	}
+
+	@Test
+	public void latencyLimitKeepsPathAtOneLocation() {
+		JobVertex source = createScalableVertex("source", 1);
+		JobVertex map = createScalableVertex("map", 4);
+		map.connectNewDataSetAsInput(source, DistributionPattern.POINTWISE, ResultPartitionType.PIPELINED);
+		source.setGeoLocationKey("a");
+
+		Map<GeoLocation, Integer> slots = new HashMap<>();
+		slots.put(a, 1);
+		slots.put(b, 4);
+
+		TwoKeysMap<GeoLocation, GeoLocation, Double> roundTripTimes = new TwoKeysMultiMap<>();
+		roundTripTimes.put(a, b, 100d);
+		BandwidthProvider bandwidthProvider = new StaticBandwidthProvider(new TwoKeysMultiMap<>(), roundTripTimes);
+
+		List<JobVertex> vertices = Arrays.asList(source, map);
+
+		// without a limit, the map reaches b for parallelism
+		OptimisationModelSolution solution = solve(vertices, slots, bandwidthProvider, null);
+		assertNotNull(solution);
+		assertTrue(solution.getPlacement(map).contains(b));
+
+		// the 50 ms from a to b exceed the limit
+		solution = solve(vertices, slots, bandwidthProvider,
+			new PathLatencyObjective(20, -1, PathLatencyObjective.Mode.CONSTRAINT, 1));
+		assertNotNull(solution);
+		assertEquals(Collections.singletonList(a), solution.getPlacement(map));
+
+		// so does any WAN hop
+		solution = solve(vertices, slots, bandwidthProvider,
+			new PathLatencyObjective(-1, 0, PathLatencyObjective.Mode.PENALTY, 10));
+		assertNotNull(solution);
+		assertEquals(Collections.singletonList(a), solution.getPlacement(map));
+	}
+
+	@Test
+	public void latencyLimitHoldsAlongLongPaths() {
+		List<JobVertex> vertices = new ArrayList<>();
+		JobVertex previous = createScalableVertex("source", 1);
+		previous.setGeoLocationKey("a");
+		vertices.add(previous);
+		for (int i = 0; i < 6; i++) {
+			JobVertex map = createScalableVertex("map" + i, 4);
+			map.connectNewDataSetAsInput(previous, DistributionPattern.POINTWISE, ResultPartitionType.PIPELINED);
+			vertices.add(map);
+			previous = map;
+		}
+
+		Map<GeoLocation, Integer> slots = new HashMap<>();
+		slots.put(a, 2);
+		slots.put(b, 4);
+
+		TwoKeysMap<GeoLocation, GeoLocation, Double> roundTripTimes = new TwoKeysMultiMap<>();
+		roundTripTimes.put(a, b, 100d);
+		roundTripTimes.put(b, a, 100d);
+		BandwidthProvider bandwidthProvider = new StaticBandwidthProvider(new TwoKeysMultiMap<>(), roundTripTimes);
+
+		// each edge with an end at both locations, or with its ends apart, takes 50 ms: only two of them fit
+		OptimisationModelSolution solution = solve(vertices, slots, bandwidthProvider,
+			new PathLatencyObjective(120, -1, PathLatencyObjective.Mode.CONSTRAINT, 1));
+		assertNotNull(solution);
+
+		int slowEdges = 0;
+		for (int i = 1; i < vertices.size(); i++) {
+			List<GeoLocation> producerLocations = solution.getPlacement(vertices.get(i - 1));
+			List<GeoLocation> consumerLocations = solution.getPlacement(vertices.get(i));
+			if (producerLocations.size() > 1 || !producerLocations.equals(consumerLocations)) {
+				slowEdges++;
+			}
+		}
+		assertTrue(slowEdges > 0);
+		assertTrue(slowEdges <= 2);
+	}
+
+	@Test
+	public void unreachableLatencyLimitIsInfeasible() {
+		JobVertex source = createScalableVertex("source", 1);
+		JobVertex sink = createScalableVertex("sink", 1);
+		sink.connectNewDataSetAsInput(source, DistributionPattern.POINTWISE, ResultPartitionType.PIPELINED);
+		source.setGeoLocationKey("a");
+		sink.setGeoLocationKey("b");
+
+		Map<GeoLocation, Integer> slots = new HashMap<>();
+		slots.put(a, 1);
+		slots.put(b, 1);
+
+		assertNull(solve(Arrays.asList(source, sink), slots, new StaticBandwidthProvider(new TwoKeysMultiMap<>()),
+			new PathLatencyObjective(-1, 0, PathLatencyObjective.Mode.CONSTRAINT, 1)));
+	}
+
+	private OptimisationModelSolution solve(List<JobVertex> vertices, Map<GeoLocation, Integer> slots) {
+		return solve(vertices, slots, new StaticBandwidthProvider(new TwoKeysMultiMap<>()));
+	}
+
+	private OptimisationModelSolution solve(List<JobVertex> vertices, Map<GeoLocation, Integer> slots, BandwidthProvider bandwidthProvider) {
+		return new HeuristicOptimisationModelSolver().solve(
+			vertices,
+			slots.keySet(),
+			bandwidthProvider,
+			slots,
+			new OptimisationModelParameters(0.5, 0.5, 10, false),
+			null);
+	}
+
+	private OptimisationModelSolution solve(List<JobVertex> vertices,
+											Map<GeoLocation, Integer> slots,
+											BandwidthProvider bandwidthProvider,
+											PathLatencyObjective pathLatencyObjective) {
+		OptimisationModelParameters parameters = new OptimisationModelParameters(0.5, 0.5, 10, false);
+		parameters.setPathLatencyObjective(pathLatencyObjective);
+		return new HeuristicOptimisationModelSolver().solve(vertices, slots.keySet(), bandwidthProvider, slots, parameters, null);
+	}
+}
@@ -0,0 +1,168 @@
+package org.apache.flink.runtime.executiongraph;
+
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionType;
+import org.apache.flink.runtime.jobgraph.DistributionPattern;
+import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.apache.flink.runtime.jobmanager.scheduler.BandwidthProvider;
+import org.apache.flink.runtime.jobmanager.scheduler.StaticBandwidthProvider;
+import org.apache.flink.types.TwoKeysMap;
+import org.apache.flink.types.TwoKeysMultiMap;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.flink.runtime.executiongraph.ExecutionGraphTestUtils.createScalableVertex;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class HierarchicalOptimisationModelSolverTest {
+
+	private final GeoLocation a1 = new GeoLocation("a1");
+	private final GeoLocation a2 = new GeoLocation("a2");
+	private final GeoLocation a3 = new GeoLocation("a3");
+	private final GeoLocation b1 = new GeoLocation("b1");
+	private final GeoLocation b2 = new GeoLocation("b2");
+	private final GeoLocation b3 = new GeoLocation("b3");
+
+	@Test
+	public void closeLocationsShareARegion() {
+		BandwidthProvider bandwidthProvider = twoSitesBandwidthProvider();
+
+		LocationRegions regions = LocationRegions.cluster(
+			Arrays.asList(b3, a1, b1, a3, a2, b2), bandwidthProvider, 3, Collections.singletonList(b3));
+
+		assertEquals(new HashSet<>(Arrays.asList(a1, b3)), regions.getRegions());
+		assertEquals(Arrays.asList(a1, a2, a3), regions.getLocations(a1));
+		assertEquals(Arrays.asList(b1, b2, b3), regions.getLocations(b3));
+		assertEquals(b3, regions.getRegion(b1));
+
+		// the links between the regions are the mean of the links between their locations
+		BandwidthProvider regionBandwidthProvider = regions.getRegionBandwidthProvider(bandwidthProvider);
+		assertEquals(1d, regionBandwidthProvider.getBandwidth(a1, b3), 0);
+		assertEquals(100d, regionBandwidthProvider.getRoundTripTime(a1, b3), 0);
+
+		// locations vertices are placed at by key are never merged
+		regions = LocationRegions.cluster(
+			Arrays.asList(a1, a2, a3), bandwidthProvider, 3, Arrays.asList(a1, a2));
+		assertEquals(2, regions.getRegions().size());
+		assertEquals(regions.getRegion(a1), regions.getRegion(a3));
+	}
+
+	@Test
+	public void verticesArePlacedWithinTheirRegions() throws Exception {
+		JobVertex source = createScalableVertex("source", 4);
+		JobVertex map = createScalableVertex("map", 4);
+		JobVertex sink = createScalableVertex("sink", 4);
+		map.connectNewDataSetAsInput(source, DistributionPattern.POINTWISE, ResultPartitionType.PIPELINED);
+		sink.connectNewDataSetAsInput(map, DistributionPattern.POINTWISE, ResultPartitionType.PIPELINED);
+		source.setGeoLocationKey("a2");
+		sink.setGeoLocationKey("a2");
+
+		Map<GeoLocation, Integer> slots = new HashMap<>();
+		for (GeoLocation location : Arrays.asList(a1, a2, a3, b1, b2, b3)) {
+			slots.put(location, 4);
+		}
+
+		OptimisationModelParameters parameters = new OptimisationModelParameters(0.5, 0.5, 10, false);
+		parameters.setHierarchicalMinLocations(4);
+		parameters.setMaxRegionSize(3);
+
+		List<JobVertex> vertices = Arrays.asList(source, map, sink);
+		OptimisationModelSolution solution = new HierarchicalOptimisationModelSolver(new HeuristicOptimisationModelSolver(), 2)
+			.solve(vertices, slots.keySet(), twoSitesBandwidthProvider(), slots, parameters);
+
+		assertNotNull(solution);
+		assertEquals(Collections.singletonList(a2), solution.getPlacement(source));
+		assertEquals(Collections.singletonList(a2), solution.getPlacement(sink));
+		// the map stays in the region of its neighbours
+		assertTrue(Arrays.asList(a1, a2, a3).containsAll(solution.getPlacement(map)));
+		for (JobVertex vertex : vertices) {
+			assertTrue(solution.getParallelism(vertex) <= 4);
+		}
+	}
+
+	@Test
+	public void combinedPlacementIsEvaluatedOnTheLinksBetweenLocations() throws Exception {
+		JobVertex source = createScalableVertex("source", 1);
+		JobVertex sink = createScalableVertex("sink", 1);
+		sink.connectNewDataSetAsInput(source, DistributionPattern.POINTWISE, ResultPartitionType.PIPELINED);
+		source.setGeoLocationKey("a1");
+		sink.setGeoLocationKey("b1");
+
+		Map<GeoLocation, Integer> slots = new HashMap<>();
+		for (GeoLocation location : Arrays.asList(a1, a2, a3, b1, b2, b3)) {
+			slots.put(location, 4);
+		}
+
+		OptimisationModelParameters parameters = new OptimisationModelParameters(0.5, 0.5, 10, false);
+		parameters.setHierarchicalMinLocations(4);
+		parameters.setMaxRegionSize(3);
+
+		List<JobVertex> vertices = Arrays.asList(source, sink);
+		BandwidthProvider bandwidthProvider = twoSitesBandwidthProvider();
+		OptimisationModelSolution solution = new HierarchicalOptimisationModelSolver(new HeuristicOptimisationModelSolver(), 2)
+			.solve(vertices, slots.keySet(), bandwidthProvider, slots, parameters);
+
+		assertNotNull(solution);
+		assertEquals(Collections.singletonList(a1), solution.getPlacement(source));
+		assertEquals(Collections.singletonList(b1), solution.getPlacement(sink));
+
+		OptimisationModelSolution evaluated = HeuristicOptimisationModelSolver.evaluate(
+			solution, vertices, slots.keySet(), bandwidthProvider, slots, parameters);
+		assertEquals(evaluated.getNetworkCost(), solution.getNetworkCost(), 1e-9);
+		assertEquals(evaluated.getObjective(), solution.getObjective(), 1e-9);
+		assertFalse(Double.isNaN(solution.getObjective()));
+	}
+
+	@Test
+	public void smallProblemsAreSolvedDirectly() throws Exception {
+		JobVertex vertex = createScalableVertex("vertex", 4);
+
+		Map<GeoLocation, Integer> slots = new HashMap<>();
+		slots.put(a1, 2);
+		slots.put(b1, 2);
+
+		OptimisationModelParameters parameters = new OptimisationModelParameters(0.5, 0.5, 10, false);
+		parameters.setHierarchicalMinLocations(4);
+
+		OptimisationModelSolution solution = new HierarchicalOptimisationModelSolver(new HeuristicOptimisationModelSolver())
+			.solve(Collections.singletonList(vertex), slots.keySet(), twoSitesBandwidthProvider(), slots, parameters);
+
+		assertNotNull(solution);
+		assertEquals(new HashSet<>(Arrays.asList(a1, b1)), new HashSet<>(solution.getPlacement(vertex)));
+		assertEquals(4, (int) solution.getParallelism(vertex));
+	}
+
+	/**
+	 * Two sites of three locations each, with fast links within a site and a slow, long one between the sites.
+	 */
+	private BandwidthProvider twoSitesBandwidthProvider() {
+		TwoKeysMap<GeoLocation, GeoLocation, Double> bandwidths = new TwoKeysMultiMap<>();
+		TwoKeysMap<GeoLocation, GeoLocation, Double> roundTripTimes = new TwoKeysMultiMap<>();
+		List<GeoLocation> siteA = Arrays.asList(a1, a2, a3);
+		List<GeoLocation> siteB = Arrays.asList(b1, b2, b3);
+
+		for (List<GeoLocation> from : Arrays.asList(siteA, siteB)) {
+			for (List<GeoLocation> to : Arrays.asList(siteA, siteB)) {
+				for (GeoLocation locationFrom : from) {
+					for (GeoLocation locationTo : to) {
+						if (!locationFrom.equals(locationTo)) {
+							bandwidths.put(locationFrom, locationTo, from == to ? 100d : 1d);
+							roundTripTimes.put(locationFrom, locationTo, from == to ? 2d : 100d);
+						}
+					}
+				}
+			}
+		}
+
+		return new StaticBandwidthProvider(bandwidths, roundTripTimes);
+	}
+}
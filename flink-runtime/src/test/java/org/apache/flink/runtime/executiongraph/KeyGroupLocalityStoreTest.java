@@ -0,0 +1,174 @@
+package org.apache.flink.runtime.executiongraph;
+
+import org.apache.flink.api.common.accumulators.Accumulator;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.OptimisationModelOptions;
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.clusterframework.types.ResourceID;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionType;
+import org.apache.flink.runtime.jobgraph.DistributionPattern;
+import org.apache.flink.runtime.jobgraph.JobGraph;
+import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.apache.flink.runtime.state.KeyGroupAssignment;
+import org.apache.flink.runtime.state.KeyGroupHistogram;
+import org.apache.flink.runtime.taskmanager.TaskManagerLocation;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class KeyGroupLocalityStoreTest {
+
+	private final GeoLocation a = new GeoLocation("a");
+	private final GeoLocation b = new GeoLocation("b");
+
+	@Test
+	public void subtasksFollowTheTrafficOfTheirLocation() {
+		Map<GeoLocation, long[]> traffic = new HashMap<>();
+		traffic.put(a, new long[] {10, 10, 10, 10, 10, 10, 0, 0});
+		traffic.put(b, new long[] {0, 0, 0, 0, 0, 0, 10, 10});
+
+		// b's traffic is in the higher key-groups, its subtasks come last
+		List<GeoLocation> subtaskLocations = KeyGroupLocalityStore.assignSubtasks(Arrays.asList(b, a), traffic, 4);
+		assertEquals(Arrays.asList(a, a, a, b), subtaskLocations);
+
+		// the ranges of a and b follow their traffic, a's range is split evenly among its subtasks
+		KeyGroupAssignment assignment = KeyGroupLocalityStore.assignKeyGroups(subtaskLocations, traffic, 8, 0.5);
+		assertEquals(new KeyGroupAssignment(new int[] {0, 2, 4, 6, 8}), assignment);
+
+		// with one subtask each, b's range can't be smaller than 3 key-groups
+		assignment = KeyGroupLocalityStore.assignKeyGroups(Arrays.asList(a, b), traffic, 8, 0.5);
+		assertEquals(new KeyGroupAssignment(new int[] {0, 5, 8}), assignment);
+
+		// without imbalance, the ranges are the ones of equal size
+		assignment = KeyGroupLocalityStore.assignKeyGroups(Arrays.asList(a, b), traffic, 8, 0);
+		assertTrue(assignment.isUniform());
+	}
+
+	@Test
+	public void rangesOfEqualSizeWithoutTraffic() {
+		Map<GeoLocation, long[]> traffic = new HashMap<>();
+		traffic.put(a, new long[16]);
+
+		List<GeoLocation> subtaskLocations = KeyGroupLocalityStore.assignSubtasks(Arrays.asList(a, b), traffic, 4);
+		assertEquals(Arrays.asList(a, a, b, b), subtaskLocations);
+		assertTrue(KeyGroupLocalityStore.assignKeyGroups(subtaskLocations, traffic, 16, 0.5).isUniform());
+	}
+
+	@Test
+	public void recordedTrafficSizesTheRangesOfTheConsumer() throws Exception {
+		JobVertex source = makeVertex("source", 2);
+		JobVertex window = makeVertex("window", 2);
+		window.connectNewDataSetAsInput(source, DistributionPattern.ALL_TO_ALL, ResultPartitionType.PIPELINED);
+		JobGraph jobGraph = new JobGraph(source, window);
+
+		Map<JobVertex, List<GeoLocation>> placement = new HashMap<>();
+		placement.put(source, Arrays.asList(a, b));
+		placement.put(window, Arrays.asList(a, b));
+		Map<JobVertex, Integer> parallelism = new HashMap<>();
+		parallelism.put(source, 2);
+		parallelism.put(window, 2);
+		jobGraph.applySolution(new OptimisationModelSolution(placement, parallelism, 0, 0, 0));
+
+		KeyGroupLocalityStore store = new KeyGroupLocalityStore(0.5);
+
+		// without traffic, only the sampling is enabled
+		assertEquals(0, store.applyTo(jobGraph));
+		assertTrue(KeyGroupAssignment.isSampleKeyGroups(source.getConfiguration()));
+		assertFalse(KeyGroupAssignment.isSampleKeyGroups(window.getConfiguration()));
+		assertNull(KeyGroupAssignment.readFrom(window.getConfiguration()));
+
+		long[] fromA = new long[128];
+		long[] fromB = new long[128];
+		Arrays.fill(fromA, 0, 80, 1);
+		Arrays.fill(fromB, 80, 128, 1);
+		store.record(mockExecutionGraph(source, window, mockExecution(a, fromA), mockExecution(b, fromB)));
+		assertArrayEquals(fromB, store.getTraffic(window.getID()).get(b));
+
+		assertEquals(1, store.applyTo(jobGraph));
+
+		KeyGroupAssignment assignment = KeyGroupAssignment.readFrom(window.getConfiguration());
+		assertEquals(new KeyGroupAssignment(new int[] {0, 80, 128}), assignment);
+		assertEquals(assignment, KeyGroupAssignment.readFromOutput(source.getConfiguration(), 0));
+		assertEquals(a, window.getSubtaskGeoLocation(0));
+		assertEquals(b, window.getSubtaskGeoLocation(1));
+		// the subtasks of the source follow the solution
+		assertEquals(a, source.getSubtaskGeoLocation(0));
+		assertEquals(b, source.getSubtaskGeoLocation(1));
+
+		// a vertex at a single location keeps the ranges of equal size
+		placement.put(window, Collections.singletonList(a));
+		jobGraph.applySolution(new OptimisationModelSolution(placement, parallelism, 0, 0, 0));
+		assertEquals(0, store.applyTo(jobGraph));
+		assertNull(KeyGroupAssignment.readFrom(window.getConfiguration()));
+		assertNull(KeyGroupAssignment.readFromOutput(source.getConfiguration(), 0));
+		assertNull(window.getSubtaskGeoLocation(0));
+		assertFalse(KeyGroupAssignment.isSampleKeyGroups(source.getConfiguration()));
+	}
+
+	@Test
+	public void localityIsDisabledByDefault() {
+		assertNull(KeyGroupLocalityStore.fromConfiguration(new Configuration()));
+
+		Configuration configuration = new Configuration();
+		configuration.setBoolean(OptimisationModelOptions.KEY_GROUP_LOCALITY, true);
+		assertNotNull(KeyGroupLocalityStore.fromConfiguration(configuration));
+	}
+
+	private static ExecutionGraph mockExecutionGraph(JobVertex producer, JobVertex consumer, Execution... producerExecutions) {
+		ExecutionVertex[] taskVertices = new ExecutionVertex[producerExecutions.length];
+		for (int i = 0; i < producerExecutions.length; i++) {
+			taskVertices[i] = mock(ExecutionVertex.class);
+			when(taskVertices[i].getCurrentExecutionAttempt()).thenReturn(producerExecutions[i]);
+		}
+
+		ExecutionJobVertex producerVertex = mock(ExecutionJobVertex.class);
+		when(producerVertex.getJobVertex()).thenReturn(producer);
+		when(producerVertex.getTaskVertices()).thenReturn(taskVertices);
+
+		ExecutionJobVertex consumerVertex = mock(ExecutionJobVertex.class);
+		when(consumerVertex.getJobVertex()).thenReturn(consumer);
+		when(consumerVertex.getTaskVertices()).thenReturn(new ExecutionVertex[0]);
+
+		ExecutionGraph graph = mock(ExecutionGraph.class);
+		when(graph.getVerticesTopologically()).thenReturn(Arrays.asList(producerVertex, consumerVertex));
+		return graph;
+	}
+
+	private static Execution mockExecution(GeoLocation location, long[] counts) {
+		KeyGroupHistogram histogram = new KeyGroupHistogram(counts.length);
+		for (int keyGroup = 0; keyGroup < counts.length; keyGroup++) {
+			for (long i = 0; i < counts[keyGroup]; i++) {
+				histogram.add(keyGroup);
+			}
+		}
+		Map<String, Accumulator<?, ?>> accumulators = new HashMap<>();
+		accumulators.put(KeyGroupHistogram.getAccumulatorName(0), histogram);
+
+		Execution execution = mock(Execution.class);
+		when(execution.getAssignedResourceLocation()).thenReturn(
+			new TaskManagerLocation(ResourceID.generate(), InetAddress.getLoopbackAddress(), 1, location));
+		when(execution.getUserAccumulators()).thenReturn(accumulators);
+		return execution;
+	}
+
+	private static JobVertex makeVertex(String name, int parallelism) {
+		JobVertex vertex = new JobVertex(name);
+		vertex.setParallelism(parallelism);
+		vertex.setMaxParallelism(128);
+		return vertex;
+	}
+}
@@ -0,0 +1,171 @@
+package org.apache.flink.runtime.executiongraph;
+
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionType;
+import org.apache.flink.runtime.jobgraph.DistributionPattern;
+import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.apache.flink.runtime.jobmanager.scheduler.StaticBandwidthProvider;
+import org.apache.flink.types.TwoKeysMultiMap;
+import org.apache.flink.util.FlinkException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.flink.runtime.executiongraph.ExecutionGraphTestUtils.createScalableVertex;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MultiStartOptimisationModelSolverTest {
+
+	private final GeoLocation a = new GeoLocation("a");
+	private final GeoLocation b = new GeoLocation("b");
+
+	private final JobVertex vertex = createScalableVertex("vertex", 10);
+
+	/** Both locations, with as many slots as the vertex can have subtasks. */
+	private final Map<GeoLocation, Integer> slots = new HashMap<>();
+
+	@Before
+	public void setUp() {
+		// the score of a placement of the vertex is minus its parallelism
+		vertex.setWeight(2);
+		slots.put(a, 10);
+		slots.put(b, 10);
+	}
+
+	@Test
+	public void bestPlacementOfAllTheSolvers() throws Exception {
+		OptimisationModelSolution heuristic = solution(a, -3, Double.NaN,
+			new OptimisationModelSolution.Incumbent(0.1, -2), new OptimisationModelSolution.Incumbent(0.2, -3));
+		OptimisationModelSolution exact = solution(b, -4, -5,
+			new OptimisationModelSolution.Incumbent(0.15, -2.5), new OptimisationModelSolution.Incumbent(0.5, -4));
+
+		OptimisationModelSolution solution = new MultiStartOptimisationModelSolver(
+			Arrays.asList(solver(heuristic, 0), solver(exact, 0)), 10000)
+			.solve(Collections.singletonList(vertex), slots.keySet(), null, slots, parameters());
+
+		assertNotNull(solution);
+		assertEquals(Collections.singletonList(b), solution.getPlacement(vertex));
+		assertEquals(-4, solution.getObjective(), 0);
+		assertEquals(0.25, solution.getOptimalityGap(), 1e-9);
+
+		// the best objective over time, whichever solver found it
+		List<OptimisationModelSolution.Incumbent> incumbents = solution.getIncumbents();
+		assertEquals(4, incumbents.size());
+		assertEquals(-2, incumbents.get(0).getObjective(), 0);
+		assertEquals(-2.5, incumbents.get(1).getObjective(), 0);
+		assertEquals(-3, incumbents.get(2).getObjective(), 0);
+		assertEquals(-4, incumbents.get(3).getObjective(), 0);
+	}
+
+	@Test
+	public void placementsAreComparedOnTheSameScore() throws Exception {
+		// a solver scoring its placement with another objective doesn't win by it
+		OptimisationModelSolution optimistic = solution(a, -1, Double.NaN);
+		optimistic.setObjective(-100);
+		OptimisationModelSolution exact = solution(b, -4, -3);
+
+		OptimisationModelSolution solution = new MultiStartOptimisationModelSolver(
+			Arrays.asList(solver(optimistic, 0), solver(exact, 0)), 10000)
+			.solve(Collections.singletonList(vertex), slots.keySet(), null, slots, parameters());
+
+		assertNotNull(solution);
+		assertEquals(Collections.singletonList(b), solution.getPlacement(vertex));
+		assertEquals(-4, solution.getObjective(), 1e-9);
+		// the bound is higher than the score, so it is of another objective
+		assertTrue(Double.isNaN(solution.getOptimalityGap()));
+	}
+
+	@Test
+	public void failingAndSlowSolversAreDropped() throws Exception {
+		OptimisationModelSolution fast = solution(a, -1, Double.NaN);
+		OptimisationModelSolution slow = solution(b, -10, Double.NaN);
+		OptimisationModelSolver failing = (vertices, locations, bandwidthProvider, slots, parameters, startPlacement, fixedPlacement) -> {
+			throw new FlinkException("expected");
+		};
+
+		long start = System.nanoTime();
+		OptimisationModelSolution solution = new MultiStartOptimisationModelSolver(
+			Arrays.asList(failing, solver(slow, 5000), solver(fast, 0)), 200)
+			.solve(Collections.singletonList(vertex), slots.keySet(), null, slots, parameters());
+
+		assertTrue((System.nanoTime() - start) / 1_000_000 < 4000);
+		assertNotNull(solution);
+		assertEquals(Collections.singletonList(a), solution.getPlacement(vertex));
+
+		// without any placement within the budget, the first one found is used
+		solution = new MultiStartOptimisationModelSolver(Arrays.asList(failing, solver(fast, 300)), 50)
+			.solve(Collections.singletonList(vertex), slots.keySet(), null, slots, parameters());
+		assertNotNull(solution);
+		assertEquals(-1, solution.getObjective(), 0);
+	}
+
+	@Test
+	public void heuristicStartsWithinTheBudget() throws Exception {
+		JobVertex source = createScalableVertex("source", 4);
+		JobVertex sink = createScalableVertex("sink", 4);
+		sink.connectNewDataSetAsInput(source, DistributionPattern.ALL_TO_ALL, ResultPartitionType.PIPELINED);
+		source.setGeoLocationKey("a");
+
+		Map<GeoLocation, Integer> slots = new HashMap<>();
+		slots.put(a, 2);
+		slots.put(b, 4);
+
+		OptimisationModelParameters parameters = parameters();
+		parameters.setSolverType(OptimisationModelSolverType.HEURISTIC);
+		parameters.setSolverTimeBudget(2000);
+		parameters.setSolverStarts(3);
+
+		OptimisationModelSolver solver = parameters.createSolver();
+		assertTrue(solver instanceof MultiStartOptimisationModelSolver);
+
+		OptimisationModelSolution solution = solver.solve(
+			Arrays.asList(source, sink), slots.keySet(), new StaticBandwidthProvider(new TwoKeysMultiMap<>()), slots, parameters);
+
+		assertNotNull(solution);
+		assertEquals(Collections.singletonList(a), solution.getPlacement(source));
+		assertEquals(solution.getObjective(), solution.getIncumbents().get(solution.getIncumbents().size() - 1).getObjective(), 1e-9);
+		assertTrue(solution.getModelExecutionTime() < 2);
+	}
+
+	@Test
+	public void singleSolverWithoutBudget() {
+		OptimisationModelParameters parameters = parameters();
+		parameters.setSolverType(OptimisationModelSolverType.HEURISTIC);
+		assertSame(HeuristicOptimisationModelSolver.class, parameters.createSolver().getClass());
+	}
+
+	/**
+	 * @param objective the score of the placement, minus its parallelism
+	 */
+	private OptimisationModelSolution solution(GeoLocation location, int objective, double bound, OptimisationModelSolution.Incumbent... incumbents) {
+		OptimisationModelSolution solution = new OptimisationModelSolution(
+			Collections.singletonMap(vertex, Collections.singletonList(location)), Collections.singletonMap(vertex, -objective), 0, objective, 0);
+		solution.setObjective(objective);
+		solution.setObjectiveBound(bound);
+		solution.setIncumbents(Arrays.asList(incumbents));
+		return solution;
+	}
+
+	private static OptimisationModelSolver solver(OptimisationModelSolution solution, long delayMillis) {
+		return (vertices, locations, bandwidthProvider, slots, parameters, startPlacement, fixedPlacement) -> {
+			try {
+				Thread.sleep(delayMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return solution;
+		};
+	}
+
+	private static OptimisationModelParameters parameters() {
+		return new OptimisationModelParameters(0.5, 0.5, 10, false);
+	}
+}
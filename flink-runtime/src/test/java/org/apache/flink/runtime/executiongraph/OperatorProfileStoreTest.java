@@ -0,0 +1,135 @@
+package org.apache.flink.runtime.executiongraph;
+
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.OptimisationModelOptions;
+import org.apache.flink.metrics.Meter;
+import org.apache.flink.metrics.MeterView;
+import org.apache.flink.metrics.SimpleCounter;
+import org.apache.flink.runtime.concurrent.Executors;
+import org.apache.flink.runtime.jobgraph.JobGraph;
+import org.apache.flink.runtime.jobgraph.JobStatus;
+import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.apache.flink.runtime.jobgraph.JobVertexID;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class OperatorProfileStoreTest {
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void profilesAreRecordedAndPersisted() throws Exception {
+		File file = new File(temporaryFolder.getRoot(), "profiles");
+		Configuration configuration = new Configuration();
+		configuration.setBoolean(OptimisationModelOptions.PROFILE_OPERATORS, true);
+		configuration.setString(OptimisationModelOptions.OPERATOR_PROFILES_FILE, file.getAbsolutePath());
+
+		OperatorProfileStore store = OperatorProfileStore.fromConfiguration(configuration);
+		assertNotNull(store);
+
+		JobVertexID source = new JobVertexID();
+		JobVertexID filter = new JobVertexID();
+
+		// two subtasks of the filter, each reading 1000 records and writing 250 in 2 ms of CPU time
+		ExecutionGraph graph = mockExecutionGraph(
+			mockExecutionJobVertex(source, mockExecution(0, 2000, 2000)),
+			mockExecutionJobVertex(filter, mockExecution(1000, 250, 2000), mockExecution(1000, 250, 2000)));
+
+		// running jobs are not recorded
+		store.createRecorder(graph, Executors.directExecutor()).jobStatusChanges(graph.getJobID(), JobStatus.RUNNING, 0L, null);
+		assertEquals(0, store.size());
+
+		store.createRecorder(graph, Executors.directExecutor()).jobStatusChanges(graph.getJobID(), JobStatus.FINISHED, 0L, null);
+
+		assertEquals(0.25, store.getProfile(filter).getSelectivity(), 1e-9);
+		assertEquals(2, store.getProfile(filter).getCostPerRecord(), 1e-9);
+		assertEquals(0, store.getProfile(source).getSelectivity(), 1e-9);
+		assertEquals(1, store.getProfile(source).getCostPerRecord(), 1e-9);
+
+		// the measurements of another run are added up, the subtasks without CPU time are not
+		ExecutionGraph secondGraph = mockExecutionGraph(
+			mockExecutionJobVertex(filter, mockExecution(2000, 1500, 2000), mockExecution(1000, 1000, 0)));
+		store.createRecorder(secondGraph, Executors.directExecutor()).jobStatusChanges(secondGraph.getJobID(), JobStatus.RESTARTING, 0L, null);
+		assertEquals(0.5, store.getProfile(filter).getSelectivity(), 1e-9);
+
+		OperatorProfileStore reloaded = OperatorProfileStore.fromConfiguration(configuration);
+		assertEquals(2, reloaded.size());
+		assertEquals(4000, reloaded.getProfile(filter).getRecordsIn());
+		assertEquals(2000, reloaded.getProfile(filter).getRecordsOut());
+		assertEquals(6000, reloaded.getProfile(filter).getCpuTimeNanos());
+	}
+
+	@Test
+	public void profilesAreAppliedToJobGraph() {
+		OperatorProfileStore store = new OperatorProfileStore(null);
+
+		JobVertex source = new JobVertex("source");
+		JobVertex filter = new JobVertex("filter");
+		JobVertex sink = new JobVertex("sink");
+		filter.setSelectivity(1);
+		sink.setSelectivity(1);
+
+		store.record(mockExecutionGraph(
+			mockExecutionJobVertex(source.getID(), mockExecution(0, 1000, 1000)),
+			mockExecutionJobVertex(filter.getID(), mockExecution(1000, 100, 3000))));
+
+		assertEquals(2, store.applyTo(new JobGraph(source, filter, sink)));
+
+		// costs per record 1 and 3 ns, mean 2 ns
+		assertEquals(0.5, source.getWeight(), 1e-9);
+		assertEquals(1.5, filter.getWeight(), 1e-9);
+		assertEquals(0.1, filter.getSelectivity(), 1e-9);
+
+		// not profiled vertices keep their hints
+		assertEquals(1, sink.getWeight(), 1e-9);
+		assertEquals(1, sink.getSelectivity(), 1e-9);
+		assertNull(store.getProfile(sink.getID()));
+	}
+
+	@Test
+	public void profilingIsDisabledByDefault() throws Exception {
+		assertNull(OperatorProfileStore.fromConfiguration(new Configuration()));
+	}
+
+	private static ExecutionGraph mockExecutionGraph(ExecutionJobVertex... vertices) {
+		ExecutionGraph graph = mock(ExecutionGraph.class);
+		when(graph.getVerticesTopologically()).thenReturn(Arrays.asList(vertices));
+		return graph;
+	}
+
+	private static ExecutionJobVertex mockExecutionJobVertex(JobVertexID id, Execution... executions) {
+		ExecutionVertex[] taskVertices = new ExecutionVertex[executions.length];
+		for (int i = 0; i < executions.length; i++) {
+			taskVertices[i] = mock(ExecutionVertex.class);
+			when(taskVertices[i].getCurrentExecutionAttempt()).thenReturn(executions[i]);
+		}
+
+		ExecutionJobVertex vertex = mock(ExecutionJobVertex.class);
+		when(vertex.getJobVertexId()).thenReturn(id);
+		when(vertex.getTaskVertices()).thenReturn(taskVertices);
+		return vertex;
+	}
+
+	private static Execution mockExecution(long recordsIn, long recordsOut, long cpuTimeNanos) {
+		Meter recordsInMeter = new MeterView(new SimpleCounter(), 60);
+		recordsInMeter.markEvent(recordsIn);
+		Meter recordsOutMeter = new MeterView(new SimpleCounter(), 60);
+		recordsOutMeter.markEvent(recordsOut);
+		Meter noBytes = new MeterView(new SimpleCounter(), 60);
+
+		Execution execution = mock(Execution.class);
+		when(execution.getIOMetrics()).thenReturn(new IOMetrics(recordsInMeter, recordsOutMeter, noBytes, noBytes, noBytes, cpuTimeNanos));
+		return execution;
+	}
+}
@@ -0,0 +1,179 @@
+package org.apache.flink.runtime.executiongraph;
+
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionType;
+import org.apache.flink.runtime.jobgraph.DistributionPattern;
+import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.apache.flink.runtime.jobmanager.scheduler.BandwidthProvider;
+import org.apache.flink.runtime.jobmanager.scheduler.StaticBandwidthProvider;
+import org.apache.flink.types.TwoKeysMultiMap;
+import org.apache.flink.util.FlinkException;
+import org.junit.Test;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class OptimisationModelSolutionCacheTest {
+
+	private final GeoLocation a = new GeoLocation("a");
+	private final GeoLocation b = new GeoLocation("b");
+
+	private final BandwidthProvider bandwidthProvider = new StaticBandwidthProvider(new TwoKeysMultiMap<>());
+
+	private final OptimisationModelParameters parameters = new OptimisationModelParameters(0.5, 0.5, 10, false);
+
+	@Test
+	public void identicalJobIsNotSolvedAgain() throws Exception {
+		OptimisationModelSolutionCache cache = new OptimisationModelSolutionCache(4);
+		RecordingSolver solver = new RecordingSolver();
+
+		List<JobVertex> firstSubmission = makeJob();
+		OptimisationModelSolution first = cache.getOrSolve(solver, firstSubmission, slots(4, 4).keySet(), bandwidthProvider, slots(4, 4), parameters);
+
+		List<JobVertex> secondSubmission = makeJob();
+		OptimisationModelSolution second = cache.getOrSolve(solver, secondSubmission, slots(4, 4).keySet(), bandwidthProvider, slots(4, 4), parameters);
+
+		assertEquals(1, solver.solves);
+		assertEquals(1, cache.getHits());
+		for (int i = 0; i < firstSubmission.size(); i++) {
+			assertEquals(first.getPlacement(firstSubmission.get(i)), second.getPlacement(secondSubmission.get(i)));
+			assertEquals(first.getParallelism(firstSubmission.get(i)), second.getParallelism(secondSubmission.get(i)));
+		}
+		assertEquals(first.getObjective(), second.getObjective(), 0);
+		assertEquals(first.getObjectiveBound(), second.getObjectiveBound(), 0);
+		assertEquals(first.getModelExecutionTime(), second.getModelExecutionTime(), 0);
+		assertEquals(first.getIncumbents().size(), second.getIncumbents().size());
+	}
+
+	@Test
+	public void sameJobOnDifferentClusterIsWarmStarted() throws Exception {
+		OptimisationModelSolutionCache cache = new OptimisationModelSolutionCache(4);
+		RecordingSolver solver = new RecordingSolver();
+
+		cache.getOrSolve(solver, makeJob(), slots(4, 4).keySet(), bandwidthProvider, slots(4, 4), parameters);
+		assertNull(solver.lastStartPlacement);
+
+		List<JobVertex> rescaled = makeJob();
+		cache.getOrSolve(solver, rescaled, slots(4, 2).keySet(), bandwidthProvider, slots(4, 2), parameters);
+
+		assertEquals(2, solver.solves);
+		assertEquals(1, cache.getWarmStarts());
+		assertNotNull(solver.lastStartPlacement);
+		for (JobVertex vertex : rescaled) {
+			assertNotNull(solver.lastStartPlacement.get(vertex));
+		}
+	}
+
+	@Test
+	public void rescaledOrReweightedJobIsWarmStarted() throws Exception {
+		OptimisationModelSolutionCache cache = new OptimisationModelSolutionCache(4);
+		RecordingSolver solver = new RecordingSolver();
+
+		cache.getOrSolve(solver, makeJob(), slots(4, 4).keySet(), bandwidthProvider, slots(4, 4), parameters);
+
+		List<JobVertex> rescaledJob = makeJob();
+		rescaledJob.get(1).setMaxParallelism(8);
+		cache.getOrSolve(solver, rescaledJob, slots(4, 4).keySet(), bandwidthProvider, slots(4, 4), parameters);
+
+		assertEquals(2, solver.solves);
+		assertEquals(1, cache.getWarmStarts());
+		assertNotNull(solver.lastStartPlacement);
+
+		List<JobVertex> heavierJob = makeJob();
+		heavierJob.get(1).setWeight(3);
+		cache.getOrSolve(solver, heavierJob, slots(4, 4).keySet(), bandwidthProvider, slots(4, 4), parameters);
+
+		assertEquals(3, solver.solves);
+		assertEquals(2, cache.getWarmStarts());
+		assertNotNull(solver.lastStartPlacement);
+	}
+
+	@Test
+	public void differentJobIsSolvedFromScratch() throws Exception {
+		OptimisationModelSolutionCache cache = new OptimisationModelSolutionCache(4);
+		RecordingSolver solver = new RecordingSolver();
+
+		cache.getOrSolve(solver, makeJob(), slots(4, 4).keySet(), bandwidthProvider, slots(4, 4), parameters);
+
+		List<JobVertex> longerJob = new ArrayList<>(makeJob());
+		JobVertex secondSink = new JobVertex("second sink");
+		secondSink.setParallelism(1);
+		secondSink.setMaxParallelism(4);
+		secondSink.connectNewDataSetAsInput(longerJob.get(2), DistributionPattern.POINTWISE, ResultPartitionType.PIPELINED);
+		longerJob.add(secondSink);
+		cache.getOrSolve(solver, longerJob, slots(4, 4).keySet(), bandwidthProvider, slots(4, 4), parameters);
+
+		assertEquals(2, solver.solves);
+		assertEquals(2, cache.getMisses());
+		assertNull(solver.lastStartPlacement);
+	}
+
+	@Test
+	public void leastRecentlyUsedSolutionIsEvicted() throws Exception {
+		OptimisationModelSolutionCache cache = new OptimisationModelSolutionCache(1);
+		RecordingSolver solver = new RecordingSolver();
+
+		cache.getOrSolve(solver, makeJob(), slots(4, 4).keySet(), bandwidthProvider, slots(4, 4), parameters);
+		cache.getOrSolve(solver, makeJob(), slots(1, 1).keySet(), bandwidthProvider, slots(1, 1), parameters);
+		cache.getOrSolve(solver, makeJob(), slots(4, 4).keySet(), bandwidthProvider, slots(4, 4), parameters);
+
+		assertEquals(1, cache.size());
+		assertEquals(3, solver.solves);
+	}
+
+	private Map<GeoLocation, Integer> slots(int slotsAtA, int slotsAtB) {
+		Map<GeoLocation, Integer> slots = new HashMap<>();
+		slots.put(a, slotsAtA);
+		slots.put(b, slotsAtB);
+		return slots;
+	}
+
+	private static List<JobVertex> makeJob() {
+		JobVertex source = new JobVertex("source");
+		JobVertex map = new JobVertex("map");
+		JobVertex sink = new JobVertex("sink");
+		map.connectNewDataSetAsInput(source, DistributionPattern.POINTWISE, ResultPartitionType.PIPELINED);
+		sink.connectNewDataSetAsInput(map, DistributionPattern.ALL_TO_ALL, ResultPartitionType.PIPELINED);
+		source.setGeoLocationKey("a");
+
+		List<JobVertex> vertices = Arrays.asList(source, map, sink);
+		for (JobVertex vertex : vertices) {
+			vertex.setParallelism(1);
+			vertex.setMaxParallelism(4);
+			vertex.setSelectivity(1);
+		}
+		return vertices;
+	}
+
+	private static class RecordingSolver implements OptimisationModelSolver {
+		private final OptimisationModelSolver delegate = new HeuristicOptimisationModelSolver();
+
+		private int solves;
+
+		private Map<JobVertex, List<GeoLocation>> lastStartPlacement;
+
+		@Override
+		public OptimisationModelSolution solve(Collection<JobVertex> vertices,
+											   Set<GeoLocation> locations,
+											   BandwidthProvider bandwidthProvider,
+											   Map<GeoLocation, Integer> slots,
+											   OptimisationModelParameters parameters,
+											   @Nullable Map<JobVertex, List<GeoLocation>> startPlacement,
+											   @Nullable Map<JobVertex, List<GeoLocation>> fixedPlacement) throws FlinkException {
+			solves++;
+			lastStartPlacement = startPlacement;
+			return delegate.solve(vertices, locations, bandwidthProvider, slots, parameters, startPlacement, fixedPlacement);
+		}
+	}
+}
@@ -0,0 +1,132 @@
+package org.apache.flink.runtime.executiongraph;
+
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionType;
+import org.apache.flink.runtime.jobgraph.DistributionPattern;
+import org.apache.flink.runtime.jobgraph.JobGraph;
+import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SubtaskGeoLocationAssignerTest {
+
+	private final GeoLocation a = new GeoLocation("a");
+	private final GeoLocation b = new GeoLocation("b");
+
+	@Test
+	public void subtasksGetConsecutiveIndexesAtEachLocation() {
+		assertEquals(Arrays.asList(b, a, a, a), SubtaskGeoLocationAssigner.assignSubtasks(subtasks(b, 1, a, 3), null));
+	}
+
+	@Test
+	public void forwardConsumerFollowsItsProducer() {
+		JobVertex source = new JobVertex("source");
+		JobVertex map = new JobVertex("map");
+		map.connectNewDataSetAsInput(source, DistributionPattern.POINTWISE, ResultPartitionType.PIPELINED);
+		JobGraph jobGraph = new JobGraph(source, map);
+
+		Map<JobVertex, Map<GeoLocation, Integer>> subtasks = new HashMap<>();
+		subtasks.put(source, subtasks(a, 1, b, 3));
+		// placed in the other order, the consumer alone would get its subtasks at b first
+		subtasks.put(map, subtasks(b, 3, a, 1));
+		jobGraph.applySolution(makeSolution(source, Arrays.asList(a, b), 4, map, Arrays.asList(b, a), 4, subtasks));
+
+		assertEquals(Arrays.asList(a, b, b, b), subtaskLocations(source));
+		assertEquals(Arrays.asList(a, b, b, b), subtaskLocations(map));
+	}
+
+	@Test
+	public void pointwiseConsumerFollowsItsProducerWithinItsSubtasksPerLocation() {
+		List<GeoLocation> producer = Arrays.asList(a, a, b, b);
+
+		// the second subtask would read at a, which has no subtask left
+		assertEquals(Arrays.asList(a, b, b, b), SubtaskGeoLocationAssigner.assignSubtasks(subtasks(a, 1, b, 3), producer));
+
+		// rescaling to fewer subtasks, each reads from two producer subtasks
+		assertEquals(Arrays.asList(a, b), SubtaskGeoLocationAssigner.assignSubtasks(subtasks(b, 1, a, 1), producer));
+
+		// rescaling to more subtasks, two of them read from each producer subtask
+		assertEquals(
+			Arrays.asList(a, a, a, a, b, b, b, b),
+			SubtaskGeoLocationAssigner.assignSubtasks(subtasks(b, 4, a, 4), producer));
+	}
+
+	@Test
+	public void allToAllConsumerAndSingleLocationVertexAreNotFollowed() {
+		JobVertex source = new JobVertex("source");
+		JobVertex window = new JobVertex("window");
+		window.connectNewDataSetAsInput(source, DistributionPattern.ALL_TO_ALL, ResultPartitionType.PIPELINED);
+		JobGraph jobGraph = new JobGraph(source, window);
+
+		// without subtasks per location from the solver, they are spread evenly
+		jobGraph.applySolution(makeSolution(source, Collections.singletonList(a), 2, window, Arrays.asList(b, a), 3, new HashMap<>()));
+
+		assertNull(source.getSubtaskGeoLocation(0));
+		assertEquals(Arrays.asList(b, b, a), subtaskLocations(window));
+	}
+
+	@Test
+	public void pinnedSubtasksAreKeptAndFollowed() {
+		JobVertex window = new JobVertex("window");
+		JobVertex sink = new JobVertex("sink");
+		sink.connectNewDataSetAsInput(window, DistributionPattern.POINTWISE, ResultPartitionType.PIPELINED);
+		JobGraph jobGraph = new JobGraph(window, sink);
+		jobGraph.applySolution(makeSolution(window, Arrays.asList(a, b), 2, sink, Arrays.asList(a, b), 2, new HashMap<>()));
+
+		assertEquals(2, SubtaskGeoLocationAssigner.assign(jobGraph, Collections.singletonMap(window.getID(), Arrays.asList(b, a))));
+		assertEquals(Arrays.asList(b, a), subtaskLocations(window));
+		assertEquals(Arrays.asList(b, a), subtaskLocations(sink));
+	}
+
+	@Test
+	public void subtasksNotAddingUpToTheParallelismAreSpreadEvenly() {
+		JobVertex vertex = new JobVertex("vertex");
+		Map<JobVertex, Map<GeoLocation, Integer>> subtasks = new HashMap<>();
+		subtasks.put(vertex, subtasks(a, 1, b, 1));
+
+		OptimisationModelSolution solution = makeSolution(vertex, Arrays.asList(b, a), 3, new JobVertex("other"), Collections.singletonList(a), 1, subtasks);
+
+		assertEquals(subtasks(b, 2, a, 1), solution.getSubtasksPerLocation(vertex));
+	}
+
+	private static List<GeoLocation> subtaskLocations(JobVertex vertex) {
+		GeoLocation[] locations = new GeoLocation[vertex.getParallelism()];
+		for (int i = 0; i < locations.length; i++) {
+			locations[i] = vertex.getSubtaskGeoLocation(i);
+		}
+		return Arrays.asList(locations);
+	}
+
+	private static Map<GeoLocation, Integer> subtasks(GeoLocation first, int firstSubtasks, GeoLocation second, int secondSubtasks) {
+		Map<GeoLocation, Integer> subtasks = new LinkedHashMap<>();
+		subtasks.put(first, firstSubtasks);
+		subtasks.put(second, secondSubtasks);
+		return subtasks;
+	}
+
+	private static OptimisationModelSolution makeSolution(
+			JobVertex first, List<GeoLocation> firstLocations, int firstParallelism,
+			JobVertex second, List<GeoLocation> secondLocations, int secondParallelism,
+			Map<JobVertex, Map<GeoLocation, Integer>> subtasks) {
+		Map<JobVertex, List<GeoLocation>> placement = new HashMap<>();
+		placement.put(first, firstLocations);
+		placement.put(second, secondLocations);
+
+		Map<JobVertex, Integer> parallelism = new HashMap<>();
+		parallelism.put(first, firstParallelism);
+		parallelism.put(second, secondParallelism);
+
+		OptimisationModelSolution solution = new OptimisationModelSolution(placement, parallelism, 0, 0, 0);
+		solution.setSubtasksPerLocation(subtasks);
+		return solution;
+	}
+}
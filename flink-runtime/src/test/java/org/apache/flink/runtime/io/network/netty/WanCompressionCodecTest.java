@@ -0,0 +1,247 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.netty;
+
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.io.network.netty.exception.LocalTransportException;
+
+import org.apache.flink.shaded.netty4.io.netty.buffer.ByteBuf;
+import org.apache.flink.shaded.netty4.io.netty.buffer.Unpooled;
+import org.apache.flink.shaded.netty4.io.netty.channel.ChannelFuture;
+import org.apache.flink.shaded.netty4.io.netty.channel.embedded.EmbeddedChannel;
+
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the compression of the connections between geo locations, {@link WanCompressionEncoder},
+ * {@link WanCompressionDecoder}, {@link WanClientHandshakeHandler} and {@link WanHandshakeHandler}.
+ */
+public class WanCompressionCodecTest {
+
+	private final GeoLocation client = new GeoLocation("client");
+
+	private final Random random = new Random(42);
+
+	@Test
+	public void testHandshakeCompressesBothDirections() throws Exception {
+		WanCompressionStatistics clientStatistics = new WanCompressionStatistics();
+		WanCompressionStatistics serverStatistics = new WanCompressionStatistics();
+
+		EmbeddedChannel clientChannel = new EmbeddedChannel(createClientHandshake(
+			clientStatistics.getOrCreateLink(new GeoLocation("server")), new AtomicBoolean()));
+		EmbeddedChannel serverChannel = new EmbeddedChannel(new WanHandshakeHandler(createConfig(true), serverStatistics));
+
+		// compressible data from the client, more than a frame
+		byte[] request = new byte[3 * WanCompressionEncoder.MAX_CHUNK_LENGTH];
+		for (int i = 0; i < request.length; i++) {
+			request[i] = (byte) (i % 16);
+		}
+		clientChannel.writeAndFlush(Unpooled.wrappedBuffer(request));
+		handshake(clientChannel, serverChannel);
+
+		assertNull(clientChannel.pipeline().get(WanClientHandshakeHandler.class));
+		assertNotNull(clientChannel.pipeline().get(WanCompressionEncoder.class));
+		assertNull(serverChannel.pipeline().get(WanHandshakeHandler.class));
+		assertNotNull(serverChannel.pipeline().get(WanCompressionEncoder.class));
+
+		serverChannel.writeInbound(readAll(clientChannel, true));
+		assertArrayEquals(request, toArray(readAll(serverChannel, false)));
+
+		WanCompressionStatistics.Link clientLink = clientStatistics.getLink(new GeoLocation("server"));
+		assertEquals(request.length, clientLink.getBytesBeforeCompression());
+		assertTrue(clientLink.getBytesSaved() > request.length / 2);
+
+		// incompressible data from the server is sent as is
+		byte[] response = new byte[5000];
+		random.nextBytes(response);
+		assertTrue(serverChannel.writeOutbound(Unpooled.wrappedBuffer(response)));
+		clientChannel.writeInbound(readAll(serverChannel, true));
+
+		assertArrayEquals(response, toArray(readAll(clientChannel, false)));
+
+		WanCompressionStatistics.Link serverLink = serverStatistics.getLink(client);
+		assertEquals(response.length, serverLink.getBytesBeforeCompression());
+		assertEquals(response.length + WanCompressionEncoder.FRAME_HEADER_LENGTH, serverLink.getBytesAfterCompression());
+	}
+
+	@Test
+	public void testServerWithoutCompressionRefusesIt() {
+		EmbeddedChannel clientChannel = new EmbeddedChannel(createClientHandshake(
+			new WanCompressionStatistics().getOrCreateLink(new GeoLocation("server")), new AtomicBoolean()));
+		EmbeddedChannel serverChannel = new EmbeddedChannel(
+			new WanHandshakeHandler(createConfig(false), new WanCompressionStatistics()));
+
+		byte[] request = {1, 2, 3, 4};
+		clientChannel.writeAndFlush(Unpooled.wrappedBuffer(request));
+		handshake(clientChannel, serverChannel);
+
+		assertNull(clientChannel.pipeline().get(WanClientHandshakeHandler.class));
+		assertNull(clientChannel.pipeline().get(WanCompressionEncoder.class));
+		assertNull(serverChannel.pipeline().get(WanHandshakeHandler.class));
+		assertNull(serverChannel.pipeline().get(WanCompressionEncoder.class));
+
+		// the request is sent as it is
+		ByteBuf sent = readAll(clientChannel, true);
+		assertArrayEquals(request, toArray(sent.copy()));
+		serverChannel.writeInbound(sent);
+		assertArrayEquals(request, toArray(readAll(serverChannel, false)));
+	}
+
+	@Test
+	public void testServerWithoutHandshakeFailsTheConnection() {
+		AtomicBoolean missingAnswer = new AtomicBoolean();
+		EmbeddedChannel clientChannel = new EmbeddedChannel(createClientHandshake(
+			new WanCompressionStatistics().getOrCreateLink(new GeoLocation("server")), missingAnswer));
+
+		ChannelFuture write = clientChannel.writeAndFlush(Unpooled.wrappedBuffer(new byte[] {1, 2, 3, 4}));
+		readAll(clientChannel, true).release();
+
+		// a message of a server that doesn't know the handshake
+		ByteBuf message = Unpooled.buffer();
+		message.writeInt(8);
+		message.writeLong(123L);
+		try {
+			clientChannel.writeInbound(message);
+			clientChannel.checkException();
+			fail("The connection did not fail");
+		}
+		catch (Exception e) {
+			// the server didn't answer
+			assertTrue(e instanceof LocalTransportException);
+		}
+
+		assertTrue(missingAnswer.get());
+		assertFalse(write.isSuccess());
+		assertFalse(clientChannel.isOpen());
+	}
+
+	@Test
+	public void testUncompressedConnectionIsLeftAsItIs() {
+		EmbeddedChannel serverChannel = new EmbeddedChannel(
+			new WanHandshakeHandler(createConfig(true), new WanCompressionStatistics()));
+
+		ByteBuf message = Unpooled.buffer();
+		message.writeInt(8);
+		message.writeLong(123L);
+		byte[] expected = toArray(message.copy());
+
+		serverChannel.writeInbound(message);
+
+		assertArrayEquals(expected, toArray(readAll(serverChannel, false)));
+		assertNull(serverChannel.pipeline().get(WanHandshakeHandler.class));
+		assertNull(serverChannel.pipeline().get(WanCompressionDecoder.class));
+	}
+
+	@Test
+	public void testLingerAggregatesFlushes() throws Exception {
+		WanCompressionStatistics statistics = new WanCompressionStatistics();
+		EmbeddedChannel channel = new EmbeddedChannel(
+			new WanCompressionEncoder(1024, 50, statistics.getOrCreateLink(client)));
+
+		channel.writeAndFlush(Unpooled.wrappedBuffer(new byte[] {1, 2, 3}));
+		channel.writeAndFlush(Unpooled.wrappedBuffer(new byte[] {4, 5, 6}));
+		assertNull(channel.readOutbound());
+
+		Thread.sleep(100);
+		channel.runPendingTasks();
+
+		ByteBuf block = channel.readOutbound();
+		assertNotNull(block);
+		assertNull(channel.readOutbound());
+
+		EmbeddedChannel decoder = new EmbeddedChannel(new WanCompressionDecoder());
+		decoder.writeInbound(block);
+		assertArrayEquals(new byte[] {1, 2, 3, 4, 5, 6}, toArray(readAll(decoder, false)));
+
+		// a full block doesn't wait
+		channel.writeAndFlush(Unpooled.wrappedBuffer(new byte[1024]));
+		assertNotNull(channel.readOutbound());
+	}
+
+	@Test
+	public void testOnlyConnectionsBetweenKnownLocationsAreCompressed() {
+		GeoLocation server = new GeoLocation("server");
+
+		assertTrue(NettyClient.isCrossLocation(client, server));
+		assertFalse(NettyClient.isCrossLocation(client, new GeoLocation("client")));
+		assertFalse(NettyClient.isCrossLocation(client, null));
+		assertFalse(NettyClient.isCrossLocation(client, GeoLocation.UNKNOWN));
+		assertFalse(NettyClient.isCrossLocation(null, server));
+	}
+
+	private WanClientHandshakeHandler createClientHandshake(
+			WanCompressionStatistics.Link link,
+			final AtomicBoolean missingAnswer) {
+		return new WanClientHandshakeHandler(createConfig(true), link, client, 60_000L, new Runnable() {
+			@Override
+			public void run() {
+				missingAnswer.set(true);
+			}
+		});
+	}
+
+	/**
+	 * Passes the preface of the client to the server and the answer of the server back to the client.
+	 */
+	private static void handshake(EmbeddedChannel clientChannel, EmbeddedChannel serverChannel) {
+		ByteBuf preface = clientChannel.readOutbound();
+		assertNotNull(preface);
+		// the writes of the client wait for the answer
+		assertNull(clientChannel.readOutbound());
+
+		serverChannel.writeInbound(preface);
+		clientChannel.writeInbound(readAll(serverChannel, true));
+	}
+
+	private static NettyConfig createConfig(boolean wanCompression) {
+		Configuration configuration = new Configuration();
+		configuration.setBoolean(NettyConfig.WAN_COMPRESSION, wanCompression);
+		return new NettyConfig(InetAddress.getLoopbackAddress(), 0, 32 * 1024, 1, configuration);
+	}
+
+	private static ByteBuf readAll(EmbeddedChannel channel, boolean outbound) {
+		ByteBuf all = Unpooled.buffer();
+		ByteBuf buffer;
+		while ((buffer = outbound ? channel.<ByteBuf>readOutbound() : channel.<ByteBuf>readInbound()) != null) {
+			all.writeBytes(buffer);
+			buffer.release();
+		}
+		return all;
+	}
+
+	private static byte[] toArray(ByteBuf buffer) {
+		byte[] bytes = new byte[buffer.readableBytes()];
+		buffer.readBytes(bytes);
+		buffer.release();
+		return bytes;
+	}
+}
@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.netty;
+
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.jobmanager.scheduler.StaticBandwidthProvider;
+import org.apache.flink.types.TwoKeysMap;
+import org.apache.flink.types.TwoKeysMultiMap;
+
+import org.apache.flink.shaded.netty4.io.netty.buffer.ByteBuf;
+import org.apache.flink.shaded.netty4.io.netty.buffer.Unpooled;
+import org.apache.flink.shaded.netty4.io.netty.channel.ChannelHandlerContext;
+import org.apache.flink.shaded.netty4.io.netty.channel.ChannelOutboundHandlerAdapter;
+import org.apache.flink.shaded.netty4.io.netty.channel.embedded.EmbeddedChannel;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the emulation of the links between geo locations, {@link WanLinkEmulator}.
+ */
+public class WanLinkEmulatorTest {
+
+	private static final long TIMEOUT_MILLIS = 10_000;
+
+	@Test
+	public void testReadsArriveInOrderAtTheBandwidthOfTheLink() throws Exception {
+		// 500 bytes take 50 ms at 10 KB/s, and arrive 20 ms later
+		EmbeddedChannel channel = new EmbeddedChannel(new WanLinkEmulator(10_000, 0, millisToNanos(20), 1 << 20));
+
+		long start = System.nanoTime();
+		for (int i = 0; i < 3; i++) {
+			channel.writeInbound(buffer(i, 500));
+		}
+		assertNull(channel.readInbound());
+
+		for (int i = 0; i < 3; i++) {
+			ByteBuf read = awaitInbound(channel);
+			long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+			assertEquals(i, read.getByte(0));
+			assertTrue("Read " + i + " after " + elapsedMillis + " ms", elapsedMillis >= 50 * (i + 1) + 20);
+			read.release();
+		}
+	}
+
+	@Test
+	public void testWritesAndFlushesArriveAfterTheDelay() throws Exception {
+		EmbeddedChannel channel = new EmbeddedChannel(new WanLinkEmulator(0, 0, millisToNanos(30), 1 << 20));
+
+		long start = System.nanoTime();
+		channel.writeAndFlush(buffer(7, 100));
+		assertNull(channel.readOutbound());
+
+		ByteBuf written = awaitOutbound(channel);
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 30);
+		assertEquals(7, written.getByte(0));
+		written.release();
+	}
+
+	@Test
+	public void testSlowLinksBackpressure() throws Exception {
+		// 200 bytes take 200 ms at 1 KB/s
+		ReadCounter reads = new ReadCounter();
+		EmbeddedChannel channel = new EmbeddedChannel(reads, new WanLinkEmulator(1000, 1000, 0, 100));
+		int readsBefore = reads.count;
+
+		channel.writeInbound(buffer(1, 200));
+		assertEquals(readsBefore, reads.count);
+
+		awaitInbound(channel).release();
+		assertEquals(readsBefore + 1, reads.count);
+
+		channel.write(buffer(2, 200));
+		assertFalse(channel.isWritable());
+
+		channel.flush();
+		awaitOutbound(channel).release();
+		assertTrue(channel.isWritable());
+	}
+
+	@Test
+	public void testAutoReadDisabledByTheNextHandlersIsNotEnabled() throws Exception {
+		ReadCounter reads = new ReadCounter();
+		EmbeddedChannel channel = new EmbeddedChannel(reads, new WanLinkEmulator(1000, 0, 0, 100));
+		channel.config().setAutoRead(false);
+		int readsBefore = reads.count;
+
+		channel.writeInbound(buffer(1, 200));
+		awaitInbound(channel).release();
+		assertFalse(channel.config().isAutoRead());
+		assertEquals(readsBefore, reads.count);
+
+		channel.config().setAutoRead(true);
+		assertEquals(readsBefore + 1, reads.count);
+	}
+
+	@Test
+	public void testReadsRequestedWhileBackpressuredAreHeldBack() throws Exception {
+		ReadCounter reads = new ReadCounter();
+		EmbeddedChannel channel = new EmbeddedChannel(reads, new WanLinkEmulator(1000, 0, 0, 100));
+		int readsBefore = reads.count;
+
+		channel.writeInbound(buffer(1, 200));
+
+		// a next handler waiting for buffers disables auto read, and enables it again before the link drains
+		channel.config().setAutoRead(false);
+		channel.config().setAutoRead(true);
+		channel.read();
+		assertEquals(readsBefore, reads.count);
+
+		awaitInbound(channel).release();
+		assertTrue(channel.config().isAutoRead());
+		assertEquals(readsBefore + 1, reads.count);
+	}
+
+	@Test
+	public void testReadsAreDeliveredBeforeTheConnectionCloses() throws Exception {
+		EmbeddedChannel channel = new EmbeddedChannel(new WanLinkEmulator(0, 0, millisToNanos(TIMEOUT_MILLIS), 1 << 20));
+
+		channel.writeInbound(buffer(3, 10));
+		assertNull(channel.readInbound());
+
+		channel.close();
+		ByteBuf read = channel.readInbound();
+		assertNotNull(read);
+		read.release();
+	}
+
+	@Test
+	public void testOnlyKnownLinksAreEmulated() {
+		GeoLocation a = new GeoLocation("a");
+		GeoLocation b = new GeoLocation("b");
+		GeoLocation c = new GeoLocation("c");
+
+		TwoKeysMap<GeoLocation, GeoLocation, Double> bandwidths = new TwoKeysMultiMap<>();
+		bandwidths.put(a, b, 1000d);
+		TwoKeysMap<GeoLocation, GeoLocation, Double> roundTripTimes = new TwoKeysMultiMap<>();
+		roundTripTimes.put(a, c, 50d);
+		StaticBandwidthProvider links = new StaticBandwidthProvider(bandwidths, roundTripTimes);
+
+		assertNotNull(WanLinkEmulator.forLink(links, a, b));
+		assertNotNull(WanLinkEmulator.forLink(links, b, a));
+		assertNotNull(WanLinkEmulator.forLink(links, c, a));
+		assertNull(WanLinkEmulator.forLink(links, b, c));
+	}
+
+	/**
+	 * Counts the read requests that reach the socket.
+	 */
+	private static final class ReadCounter extends ChannelOutboundHandlerAdapter {
+
+		private int count;
+
+		@Override
+		public void read(ChannelHandlerContext ctx) throws Exception {
+			count++;
+			super.read(ctx);
+		}
+	}
+
+	private static ByteBuf buffer(int value, int size) {
+		ByteBuf buffer = Unpooled.buffer(size);
+		for (int i = 0; i < size; i++) {
+			buffer.writeByte(value);
+		}
+		return buffer;
+	}
+
+	private static ByteBuf awaitInbound(EmbeddedChannel channel) throws InterruptedException {
+		long deadline = System.nanoTime() + millisToNanos(TIMEOUT_MILLIS);
+		ByteBuf read;
+		while ((read = channel.readInbound()) == null && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+			channel.runScheduledPendingTasks();
+		}
+		assertNotNull("Nothing read within " + TIMEOUT_MILLIS + " ms", read);
+		return read;
+	}
+
+	private static ByteBuf awaitOutbound(EmbeddedChannel channel) throws InterruptedException {
+		long deadline = System.nanoTime() + millisToNanos(TIMEOUT_MILLIS);
+		ByteBuf written;
+		while ((written = channel.readOutbound()) == null && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+			channel.runScheduledPendingTasks();
+		}
+		assertNotNull("Nothing written within " + TIMEOUT_MILLIS + " ms", written);
+		return written;
+	}
+
+	private static long millisToNanos(long millis) {
+		return TimeUnit.MILLISECONDS.toNanos(millis);
+	}
+}
@@ -1,18 +1,42 @@
 package org.apache.flink.runtime.jobmanager.scheduler;
 
+import org.apache.flink.api.common.JobID;
 import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.executiongraph.ExecutionGraph;
+import org.apache.flink.runtime.executiongraph.ExecutionJobVertex;
+import org.apache.flink.runtime.executiongraph.JobStatusListener;
+import org.apache.flink.runtime.executiongraph.OptimisationModelSolution;
 import org.apache.flink.runtime.instance.Instance;
+import org.apache.flink.runtime.instance.SharedSlot;
+import org.apache.flink.runtime.instance.SimpleSlot;
+import org.apache.flink.runtime.instance.SlotSharingGroupAssignment;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionType;
+import org.apache.flink.runtime.jobgraph.DistributionPattern;
+import org.apache.flink.runtime.jobgraph.JobStatus;
+import org.apache.flink.runtime.jobgraph.JobVertex;
 import org.apache.flink.runtime.testingUtils.TestingUtils;
+import org.apache.flink.util.FlinkException;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 
 import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class GeoSchedulerTest {
 
@@ -77,4 +101,281 @@ public class GeoSchedulerTest {
 		assertEquals(scheduler.getAllInstancesByGeoLocation(), instancesByLoc);
 		assertEquals(scheduler.calculateAvailableSlotsByGeoLocation(), slotsByLoc);
 	}
+
+	@Test
+	public void availableSlotsFollowAllocationsAndReleases() throws Exception {
+		GeoLocation location = new GeoLocation("test-location");
+		Instance i1 = SchedulerTestUtils.getRandomInstance(3, location);
+
+		scheduler.newInstanceAvailable(i1);
+		assertEquals(3, (int) scheduler.calculateAvailableSlotsByGeoLocation().get(location));
+
+		SimpleSlot s1 = i1.allocateSimpleSlot();
+		i1.allocateSimpleSlot();
+
+		// returning a slot notifies the scheduler, which picks up both the allocations and the release
+		s1.releaseSlot(new FlinkException("test"));
+		assertEquals(2, (int) scheduler.calculateAvailableSlotsByGeoLocation().get(location));
+
+		scheduler.instanceDied(i1);
+		assertFalse(scheduler.calculateAvailableSlotsByGeoLocation().containsKey(location));
+	}
+
+	@Test
+	public void concurrentInstanceChurn() throws Exception {
+		final int numThreads = 8;
+		final int instancesPerThread = 50;
+		final GeoLocation[] locations = {new GeoLocation("test-location-0"), new GeoLocation("test-location-1")};
+
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<Thread> threads = new ArrayList<>();
+		final List<Instance> survivors = new ArrayList<>();
+
+		for (int t = 0; t < numThreads; t++) {
+			final List<Instance> instances = new ArrayList<>();
+			for (int i = 0; i < instancesPerThread; i++) {
+				instances.add(SchedulerTestUtils.getRandomInstance(2, locations[(t + i) % locations.length]));
+			}
+			// every other instance survives the churn
+			for (int i = 0; i < instancesPerThread; i += 2) {
+				survivors.add(instances.get(i));
+			}
+
+			threads.add(new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				for (int i = 0; i < instances.size(); i++) {
+					scheduler.newInstanceAvailable(instances.get(i));
+					scheduler.calculateAvailableSlotsByGeoLocation();
+					if (i % 2 == 1) {
+						scheduler.instanceDied(instances.get(i));
+					}
+				}
+			}));
+		}
+
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		Map<GeoLocation, Integer> expectedSlots = new HashMap<>();
+		Map<GeoLocation, Set<Instance>> expectedInstances = new HashMap<>();
+		for (Instance instance : survivors) {
+			GeoLocation location = instance.getTaskManagerLocation().getGeoLocation();
+			expectedSlots.merge(location, 2, Integer::sum);
+			expectedInstances.computeIfAbsent(location, ignored -> new HashSet<>()).add(instance);
+		}
+
+		assertEquals(expectedSlots, scheduler.calculateAvailableSlotsByGeoLocation());
+		assertEquals(expectedInstances, scheduler.getAllInstancesByGeoLocation());
+	}
+
+	@Test
+	public void graphSolutionRemovedOnTerminalState() {
+		ExecutionGraph graph = mockExecutionGraph(new JobID());
+		OptimisationModelSolution solution = emptySolution();
+
+		scheduler.addGraphSolution(graph, solution);
+		JobStatusListener listener = registeredListener(graph);
+
+		assertSame(solution, scheduler.getGraphSolution(graph));
+		assertEquals(1, scheduler.getNumberOfGraphSolutions());
+		assertTrue(scheduler.getGraphSolutionsMemoryFootprint() > 0);
+
+		// restarting keeps the solution
+		listener.jobStatusChanges(graph.getJobID(), JobStatus.FAILING, 0L, null);
+		listener.jobStatusChanges(graph.getJobID(), JobStatus.RESTARTING, 0L, null);
+		assertSame(solution, scheduler.getGraphSolution(graph));
+
+		listener.jobStatusChanges(graph.getJobID(), JobStatus.CANCELED, 0L, null);
+		assertNull(scheduler.getGraphSolution(graph));
+		assertEquals(0, scheduler.getNumberOfGraphSolutions());
+		assertEquals(0L, scheduler.getGraphSolutionsMemoryFootprint());
+	}
+
+	@Test
+	public void graphSolutionReplacedByNewGraph() {
+		JobID jobId = new JobID();
+		ExecutionGraph oldGraph = mockExecutionGraph(jobId);
+		ExecutionGraph newGraph = mockExecutionGraph(jobId);
+		OptimisationModelSolution newSolution = emptySolution();
+
+		scheduler.addGraphSolution(oldGraph, emptySolution());
+		JobStatusListener oldListener = registeredListener(oldGraph);
+
+		scheduler.addGraphSolution(newGraph, newSolution);
+
+		assertNull(scheduler.getGraphSolution(oldGraph));
+		assertSame(newSolution, scheduler.getGraphSolution(newGraph));
+		assertEquals(1, scheduler.getNumberOfGraphSolutions());
+
+		// the old graph terminating does not evict the solution of the new one
+		oldListener.jobStatusChanges(jobId, JobStatus.SUSPENDED, 0L, null);
+		assertSame(newSolution, scheduler.getGraphSolution(newGraph));
+
+		// adding a solution again to the same graph does not register another listener
+		scheduler.addGraphSolution(newGraph, newSolution);
+		verify(newGraph, times(1)).registerJobStatusListener(any(JobStatusListener.class));
+	}
+
+	@Test
+	public void lostLocationIsRepairedKeepingValidPlacements() {
+		GeoLocation a = new GeoLocation("a");
+		GeoLocation b = new GeoLocation("b");
+		GeoLocation c = new GeoLocation("c");
+		Instance instanceA = SchedulerTestUtils.getRandomInstance(4, a);
+		Instance instanceB = SchedulerTestUtils.getRandomInstance(4, b);
+		Instance instanceC = SchedulerTestUtils.getRandomInstance(4, c);
+		scheduler.newInstanceAvailable(instanceA);
+		scheduler.newInstanceAvailable(instanceB);
+		scheduler.newInstanceAvailable(instanceC);
+
+		JobVertex source = new JobVertex("source");
+		JobVertex map = new JobVertex("map");
+		JobVertex sink = new JobVertex("sink");
+		map.connectNewDataSetAsInput(source, DistributionPattern.POINTWISE, ResultPartitionType.PIPELINED);
+		sink.connectNewDataSetAsInput(map, DistributionPattern.ALL_TO_ALL, ResultPartitionType.PIPELINED);
+		for (JobVertex vertex : Arrays.asList(source, map, sink)) {
+			vertex.setParallelism(2);
+			vertex.setMaxParallelism(2);
+		}
+
+		ExecutionGraph graph = mockExecutionGraph(new JobID(), source, map, sink);
+
+		Map<JobVertex, List<GeoLocation>> placement = new HashMap<>();
+		placement.put(source, Collections.singletonList(c));
+		placement.put(map, Collections.singletonList(b));
+		placement.put(sink, Arrays.asList(a, c));
+		Map<JobVertex, Integer> parallelism = new HashMap<>();
+		parallelism.put(source, 2);
+		parallelism.put(map, 2);
+		parallelism.put(sink, 2);
+		OptimisationModelSolution solution = new OptimisationModelSolution(placement, parallelism, 0d, 0d, 0d);
+		scheduler.addGraphSolution(graph, solution);
+
+		// nothing to repair while all the locations are available
+		assertSame(solution, scheduler.repairGraphSolution(graph, solution, null));
+		assertEquals(0, scheduler.getNumberOfRepairs());
+
+		scheduler.instanceDied(instanceB);
+
+		OptimisationModelSolution repaired = scheduler.repairGraphSolution(graph, solution, null);
+
+		assertNotNull(repaired);
+		assertEquals(Collections.singletonList(c), repaired.getPlacement(source));
+		assertEquals(Arrays.asList(a, c), repaired.getPlacement(sink));
+		assertFalse(repaired.getPlacement(map).isEmpty());
+		assertFalse(repaired.getPlacement(map).contains(b));
+		assertSame(repaired, scheduler.getGraphSolution(graph));
+		assertEquals(1, scheduler.getNumberOfRepairs());
+
+		// a full vertex is re-placed, the others are kept
+		OptimisationModelSolution repairedAgain = scheduler.repairGraphSolution(graph, repaired, sink);
+
+		assertNotNull(repairedAgain);
+		assertEquals(repaired.getPlacement(source), repairedAgain.getPlacement(source));
+		assertEquals(repaired.getPlacement(map), repairedAgain.getPlacement(map));
+		assertEquals(2, scheduler.getNumberOfRepairs());
+	}
+
+	@Test
+	public void repairKeepsTheDeployedParallelismAndCountsTheSharedSlots() throws Exception {
+		GeoLocation a = new GeoLocation("a");
+		GeoLocation b = new GeoLocation("b");
+		GeoLocation c = new GeoLocation("c");
+		Instance instanceA = SchedulerTestUtils.getRandomInstance(1, a);
+		Instance instanceB = SchedulerTestUtils.getRandomInstance(2, b);
+		Instance instanceC = SchedulerTestUtils.getRandomInstance(3, c);
+		scheduler.newInstanceAvailable(instanceA);
+		scheduler.newInstanceAvailable(instanceB);
+		scheduler.newInstanceAvailable(instanceC);
+
+		JobVertex source = new JobVertex("source");
+		JobVertex map = new JobVertex("map");
+		JobVertex sink = new JobVertex("sink");
+		map.connectNewDataSetAsInput(source, DistributionPattern.POINTWISE, ResultPartitionType.PIPELINED);
+		sink.connectNewDataSetAsInput(map, DistributionPattern.ALL_TO_ALL, ResultPartitionType.PIPELINED);
+		SlotSharingGroup sharingGroup = new SlotSharingGroup();
+		for (JobVertex vertex : Arrays.asList(source, map, sink)) {
+			vertex.setParallelism(1);
+			vertex.setMaxParallelism(1);
+			vertex.setSlotSharingGroup(sharingGroup);
+		}
+		// the map could run 4 subtasks, but it is deployed with 2
+		map.setParallelism(2);
+		map.setMaxParallelism(4);
+
+		ExecutionGraph graph = mockExecutionGraph(new JobID(), source, map, sink);
+
+		Map<JobVertex, List<GeoLocation>> placement = new HashMap<>();
+		placement.put(source, Collections.singletonList(a));
+		placement.put(map, Collections.singletonList(b));
+		placement.put(sink, Collections.singletonList(c));
+		Map<JobVertex, Integer> parallelism = new HashMap<>();
+		parallelism.put(source, 1);
+		parallelism.put(map, 2);
+		parallelism.put(sink, 1);
+		OptimisationModelSolution solution = new OptimisationModelSolution(placement, parallelism, 0d, 0d, 0d);
+		scheduler.addGraphSolution(graph, solution);
+
+		// the source and the sink hold a shared slot each, the only slot at a
+		SlotSharingGroupAssignment assignment = sharingGroup.getTaskAssignment();
+		SharedSlot sharedSlotA = instanceA.allocateSharedSlot(assignment);
+		assignment.addSharedSlotAndAllocateSubSlot(sharedSlotA, Locality.UNKNOWN, source.getID());
+		SharedSlot sharedSlotC = instanceC.allocateSharedSlot(assignment);
+		assignment.addSharedSlotAndAllocateSubSlot(sharedSlotC, Locality.UNKNOWN, sink.getID());
+		scheduler.newSlotAvailable(instanceA);
+		scheduler.newSlotAvailable(instanceC);
+		assertEquals(0, (int) scheduler.calculateAvailableSlotsByGeoLocation().get(a));
+
+		scheduler.instanceDied(instanceB);
+
+		OptimisationModelSolution repaired = scheduler.repairGraphSolution(graph, solution, null);
+
+		assertNotNull(repaired);
+		// the map can take the shared slot at a, which has no free slot
+		assertEquals(Arrays.asList(a, c), repaired.getPlacement(map));
+		assertEquals(2, (int) repaired.getParallelism(map));
+		Map<GeoLocation, Integer> subtasks = repaired.getSubtasksPerLocation(map);
+		assertEquals(1, (int) subtasks.get(a));
+		assertEquals(1, (int) subtasks.get(c));
+		assertFalse(Double.isNaN(repaired.getObjective()));
+	}
+
+	private static ExecutionGraph mockExecutionGraph(JobID jobId, JobVertex... vertices) {
+		List<ExecutionJobVertex> executionJobVertices = new ArrayList<>();
+		for (JobVertex vertex : vertices) {
+			ExecutionJobVertex executionJobVertex = mock(ExecutionJobVertex.class);
+			when(executionJobVertex.getJobVertex()).thenReturn(vertex);
+			when(executionJobVertex.getParallelism()).thenReturn(vertex.getParallelism());
+			executionJobVertices.add(executionJobVertex);
+		}
+
+		ExecutionGraph graph = mockExecutionGraph(jobId);
+		when(graph.getVerticesTopologically()).thenReturn(executionJobVertices);
+		return graph;
+	}
+
+	private static ExecutionGraph mockExecutionGraph(JobID jobId) {
+		ExecutionGraph graph = mock(ExecutionGraph.class);
+		when(graph.getJobID()).thenReturn(jobId);
+		return graph;
+	}
+
+	private static JobStatusListener registeredListener(ExecutionGraph graph) {
+		ArgumentCaptor<JobStatusListener> captor = ArgumentCaptor.forClass(JobStatusListener.class);
+		verify(graph).registerJobStatusListener(captor.capture());
+		return captor.getValue();
+	}
+
+	private static OptimisationModelSolution emptySolution() {
+		return new OptimisationModelSolution(Collections.emptyMap(), Collections.emptyMap(), 0d, 0d, 0d);
+	}
 }
@@ -0,0 +1,129 @@
+package org.apache.flink.runtime.jobmanager.scheduler;
+
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.util.clock.ManualClock;
+import org.apache.flink.types.TwoKeysMap;
+import org.apache.flink.types.TwoKeysMultiMap;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MeasuredBandwidthProviderTest {
+
+	private static final long HALF_LIFE = 1000L;
+
+	private final GeoLocation central = new GeoLocation("central");
+	private final GeoLocation edge = new GeoLocation("edge");
+	private final GeoLocation other = new GeoLocation("other");
+
+	private ManualClock clock;
+
+	private MeasuredBandwidthProvider bandwidthProvider;
+
+	@Before
+	public void setup() {
+		TwoKeysMap<GeoLocation, GeoLocation, Double> staticBandwidths = new TwoKeysMultiMap<>();
+		staticBandwidths.put(central, other, 500d);
+		staticBandwidths.put(edge, central, 50d);
+
+		clock = new ManualClock();
+		bandwidthProvider = new MeasuredBandwidthProvider(new StaticBandwidthProvider(staticBandwidths), HALF_LIFE, clock);
+	}
+
+	@Test
+	public void unmeasuredLinksFallBack() {
+		assertTrue(bandwidthProvider.hasBandwidth(central, other));
+		assertEquals(500d, bandwidthProvider.getBandwidth(central, other), 0);
+
+		assertFalse(bandwidthProvider.hasBandwidth(central, edge));
+		assertEquals(1d, bandwidthProvider.getBandwidth(central, edge), 0);
+	}
+
+	@Test
+	public void measuredLinksOverrideTheFallback() {
+		bandwidthProvider.report(central, other, 2000d, 30d);
+
+		assertEquals(2000d, bandwidthProvider.getBandwidth(central, other), 0);
+		assertEquals(30d, bandwidthProvider.getRoundTripTime(central, other), 0);
+
+		// links are directed
+		assertFalse(bandwidthProvider.hasBandwidth(other, central));
+	}
+
+	@Test
+	public void congestedLinksAreBelowTheFallback() {
+		bandwidthProvider.report(central, other, 100d, -1);
+
+		assertEquals(100d, bandwidthProvider.getBandwidth(central, other), 0);
+	}
+
+	@Test
+	public void linksWithoutFallbackAreMeasured() {
+		bandwidthProvider.report(central, edge, 1000d, 20d);
+
+		assertTrue(bandwidthProvider.hasBandwidth(central, edge));
+		assertEquals(1000d, bandwidthProvider.getBandwidth(central, edge), 0);
+		assertEquals(20d, bandwidthProvider.getRoundTripTime(central, edge), 0);
+	}
+
+	@Test
+	public void idleLinksFallBack() {
+		bandwidthProvider.report(central, other, 100d, 30d);
+
+		// only round trip times are measured on an idle link, its bandwidth expires
+		for (int i = 0; i <= MeasuredBandwidthProvider.EXPIRATION_HALF_LIVES; i++) {
+			clock.advanceTime(HALF_LIFE, TimeUnit.MILLISECONDS);
+			bandwidthProvider.report(central, other, 0d, 30d);
+		}
+
+		assertEquals(500d, bandwidthProvider.getBandwidth(central, other), 0);
+		assertEquals(30d, bandwidthProvider.getRoundTripTime(central, other), 0);
+	}
+
+	@Test
+	public void peakThroughputIsDecayed() {
+		bandwidthProvider.report(edge, central, 1000d, -1);
+
+		// a lower throughput doesn't lower the bandwidth right away
+		clock.advanceTime(HALF_LIFE / 10, TimeUnit.MILLISECONDS);
+		bandwidthProvider.report(edge, central, 100d, -1);
+		assertEquals(930d, bandwidthProvider.getBandwidth(edge, central), 0);
+
+		// but old peaks are forgotten
+		clock.advanceTime(5 * HALF_LIFE, TimeUnit.MILLISECONDS);
+		bandwidthProvider.report(edge, central, 100d, -1);
+		assertEquals(100d, bandwidthProvider.getBandwidth(edge, central), 0);
+
+		// a higher throughput raises it immediately
+		bandwidthProvider.report(edge, central, 4000d, -1);
+		assertEquals(4000d, bandwidthProvider.getBandwidth(edge, central), 0);
+	}
+
+	@Test
+	public void staleMeasurementsExpire() {
+		bandwidthProvider.report(central, other, 2000d, 30d);
+
+		clock.advanceTime(MeasuredBandwidthProvider.EXPIRATION_HALF_LIVES * HALF_LIFE + 1, TimeUnit.MILLISECONDS);
+
+		assertEquals(500d, bandwidthProvider.getBandwidth(central, other), 0);
+		assertEquals(-1d, bandwidthProvider.getRoundTripTime(central, other), 0);
+	}
+
+	@Test
+	public void linksWithinALocationAreIgnored() {
+		bandwidthProvider.report(edge, edge, 1000d, 1d);
+
+		assertFalse(bandwidthProvider.hasBandwidth(edge, edge));
+	}
+
+	@Test
+	public void bandwidthsAreRounded() {
+		assertEquals(1200d, MeasuredBandwidthProvider.roundToSignificantDigits(1234.5), 1e-9);
+		assertEquals(0.057, MeasuredBandwidthProvider.roundToSignificantDigits(0.0571), 1e-12);
+	}
+}
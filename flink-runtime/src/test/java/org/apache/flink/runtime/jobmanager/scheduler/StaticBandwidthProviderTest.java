@@ -0,0 +1,74 @@
+package org.apache.flink.runtime.jobmanager.scheduler;
+
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.OptimisationModelOptions;
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StaticBandwidthProviderTest {
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void bandwidthsAreReadFromTheConfiguredFile() throws IOException {
+		File file = temporaryFolder.newFile();
+		Files.write(file.toPath(), Arrays.asList("# from,to,bandwidth", "central,edge0, 100", "", "edge0,central,50.5"), StandardCharsets.UTF_8);
+
+		Configuration configuration = new Configuration();
+		configuration.setString(OptimisationModelOptions.BANDWIDTHS_FILE, file.getAbsolutePath());
+
+		StaticBandwidthProvider bandwidthProvider = StaticBandwidthProvider.fromConfiguration(configuration);
+
+		GeoLocation central = new GeoLocation("central");
+		GeoLocation edge = new GeoLocation("edge0");
+		assertEquals(100d, bandwidthProvider.getBandwidth(central, edge), 0);
+		assertEquals(50.5d, bandwidthProvider.getBandwidth(edge, central), 0);
+		assertFalse(bandwidthProvider.hasBandwidth(central, new GeoLocation("edge1")));
+	}
+
+	@Test
+	public void roundTripTimesAreReadFromTheConfiguredFile() throws IOException {
+		File file = temporaryFolder.newFile();
+		Files.write(file.toPath(), Arrays.asList("# from,to,milliseconds", "central,edge0,80"), StandardCharsets.UTF_8);
+
+		Configuration configuration = new Configuration();
+		configuration.setString(OptimisationModelOptions.ROUND_TRIP_TIMES_FILE, file.getAbsolutePath());
+
+		StaticBandwidthProvider bandwidthProvider = StaticBandwidthProvider.fromConfiguration(configuration);
+
+		GeoLocation central = new GeoLocation("central");
+		GeoLocation edge = new GeoLocation("edge0");
+		assertEquals(80d, bandwidthProvider.getRoundTripTime(central, edge), 0);
+		assertEquals(80d, bandwidthProvider.getRoundTripTime(edge, central), 0);
+		assertEquals(-1d, bandwidthProvider.getRoundTripTime(central, new GeoLocation("edge1")), 0);
+	}
+
+	@Test
+	public void withoutFileEveryBandwidthIsOne() throws IOException {
+		StaticBandwidthProvider bandwidthProvider = StaticBandwidthProvider.fromConfiguration(new Configuration());
+
+		assertFalse(bandwidthProvider.hasBandwidth(new GeoLocation("a"), new GeoLocation("b")));
+		assertEquals(1d, bandwidthProvider.getBandwidth(new GeoLocation("a"), new GeoLocation("b")), 0);
+	}
+
+	@Test(expected = IOException.class)
+	public void malformedFileIsRejected() throws IOException {
+		File file = temporaryFolder.newFile();
+		Files.write(file.toPath(), Arrays.asList("central,edge0"), StandardCharsets.UTF_8);
+
+		StaticBandwidthProvider.fromFile(file.getAbsolutePath());
+	}
+}
@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.jobmaster.slotpool;
+
+import org.apache.flink.api.common.time.Time;
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.clusterframework.types.SlotProfile;
+import org.apache.flink.runtime.concurrent.FutureUtils;
+import org.apache.flink.runtime.executiongraph.OptimisationModelParameters;
+import org.apache.flink.runtime.executiongraph.OptimisationModelSolverType;
+import org.apache.flink.runtime.instance.SlotSharingGroupId;
+import org.apache.flink.runtime.jobgraph.JobGraph;
+import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.apache.flink.runtime.jobmanager.scheduler.NoResourceAvailableException;
+import org.apache.flink.runtime.jobmanager.scheduler.ScheduledUnit;
+import org.apache.flink.runtime.jobmanager.scheduler.StaticBandwidthProvider;
+import org.apache.flink.runtime.jobmaster.LogicalSlot;
+import org.apache.flink.runtime.jobmaster.SlotRequestId;
+import org.apache.flink.runtime.jobmaster.TestingLogicalSlot;
+import org.apache.flink.runtime.messages.Acknowledge;
+import org.apache.flink.testutils.category.New;
+import org.apache.flink.types.TwoKeysMultiMap;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link GeoSlotProvider}.
+ */
+@Category(New.class)
+public class GeoSlotProviderTest extends TestLogger {
+
+	private static final Time TIMEOUT = Time.seconds(10L);
+
+	private final GeoLocation europe = new GeoLocation("europe");
+
+	@Test
+	public void testRequestsAreRestrictedToTheSolutionGeoLocations() throws Exception {
+		final JobVertex vertex = makeVertex();
+		final JobGraph jobGraph = solvedJobGraph(vertex);
+		final RecordingSlotProvider slotProvider = new RecordingSlotProvider();
+
+		final GeoSlotProvider geoSlotProvider = new GeoSlotProvider(slotProvider, jobGraph, TIMEOUT);
+
+		geoSlotProvider.allocateSlot(
+			new SlotRequestId(),
+			new ScheduledUnit(vertex.getID(), null, null),
+			true,
+			SlotProfile.noRequirements(),
+			TIMEOUT).get();
+
+		assertEquals(1, slotProvider.slotProfiles.size());
+		assertEquals(Collections.singletonList(europe), new ArrayList<>(slotProvider.slotProfiles.get(0).getGeoLocations()));
+	}
+
+	@Test
+	public void testRequestsAreUnchangedWithoutSolution() throws Exception {
+		final JobVertex vertex = makeVertex();
+		final RecordingSlotProvider slotProvider = new RecordingSlotProvider();
+
+		final GeoSlotProvider geoSlotProvider = new GeoSlotProvider(slotProvider, new JobGraph(vertex), TIMEOUT);
+
+		geoSlotProvider.allocateSlot(
+			new SlotRequestId(),
+			new ScheduledUnit(vertex.getID(), null, null),
+			true,
+			SlotProfile.noRequirements(),
+			TIMEOUT).get();
+
+		assertEquals(1, slotProvider.slotProfiles.size());
+		assertTrue(slotProvider.slotProfiles.get(0).getGeoLocations().isEmpty());
+	}
+
+	@Test
+	public void testFallbackToAnyGeoLocation() throws Exception {
+		final JobVertex vertex = makeVertex();
+		final JobGraph jobGraph = solvedJobGraph(vertex);
+		final RecordingSlotProvider slotProvider = new RecordingSlotProvider();
+		slotProvider.failures.add(new NoResourceAvailableException());
+
+		final GeoSlotProvider geoSlotProvider = new GeoSlotProvider(slotProvider, jobGraph, TIMEOUT);
+		final SlotRequestId slotRequestId = new SlotRequestId();
+
+		geoSlotProvider.allocateSlot(
+			slotRequestId,
+			new ScheduledUnit(vertex.getID(), null, null),
+			true,
+			SlotProfile.noRequirements(),
+			TIMEOUT).get();
+
+		assertEquals(2, slotProvider.slotProfiles.size());
+		assertEquals(Collections.singletonList(europe), new ArrayList<>(slotProvider.slotProfiles.get(0).getGeoLocations()));
+		assertTrue(slotProvider.slotProfiles.get(1).getGeoLocations().isEmpty());
+		assertEquals(slotRequestId, slotProvider.slotRequestIds.get(0));
+		assertNotEquals(slotRequestId, slotProvider.slotRequestIds.get(1));
+	}
+
+	@Test
+	public void testFallbackAfterTheGeoLocationTimeout() throws Exception {
+		final JobVertex vertex = makeVertex();
+		final JobGraph jobGraph = solvedJobGraph(vertex);
+		final RecordingSlotProvider slotProvider = new RecordingSlotProvider();
+		slotProvider.failures.add(new TimeoutException());
+
+		final Time geoLocationTimeout = Time.seconds(1L);
+		final GeoSlotProvider geoSlotProvider = new GeoSlotProvider(slotProvider, jobGraph, geoLocationTimeout);
+
+		geoSlotProvider.allocateSlot(
+			new SlotRequestId(),
+			new ScheduledUnit(vertex.getID(), null, null),
+			true,
+			SlotProfile.noRequirements(),
+			TIMEOUT).get();
+
+		assertEquals(2, slotProvider.slotProfiles.size());
+		assertEquals(geoLocationTimeout.toMilliseconds(), slotProvider.timeouts.get(0).toMilliseconds());
+		assertTrue(slotProvider.slotProfiles.get(1).getGeoLocations().isEmpty());
+		assertEquals(TIMEOUT.toMilliseconds(), slotProvider.timeouts.get(1).toMilliseconds());
+	}
+
+	private JobGraph solvedJobGraph(JobVertex vertex) {
+		final JobGraph jobGraph = new JobGraph(vertex);
+
+		final OptimisationModelParameters parameters = new OptimisationModelParameters();
+		parameters.setSolverType(OptimisationModelSolverType.HEURISTIC);
+		jobGraph.setOptimisationModelParameters(parameters);
+
+		final Map<GeoLocation, Integer> slots = new HashMap<>();
+		slots.put(europe, 1);
+
+		jobGraph.solveOptimisationModel(new StaticBandwidthProvider(new TwoKeysMultiMap<>()), slots);
+
+		return jobGraph;
+	}
+
+	private static JobVertex makeVertex() {
+		final JobVertex vertex = new JobVertex("vertex");
+		vertex.setParallelism(1);
+		vertex.setMaxParallelism(1);
+		return vertex;
+	}
+
+	/**
+	 * {@link SlotProvider} recording the requests, which fails them with the queued failures first.
+	 */
+	private static final class RecordingSlotProvider implements SlotProvider {
+
+		private final List<SlotRequestId> slotRequestIds = new ArrayList<>();
+
+		private final List<SlotProfile> slotProfiles = new ArrayList<>();
+
+		private final List<Time> timeouts = new ArrayList<>();
+
+		private final Queue<Exception> failures = new ArrayDeque<>();
+
+		@Override
+		public CompletableFuture<LogicalSlot> allocateSlot(
+				SlotRequestId slotRequestId,
+				ScheduledUnit task,
+				boolean allowQueued,
+				SlotProfile slotProfile,
+				Time timeout) {
+			slotRequestIds.add(slotRequestId);
+			slotProfiles.add(slotProfile);
+			timeouts.add(timeout);
+
+			final Exception failure = failures.poll();
+
+			if (failure != null) {
+				return FutureUtils.completedExceptionally(failure);
+			} else {
+				return CompletableFuture.completedFuture(new TestingLogicalSlot());
+			}
+		}
+
+		@Override
+		public CompletableFuture<Acknowledge> cancelSlotRequest(
+				SlotRequestId slotRequestId,
+				SlotSharingGroupId slotSharingGroupId,
+				Throwable cause) {
+			return CompletableFuture.completedFuture(Acknowledge.get());
+		}
+
+		@Override
+		public int getNumberOfAvailableSlots() {
+			return 0;
+		}
+
+		@Override
+		public int getTotalNumberOfSlots() {
+			return 0;
+		}
+	}
+}
@@ -21,6 +21,7 @@ package org.apache.flink.runtime.resourcemanager.slotmanager;
 import org.apache.flink.api.common.JobID;
 import org.apache.flink.api.common.time.Time;
 import org.apache.flink.runtime.clusterframework.types.AllocationID;
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
 import org.apache.flink.runtime.clusterframework.types.ResourceID;
 import org.apache.flink.runtime.clusterframework.types.ResourceProfile;
 import org.apache.flink.runtime.clusterframework.types.SlotID;
@@ -47,6 +48,7 @@ import org.junit.experimental.categories.Category;
 import org.mockito.ArgumentCaptor;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executor;
@@ -372,6 +374,62 @@ public class SlotManagerTest extends TestLogger {
 		}
 	}
 
+	/**
+	 * Tests that a slot request restricted to geo locations is only fulfilled by a slot of a
+	 * TaskManager at one of these locations.
+	 */
+	@Test
+	public void testSlotRequestWithGeoLocations() throws Exception {
+		final ResourceManagerId resourceManagerId = ResourceManagerId.generate();
+		final JobID jobId = new JobID();
+		final AllocationID allocationId = new AllocationID();
+		final ResourceProfile resourceProfile = new ResourceProfile(42.0, 1337);
+		final GeoLocation europe = new GeoLocation("europe");
+		final GeoLocation america = new GeoLocation("america");
+
+		final ResourceID europeResourceID = ResourceID.generate();
+		final SlotID europeSlotId = new SlotID(europeResourceID, 0);
+		final ResourceID americaResourceID = ResourceID.generate();
+		final SlotID americaSlotId = new SlotID(americaResourceID, 0);
+
+		final TaskExecutorGateway taskExecutorGateway = mock(TaskExecutorGateway.class);
+		when(taskExecutorGateway.requestSlot(
+			any(SlotID.class),
+			eq(jobId),
+			eq(allocationId),
+			anyString(),
+			eq(resourceManagerId),
+			any(Time.class))).thenReturn(CompletableFuture.completedFuture(Acknowledge.get()));
+
+		final SlotRequest slotRequest = new SlotRequest(
+			jobId,
+			allocationId,
+			resourceProfile,
+			"localhost",
+			Collections.singletonList(america));
+
+		try (SlotManager slotManager = createSlotManager(resourceManagerId, mock(ResourceActions.class))) {
+
+			slotManager.registerTaskManager(
+				new TaskExecutorConnection(europeResourceID, taskExecutorGateway, europe),
+				new SlotReport(new SlotStatus(europeSlotId, resourceProfile)));
+
+			assertTrue("The slot request should be accepted", slotManager.registerSlotRequest(slotRequest));
+
+			assertNull("The slot in the wrong geo location has been allocated.", slotManager.getSlot(europeSlotId).getAllocationId());
+
+			slotManager.registerTaskManager(
+				new TaskExecutorConnection(americaResourceID, taskExecutorGateway, america),
+				new SlotReport(new SlotStatus(americaSlotId, resourceProfile)));
+
+			verify(taskExecutorGateway).requestSlot(eq(americaSlotId), eq(jobId), eq(allocationId), anyString(), eq(resourceManagerId), any(Time.class));
+
+			assertEquals(allocationId, slotManager.getSlot(americaSlotId).getAllocationId());
+			assertEquals(2, slotManager.getNumberRegisteredSlotsByGeoLocation().size());
+			assertEquals(Collections.singletonMap(europe, 1), slotManager.getNumberFreeSlotsByGeoLocation());
+		}
+	}
+
 	/**
 	 * Tests that freeing a slot will correctly reset the slot and mark it as a free slot
 	 */
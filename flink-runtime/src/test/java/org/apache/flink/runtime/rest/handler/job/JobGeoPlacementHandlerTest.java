@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.rest.handler.job;
+
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.api.common.time.Time;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.runtime.accumulators.StringifiedAccumulatorResult;
+import org.apache.flink.runtime.clusterframework.types.GeoLocation;
+import org.apache.flink.runtime.clusterframework.types.ResourceID;
+import org.apache.flink.runtime.execution.ExecutionState;
+import org.apache.flink.runtime.executiongraph.AccessExecutionGraph;
+import org.apache.flink.runtime.executiongraph.ArchivedExecution;
+import org.apache.flink.runtime.executiongraph.ArchivedExecutionJobVertex;
+import org.apache.flink.runtime.executiongraph.ArchivedExecutionVertex;
+import org.apache.flink.runtime.executiongraph.ExecutionAttemptID;
+import org.apache.flink.runtime.executiongraph.GeoPlacementStatistics;
+import org.apache.flink.runtime.executiongraph.IOMetrics;
+import org.apache.flink.runtime.executiongraph.OptimisationModelSolution;
+import org.apache.flink.runtime.executiongraph.OptimisationModelSolverType;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionType;
+import org.apache.flink.runtime.jobgraph.DistributionPattern;
+import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.apache.flink.runtime.jobgraph.JobVertexID;
+import org.apache.flink.runtime.rest.NotFoundException;
+import org.apache.flink.runtime.rest.handler.HandlerRequest;
+import org.apache.flink.runtime.rest.handler.RestHandlerConfiguration;
+import org.apache.flink.runtime.rest.handler.legacy.ExecutionGraphCache;
+import org.apache.flink.runtime.rest.handler.legacy.metrics.MetricFetcher;
+import org.apache.flink.runtime.rest.handler.legacy.utils.ArchivedExecutionGraphBuilder;
+import org.apache.flink.runtime.rest.messages.EmptyRequestBody;
+import org.apache.flink.runtime.rest.messages.JobIDPathParameter;
+import org.apache.flink.runtime.rest.messages.JobMessageParameters;
+import org.apache.flink.runtime.rest.messages.job.JobGeoPlacementHeaders;
+import org.apache.flink.runtime.rest.messages.job.JobGeoPlacementInfo;
+import org.apache.flink.runtime.taskmanager.TaskManagerLocation;
+import org.apache.flink.runtime.testingUtils.TestingUtils;
+import org.apache.flink.runtime.util.EvictingBoundedList;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for the {@link JobGeoPlacementHandler}.
+ */
+public class JobGeoPlacementHandlerTest extends TestLogger {
+
+	private static final GeoLocation LOCATION_A = new GeoLocation("a");
+
+	private static final GeoLocation LOCATION_B = new GeoLocation("b");
+
+	private static final StringifiedAccumulatorResult[] EMPTY_ACCUMULATORS = new StringifiedAccumulatorResult[0];
+
+	private final TaskManagerLocation taskManagerAtA = new TaskManagerLocation(ResourceID.generate(), InetAddress.getLoopbackAddress(), 1, LOCATION_A);
+
+	private final TaskManagerLocation taskManagerAtB = new TaskManagerLocation(ResourceID.generate(), InetAddress.getLoopbackAddress(), 2, LOCATION_B);
+
+	private JobGeoPlacementHandler handler;
+
+	@Before
+	public void setUp() {
+		final RestHandlerConfiguration restHandlerConfiguration = RestHandlerConfiguration.fromConfiguration(new Configuration());
+
+		handler = new JobGeoPlacementHandler(
+			CompletableFuture.completedFuture("127.0.0.1:9527"),
+			() -> null,
+			Time.milliseconds(100L),
+			Collections.emptyMap(),
+			JobGeoPlacementHeaders.getInstance(),
+			new ExecutionGraphCache(
+				restHandlerConfiguration.getTimeout(),
+				Time.milliseconds(restHandlerConfiguration.getRefreshInterval())),
+			TestingUtils.defaultExecutor(),
+			new MetricFetcher<>(
+				() -> null,
+				path -> null,
+				TestingUtils.defaultExecutor(),
+				Time.milliseconds(1000L)));
+	}
+
+	@Test
+	public void testEstimatedAndMeasuredCrossLocationBytes() throws Exception {
+		final JobVertex source = new JobVertex("source");
+		final JobVertex sink = new JobVertex("sink");
+		sink.connectNewDataSetAsInput(source, DistributionPattern.ALL_TO_ALL, ResultPartitionType.PIPELINED);
+
+		final Map<JobVertex, List<GeoLocation>> placement = new HashMap<>();
+		placement.put(source, Arrays.asList(LOCATION_A, LOCATION_B));
+		placement.put(sink, Collections.singletonList(LOCATION_A));
+		final Map<JobVertex, Integer> parallelism = new HashMap<>();
+		parallelism.put(source, 2);
+		parallelism.put(sink, 2);
+
+		final GeoPlacementStatistics statistics = new GeoPlacementStatistics(
+			new OptimisationModelSolution(placement, parallelism, 1, 1, 0.25),
+			OptimisationModelSolverType.HEURISTIC);
+		statistics.recordFallback();
+
+		// the second subtask of the sink was placed outside of the locations of the sink
+		final ArchivedExecutionJobVertex archivedSource = createJobVertex(source.getID(), "source", new TaskManagerLocation[] {taskManagerAtA, taskManagerAtB}, 100L, 200L);
+		final ArchivedExecutionJobVertex archivedSink = createJobVertex(sink.getID(), "sink", new TaskManagerLocation[] {taskManagerAtA, taskManagerAtB}, 0L, 0L);
+
+		final Map<JobVertexID, ArchivedExecutionJobVertex> tasks = new HashMap<>();
+		tasks.put(source.getID(), archivedSource);
+		tasks.put(sink.getID(), archivedSink);
+
+		final AccessExecutionGraph executionGraph = new ArchivedExecutionGraphBuilder()
+			.setTasks(tasks)
+			.setVerticesInCreationOrder(Arrays.asList(archivedSource, archivedSink))
+			.setGeoPlacementStatistics(statistics.archive())
+			.build();
+
+		final JobGeoPlacementInfo info = handler.handleRequest(createRequest(executionGraph.getJobID()), executionGraph);
+
+		assertEquals("HEURISTIC", info.getSolver());
+		assertEquals(250L, info.getSolveTime());
+		assertEquals(1L, info.getFallbacks());
+
+		assertEquals(
+			Arrays.asList(
+				new JobGeoPlacementInfo.VertexPlacement(source.getID(), "source", 2, Arrays.asList("a", "b"), 0),
+				new JobGeoPlacementInfo.VertexPlacement(sink.getID(), "sink", 2, Collections.singletonList("a"), 1)),
+			info.getVertices());
+
+		assertEquals(
+			Arrays.asList(
+				new JobGeoPlacementInfo.LocationUsage("a", 3, 2, 1),
+				new JobGeoPlacementInfo.LocationUsage("b", 1, 2, 1)),
+			info.getLocations());
+
+		// half of the records of the source are expected to cross, the ones of each subtask of the source go to
+		// one consumer at its own location and one at the other location
+		assertEquals(
+			Collections.singletonList(new JobGeoPlacementInfo.EdgeTraffic(
+				source.getID(), sink.getID(), DistributionPattern.ALL_TO_ALL, 1.0, 300L, true, 150L, 150L)),
+			info.getEdges());
+	}
+
+	@Test(expected = NotFoundException.class)
+	public void testJobWithoutGeoPlacement() throws Exception {
+		final AccessExecutionGraph executionGraph = new ArchivedExecutionGraphBuilder().build();
+
+		handler.handleRequest(createRequest(executionGraph.getJobID()), executionGraph);
+	}
+
+	@Test
+	public void testPointwiseConsumers() throws Exception {
+		final ArchivedExecutionVertex[] producers = createJobVertex(new JobVertexID(), "producer",
+			new TaskManagerLocation[] {taskManagerAtA, taskManagerAtA, taskManagerAtB, null}, 0L, 0L, 0L, 0L).getTaskVertices();
+		final ArchivedExecutionVertex[] consumers = createJobVertex(new JobVertexID(), "consumer",
+			new TaskManagerLocation[] {taskManagerAtA, taskManagerAtA}, 0L, 0L).getTaskVertices();
+
+		// the first consumer reads from the first two producers, the second one from the last two
+		assertArrayEquals(
+			new double[] {0, 0, 1, 0},
+			JobGeoPlacementHandler.crossLocationShares(producers, consumers, DistributionPattern.POINTWISE),
+			0);
+
+		// the consumers running at no known location are left out
+		assertArrayEquals(
+			new double[] {1.0 / 3},
+			JobGeoPlacementHandler.crossLocationShares(Arrays.copyOf(consumers, 1), producers, DistributionPattern.ALL_TO_ALL),
+			1e-9);
+	}
+
+	private static HandlerRequest<EmptyRequestBody, JobMessageParameters> createRequest(JobID jobId) throws Exception {
+		return new HandlerRequest<>(
+			EmptyRequestBody.getInstance(),
+			new JobMessageParameters(),
+			Collections.singletonMap(JobIDPathParameter.KEY, jobId.toString()),
+			Collections.emptyMap());
+	}
+
+	private static ArchivedExecutionJobVertex createJobVertex(JobVertexID id, String name, TaskManagerLocation[] locations, long... bytesOut) {
+		final ArchivedExecutionVertex[] subtasks = new ArchivedExecutionVertex[locations.length];
+
+		for (int i = 0; i < subtasks.length; i++) {
+			subtasks[i] = new ArchivedExecutionVertex(
+				i,
+				name,
+				new ArchivedExecution(
+					EMPTY_ACCUMULATORS,
+					new IOMetrics(0L, 0L, bytesOut[i], 0L, 0L, 0.0, 0.0, 0.0, 0.0, 0.0),
+					new ExecutionAttemptID(),
+					0,
+					ExecutionState.FINISHED,
+					null,
+					locations[i],
+					i,
+					new long[ExecutionState.values().length]),
+				new EvictingBoundedList<>(0));
+		}
+
+		return new ArchivedExecutionJobVertex(subtasks, id, name, subtasks.length, subtasks.length, EMPTY_ACCUMULATORS);
+	}
+}
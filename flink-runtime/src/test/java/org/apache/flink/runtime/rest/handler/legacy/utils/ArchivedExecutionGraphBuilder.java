@@ -24,6 +24,7 @@ import org.apache.flink.runtime.accumulators.StringifiedAccumulatorResult;
 import org.apache.flink.runtime.executiongraph.ArchivedExecutionGraph;
 import org.apache.flink.runtime.executiongraph.ArchivedExecutionJobVertex;
 import org.apache.flink.runtime.executiongraph.ErrorInfo;
+import org.apache.flink.runtime.executiongraph.GeoPlacementStatistics;
 import org.apache.flink.runtime.jobgraph.JobStatus;
 import org.apache.flink.runtime.jobgraph.JobVertexID;
 import org.apache.flink.util.OptionalFailure;
@@ -55,6 +56,7 @@ public class ArchivedExecutionGraphBuilder {
 	private ArchivedExecutionConfig archivedExecutionConfig;
 	private boolean isStoppable;
 	private Map<String, SerializedValue<OptionalFailure<Object>>> serializedUserAccumulators;
+	private GeoPlacementStatistics geoPlacementStatistics;
 
 	public ArchivedExecutionGraphBuilder setJobID(JobID jobID) {
 		this.jobID = jobID;
@@ -117,6 +119,11 @@ public class ArchivedExecutionGraphBuilder {
 		return this;
 	}
 
+	public ArchivedExecutionGraphBuilder setGeoPlacementStatistics(GeoPlacementStatistics geoPlacementStatistics) {
+		this.geoPlacementStatistics = geoPlacementStatistics;
+		return this;
+	}
+
 	public ArchivedExecutionGraph build() {
 		JobID jobID = this.jobID != null ? this.jobID : new JobID();
 		String jobName = this.jobName != null ? this.jobName : "job_" + RANDOM.nextInt();
@@ -139,7 +146,8 @@ public class ArchivedExecutionGraphBuilder {
 			archivedExecutionConfig != null ? archivedExecutionConfig : new ArchivedExecutionConfigBuilder().build(),
 			isStoppable,
 			null,
-			null
+			null,
+			geoPlacementStatistics
 		);
 	}
 }
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.rest.messages.job;
+
+import org.apache.flink.runtime.jobgraph.DistributionPattern;
+import org.apache.flink.runtime.jobgraph.JobVertexID;
+import org.apache.flink.runtime.rest.messages.RestResponseMarshallingTestBase;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+/**
+ * Tests (un)marshalling of the {@link JobGeoPlacementInfo}.
+ */
+public class JobGeoPlacementInfoTest extends RestResponseMarshallingTestBase<JobGeoPlacementInfo> {
+
+	@Override
+	protected Class<JobGeoPlacementInfo> getTestResponseClass() {
+		return JobGeoPlacementInfo.class;
+	}
+
+	@Override
+	protected JobGeoPlacementInfo getTestResponseInstance() throws Exception {
+		final Random random = new Random();
+
+		final JobVertexID source = new JobVertexID();
+		final JobVertexID sink = new JobVertexID();
+
+		return new JobGeoPlacementInfo(
+			"HEURISTIC",
+			Math.abs(random.nextLong()),
+			random.nextDouble(),
+			Double.NaN,
+			Double.NaN,
+			random.nextDouble(),
+			random.nextDouble(),
+			Math.abs(random.nextLong()),
+			Math.abs(random.nextLong()),
+			Arrays.asList(
+				new JobGeoPlacementInfo.VertexPlacement(source, "source", Math.abs(random.nextInt()), Arrays.asList("a", "b"), 0),
+				new JobGeoPlacementInfo.VertexPlacement(sink, "sink", Math.abs(random.nextInt()), Collections.singletonList("b"), Math.abs(random.nextInt()))),
+			Arrays.asList(
+				new JobGeoPlacementInfo.LocationUsage("a", Math.abs(random.nextInt()), Math.abs(random.nextInt()), Math.abs(random.nextInt())),
+				new JobGeoPlacementInfo.LocationUsage("b", Math.abs(random.nextInt()), Math.abs(random.nextInt()), Math.abs(random.nextInt()))),
+			Collections.singletonList(
+				new JobGeoPlacementInfo.EdgeTraffic(
+					source,
+					sink,
+					DistributionPattern.ALL_TO_ALL,
+					random.nextDouble(),
+					Math.abs(random.nextLong()),
+					random.nextBoolean(),
+					Math.abs(random.nextLong()),
+					Math.abs(random.nextLong()))));
+	}
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state;
+
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.runtime.checkpoint.StateAssignmentOperation;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link KeyGroupAssignment}.
+ */
+public class KeyGroupAssignmentTest {
+
+	@Test
+	public void testUniformAssignmentMatchesKeyGroupRangeAssignment() {
+		for (int parallelism = 1; parallelism <= 13; parallelism++) {
+			KeyGroupAssignment assignment = KeyGroupAssignment.uniform(128, parallelism);
+			assertTrue(assignment.isUniform());
+
+			for (int i = 0; i < parallelism; i++) {
+				assertEquals(
+					KeyGroupRangeAssignment.computeKeyGroupRangeForOperatorIndex(128, parallelism, i),
+					assignment.getKeyGroupRange(i));
+			}
+			for (int keyGroup = 0; keyGroup < 128; keyGroup++) {
+				assertEquals(
+					KeyGroupRangeAssignment.computeOperatorIndexForKeyGroup(128, parallelism, keyGroup),
+					assignment.computeOperatorIndexForKeyGroup(keyGroup));
+			}
+		}
+	}
+
+	@Test
+	public void testKeyGroupsAreRoutedToTheirRange() {
+		KeyGroupAssignment assignment = new KeyGroupAssignment(new int[] {0, 5, 6, 16});
+		assertFalse(assignment.isUniform());
+		assertEquals(3, assignment.getParallelism());
+		assertEquals(16, assignment.getMaxParallelism());
+		assertEquals(Arrays.asList(KeyGroupRange.of(0, 4), KeyGroupRange.of(5, 5), KeyGroupRange.of(6, 15)), assignment.getKeyGroupRanges());
+
+		for (int keyGroup = 0; keyGroup < 16; keyGroup++) {
+			int index = assignment.computeOperatorIndexForKeyGroup(keyGroup);
+			assertTrue(assignment.getKeyGroupRange(index).contains(keyGroup));
+		}
+
+		Object key = "key";
+		assertTrue(assignment.getKeyGroupRange(assignment.assignKeyToParallelOperator(key))
+			.contains(KeyGroupRangeAssignment.assignToKeyGroup(key, 16)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testEveryInstanceOwnsAKeyGroup() {
+		new KeyGroupAssignment(new int[] {0, 5, 5, 16});
+	}
+
+	@Test
+	public void testAssignmentsAreKeptInTheConfiguration() {
+		Configuration configuration = new Configuration();
+		KeyGroupAssignment assignment = new KeyGroupAssignment(new int[] {0, 10, 128});
+		KeyGroupAssignment outputAssignment = new KeyGroupAssignment(new int[] {0, 1, 2, 64});
+
+		assignment.writeTo(configuration);
+		outputAssignment.writeToOutput(configuration, 1);
+
+		assertEquals(assignment, KeyGroupAssignment.readFrom(configuration));
+		assertEquals(outputAssignment, KeyGroupAssignment.readFromOutput(configuration, 1));
+		assertNull(KeyGroupAssignment.readFromOutput(configuration, 0));
+
+		// the assignment is only used for its parallelism
+		assertEquals(KeyGroupRange.of(10, 127), KeyGroupAssignment.computeKeyGroupRangeForOperatorIndex(configuration, 128, 2, 1));
+		assertEquals(KeyGroupRange.of(43, 85), KeyGroupAssignment.computeKeyGroupRangeForOperatorIndex(configuration, 128, 3, 1));
+		assertEquals(
+			assignment.getKeyGroupRanges(),
+			StateAssignmentOperation.createKeyGroupPartitions(KeyGroupAssignment.readFrom(configuration), 128, 2));
+
+		KeyGroupAssignment.clear(configuration);
+		assertNull(KeyGroupAssignment.readFrom(configuration));
+		assertNull(KeyGroupAssignment.readFromOutput(configuration, 1));
+		assertEquals(KeyGroupRange.of(64, 127), KeyGroupAssignment.computeKeyGroupRangeForOperatorIndex(configuration, 128, 2, 1));
+	}
+
+	@Test
+	public void testHistogramsAreMerged() {
+		KeyGroupHistogram histogram = new KeyGroupHistogram(4);
+		histogram.add(1);
+		histogram.add(3);
+		histogram.add(3);
+
+		KeyGroupHistogram other = histogram.clone();
+		other.add(0);
+		histogram.merge(other);
+
+		assertTrue(Arrays.equals(new long[] {1, 2, 0, 4}, histogram.getLocalValue()));
+
+		histogram.resetLocal();
+		assertTrue(Arrays.equals(new long[4], histogram.getLocalValue()));
+	}
+}
@@ -21,6 +21,7 @@ package org.apache.flink.streaming.api.datastream;
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.annotation.Public;
 import org.apache.flink.annotation.PublicEvolving;
+import org.apache.flink.api.common.ExecutionConfig;
 import org.apache.flink.api.common.functions.AggregateFunction;
 import org.apache.flink.api.common.functions.FoldFunction;
 import org.apache.flink.api.common.functions.Function;
@@ -48,14 +49,19 @@ import org.apache.flink.streaming.api.functions.windowing.ReduceApplyProcessWind
 import org.apache.flink.streaming.api.functions.windowing.ReduceApplyWindowFunction;
 import org.apache.flink.streaming.api.functions.windowing.WindowFunction;
 import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
+import org.apache.flink.streaming.api.transformations.PartitionTransformation;
+import org.apache.flink.streaming.api.transformations.StreamTransformation;
 import org.apache.flink.streaming.api.windowing.assigners.BaseAlignedWindowAssigner;
 import org.apache.flink.streaming.api.windowing.assigners.MergingWindowAssigner;
 import org.apache.flink.streaming.api.windowing.assigners.WindowAssigner;
 import org.apache.flink.streaming.api.windowing.evictors.Evictor;
 import org.apache.flink.streaming.api.windowing.time.Time;
+import org.apache.flink.streaming.api.windowing.triggers.EventTimeTrigger;
 import org.apache.flink.streaming.api.windowing.triggers.Trigger;
 import org.apache.flink.streaming.api.windowing.windows.Window;
 import org.apache.flink.streaming.runtime.operators.windowing.EvictingWindowOperator;
+import org.apache.flink.streaming.runtime.operators.windowing.GeoLocalCombineOperator;
+import org.apache.flink.streaming.runtime.operators.windowing.PartialAggregate;
 import org.apache.flink.streaming.runtime.operators.windowing.WindowOperator;
 import org.apache.flink.streaming.runtime.operators.windowing.functions.InternalAggregateProcessWindowFunction;
 import org.apache.flink.streaming.runtime.operators.windowing.functions.InternalIterableProcessWindowFunction;
@@ -71,6 +77,8 @@ import org.apache.flink.util.Preconditions;
 import javax.annotation.Nullable;
 
 import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Collections;
 
 import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkNotNull;
@@ -272,6 +280,12 @@ public class WindowedStream<T, K, W extends Window> {
 		reduceFunction = input.getExecutionEnvironment().clean(reduceFunction);
 
 		final String opName = generateOperatorName(windowAssigner, trigger, evictor, reduceFunction, function);
+
+		if (isGeoLocalPreAggregationApplicable()) {
+			return preAggregateLocally(new ReduceAggregateFunction<>(reduceFunction), input.getType(),
+				new InternalSingleValueWindowFunction<>(function), opName, resultType);
+		}
+
 		KeySelector<T, K> keySel = input.getKeySelector();
 
 		OneInputStreamOperator<T, R> operator;
@@ -358,6 +372,12 @@ public class WindowedStream<T, K, W extends Window> {
 		reduceFunction = input.getExecutionEnvironment().clean(reduceFunction);
 
 		final String opName = generateOperatorName(windowAssigner, trigger, evictor, reduceFunction, function);
+
+		if (isGeoLocalPreAggregationApplicable()) {
+			return preAggregateLocally(new ReduceAggregateFunction<>(reduceFunction), input.getType(),
+				new InternalSingleValueProcessWindowFunction<>(function), opName, resultType);
+		}
+
 		KeySelector<T, K> keySel = input.getKeySelector();
 
 		OneInputStreamOperator<T, R> operator;
@@ -810,6 +830,12 @@ public class WindowedStream<T, K, W extends Window> {
 		aggregateFunction = input.getExecutionEnvironment().clean(aggregateFunction);
 
 		final String opName = generateOperatorName(windowAssigner, trigger, evictor, aggregateFunction, windowFunction);
+
+		if (isGeoLocalPreAggregationApplicable()) {
+			return preAggregateLocally(aggregateFunction, accumulatorType,
+				new InternalSingleValueWindowFunction<>(windowFunction), opName, resultType);
+		}
+
 		KeySelector<T, K> keySel = input.getKeySelector();
 
 		OneInputStreamOperator<T, R> operator;
@@ -962,6 +988,12 @@ public class WindowedStream<T, K, W extends Window> {
 		aggregateFunction = input.getExecutionEnvironment().clean(aggregateFunction);
 
 		final String opName = generateOperatorName(windowAssigner, trigger, evictor, aggregateFunction, windowFunction);
+
+		if (isGeoLocalPreAggregationApplicable()) {
+			return preAggregateLocally(aggregateFunction, accumulatorType,
+				new InternalSingleValueProcessWindowFunction<>(windowFunction), opName, resultType);
+		}
+
 		KeySelector<T, K> keySel = input.getKeySelector();
 
 		OneInputStreamOperator<T, R> operator;
@@ -1541,4 +1573,204 @@ public class WindowedStream<T, K, W extends Window> {
 	public TypeInformation<T> getInputType() {
 		return input.getType();
 	}
+
+	// ------------------------------------------------------------------------
+	//  Geo-local pre-aggregation
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Whether an aggregation of this stream can be split in a {@link GeoLocalCombineOperator} before the key
+	 * partitioning and a merge of the partial aggregates after it: the pre-aggregation is enabled, and the windows
+	 * are event time windows that don't merge and fire once, when the watermark passes their end.
+	 */
+	private boolean isGeoLocalPreAggregationApplicable() {
+		return getExecutionEnvironment().getConfig().isGeoLocalPreAggregationEnabled() &&
+			windowAssigner.isEventTime() &&
+			!(windowAssigner instanceof MergingWindowAssigner) &&
+			trigger instanceof EventTimeTrigger &&
+			evictor == null &&
+			lateDataOutputTag == null &&
+			input.getTransformation() instanceof PartitionTransformation;
+	}
+
+	/**
+	 * Chains a {@link GeoLocalCombineOperator} to the input of the key partitioning, and merges the partial
+	 * aggregates it emits in a window operator with the same windows, trigger and allowed lateness.
+	 */
+	private <ACC, V, R> SingleOutputStreamOperator<R> preAggregateLocally(
+			AggregateFunction<T, ACC, V> aggregateFunction,
+			TypeInformation<ACC> accumulatorType,
+			InternalWindowFunction<V, R, K, W> windowFunction,
+			String opName,
+			TypeInformation<R> resultType) {
+
+		ExecutionConfig config = getExecutionEnvironment().getConfig();
+		TypeSerializer<W> windowSerializer = windowAssigner.getWindowSerializer(config);
+		PartialAggregate.PartialAggregateTypeInfo<K, W, ACC> partialType =
+			new PartialAggregate.PartialAggregateTypeInfo<>(input.getKeyType(), windowSerializer, accumulatorType);
+
+		@SuppressWarnings("unchecked")
+		StreamTransformation<T> unkeyed = ((PartitionTransformation<T>) input.getTransformation()).getInput();
+
+		SingleOutputStreamOperator<PartialAggregate<K, W, ACC>> partials = new DataStream<>(getExecutionEnvironment(), unkeyed)
+			.transform(
+				"GeoLocalCombiner",
+				partialType,
+				new GeoLocalCombineOperator<>(
+					windowAssigner,
+					input.getKeySelector(),
+					aggregateFunction,
+					partialType.createSerializer(config),
+					config.getGeoLocalPreAggregationMaxPartials()))
+			// so that it is chained
+			.setParallelism(unkeyed.getParallelism());
+
+		KeyedStream<PartialAggregate<K, W, ACC>, K> keyedPartials =
+			new KeyedStream<>(partials, new PartialAggregateKeySelector<>(), input.getKeyType());
+
+		AggregatingStateDescriptor<PartialAggregate<K, W, ACC>, ACC, V> stateDesc = new AggregatingStateDescriptor<>("window-contents",
+			new PartialAggregateMergeFunction<>(aggregateFunction), accumulatorType.createSerializer(config));
+
+		// event time triggers don't look at the elements
+		@SuppressWarnings("unchecked")
+		Trigger<Object, ? super W> partialTrigger = (Trigger<Object, ? super W>) trigger;
+
+		OneInputStreamOperator<PartialAggregate<K, W, ACC>, R> operator = new WindowOperator<>(
+			new PartialAggregateWindowAssigner<>(windowAssigner),
+			windowSerializer,
+			keyedPartials.getKeySelector(),
+			input.getKeyType().createSerializer(config),
+			stateDesc,
+			windowFunction,
+			partialTrigger,
+			allowedLateness,
+			null);
+
+		return keyedPartials.transform(opName, resultType, operator);
+	}
+
+	/**
+	 * Assigns each partial aggregate to the window it was aggregated in.
+	 */
+	private static class PartialAggregateWindowAssigner<K, W extends Window, ACC> extends WindowAssigner<PartialAggregate<K, W, ACC>, W> {
+		private static final long serialVersionUID = 1L;
+
+		private final WindowAssigner<?, W> windowAssigner;
+
+		PartialAggregateWindowAssigner(WindowAssigner<?, W> windowAssigner) {
+			this.windowAssigner = windowAssigner;
+		}
+
+		@Override
+		public Collection<W> assignWindows(PartialAggregate<K, W, ACC> element, long timestamp, WindowAssignerContext context) {
+			return Collections.singletonList(element.getWindow());
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public Trigger<PartialAggregate<K, W, ACC>, W> getDefaultTrigger(StreamExecutionEnvironment env) {
+			return (Trigger<PartialAggregate<K, W, ACC>, W>) (Trigger<?, W>) windowAssigner.getDefaultTrigger(env);
+		}
+
+		@Override
+		public TypeSerializer<W> getWindowSerializer(ExecutionConfig executionConfig) {
+			return windowAssigner.getWindowSerializer(executionConfig);
+		}
+
+		@Override
+		public boolean isEventTime() {
+			return windowAssigner.isEventTime();
+		}
+
+		@Override
+		public String toString() {
+			return windowAssigner.toString();
+		}
+	}
+
+	/**
+	 * Aggregates partial aggregates by merging their accumulators.
+	 */
+	private static class PartialAggregateMergeFunction<T, K, W extends Window, ACC, V> implements AggregateFunction<PartialAggregate<K, W, ACC>, ACC, V> {
+		private static final long serialVersionUID = 1L;
+
+		private final AggregateFunction<T, ACC, V> aggregateFunction;
+
+		PartialAggregateMergeFunction(AggregateFunction<T, ACC, V> aggregateFunction) {
+			this.aggregateFunction = aggregateFunction;
+		}
+
+		@Override
+		public ACC createAccumulator() {
+			return aggregateFunction.createAccumulator();
+		}
+
+		@Override
+		public ACC add(PartialAggregate<K, W, ACC> value, ACC accumulator) {
+			return aggregateFunction.merge(value.getAccumulator(), accumulator);
+		}
+
+		@Override
+		public V getResult(ACC accumulator) {
+			return aggregateFunction.getResult(accumulator);
+		}
+
+		@Override
+		public ACC merge(ACC a, ACC b) {
+			return aggregateFunction.merge(a, b);
+		}
+	}
+
+	/**
+	 * Aggregates the records with a reduce function, the reduced record being both the accumulator and the result.
+	 * The accumulator of no record is null.
+	 */
+	private static class ReduceAggregateFunction<T> implements AggregateFunction<T, T, T> {
+		private static final long serialVersionUID = 1L;
+
+		private final ReduceFunction<T> reduceFunction;
+
+		ReduceAggregateFunction(ReduceFunction<T> reduceFunction) {
+			this.reduceFunction = reduceFunction;
+		}
+
+		@Override
+		public T createAccumulator() {
+			return null;
+		}
+
+		@Override
+		public T add(T value, T accumulator) {
+			return merge(accumulator, value);
+		}
+
+		@Override
+		public T getResult(T accumulator) {
+			return accumulator;
+		}
+
+		@Override
+		public T merge(T a, T b) {
+			if (a == null) {
+				return b;
+			}
+			if (b == null) {
+				return a;
+			}
+			try {
+				return reduceFunction.reduce(a, b);
+			} catch (Exception e) {
+				throw new RuntimeException("Could not reduce the partial aggregates.", e);
+			}
+		}
+	}
+
+	private static class PartialAggregateKeySelector<K, W extends Window, ACC> implements KeySelector<PartialAggregate<K, W, ACC>, K> {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public K getKey(PartialAggregate<K, W, ACC> value) {
+			return value.getKey();
+		}
+	}
 }
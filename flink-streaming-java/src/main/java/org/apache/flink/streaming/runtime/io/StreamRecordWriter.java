@@ -23,7 +23,10 @@ import org.apache.flink.runtime.io.network.api.writer.ChannelSelector;
 import org.apache.flink.runtime.io.network.api.writer.RecordWriter;
 import org.apache.flink.runtime.io.network.api.writer.ResultPartitionWriter;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
+import java.util.Arrays;
 
 import static org.apache.flink.util.Preconditions.checkArgument;
 
@@ -31,6 +34,9 @@ import static org.apache.flink.util.Preconditions.checkArgument;
  * This record writer keeps data in buffers at most for a certain timeout. It spawns a separate thread
  * that flushes the outputs in a defined interval, to make sure data does not linger in the buffers for too long.
  *
+ * <p>The channels can have timeouts of their own, see {@link ResultPartitionWriter#getSubpartitionBufferTimeouts()},
+ * e.g. to send fuller buffers over the channels to other geo locations.
+ *
  * @param <T> The type of elements written.
  */
 @Internal
@@ -43,6 +49,10 @@ public class StreamRecordWriter<T extends IOReadableWritable> extends RecordWrit
 	/** The thread that periodically flushes the output, to give an upper latency bound. */
 	private final OutputFlusher outputFlusher;
 
+	/** Whether each channel is flushed after every record, null if they all follow the writer's timeout. */
+	@Nullable
+	private final boolean[] flushAlwaysChannels;
+
 	/** The exception encountered in the flushing thread. */
 	private Throwable flusherException;
 
@@ -55,23 +65,63 @@ public class StreamRecordWriter<T extends IOReadableWritable> extends RecordWrit
 			ChannelSelector<T> channelSelector,
 			long timeout,
 			String taskName) {
-		super(writer, channelSelector, timeout == 0);
+		this(writer, channelSelector, timeout, taskName, writer.getSubpartitionBufferTimeouts());
+	}
+
+	/**
+	 * @param timeout the timeout of the channels without a timeout of their own
+	 * @param channelTimeouts the timeout of each channel, negative for the channels following the writer's
+	 * timeout, or null if they all follow it
+	 */
+	public StreamRecordWriter(
+			ResultPartitionWriter writer,
+			ChannelSelector<T> channelSelector,
+			long timeout,
+			String taskName,
+			@Nullable long[] channelTimeouts) {
+		super(writer, channelSelector, timeout == 0 && channelTimeouts == null);
 
 		checkArgument(timeout >= -1);
 
-		if (timeout == -1) {
-			outputFlusher = null;
-		}
-		else if (timeout == 0) {
-			outputFlusher = null;
+		String threadName = taskName == null ?
+			DEFAULT_OUTPUT_FLUSH_THREAD_NAME :
+			DEFAULT_OUTPUT_FLUSH_THREAD_NAME + " for " + taskName;
+
+		if (channelTimeouts == null) {
+			flushAlwaysChannels = null;
+
+			if (timeout == -1) {
+				outputFlusher = null;
+			}
+			else if (timeout == 0) {
+				outputFlusher = null;
+			}
+			else {
+				outputFlusher = new OutputFlusher(threadName, timeout, null);
+				outputFlusher.start();
+			}
 		}
 		else {
-			String threadName = taskName == null ?
-				DEFAULT_OUTPUT_FLUSH_THREAD_NAME :
-				DEFAULT_OUTPUT_FLUSH_THREAD_NAME + " for " + taskName;
+			checkArgument(channelTimeouts.length == writer.getNumberOfSubpartitions(),
+				"There must be a timeout for each channel");
+
+			long[] timeouts = new long[channelTimeouts.length];
+			flushAlwaysChannels = new boolean[channelTimeouts.length];
+			boolean anyPeriodicFlush = false;
 
-			outputFlusher = new OutputFlusher(threadName, timeout);
-			outputFlusher.start();
+			for (int i = 0; i < timeouts.length; i++) {
+				timeouts[i] = channelTimeouts[i] >= 0 ? channelTimeouts[i] : timeout;
+				flushAlwaysChannels[i] = timeouts[i] == 0;
+				anyPeriodicFlush |= timeouts[i] > 0;
+			}
+
+			if (anyPeriodicFlush) {
+				outputFlusher = new OutputFlusher(threadName, timeout, timeouts);
+				outputFlusher.start();
+			}
+			else {
+				outputFlusher = null;
+			}
 		}
 	}
 
@@ -93,6 +143,11 @@ public class StreamRecordWriter<T extends IOReadableWritable> extends RecordWrit
 		super.randomEmit(record);
 	}
 
+	@Override
+	protected boolean isFlushAlways(int targetChannel) {
+		return flushAlwaysChannels == null ? super.isFlushAlways(targetChannel) : flushAlwaysChannels[targetChannel];
+	}
+
 	/**
 	 * Closes the writer. This stops the flushing thread (if there is one).
 	 */
@@ -138,12 +193,20 @@ public class StreamRecordWriter<T extends IOReadableWritable> extends RecordWrit
 
 		private final long timeout;
 
+		/**
+		 * The flush interval of each channel, 0 or -1 for the channels not flushed periodically, or null if all the
+		 * channels are flushed with the writer's timeout.
+		 */
+		@Nullable
+		private final long[] channelTimeouts;
+
 		private volatile boolean running = true;
 
-		OutputFlusher(String name, long timeout) {
+		OutputFlusher(String name, long timeout, @Nullable long[] channelTimeouts) {
 			super(name);
 			setDaemon(true);
 			this.timeout = timeout;
+			this.channelTimeouts = channelTimeouts;
 		}
 
 		public void terminate() {
@@ -154,26 +217,70 @@ public class StreamRecordWriter<T extends IOReadableWritable> extends RecordWrit
 		@Override
 		public void run() {
 			try {
-				while (running) {
-					try {
-						Thread.sleep(timeout);
-					}
-					catch (InterruptedException e) {
-						// propagate this if we are still running, because it should not happen
-						// in that case
-						if (running) {
-							throw new Exception(e);
-						}
-					}
-
-					// any errors here should let the thread come to a halt and be
-					// recognized by the writer
-					flushAll();
+				if (channelTimeouts == null) {
+					flushAllPeriodically();
+				}
+				else {
+					flushChannelsPeriodically();
 				}
 			}
 			catch (Throwable t) {
 				notifyFlusherException(t);
 			}
 		}
+
+		private void flushAllPeriodically() throws Exception {
+			while (running) {
+				waitFor(timeout);
+
+				// any errors here should let the thread come to a halt and be
+				// recognized by the writer
+				flushAll();
+			}
+		}
+
+		private void flushChannelsPeriodically() throws Exception {
+			long now = currentTimeMillis();
+			long[] nextFlushes = new long[channelTimeouts.length];
+			Arrays.fill(nextFlushes, Long.MAX_VALUE);
+			for (int i = 0; i < channelTimeouts.length; i++) {
+				if (channelTimeouts[i] > 0) {
+					nextFlushes[i] = now + channelTimeouts[i];
+				}
+			}
+
+			while (running) {
+				long nextFlush = Long.MAX_VALUE;
+				for (long channelNextFlush : nextFlushes) {
+					nextFlush = Math.min(nextFlush, channelNextFlush);
+				}
+				waitFor(Math.max(1, nextFlush - now));
+
+				now = currentTimeMillis();
+				for (int i = 0; i < nextFlushes.length; i++) {
+					if (nextFlushes[i] <= now) {
+						targetPartition.flush(i);
+						nextFlushes[i] = now + channelTimeouts[i];
+					}
+				}
+			}
+		}
+
+		private void waitFor(long millis) throws Exception {
+			try {
+				Thread.sleep(millis);
+			}
+			catch (InterruptedException e) {
+				// propagate this if we are still running, because it should not happen
+				// in that case
+				if (running) {
+					throw new Exception(e);
+				}
+			}
+		}
+
+		private long currentTimeMillis() {
+			return System.nanoTime() / 1_000_000L;
+		}
 	}
 }
@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.runtime.operators.windowing;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.api.common.functions.AggregateFunction;
+import org.apache.flink.api.common.state.ListState;
+import org.apache.flink.api.common.state.ListStateDescriptor;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.runtime.state.StateInitializationContext;
+import org.apache.flink.runtime.state.StateSnapshotContext;
+import org.apache.flink.streaming.api.operators.AbstractStreamOperator;
+import org.apache.flink.streaming.api.operators.ChainingStrategy;
+import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
+import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.streaming.api.windowing.assigners.WindowAssigner;
+import org.apache.flink.streaming.api.windowing.windows.Window;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A combiner chained to the input of a keyed window aggregation, that aggregates the records of each key and window
+ * on the site they are produced at. Only the {@link PartialAggregate partial aggregates} are then shuffled to the
+ * subtasks owning the keys, where they are merged with {@link AggregateFunction#merge}.
+ *
+ * <p>The partial aggregates of a window are emitted, with the end of the window as timestamp, when the watermark
+ * passes the end of the window, before the watermark is forwarded, so that they reach the window operator in time.
+ * All the partial aggregates are emitted when there are more than the given maximum. Records of windows the
+ * watermark already passed are emitted right away, and are late at the window operator as they would be without the
+ * combiner.
+ *
+ * <p>The partial aggregates kept at a checkpoint are part of the operator state, so that the records aggregated
+ * before the checkpoint are not lost.
+ *
+ * @param <IN> The type of the input records
+ * @param <K> The type of the key
+ * @param <W> The type of the window
+ * @param <ACC> The type of the accumulator of the aggregate function
+ */
+@Internal
+public class GeoLocalCombineOperator<IN, K, W extends Window, ACC>
+		extends AbstractStreamOperator<PartialAggregate<K, W, ACC>>
+		implements OneInputStreamOperator<IN, PartialAggregate<K, W, ACC>> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final WindowAssigner<? super IN, W> windowAssigner;
+
+	private final KeySelector<IN, K> keySelector;
+
+	private final AggregateFunction<IN, ACC, ?> aggregateFunction;
+
+	private final TypeSerializer<PartialAggregate<K, W, ACC>> partialAggregateSerializer;
+
+	private final int maxPartials;
+
+	private transient Map<Tuple2<K, W>, ACC> partials;
+
+	private transient ListState<PartialAggregate<K, W, ACC>> partialsState;
+
+	private transient StreamRecord<PartialAggregate<K, W, ACC>> reuse;
+
+	private transient WindowAssigner.WindowAssignerContext windowAssignerContext;
+
+	private transient long currentWatermark;
+
+	public GeoLocalCombineOperator(
+			WindowAssigner<? super IN, W> windowAssigner,
+			KeySelector<IN, K> keySelector,
+			AggregateFunction<IN, ACC, ?> aggregateFunction,
+			TypeSerializer<PartialAggregate<K, W, ACC>> partialAggregateSerializer,
+			int maxPartials) {
+
+		checkArgument(maxPartials > 0, "The number of partial aggregates must be positive.");
+
+		this.windowAssigner = checkNotNull(windowAssigner);
+		this.keySelector = checkNotNull(keySelector);
+		this.aggregateFunction = checkNotNull(aggregateFunction);
+		this.partialAggregateSerializer = checkNotNull(partialAggregateSerializer);
+		this.maxPartials = maxPartials;
+
+		this.chainingStrategy = ChainingStrategy.ALWAYS;
+	}
+
+	@Override
+	public void initializeState(StateInitializationContext context) throws Exception {
+		super.initializeState(context);
+
+		partials = new HashMap<>();
+		partialsState = context.getOperatorStateStore().getListState(
+			new ListStateDescriptor<>("geo-local-partials", partialAggregateSerializer));
+
+		if (context.isRestored()) {
+			for (PartialAggregate<K, W, ACC> partial : partialsState.get()) {
+				partials.merge(Tuple2.of(partial.getKey(), partial.getWindow()), partial.getAccumulator(), aggregateFunction::merge);
+			}
+		}
+	}
+
+	@Override
+	public void open() throws Exception {
+		super.open();
+
+		reuse = new StreamRecord<>(null);
+		currentWatermark = Long.MIN_VALUE;
+		windowAssignerContext = new WindowAssigner.WindowAssignerContext() {
+			@Override
+			public long getCurrentProcessingTime() {
+				return getProcessingTimeService().getCurrentProcessingTime();
+			}
+		};
+	}
+
+	@Override
+	public void processElement(StreamRecord<IN> element) throws Exception {
+		IN value = element.getValue();
+		K key = keySelector.getKey(value);
+		long timestamp = element.hasTimestamp() ? element.getTimestamp() : Long.MIN_VALUE;
+
+		Collection<W> windows = windowAssigner.assignWindows(value, timestamp, windowAssignerContext);
+		for (W window : windows) {
+			if (window.maxTimestamp() <= currentWatermark) {
+				emit(key, window, aggregateFunction.add(value, aggregateFunction.createAccumulator()));
+			} else {
+				Tuple2<K, W> keyAndWindow = Tuple2.of(key, window);
+				ACC accumulator = partials.get(keyAndWindow);
+				if (accumulator == null) {
+					accumulator = aggregateFunction.createAccumulator();
+				}
+				partials.put(keyAndWindow, aggregateFunction.add(value, accumulator));
+			}
+		}
+
+		if (partials.size() >= maxPartials) {
+			flush(Long.MAX_VALUE);
+		}
+	}
+
+	@Override
+	public void processWatermark(Watermark mark) throws Exception {
+		currentWatermark = mark.getTimestamp();
+		flush(mark.getTimestamp());
+		super.processWatermark(mark);
+	}
+
+	@Override
+	public void snapshotState(StateSnapshotContext context) throws Exception {
+		super.snapshotState(context);
+
+		partialsState.clear();
+		for (Map.Entry<Tuple2<K, W>, ACC> partial : partials.entrySet()) {
+			partialsState.add(new PartialAggregate<>(partial.getKey().f0, partial.getKey().f1, partial.getValue()));
+		}
+	}
+
+	@Override
+	public void close() throws Exception {
+		flush(Long.MAX_VALUE);
+		super.close();
+	}
+
+	/**
+	 * Emits the partial aggregates of the windows ending at or before the given timestamp.
+	 */
+	private void flush(long maxTimestamp) {
+		Iterator<Map.Entry<Tuple2<K, W>, ACC>> iterator = partials.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<Tuple2<K, W>, ACC> partial = iterator.next();
+			if (partial.getKey().f1.maxTimestamp() <= maxTimestamp) {
+				emit(partial.getKey().f0, partial.getKey().f1, partial.getValue());
+				iterator.remove();
+			}
+		}
+	}
+
+	private void emit(K key, W window, ACC accumulator) {
+		output.collect(reuse.replace(new PartialAggregate<>(key, window, accumulator), window.maxTimestamp()));
+	}
+
+	@VisibleForTesting
+	int numberOfPartials() {
+		return partials.size();
+	}
+}
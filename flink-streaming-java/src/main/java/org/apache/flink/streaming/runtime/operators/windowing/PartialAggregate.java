@@ -0,0 +1,367 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.runtime.operators.windowing;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeutils.CompatibilityResult;
+import org.apache.flink.api.common.typeutils.CompatibilityUtil;
+import org.apache.flink.api.common.typeutils.CompositeTypeSerializerConfigSnapshot;
+import org.apache.flink.api.common.typeutils.TypeDeserializerAdapter;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.TypeSerializerConfigSnapshot;
+import org.apache.flink.api.common.typeutils.UnloadableDummyTypeSerializer;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.streaming.api.windowing.windows.Window;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The partial aggregate of the records of a key in a window, sent by a {@link GeoLocalCombineOperator} to the
+ * subtask owning the key.
+ *
+ * @param <K> The type of the key
+ * @param <W> The type of the window
+ * @param <ACC> The type of the accumulator of the aggregate function
+ */
+@Internal
+public final class PartialAggregate<K, W extends Window, ACC> {
+
+	private final K key;
+
+	private final W window;
+
+	private final ACC accumulator;
+
+	public PartialAggregate(K key, W window, ACC accumulator) {
+		this.key = key;
+		this.window = window;
+		this.accumulator = accumulator;
+	}
+
+	public K getKey() {
+		return key;
+	}
+
+	public W getWindow() {
+		return window;
+	}
+
+	public ACC getAccumulator() {
+		return accumulator;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		PartialAggregate<?, ?, ?> that = (PartialAggregate<?, ?, ?>) o;
+		return Objects.equals(key, that.key) &&
+			Objects.equals(window, that.window) &&
+			Objects.equals(accumulator, that.accumulator);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(key, window, accumulator);
+	}
+
+	@Override
+	public String toString() {
+		return "PartialAggregate{key=" + key + ", window=" + window + ", accumulator=" + accumulator + '}';
+	}
+
+	// ------------------------------------------------------------------------
+	//  Type information and serialization
+	// ------------------------------------------------------------------------
+
+	/**
+	 * The {@link TypeInformation} of a {@link PartialAggregate}. Windows have no type information of their own, so
+	 * the serializer of the window assigner is used.
+	 */
+	public static class PartialAggregateTypeInfo<K, W extends Window, ACC> extends TypeInformation<PartialAggregate<K, W, ACC>> {
+		private static final long serialVersionUID = 1L;
+
+		private final TypeInformation<K> keyType;
+		private final TypeSerializer<W> windowSerializer;
+		private final TypeInformation<ACC> accumulatorType;
+
+		public PartialAggregateTypeInfo(TypeInformation<K> keyType,
+				TypeSerializer<W> windowSerializer,
+				TypeInformation<ACC> accumulatorType) {
+			this.keyType = keyType;
+			this.windowSerializer = windowSerializer;
+			this.accumulatorType = accumulatorType;
+		}
+
+		@Override
+		public boolean isBasicType() {
+			return false;
+		}
+
+		@Override
+		public boolean isTupleType() {
+			return false;
+		}
+
+		@Override
+		public int getArity() {
+			return 3;
+		}
+
+		@Override
+		public int getTotalFields() {
+			return 3;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked, rawtypes")
+		public Class<PartialAggregate<K, W, ACC>> getTypeClass() {
+			return (Class) PartialAggregate.class;
+		}
+
+		@Override
+		public boolean isKeyType() {
+			return false;
+		}
+
+		@Override
+		public TypeSerializer<PartialAggregate<K, W, ACC>> createSerializer(ExecutionConfig config) {
+			return new PartialAggregateSerializer<>(
+				keyType.createSerializer(config),
+				windowSerializer.duplicate(),
+				accumulatorType.createSerializer(config));
+		}
+
+		@Override
+		public String toString() {
+			return "PartialAggregate<" + keyType + ", " + windowSerializer + ", " + accumulatorType + ">";
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj instanceof PartialAggregateTypeInfo) {
+				@SuppressWarnings("unchecked")
+				PartialAggregateTypeInfo<K, W, ACC> other = (PartialAggregateTypeInfo<K, W, ACC>) obj;
+
+				return other.canEqual(this) &&
+					keyType.equals(other.keyType) &&
+					windowSerializer.equals(other.windowSerializer) &&
+					accumulatorType.equals(other.accumulatorType);
+			} else {
+				return false;
+			}
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * (31 * keyType.hashCode() + windowSerializer.hashCode()) + accumulatorType.hashCode();
+		}
+
+		@Override
+		public boolean canEqual(Object obj) {
+			return obj instanceof PartialAggregateTypeInfo;
+		}
+	}
+
+	/**
+	 * The {@link TypeSerializer} of a {@link PartialAggregate}.
+	 */
+	public static class PartialAggregateSerializer<K, W extends Window, ACC> extends TypeSerializer<PartialAggregate<K, W, ACC>> {
+		private static final long serialVersionUID = 1L;
+
+		private final TypeSerializer<K> keySerializer;
+		private final TypeSerializer<W> windowSerializer;
+		private final TypeSerializer<ACC> accumulatorSerializer;
+
+		public PartialAggregateSerializer(TypeSerializer<K> keySerializer,
+				TypeSerializer<W> windowSerializer,
+				TypeSerializer<ACC> accumulatorSerializer) {
+			this.keySerializer = keySerializer;
+			this.windowSerializer = windowSerializer;
+			this.accumulatorSerializer = accumulatorSerializer;
+		}
+
+		@Override
+		public boolean isImmutableType() {
+			return false;
+		}
+
+		@Override
+		public TypeSerializer<PartialAggregate<K, W, ACC>> duplicate() {
+			return new PartialAggregateSerializer<>(
+				keySerializer.duplicate(),
+				windowSerializer.duplicate(),
+				accumulatorSerializer.duplicate());
+		}
+
+		@Override
+		public PartialAggregate<K, W, ACC> createInstance() {
+			return null;
+		}
+
+		@Override
+		public PartialAggregate<K, W, ACC> copy(PartialAggregate<K, W, ACC> from) {
+			return new PartialAggregate<>(
+				keySerializer.copy(from.getKey()),
+				windowSerializer.copy(from.getWindow()),
+				accumulatorSerializer.copy(from.getAccumulator()));
+		}
+
+		@Override
+		public PartialAggregate<K, W, ACC> copy(PartialAggregate<K, W, ACC> from, PartialAggregate<K, W, ACC> reuse) {
+			return copy(from);
+		}
+
+		@Override
+		public int getLength() {
+			return -1;
+		}
+
+		@Override
+		public void serialize(PartialAggregate<K, W, ACC> record, DataOutputView target) throws IOException {
+			keySerializer.serialize(record.getKey(), target);
+			windowSerializer.serialize(record.getWindow(), target);
+			accumulatorSerializer.serialize(record.getAccumulator(), target);
+		}
+
+		@Override
+		public PartialAggregate<K, W, ACC> deserialize(DataInputView source) throws IOException {
+			return new PartialAggregate<>(
+				keySerializer.deserialize(source),
+				windowSerializer.deserialize(source),
+				accumulatorSerializer.deserialize(source));
+		}
+
+		@Override
+		public PartialAggregate<K, W, ACC> deserialize(PartialAggregate<K, W, ACC> reuse, DataInputView source) throws IOException {
+			return deserialize(source);
+		}
+
+		@Override
+		public void copy(DataInputView source, DataOutputView target) throws IOException {
+			keySerializer.copy(source, target);
+			windowSerializer.copy(source, target);
+			accumulatorSerializer.copy(source, target);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * (31 * keySerializer.hashCode() + windowSerializer.hashCode()) + accumulatorSerializer.hashCode();
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public boolean equals(Object obj) {
+			if (obj instanceof PartialAggregateSerializer) {
+				PartialAggregateSerializer<K, W, ACC> other = (PartialAggregateSerializer<K, W, ACC>) obj;
+
+				return other.canEqual(this) &&
+					keySerializer.equals(other.keySerializer) &&
+					windowSerializer.equals(other.windowSerializer) &&
+					accumulatorSerializer.equals(other.accumulatorSerializer);
+			} else {
+				return false;
+			}
+		}
+
+		@Override
+		public boolean canEqual(Object obj) {
+			return obj instanceof PartialAggregateSerializer;
+		}
+
+		@Override
+		public TypeSerializerConfigSnapshot snapshotConfiguration() {
+			return new PartialAggregateSerializerConfigSnapshot<>(keySerializer, windowSerializer, accumulatorSerializer);
+		}
+
+		@Override
+		public CompatibilityResult<PartialAggregate<K, W, ACC>> ensureCompatibility(TypeSerializerConfigSnapshot configSnapshot) {
+			if (configSnapshot instanceof PartialAggregateSerializerConfigSnapshot) {
+				List<Tuple2<TypeSerializer<?>, TypeSerializerConfigSnapshot>> previousSerializersAndConfigs =
+					((PartialAggregateSerializerConfigSnapshot) configSnapshot).getNestedSerializersAndConfigs();
+
+				CompatibilityResult<K> keyCompatResult = CompatibilityUtil.resolveCompatibilityResult(
+					previousSerializersAndConfigs.get(0).f0,
+					UnloadableDummyTypeSerializer.class,
+					previousSerializersAndConfigs.get(0).f1,
+					keySerializer);
+
+				CompatibilityResult<W> windowCompatResult = CompatibilityUtil.resolveCompatibilityResult(
+					previousSerializersAndConfigs.get(1).f0,
+					UnloadableDummyTypeSerializer.class,
+					previousSerializersAndConfigs.get(1).f1,
+					windowSerializer);
+
+				CompatibilityResult<ACC> accumulatorCompatResult = CompatibilityUtil.resolveCompatibilityResult(
+					previousSerializersAndConfigs.get(2).f0,
+					UnloadableDummyTypeSerializer.class,
+					previousSerializersAndConfigs.get(2).f1,
+					accumulatorSerializer);
+
+				if (!keyCompatResult.isRequiresMigration() &&
+						!windowCompatResult.isRequiresMigration() &&
+						!accumulatorCompatResult.isRequiresMigration()) {
+					return CompatibilityResult.compatible();
+				} else if (keyCompatResult.getConvertDeserializer() != null &&
+						windowCompatResult.getConvertDeserializer() != null &&
+						accumulatorCompatResult.getConvertDeserializer() != null) {
+					return CompatibilityResult.requiresMigration(
+						new PartialAggregateSerializer<>(
+							new TypeDeserializerAdapter<>(keyCompatResult.getConvertDeserializer()),
+							new TypeDeserializerAdapter<>(windowCompatResult.getConvertDeserializer()),
+							new TypeDeserializerAdapter<>(accumulatorCompatResult.getConvertDeserializer())));
+				}
+			}
+
+			return CompatibilityResult.requiresMigration();
+		}
+	}
+
+	/**
+	 * The {@link TypeSerializerConfigSnapshot} for the {@link PartialAggregateSerializer}.
+	 */
+	public static class PartialAggregateSerializerConfigSnapshot<K, W extends Window, ACC> extends CompositeTypeSerializerConfigSnapshot {
+
+		private static final int VERSION = 1;
+
+		/** This empty nullary constructor is required for deserializing the configuration. */
+		public PartialAggregateSerializerConfigSnapshot() {}
+
+		public PartialAggregateSerializerConfigSnapshot(TypeSerializer<K> keySerializer,
+				TypeSerializer<W> windowSerializer,
+				TypeSerializer<ACC> accumulatorSerializer) {
+			super(keySerializer, windowSerializer, accumulatorSerializer);
+		}
+
+		@Override
+		public int getVersion() {
+			return VERSION;
+		}
+	}
+}
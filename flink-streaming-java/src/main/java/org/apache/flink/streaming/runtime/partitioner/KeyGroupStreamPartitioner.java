@@ -20,10 +20,14 @@ package org.apache.flink.streaming.runtime.partitioner;
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.api.java.functions.KeySelector;
 import org.apache.flink.runtime.plugable.SerializationDelegate;
+import org.apache.flink.runtime.state.KeyGroupAssignment;
+import org.apache.flink.runtime.state.KeyGroupHistogram;
 import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 import org.apache.flink.util.Preconditions;
 
+import javax.annotation.Nullable;
+
 /**
  * Partitioner selects the target channel based on the key group index.
  *
@@ -39,6 +43,14 @@ public class KeyGroupStreamPartitioner<T, K> extends StreamPartitioner<T> implem
 
 	private int maxParallelism;
 
+	/** The key-group ranges of the target channels, null for ranges of equal size. */
+	@Nullable
+	private transient KeyGroupAssignment keyGroupAssignment;
+
+	/** The records written to each key-group, null if they are not counted. */
+	@Nullable
+	private transient KeyGroupHistogram keyGroupHistogram;
+
 	public KeyGroupStreamPartitioner(KeySelector<T, K> keySelector, int maxParallelism) {
 		Preconditions.checkArgument(maxParallelism > 0, "Number of key-groups must be > 0!");
 		this.keySelector = Preconditions.checkNotNull(keySelector);
@@ -60,10 +72,35 @@ public class KeyGroupStreamPartitioner<T, K> extends StreamPartitioner<T> implem
 		} catch (Exception e) {
 			throw new RuntimeException("Could not extract key from " + record.getInstance().getValue(), e);
 		}
-		returnArray[0] = KeyGroupRangeAssignment.assignKeyToParallelOperator(key, maxParallelism, numberOfOutputChannels);
+		int keyGroup = KeyGroupRangeAssignment.assignToKeyGroup(key, maxParallelism);
+		if (keyGroupHistogram != null) {
+			keyGroupHistogram.add(keyGroup);
+		}
+		returnArray[0] = keyGroupAssignment != null ?
+			keyGroupAssignment.computeOperatorIndexForKeyGroup(keyGroup) :
+			KeyGroupRangeAssignment.computeOperatorIndexForKeyGroup(maxParallelism, numberOfOutputChannels, keyGroup);
 		return returnArray;
 	}
 
+	/**
+	 * Routes the key-groups to the channels by the given ranges, which must match the number of key-groups and of
+	 * channels, instead of ranges of equal size.
+	 */
+	public void setKeyGroupAssignment(@Nullable KeyGroupAssignment keyGroupAssignment) {
+		Preconditions.checkArgument(keyGroupAssignment == null || keyGroupAssignment.getMaxParallelism() == maxParallelism,
+			"The key-group assignment doesn't match the number of key-groups");
+		this.keyGroupAssignment = keyGroupAssignment;
+	}
+
+	/**
+	 * Counts the records routed to each key-group in the given histogram.
+	 */
+	public void setKeyGroupHistogram(@Nullable KeyGroupHistogram keyGroupHistogram) {
+		Preconditions.checkArgument(keyGroupHistogram == null || keyGroupHistogram.getLocalValue().length == maxParallelism,
+			"The histogram doesn't match the number of key-groups");
+		this.keyGroupHistogram = keyGroupHistogram;
+	}
+
 	@Override
 	public StreamPartitioner<T> copy() {
 		return this;
@@ -21,6 +21,7 @@ import org.apache.flink.annotation.Internal;
 import org.apache.flink.annotation.VisibleForTesting;
 import org.apache.flink.api.common.TaskInfo;
 import org.apache.flink.api.common.accumulators.Accumulator;
+import org.apache.flink.configuration.Configuration;
 import org.apache.flink.configuration.TaskManagerOptions;
 import org.apache.flink.core.fs.CloseableRegistry;
 import org.apache.flink.core.fs.FileSystemSafetyNet;
@@ -37,6 +38,8 @@ import org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable;
 import org.apache.flink.runtime.plugable.SerializationDelegate;
 import org.apache.flink.runtime.state.CheckpointStorage;
 import org.apache.flink.runtime.state.CheckpointStreamFactory;
+import org.apache.flink.runtime.state.KeyGroupAssignment;
+import org.apache.flink.runtime.state.KeyGroupHistogram;
 import org.apache.flink.runtime.state.StateBackend;
 import org.apache.flink.runtime.state.StateBackendLoader;
 import org.apache.flink.runtime.state.TaskStateManager;
@@ -54,6 +57,7 @@ import org.apache.flink.streaming.api.operators.StreamTaskStateInitializerImpl;
 import org.apache.flink.streaming.runtime.io.RecordWriterOutput;
 import org.apache.flink.streaming.runtime.io.StreamRecordWriter;
 import org.apache.flink.streaming.runtime.partitioner.ConfigurableStreamPartitioner;
+import org.apache.flink.streaming.runtime.partitioner.KeyGroupStreamPartitioner;
 import org.apache.flink.streaming.runtime.partitioner.StreamPartitioner;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 import org.apache.flink.streaming.runtime.streamstatus.StreamStatusMaintainer;
@@ -1203,9 +1207,42 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 			}
 		}
 
+		if (outputPartitioner instanceof KeyGroupStreamPartitioner) {
+			configureKeyGroups((KeyGroupStreamPartitioner<?, ?>) outputPartitioner, outputIndex, bufferWriter, environment);
+		}
+
 		StreamRecordWriter<SerializationDelegate<StreamRecord<OUT>>> output =
 			new StreamRecordWriter<>(bufferWriter, outputPartitioner, bufferTimeout, taskName);
 		output.setMetricGroup(environment.getMetricGroup().getIOMetricGroup());
 		return output;
 	}
+
+	/**
+	 * Routes the key-groups of a keyed output by the key-group ranges of its consumer, if the geo placement of the job
+	 * set them, and counts the records written to each key-group if the JobManager samples them.
+	 */
+	private static void configureKeyGroups(
+			KeyGroupStreamPartitioner<?, ?> partitioner,
+			int outputIndex,
+			ResultPartitionWriter bufferWriter,
+			Environment environment) {
+		Configuration taskConfiguration = environment.getTaskConfiguration();
+
+		KeyGroupAssignment assignment = KeyGroupAssignment.readFromOutput(taskConfiguration, outputIndex);
+		if (assignment != null) {
+			if (assignment.getMaxParallelism() == partitioner.getMaxParallelism() &&
+					assignment.getParallelism() == bufferWriter.getNumberOfSubpartitions()) {
+				partitioner.setKeyGroupAssignment(assignment);
+			} else {
+				LOG.warn("Ignoring the key-group assignment {} of output {}, which has {} key-groups and {} channels.",
+					assignment, outputIndex, partitioner.getMaxParallelism(), bufferWriter.getNumberOfSubpartitions());
+			}
+		}
+
+		if (KeyGroupAssignment.isSampleKeyGroups(taskConfiguration)) {
+			KeyGroupHistogram histogram = new KeyGroupHistogram(partitioner.getMaxParallelism());
+			environment.getAccumulatorRegistry().getUserMap().put(KeyGroupHistogram.getAccumulatorName(outputIndex), histogram);
+			partitioner.setKeyGroupHistogram(histogram);
+		}
+	}
 }
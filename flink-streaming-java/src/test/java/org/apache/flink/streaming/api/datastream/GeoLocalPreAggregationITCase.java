@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.datastream;
+
+import org.apache.flink.api.common.functions.AggregateFunction;
+import org.apache.flink.api.common.functions.MapFunction;
+import org.apache.flink.api.common.functions.ReduceFunction;
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.api.java.tuple.Tuple3;
+import org.apache.flink.streaming.api.TimeCharacteristic;
+import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
+import org.apache.flink.streaming.api.functions.sink.SinkFunction;
+import org.apache.flink.streaming.api.functions.timestamps.AscendingTimestampExtractor;
+import org.apache.flink.streaming.api.functions.windowing.ProcessWindowFunction;
+import org.apache.flink.streaming.api.windowing.assigners.SlidingEventTimeWindows;
+import org.apache.flink.streaming.api.windowing.assigners.TumblingEventTimeWindows;
+import org.apache.flink.streaming.api.windowing.time.Time;
+import org.apache.flink.streaming.api.windowing.windows.TimeWindow;
+import org.apache.flink.util.Collector;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Checks that the geo-local pre-aggregation of keyed window aggregations and reductions doesn't change their results.
+ */
+@SuppressWarnings("serial")
+public class GeoLocalPreAggregationITCase {
+
+	private static final int PARALLELISM = 3;
+
+	private static final int NUM_RECORDS = 3000;
+
+	private static final List<String> RESULTS = Collections.synchronizedList(new ArrayList<>());
+
+	@Test
+	public void reduceGivesTheSameResults() throws Exception {
+		assertSameResults(env -> source(env)
+			.keyBy(new FirstFieldKeySelector())
+			.window(TumblingEventTimeWindows.of(Time.milliseconds(100)))
+			.reduce(new SumReducer())
+			.map(new ToStringMapper<>()));
+	}
+
+	@Test
+	public void reduceWithProcessWindowFunctionGivesTheSameResults() throws Exception {
+		assertSameResults(env -> source(env)
+			.keyBy(new FirstFieldKeySelector())
+			.window(SlidingEventTimeWindows.of(Time.milliseconds(100), Time.milliseconds(50)))
+			.reduce(new SumReducer(), new WindowEndFunction())
+			.map(new ToStringMapper<>()));
+	}
+
+	@Test
+	public void aggregateGivesTheSameResults() throws Exception {
+		assertSameResults(env -> source(env)
+			.keyBy(new FirstFieldKeySelector())
+			.window(TumblingEventTimeWindows.of(Time.milliseconds(100)))
+			.aggregate(new SumAggregator())
+			.map(new ToStringMapper<>()));
+	}
+
+	private static void assertSameResults(JobFactory job) throws Exception {
+		List<String> withoutPreAggregation = run(job, false);
+		List<String> withPreAggregation = run(job, true);
+
+		assertFalse(withoutPreAggregation.isEmpty());
+		assertEquals(withoutPreAggregation, withPreAggregation);
+	}
+
+	private static List<String> run(JobFactory job, boolean preAggregate) throws Exception {
+		StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
+		env.setParallelism(PARALLELISM);
+		env.setStreamTimeCharacteristic(TimeCharacteristic.EventTime);
+		if (preAggregate) {
+			env.getConfig().enableGeoLocalPreAggregation(16);
+		} else {
+			env.getConfig().disableGeoLocalPreAggregation();
+		}
+
+		RESULTS.clear();
+		job.create(env).addSink(new CollectingSink());
+		env.execute();
+
+		List<String> results = new ArrayList<>(RESULTS);
+		Collections.sort(results);
+		return results;
+	}
+
+	/**
+	 * Records of 7 keys, with ascending timestamps in each parallel subtask.
+	 */
+	private static DataStream<Tuple2<String, Long>> source(StreamExecutionEnvironment env) {
+		return env.generateSequence(0, NUM_RECORDS - 1)
+			.map(new MapFunction<Long, Tuple2<String, Long>>() {
+				@Override
+				public Tuple2<String, Long> map(Long value) {
+					return Tuple2.of("key" + value % 7, value);
+				}
+			})
+			.assignTimestampsAndWatermarks(new AscendingTimestampExtractor<Tuple2<String, Long>>() {
+				@Override
+				public long extractAscendingTimestamp(Tuple2<String, Long> element) {
+					return element.f1;
+				}
+			});
+	}
+
+	private interface JobFactory {
+		DataStream<String> create(StreamExecutionEnvironment env);
+	}
+
+	private static class FirstFieldKeySelector implements KeySelector<Tuple2<String, Long>, String> {
+		@Override
+		public String getKey(Tuple2<String, Long> value) {
+			return value.f0;
+		}
+	}
+
+	private static class SumReducer implements ReduceFunction<Tuple2<String, Long>> {
+		@Override
+		public Tuple2<String, Long> reduce(Tuple2<String, Long> value1, Tuple2<String, Long> value2) {
+			return Tuple2.of(value1.f0, value1.f1 + value2.f1);
+		}
+	}
+
+	private static class SumAggregator implements AggregateFunction<Tuple2<String, Long>, Tuple2<String, Long>, Tuple2<String, Long>> {
+		@Override
+		public Tuple2<String, Long> createAccumulator() {
+			return Tuple2.of("", 0L);
+		}
+
+		@Override
+		public Tuple2<String, Long> add(Tuple2<String, Long> value, Tuple2<String, Long> accumulator) {
+			return Tuple2.of(value.f0, value.f1 + accumulator.f1);
+		}
+
+		@Override
+		public Tuple2<String, Long> getResult(Tuple2<String, Long> accumulator) {
+			return accumulator;
+		}
+
+		@Override
+		public Tuple2<String, Long> merge(Tuple2<String, Long> a, Tuple2<String, Long> b) {
+			return Tuple2.of(a.f0.isEmpty() ? b.f0 : a.f0, a.f1 + b.f1);
+		}
+	}
+
+	private static class WindowEndFunction extends ProcessWindowFunction<Tuple2<String, Long>, Tuple3<String, Long, Long>, String, TimeWindow> {
+		@Override
+		public void process(String key, Context context, Iterable<Tuple2<String, Long>> elements, Collector<Tuple3<String, Long, Long>> out) {
+			for (Tuple2<String, Long> element : elements) {
+				out.collect(Tuple3.of(key, context.window().getEnd(), element.f1));
+			}
+		}
+	}
+
+	private static class ToStringMapper<T> implements MapFunction<T, String> {
+		@Override
+		public String map(T value) {
+			return value.toString();
+		}
+	}
+
+	private static class CollectingSink implements SinkFunction<String> {
+		@Override
+		public void invoke(String value, Context context) {
+			RESULTS.add(value);
+		}
+	}
+}
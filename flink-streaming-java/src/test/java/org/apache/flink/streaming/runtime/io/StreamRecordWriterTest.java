@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.runtime.io;
+
+import org.apache.flink.runtime.io.network.api.writer.ChannelSelector;
+import org.apache.flink.runtime.io.network.api.writer.ResultPartitionWriter;
+import org.apache.flink.runtime.io.network.buffer.BufferConsumer;
+import org.apache.flink.runtime.io.network.buffer.BufferProvider;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
+import org.apache.flink.runtime.io.network.util.TestPooledBufferProvider;
+import org.apache.flink.types.IntValue;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link StreamRecordWriter}.
+ */
+public class StreamRecordWriterTest {
+
+	private static final long TIMEOUT_MILLIS = 10_000;
+
+	/**
+	 * Tests that a channel with a timeout of 0 is flushed after every record, and that the other channels are flushed
+	 * with their own timeout, or not at all if they follow a writer's timeout of -1.
+	 */
+	@Test
+	public void testChannelsAreFlushedWithTheirOwnTimeouts() throws Exception {
+		FlushCountingPartitionWriter partitionWriter = new FlushCountingPartitionWriter(3);
+		TargetChannelSelector selector = new TargetChannelSelector();
+
+		StreamRecordWriter<IntValue> writer = new StreamRecordWriter<>(
+			partitionWriter, selector, -1, "test", new long[] {0, 20, -1});
+
+		try {
+			assertTrue(writer.isFlushAlways(0));
+			assertFalse(writer.isFlushAlways(1));
+			assertFalse(writer.isFlushAlways(2));
+
+			for (int i = 0; i < 5; i++) {
+				selector.channel = 0;
+				writer.emit(new IntValue(i));
+				assertEquals(i + 1, partitionWriter.getFlushes(0));
+
+				selector.channel = 1;
+				writer.emit(new IntValue(i));
+				selector.channel = 2;
+				writer.emit(new IntValue(i));
+			}
+
+			// the flusher flushes the channel with a timeout periodically
+			long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+			while (partitionWriter.getFlushes(1) < 3 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(1);
+			}
+			assertTrue(partitionWriter.getFlushes(1) >= 3);
+
+			// and neither the channel flushed after every record, nor the one never flushed
+			assertEquals(5, partitionWriter.getFlushes(0));
+			assertEquals(0, partitionWriter.getFlushes(2));
+		}
+		finally {
+			writer.close();
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	private static class TargetChannelSelector implements ChannelSelector<IntValue> {
+
+		private volatile int channel;
+
+		@Override
+		public int[] selectChannels(IntValue record, int numChannels) {
+			return new int[] {channel};
+		}
+	}
+
+	/**
+	 * Partition writer that counts the flushes of each subpartition, and drops the buffers.
+	 */
+	private static class FlushCountingPartitionWriter implements ResultPartitionWriter {
+
+		private final BufferProvider bufferProvider = new TestPooledBufferProvider(Integer.MAX_VALUE);
+
+		private final ResultPartitionID partitionId = new ResultPartitionID();
+
+		private final AtomicIntegerArray flushes;
+
+		FlushCountingPartitionWriter(int numberOfSubpartitions) {
+			this.flushes = new AtomicIntegerArray(numberOfSubpartitions);
+		}
+
+		int getFlushes(int subpartitionIndex) {
+			return flushes.get(subpartitionIndex);
+		}
+
+		@Override
+		public BufferProvider getBufferProvider() {
+			return bufferProvider;
+		}
+
+		@Override
+		public ResultPartitionID getPartitionId() {
+			return partitionId;
+		}
+
+		@Override
+		public int getNumberOfSubpartitions() {
+			return flushes.length();
+		}
+
+		@Override
+		public int getNumTargetKeyGroups() {
+			return 1;
+		}
+
+		@Override
+		public void addBufferConsumer(BufferConsumer bufferConsumer, int subpartitionIndex) {
+			bufferConsumer.close();
+		}
+
+		@Override
+		public void flushAll() {
+			for (int i = 0; i < flushes.length(); i++) {
+				flushes.incrementAndGet(i);
+			}
+		}
+
+		@Override
+		public void flush(int subpartitionIndex) {
+			flushes.incrementAndGet(subpartitionIndex);
+		}
+	}
+}
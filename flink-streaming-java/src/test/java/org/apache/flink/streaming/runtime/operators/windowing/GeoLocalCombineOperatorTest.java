@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.runtime.operators.windowing;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.functions.AggregateFunction;
+import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.runtime.checkpoint.OperatorSubtaskState;
+import org.apache.flink.streaming.api.TimeCharacteristic;
+import org.apache.flink.streaming.api.datastream.DataStream;
+import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
+import org.apache.flink.streaming.api.transformations.OneInputTransformation;
+import org.apache.flink.streaming.api.transformations.PartitionTransformation;
+import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.streaming.api.windowing.assigners.TumblingEventTimeWindows;
+import org.apache.flink.streaming.api.windowing.time.Time;
+import org.apache.flink.streaming.api.windowing.windows.TimeWindow;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.util.OneInputStreamOperatorTestHarness;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link GeoLocalCombineOperator} and its translation from keyed window aggregations.
+ */
+public class GeoLocalCombineOperatorTest {
+
+	private static final TimeWindow FIRST_WINDOW = new TimeWindow(0, 10);
+	private static final TimeWindow SECOND_WINDOW = new TimeWindow(10, 20);
+
+	@Test
+	public void partialAggregatesAreEmittedBeforeTheWatermark() throws Exception {
+		OneInputStreamOperatorTestHarness<Tuple2<String, Integer>, PartialAggregate<String, TimeWindow, Integer>> testHarness =
+			createTestHarness(100);
+		testHarness.open();
+
+		testHarness.processElement(new StreamRecord<>(Tuple2.of("a", 1), 1));
+		testHarness.processElement(new StreamRecord<>(Tuple2.of("a", 2), 5));
+		testHarness.processElement(new StreamRecord<>(Tuple2.of("b", 3), 7));
+		testHarness.processElement(new StreamRecord<>(Tuple2.of("a", 4), 12));
+		assertTrue(testHarness.getOutput().isEmpty());
+
+		testHarness.processWatermark(new Watermark(9));
+
+		List<Object> output = new ArrayList<>(testHarness.getOutput());
+		assertEquals(3, output.size());
+		Set<Object> partials = new HashSet<>(output.subList(0, 2));
+		assertTrue(partials.contains(new StreamRecord<>(new PartialAggregate<>("a", FIRST_WINDOW, 3), 9)));
+		assertTrue(partials.contains(new StreamRecord<>(new PartialAggregate<>("b", FIRST_WINDOW, 3), 9)));
+		assertEquals(new Watermark(9), output.get(2));
+		testHarness.getOutput().clear();
+
+		// late records are not held back
+		testHarness.processElement(new StreamRecord<>(Tuple2.of("b", 5), 8));
+		assertEquals(new StreamRecord<>(new PartialAggregate<>("b", FIRST_WINDOW, 5), 9), testHarness.getOutput().poll());
+
+		testHarness.close();
+	}
+
+	@Test
+	public void partialAggregatesAreFlushedWhenTooMany() throws Exception {
+		OneInputStreamOperatorTestHarness<Tuple2<String, Integer>, PartialAggregate<String, TimeWindow, Integer>> testHarness =
+			createTestHarness(2);
+		testHarness.open();
+
+		testHarness.processElement(new StreamRecord<>(Tuple2.of("a", 1), 1));
+		testHarness.processElement(new StreamRecord<>(Tuple2.of("a", 1), 2));
+		assertTrue(testHarness.getOutput().isEmpty());
+
+		testHarness.processElement(new StreamRecord<>(Tuple2.of("b", 1), 11));
+		assertEquals(2, testHarness.getOutput().size());
+
+		testHarness.close();
+	}
+
+	@Test
+	public void partialAggregatesAreRestored() throws Exception {
+		OneInputStreamOperatorTestHarness<Tuple2<String, Integer>, PartialAggregate<String, TimeWindow, Integer>> testHarness =
+			createTestHarness(100);
+		testHarness.open();
+
+		testHarness.processElement(new StreamRecord<>(Tuple2.of("a", 1), 1));
+		testHarness.processElement(new StreamRecord<>(Tuple2.of("a", 2), 15));
+
+		OperatorSubtaskState snapshot = testHarness.snapshot(0, 0);
+		testHarness.close();
+
+		testHarness = createTestHarness(100);
+		testHarness.initializeState(snapshot);
+		testHarness.open();
+
+		testHarness.processElement(new StreamRecord<>(Tuple2.of("a", 3), 3));
+		testHarness.processWatermark(new Watermark(19));
+
+		Set<Object> output = new HashSet<>(testHarness.getOutput());
+		assertTrue(output.contains(new StreamRecord<>(new PartialAggregate<>("a", FIRST_WINDOW, 4), 9)));
+		assertTrue(output.contains(new StreamRecord<>(new PartialAggregate<>("a", SECOND_WINDOW, 2), 19)));
+
+		testHarness.close();
+	}
+
+	@Test
+	public void combinerIsChainedBeforeTheKeyPartitioning() {
+		StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
+		env.setStreamTimeCharacteristic(TimeCharacteristic.EventTime);
+		env.getConfig().enableGeoLocalPreAggregation();
+
+		DataStream<Tuple2<String, Integer>> source = env.fromElements(Tuple2.of("a", 1), Tuple2.of("b", 2));
+
+		DataStream<Integer> window = source
+			.keyBy(new TupleKeySelector())
+			.window(TumblingEventTimeWindows.of(Time.milliseconds(10)))
+			.aggregate(new SumAggregator());
+
+		OneInputTransformation<?, ?> windowTransform = (OneInputTransformation<?, ?>) window.getTransformation();
+		assertTrue(windowTransform.getOperator() instanceof WindowOperator);
+
+		PartitionTransformation<?> partitionTransform = (PartitionTransformation<?>) windowTransform.getInput();
+		OneInputTransformation<?, ?> combinerTransform = (OneInputTransformation<?, ?>) partitionTransform.getInput();
+		assertTrue(combinerTransform.getOperator() instanceof GeoLocalCombineOperator);
+		assertEquals(source.getTransformation(), combinerTransform.getInput());
+		assertEquals(source.getParallelism(), combinerTransform.getParallelism());
+	}
+
+	private static OneInputStreamOperatorTestHarness<Tuple2<String, Integer>, PartialAggregate<String, TimeWindow, Integer>> createTestHarness(
+			int maxPartials) throws Exception {
+		ExecutionConfig config = new ExecutionConfig();
+		TumblingEventTimeWindows windowAssigner = TumblingEventTimeWindows.of(Time.milliseconds(10));
+
+		PartialAggregate.PartialAggregateTypeInfo<String, TimeWindow, Integer> partialType =
+			new PartialAggregate.PartialAggregateTypeInfo<>(
+				BasicTypeInfo.STRING_TYPE_INFO,
+				windowAssigner.getWindowSerializer(config),
+				BasicTypeInfo.INT_TYPE_INFO);
+
+		OneInputStreamOperatorTestHarness<Tuple2<String, Integer>, PartialAggregate<String, TimeWindow, Integer>> testHarness =
+			new OneInputStreamOperatorTestHarness<>(new GeoLocalCombineOperator<>(
+				windowAssigner,
+				new TupleKeySelector(),
+				new SumAggregator(),
+				partialType.createSerializer(config),
+				maxPartials));
+		testHarness.setup(partialType.createSerializer(config));
+		return testHarness;
+	}
+
+	private static class TupleKeySelector implements KeySelector<Tuple2<String, Integer>, String> {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public String getKey(Tuple2<String, Integer> value) {
+			return value.f0;
+		}
+	}
+
+	private static class SumAggregator implements AggregateFunction<Tuple2<String, Integer>, Integer, Integer> {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Integer createAccumulator() {
+			return 0;
+		}
+
+		@Override
+		public Integer add(Tuple2<String, Integer> value, Integer accumulator) {
+			return accumulator + value.f1;
+		}
+
+		@Override
+		public Integer getResult(Integer accumulator) {
+			return accumulator;
+		}
+
+		@Override
+		public Integer merge(Integer a, Integer b) {
+			return a + b;
+		}
+	}
+}